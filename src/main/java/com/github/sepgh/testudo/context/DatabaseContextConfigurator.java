@@ -3,7 +3,9 @@ package com.github.sepgh.testudo.context;
 import com.github.sepgh.testudo.exception.InternalOperationException;
 import com.github.sepgh.testudo.operation.*;
 import com.github.sepgh.testudo.scheme.Scheme;
+import com.github.sepgh.testudo.storage.db.DatabaseStorageCompactor;
 import com.github.sepgh.testudo.storage.db.DatabaseStorageManagerSingletonFactory;
+import com.github.sepgh.testudo.storage.db.DiskPageDatabaseStorageManager;
 import com.github.sepgh.testudo.storage.index.DefaultIndexStorageManagerSingletonFactory;
 import com.github.sepgh.testudo.storage.index.IndexStorageManagerSingletonFactory;
 import com.github.sepgh.testudo.storage.index.header.IndexHeaderManagerSingletonFactory;
@@ -25,6 +27,7 @@ public abstract class DatabaseContextConfigurator {
     private Scheme scheme;
     private DatabaseContext databaseContext;
     private ExecutorService executorService;
+    private DatabaseStorageCompactor databaseStorageCompactor;
 
     public EngineConfig engineConfig() {
         return EngineConfig.builder().build();
@@ -121,9 +124,24 @@ public abstract class DatabaseContextConfigurator {
         return new CollectionOperationFactory(getScheme(), collection, getCollectionIndexProviderFactory(), getDatabaseStorageManagerFactory());
     }
 
+    // Returns null if compaction is disabled, or the storage manager doesn't support it
+    protected DatabaseStorageCompactor databaseStorageCompactor() {
+        if (getEngineConfig().getDbCompactionInterval() <= 0 || !(getDatabaseStorageManagerFactory().getInstance() instanceof DiskPageDatabaseStorageManager storageManager)) {
+            return null;
+        }
+        return new DatabaseStorageCompactor(
+                storageManager,
+                new ClusterIndexObjectRelocator(getScheme(), getCollectionIndexProviderFactory(), storageManager),
+                getEngineConfig().getDbCompactionMaxLiveRatio(),
+                getEngineConfig().getDbCompactionInterval()
+        );
+    }
+
     public DatabaseContext databaseContext() {
-        if (databaseContext == null)
+        if (databaseContext == null) {
             this.databaseContext = new DefaultDatabaseContext(getScheme());
+            this.databaseStorageCompactor = databaseStorageCompactor();
+        }
         return this.databaseContext;
     }
 
@@ -156,15 +174,19 @@ public abstract class DatabaseContextConfigurator {
 
         @Override
         public void shutdownGracefully() {
+            if (databaseStorageCompactor != null) {
+                databaseStorageCompactor.close();
+            }
             for (Scheme.Collection collection : getScheme().getCollections()) {
                 ReaderWriterLockPool.getInstance().getReaderWriterLock(getScheme(), collection).getWriteLock().lock();
             }
+            // Storage manager may still need to write back pages, so it's closed before the file handlers
+            getDatabaseStorageManagerFactory().getInstance().close();
             try {
                 getFileHandlerPoolFactory().getInstance().closeAll();
             } catch (InternalOperationException e) {
                 logger.error("failed to close file handler instance", e);
             }
-            getDatabaseStorageManagerFactory().getInstance().close();
             getThreadPool().shutdownNow();
         }
     }
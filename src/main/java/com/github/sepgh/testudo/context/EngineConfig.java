@@ -13,6 +13,7 @@ import java.util.concurrent.TimeUnit;
 @AllArgsConstructor
 public class EngineConfig {
     public static int UNLIMITED_FILE_SIZE = -1;
+    public static int DIRECT_IO_ALIGNMENT = 4096;  // in bytes, buffers, positions and lengths of direct I/O are aligned to it
     @Builder.Default
     private final int bTreeDegree = 50;
     @Builder.Default
@@ -44,22 +45,120 @@ public class EngineConfig {
     @Builder.Default
     private int fileHandlerPoolThreads = 10;
     @Builder.Default
+    private FileIOStrategy fileIOStrategy = FileIOStrategy.ASYNCHRONOUS;
+    @Builder.Default
     private String baseDBPath = "/temp";
     @Builder.Default
     private int dbPageSize = 64000;  // Page size in bytes
     @Builder.Default
     private int dbPageBufferSize = 100;
     @Builder.Default
+    private int dbPageFrameArenaSize = 0;  // Number of off-heap page frames to reuse for pages, 0 disables the arena
+    @Builder.Default
+    private int dbReadAheadPages = 0;  // Number of data pages (and cluster index leaves) read ahead of sequential scans, 0 disables read-ahead
+    @Builder.Default
+    private PageBufferStrategy pageBufferStrategy = PageBufferStrategy.LRU;
+    @Builder.Default
     private long dbPageMaxFileSize = UNLIMITED_FILE_SIZE;
     @Builder.Default
+    private PageStorageStrategy pageStorageStrategy = PageStorageStrategy.FILE_CHANNEL;
+    @Builder.Default
+    private PageLayout pageLayout = PageLayout.APPEND;
+    @Builder.Default
+    private PageCompression pageCompression = PageCompression.NONE;
+    @Builder.Default
+    private int dbPageWriteAlignment = 0;  // in bytes, dirty ranges of pages are aligned to it on write. 0 means no alignment
+    @Builder.Default
+    private boolean dbDirectIO = false;  // data files are opened with O_DIRECT, needs a page size that is a multiple of DIRECT_IO_ALIGNMENT
+    @Builder.Default
+    private long dbCompactionInterval = 0;  // in milliseconds, between compaction of two pages. 0 disables compaction
+    @Builder.Default
+    private double dbCompactionMaxLiveRatio = 0.5;  // pages with less live bytes than this ratio of their size are compacted
+    @Builder.Default
     private ClusterKeyType clusterKeyType = ClusterKeyType.INT;
     @Builder.Default
     private int IMROTMinLengthToSplit = Integer.MAX_VALUE;
     @Builder.Default
     public RemovedObjectTrackingStrategy removedObjectTrackingStrategy = RemovedObjectTrackingStrategy.IN_MEMORY;
+    @Builder.Default
+    private PageCommitStrategy pageCommitStrategy = PageCommitStrategy.IMMEDIATE;
+    @Builder.Default
+    private long dbPageFlushInterval = 1000;  // in milliseconds, only used by WRITE_BACK page commit strategy
+    @Builder.Default
+    private Durability durability = Durability.NONE;
+    @Builder.Default
+    private long durabilityForceInterval = 1000;  // in milliseconds, only used by PERIODIC durability
+    @Builder.Default
+    private long walCheckpointInterval = 5000;  // in milliseconds
+    @Builder.Default
+    private long walMaxFileSize = 64L * 1024 * 1024;  // in bytes, a checkpoint is requested once the log is larger
 
+    /*
+     * IN_MEMORY:             removed object locations are lost on restart
+     * IN_MEMORY_SEGREGATED:  same as IN_MEMORY, but locations are kept in concurrent free lists per length
+     * DISK:                  removed object locations are kept in a free-space map file per chunk
+     */
     public enum RemovedObjectTrackingStrategy {
-        IN_MEMORY
+        IN_MEMORY, IN_MEMORY_SEGREGATED, DISK
+    }
+
+    /*
+     * LRU:     least recently used unreferenced pages are evicted, each access synchronizes on the buffer
+     * CLOCK:   fixed frames with CLOCK (second chance) eviction, buffer hits don't take a lock
+     * TWO_Q:   2Q replacement, pages have to be reused to get into the main LRU queue, so scans don't evict hot pages
+     */
+    public enum PageBufferStrategy {
+        LRU, CLOCK, TWO_Q
+    }
+
+    /*
+     * FILE_CHANNEL:    pages are read into heap buffers and written back through the file handler pool
+     * MEMORY_MAPPED:   pages are views over memory mapped regions of chunk files, can't be used with WRITE_AHEAD_LOG page
+     *                  commit strategy since the OS may write mapped pages back before their log records
+     */
+    public enum PageStorageStrategy {
+        FILE_CHANNEL, MEMORY_MAPPED
+    }
+
+    /*
+     * APPEND:      objects are appended to pages and addressed by their offset, removed objects are reused through the removed objects tracer.
+     *              Objects larger than a page are stored as overflow chains
+     * SLOTTED:     pages have a slot directory and objects are addressed by their slot, removed objects are reused within their page.
+     *              Pages are always read through the file channel, regardless of the page storage strategy.
+     *              Objects larger than a page are rejected, which also limits posting lists of duplicate indexes to a page
+     */
+    public enum PageLayout {
+        APPEND, SLOTTED
+    }
+
+    /*
+     * NONE:        pages are written to chunk files as they are
+     * DEFLATE:     pages are deflated when written and inflated when read into the page buffer, chunk files get a page
+     *              offset table next to them. Not used by MEMORY_MAPPED page storage strategy
+     */
+    public enum PageCompression {
+        NONE, DEFLATE
+    }
+
+    /*
+     * When written pages reach the disk rather than the OS page cache. Data and index files written through the file handler
+     * pool are tracked as dirty, and forced:
+     * NONE:        never, it's left to the OS (and to the checkpoints of WRITE_AHEAD_LOG commit strategy)
+     * PERIODIC:    by a background task every `durabilityForceInterval` milliseconds, and on close
+     * COMMIT:      before a page commit or a write of an index node returns. Concurrent commits to the same file are
+     *              coalesced into a single force
+     */
+    public enum Durability {
+        NONE, PERIODIC, COMMIT
+    }
+
+    /*
+     * IMMEDIATE:       pages are written on every store/update/remove
+     * WRITE_BACK:      pages are marked as dirty in page buffer and are written asynchronously (not crash safe)
+     * WRITE_AHEAD_LOG: changes are appended to a redo log and pages are written back on checkpoint
+     */
+    public enum PageCommitStrategy {
+        IMMEDIATE, WRITE_BACK, WRITE_AHEAD_LOG
     }
 
     @Getter
@@ -73,6 +172,14 @@ public class EngineConfig {
         LIMITED, UNLIMITED
     }
 
+    /*
+     * ASYNCHRONOUS:    file I/O is done by the threads of the file handler pool, and callers wait for it
+     * SYNCHRONOUS:     positional FileChannel I/O in the calling thread, pool threads are not used (callers may be virtual threads)
+     */
+    public enum FileIOStrategy {
+        ASYNCHRONOUS, SYNCHRONOUS
+    }
+
     public enum IndexIOSessionStrategy {
         IMMEDIATE, MEMORY_SNAPSHOT, RECOVERABLE_DISK_SNAPSHOT
     }
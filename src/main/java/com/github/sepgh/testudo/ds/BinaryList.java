@@ -9,7 +9,6 @@ import com.github.sepgh.testudo.index.DescendingBinaryListIterator;
 import com.github.sepgh.testudo.index.data.IndexBinaryObject;
 import com.github.sepgh.testudo.index.data.IndexBinaryObjectFactory;
 import com.github.sepgh.testudo.operation.query.Order;
-import com.github.sepgh.testudo.storage.db.DBObject;
 import com.github.sepgh.testudo.utils.BinaryUtils;
 import com.google.common.primitives.Ints;
 import lombok.Getter;
@@ -55,10 +54,6 @@ public class BinaryList<V extends Comparable<V>> {
         System.arraycopy(byteArray, 0, data, META_INDEX_END_CURSOR, byteArray.length);
     }
 
-    private int getDbObjectSize() {
-        return this.data.length + DBObject.META_BYTES;
-    }
-
 
     public boolean remove(V value) throws DeserializationException {
         int i = binarySearchMatching(value);
@@ -82,22 +77,20 @@ public class BinaryList<V extends Comparable<V>> {
 
 
     public boolean addNew(V v) throws InternalOperationException, DeserializationException {
-        // GROW BYTE[] IF POSSIBLE
+        // GROW BYTE[], lists larger than a page are stored as overflow chains
+        // Grows by half of its size, so the number of times a long list is grown and stored again stays small
         int lastItemIndex = getLastItemIndex();
         if (lastItemIndex == this.getNumberOfElements() - 1) {
-            if ((engineConfig.getDbPageSize()) > getDbObjectSize() + (5 * valueIndexBinaryObjectFactory.size())){
-                byte[] newData = new byte[getDbObjectSize() + (5 * valueIndexBinaryObjectFactory.size())];
-                System.arraycopy(
-                        this.data,
-                        0,
-                        newData,
-                        0,
-                        this.data.length
-                );
-                this.data = newData;
-            } else {
-                throw new InternalOperationException("No space left to add item. This will exceed the limit of DB Page size.");
-            }
+            int growth = Math.max(5, this.getNumberOfElements() / 2);
+            byte[] newData = new byte[this.data.length + (growth * valueIndexBinaryObjectFactory.size())];
+            System.arraycopy(
+                    this.data,
+                    0,
+                    newData,
+                    0,
+                    this.data.length
+            );
+            this.data = newData;
         }
 
         int i = binarySearchPosition(v);
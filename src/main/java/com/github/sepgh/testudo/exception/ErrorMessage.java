@@ -8,4 +8,12 @@ public interface ErrorMessage {
     String EM_FILE_ALLOCATION = "Failed to allocate space in file";
     String EM_FILE_READ_EMPTY = "Nothing available to read";
     String EM_INDEX_HEADER_MANAGEMENT = "Failed to manage index header";
+    String EM_INDEX_HEADER_VERSION = "Index header %s has version %d, which can't be read by this version (%d)";
+    String EM_INDEX_HEADER_LEGACY = "Index header %s is from before extents and stores each index in a single region per chunk, which can't be read as extents. Indexes have to be rebuilt";
+    String EM_INDEX_HEADER_EXTENTS = "Extents log %s lists extents of index %d, which the index header has no extent size for";
+    String EM_WAL_WRITE = "Failed to write to write-ahead log";
+    String EM_WAL_CHECKPOINT = "Failed to checkpoint write-ahead log";
+    String EM_WAL_RECOVERY = "Failed to recover from write-ahead log";
+    String EM_PAGE_DECODE = "Failed to decode page";
+    String EM_SUPERBLOCK_WRITE = "Failed to write storage superblock";
 }
@@ -0,0 +1,6 @@
+package com.github.sepgh.testudo.functional;
+
+@FunctionalInterface
+public interface CheckedConsumer<I, E extends Exception> {
+    void accept(I in) throws E;
+}
@@ -0,0 +1,9 @@
+package com.github.sepgh.testudo.functional;
+
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.storage.db.Page;
+
+@FunctionalInterface
+public interface PageWriter {
+    void write(Page page) throws InternalOperationException;
+}
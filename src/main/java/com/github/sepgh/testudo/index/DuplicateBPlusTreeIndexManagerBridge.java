@@ -18,6 +18,9 @@ import lombok.SneakyThrows;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
@@ -66,19 +69,19 @@ public class DuplicateBPlusTreeIndexManagerBridge<K extends Comparable<K>, V ext
                 throw new InternalOperationException("%s points to somewhere with no data. Database may be corrupted".formatted(pointer.toString()));
             }
             BinaryList<V> binaryList = new BinaryList<>(engineConfig, valueIndexBinaryObjectFactory, dbObjectOptional.get().getData());
+            byte[] previous = binaryList.getData().clone();
+            if (!binaryList.addNew(value)) {
+                return true;
+            }
 
-            int prevSize = binaryList.getData().length;
-            binaryList.addNew(value);
-            int afterSize = binaryList.getData().length;
-
-            if (afterSize == prevSize) {
-                databaseStorageManager.update(pointer, dbObject -> {
-                    dbObject.modifyData(binaryList.getData());
-                });
-            } else {
-                Pointer pointerNew = databaseStorageManager.store(SCHEME_ID, collectionId, -1, binaryList.getData());
+            // Besides the list meta, only values from where the new one went are changed, and the list may have grown.
+            // Large lists are then written from there on, and grown by appending to them, rather than stored again
+            byte[] data = binaryList.getData();
+            int mismatch = Arrays.mismatch(previous, BinaryList.META_SIZE, previous.length, data, BinaryList.META_SIZE, data.length);
+            int from = mismatch == -1 ? data.length : BinaryList.META_SIZE + mismatch;
+            Pointer pointerNew = databaseStorageManager.extend(SCHEME_ID, collectionId, -1, pointer, data, BinaryList.META_SIZE, from);
+            if (!pointerNew.equals(pointer)) {
                 indexManager.addOrUpdateIndex(identifier, pointerNew);
-                databaseStorageManager.remove(pointer);
             }
 
             return true;
@@ -220,12 +223,24 @@ public class DuplicateBPlusTreeIndexManagerBridge<K extends Comparable<K>, V ext
         return this.indexManager;
     }
 
+    // Lists are streamed in ascending order, as they are stored, large lists are then read a fragment at a time
+    private Optional<Iterator<V>> getStreamingIterator(Pointer pointer) throws InternalOperationException, IOException {
+        Optional<InputStream> inputStreamOptional = databaseStorageManager.openDataStream(pointer);
+        if (inputStreamOptional.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new StreamingBinaryListIterator<>(inputStreamOptional.get(), valueIndexBinaryObjectFactory));
+    }
+
     private Function<Pointer, Iterator<V>> getListIteratorFunction(Order order) {
         return pointer -> {
             Optional<DBObject> dbObjectOptional = null;
             try {
+                if (order == Order.ASC) {
+                    return getStreamingIterator(pointer).orElse(null);
+                }
                 dbObjectOptional = databaseStorageManager.select(pointer);
-            } catch (InternalOperationException e) {
+            } catch (InternalOperationException | IOException e) {
                 logger.error(e.getMessage(), e);
                 return null;
             }
@@ -241,8 +256,13 @@ public class DuplicateBPlusTreeIndexManagerBridge<K extends Comparable<K>, V ext
         return kPointer -> {
             Optional<DBObject> dbObjectOptional = null;
             try {
+                if (order == Order.ASC) {
+                    return getStreamingIterator(kPointer.value())
+                            .map(iterator -> IteratorUtils.modifyNext(iterator, v -> new KeyValue<>(kPointer.key(), v)))
+                            .orElse(null);
+                }
                 dbObjectOptional = databaseStorageManager.select(kPointer.value());
-            } catch (InternalOperationException e) {
+            } catch (InternalOperationException | IOException e) {
                 logger.error(e.getMessage(), e);
                 return null;
             }
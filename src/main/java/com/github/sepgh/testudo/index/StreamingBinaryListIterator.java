@@ -0,0 +1,58 @@
+package com.github.sepgh.testudo.index;
+
+import com.github.sepgh.testudo.ds.BinaryList;
+import com.github.sepgh.testudo.index.data.IndexBinaryObjectFactory;
+import com.github.sepgh.testudo.utils.BinaryUtils;
+import lombok.SneakyThrows;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+
+/*
+ * Iterates a binary list in ascending order while reading it from a stream, so lists stored as overflow chains are read
+ * a fragment at a time rather than assembled in memory. The stream is closed once the last value is read.
+ */
+public class StreamingBinaryListIterator<V extends Comparable<V>> implements Iterator<V> {
+    private final InputStream inputStream;
+    private final IndexBinaryObjectFactory<V> valueIndexBinaryObjectFactory;
+    private int remaining;
+
+    public StreamingBinaryListIterator(InputStream inputStream, IndexBinaryObjectFactory<V> valueIndexBinaryObjectFactory) throws IOException {
+        this.inputStream = inputStream;
+        this.valueIndexBinaryObjectFactory = valueIndexBinaryObjectFactory;
+        this.remaining = BinaryUtils.bytesToInteger(this.readNBytes(BinaryList.META_SIZE), BinaryList.META_INDEX_END_CURSOR) + 1;
+        if (this.remaining == 0) {
+            this.inputStream.close();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.remaining > 0;
+    }
+
+    @SneakyThrows
+    @Override
+    public V next() {
+        if (this.remaining == 0) {
+            throw new NoSuchElementException();
+        }
+
+        V next = this.valueIndexBinaryObjectFactory.create(this.readNBytes(this.valueIndexBinaryObjectFactory.size())).asObject();
+        if (--this.remaining == 0) {
+            this.inputStream.close();
+        }
+        return next;
+    }
+
+    private byte[] readNBytes(int length) throws IOException {
+        byte[] bytes = this.inputStream.readNBytes(length);
+        if (bytes.length < length) {
+            throw new IOException("Binary list ended %d bytes early".formatted(length - bytes.length));
+        }
+        return bytes;
+    }
+}
@@ -11,6 +11,7 @@ import com.github.sepgh.testudo.index.tree.node.AbstractTreeNode;
 import com.github.sepgh.testudo.index.tree.node.InternalTreeNode;
 import com.github.sepgh.testudo.storage.index.session.IndexIOSession;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
@@ -39,6 +40,8 @@ public class BPlusTreeIndexCreateOperation<K extends Comparable<K>, V> {
         K idForParentToStore = identifier;
         AbstractTreeNode<K> newChildForParent = null;
         AbstractTreeNode<K> answer = null;
+        /* nodes changed by splits, new ones are allocated beforehand so all of them are written together */
+        List<AbstractTreeNode<K>> batch = new ArrayList<>();
 
         for (int i = 0; i < path.size(); i++){
             AbstractTreeNode<K> currentNode = path.get(i);
@@ -62,11 +65,11 @@ public class BPlusTreeIndexCreateOperation<K extends Comparable<K>, V> {
                 AbstractLeafTreeNode<K, V> newSiblingLeafNode = new AbstractLeafTreeNode<>(indexIOSession.getIndexStorageManager().getEmptyNode(this.kvSize), kIndexBinaryObjectFactory, valueIndexBinaryObjectFactory);
                 List<KeyValue<K, V>> passingKeyValues = ((AbstractLeafTreeNode<K, V>) currentNode).addAndSplit(identifier, value, degree);
                 newSiblingLeafNode.setKeyValues(passingKeyValues, degree);
-                indexIOSession.write(newSiblingLeafNode); // we want the node to have a value so that we can fix siblings
+                indexIOSession.allocate(newSiblingLeafNode); // we want the node to have a pointer so that we can fix siblings
+                batch.add(newSiblingLeafNode);
+                batch.add(currentNode);
                 /* Fix sibling pointers */
-                fixSiblingPointers((AbstractLeafTreeNode<K, V>) currentNode, newSiblingLeafNode);
-                indexIOSession.write(newSiblingLeafNode);
-                indexIOSession.write(currentNode);
+                fixSiblingPointers((AbstractLeafTreeNode<K, V>) currentNode, newSiblingLeafNode, batch);
 
                 answer = currentNodeKeyList.contains(identifier) ? currentNode : newSiblingLeafNode;
 
@@ -82,8 +85,9 @@ public class BPlusTreeIndexCreateOperation<K extends Comparable<K>, V> {
                             degree,
                             false
                     );
-                    indexIOSession.write(newRoot);
-                    indexIOSession.write(currentNode);
+                    indexIOSession.allocate(newRoot);
+                    batch.add(newRoot);
+                    indexIOSession.writeAll(batch);
                     indexIOSession.commit();
                     return answer;
                 }
@@ -104,7 +108,8 @@ public class BPlusTreeIndexCreateOperation<K extends Comparable<K>, V> {
                     } else {
                         currentInternalTreeNode.addChildAtIndex(indexOfAddedKey + 1, newChildForParent.getPointer());
                     }
-                    indexIOSession.write(currentInternalTreeNode);
+                    batch.add(currentInternalTreeNode);
+                    indexIOSession.writeAll(batch);
                     indexIOSession.commit();
                     return answer;
                 }
@@ -118,7 +123,9 @@ public class BPlusTreeIndexCreateOperation<K extends Comparable<K>, V> {
 
                 InternalTreeNode<K> newInternalSibling = new InternalTreeNode<K>(indexIOSession.getIndexStorageManager().getEmptyNode(this.kvSize), kIndexBinaryObjectFactory);
                 newInternalSibling.setChildPointers(passingChildPointers, degree, false);
-                indexIOSession.write(newInternalSibling);
+                indexIOSession.allocate(newInternalSibling);
+                batch.add(newInternalSibling);
+                batch.add(currentInternalTreeNode);
 
                 // Current node was root and needs a new parent
                 if (currentInternalTreeNode.isRoot()){
@@ -133,12 +140,11 @@ public class BPlusTreeIndexCreateOperation<K extends Comparable<K>, V> {
                             degree,
                             false
                     );
-                    indexIOSession.write(newRoot);
-                    indexIOSession.write(currentInternalTreeNode);
+                    indexIOSession.allocate(newRoot);
+                    batch.add(newRoot);
+                    indexIOSession.writeAll(batch);
                     indexIOSession.commit();
                     return answer;
-                } else {
-                    indexIOSession.write(currentInternalTreeNode);
                 }
 
             }
@@ -147,7 +153,7 @@ public class BPlusTreeIndexCreateOperation<K extends Comparable<K>, V> {
         throw new InternalOperationException("Logic error: probably failed to store index?");
     }
 
-    private void fixSiblingPointers(AbstractLeafTreeNode<K, V> currentNode, AbstractLeafTreeNode<K, V> newLeafTreeNode) throws InternalOperationException {
+    private void fixSiblingPointers(AbstractLeafTreeNode<K, V> currentNode, AbstractLeafTreeNode<K, V> newLeafTreeNode, List<AbstractTreeNode<K>> batch) throws InternalOperationException {
         Optional<Pointer> currentNodeNextSiblingPointer = currentNode.getNextSiblingPointer(degree);
         currentNode.setNextSiblingPointer(newLeafTreeNode.getPointer(), degree);
         newLeafTreeNode.setPreviousSiblingPointer(currentNode.getPointer(), degree);
@@ -156,7 +162,7 @@ public class BPlusTreeIndexCreateOperation<K extends Comparable<K>, V> {
 
             AbstractLeafTreeNode<K, V> currentNextSibling = (AbstractLeafTreeNode<K, V>) indexIOSession.read(currentNodeNextSiblingPointer.get());
             currentNextSibling.setPreviousSiblingPointer(newLeafTreeNode.getPointer(), degree);
-            indexIOSession.write(currentNextSibling);
+            batch.add(currentNextSibling);
         }
     }
 
@@ -22,6 +22,7 @@ import com.github.sepgh.testudo.storage.index.session.IndexIOSessionFactory;
 import com.github.sepgh.testudo.utils.IteratorUtils;
 import com.github.sepgh.testudo.utils.LockableIterator;
 import com.google.common.base.Preconditions;
+import lombok.Setter;
 import lombok.SneakyThrows;
 
 import java.util.*;
@@ -36,6 +37,8 @@ public class BPlusTreeUniqueTreeIndexManager<K extends Comparable<K>, V> extends
     private final IndexBinaryObjectFactory<V> valueIndexBinaryObjectFactory;
     private final NodeFactory<K> nodeFactory;
     protected final KVSize kvSize;
+    @Setter
+    private int leafReadAhead = 0;  // Number of leaves read ahead of sorted iterators, 0 disables read-ahead
     public static final int PURGE_ITERATION_MULTIPLIER = 2;  // Todo: the `2` here is just an example. Make it configurable?
 
     public BPlusTreeUniqueTreeIndexManager(int index, int degree, IndexStorageManager indexStorageManager, IndexIOSessionFactory indexIOSessionFactory, IndexBinaryObjectFactory<K> keyIndexBinaryObjectFactory, IndexBinaryObjectFactory<V> valueIndexBinaryObjectFactory, NodeFactory<K> nodeFactory) {
@@ -154,8 +157,8 @@ public class BPlusTreeUniqueTreeIndexManager<K extends Comparable<K>, V> extends
         IndexIOSession<K> indexIOSession = this.indexIOSessionFactory.create(indexStorageManager, indexId, nodeFactory, kvSize);
 
         Iterator<KeyValue<K,V>> iterator = switch (order) {
-            case DESC -> BPlusTreeUtils.getDescendingIterator(indexIOSession, getRoot(indexIOSession), degree);
-            case ASC -> BPlusTreeUtils.getAscendingIterator(indexIOSession, getRoot(indexIOSession), degree);
+            case DESC -> BPlusTreeUtils.getDescendingIterator(indexIOSession, getRoot(indexIOSession), degree, leafReadAhead);
+            case ASC -> BPlusTreeUtils.getAscendingIterator(indexIOSession, getRoot(indexIOSession), degree, leafReadAhead);
         };
 
         return new LockableIterator<>() {
@@ -1,6 +1,7 @@
 package com.github.sepgh.testudo.index.tree;
 
 import com.github.sepgh.testudo.ds.KeyValue;
+import com.github.sepgh.testudo.ds.Pointer;
 import com.github.sepgh.testudo.exception.InternalOperationException;
 import com.github.sepgh.testudo.index.tree.node.AbstractLeafTreeNode;
 import com.github.sepgh.testudo.index.tree.node.AbstractTreeNode;
@@ -11,9 +12,10 @@ import com.github.sepgh.testudo.storage.index.IndexTreeNodeIO;
 import com.github.sepgh.testudo.storage.index.session.IndexIOSession;
 import lombok.SneakyThrows;
 
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 public class BPlusTreeUtils {
 
@@ -129,10 +131,16 @@ public class BPlusTreeUtils {
     }
 
     public static <K extends Comparable<K>, V> Iterator<KeyValue<K, V>> getAscendingIterator(IndexIOSession<K> indexIOSession, AbstractTreeNode<K> root, int degree) throws InternalOperationException {
+        return getAscendingIterator(indexIOSession, root, degree, 0);
+    }
+
+    // Next `readAhead` leaves are read in the background while the current one is iterated
+    public static <K extends Comparable<K>, V> Iterator<KeyValue<K, V>> getAscendingIterator(IndexIOSession<K> indexIOSession, AbstractTreeNode<K> root, int degree, int readAhead) throws InternalOperationException {
         return new Iterator<>() {
 
             private int keyIndex = 0;
             AbstractLeafTreeNode<K, V> currentLeaf = getFarLeftLeaf(indexIOSession, root);
+            private final LeafReadAhead<K, V> leafReadAhead = new LeafReadAhead<>(indexIOSession, currentLeaf, leaf -> leaf.getNextSiblingPointer(degree), readAhead);
 
             @Override
             public boolean hasNext() {
@@ -148,7 +156,7 @@ public class BPlusTreeUtils {
                 List<KeyValue<K, V>> keyValueList = currentLeaf.getKeyValueList(degree);
 
                 if (keyIndex == keyValueList.size()){
-                    currentLeaf = (AbstractLeafTreeNode<K, V>) indexIOSession.read(currentLeaf.getNextSiblingPointer(degree).get());
+                    currentLeaf = leafReadAhead.next(currentLeaf);
                     keyIndex = 0;
                     keyValueList = currentLeaf.getKeyValueList(degree);
                 }
@@ -161,10 +169,16 @@ public class BPlusTreeUtils {
     }
 
     public static <K extends Comparable<K>, V> Iterator<KeyValue<K, V>> getDescendingIterator(IndexIOSession<K> indexIOSession, AbstractTreeNode<K> root, int degree) throws InternalOperationException {
+        return getDescendingIterator(indexIOSession, root, degree, 0);
+    }
+
+    // Previous `readAhead` leaves are read in the background while the current one is iterated
+    public static <K extends Comparable<K>, V> Iterator<KeyValue<K, V>> getDescendingIterator(IndexIOSession<K> indexIOSession, AbstractTreeNode<K> root, int degree, int readAhead) throws InternalOperationException {
         return new Iterator<KeyValue<K, V>>() {
 
             private AbstractLeafTreeNode<K, V> currentLeaf = getFarRightLeaf(indexIOSession, root);
             private int keyIndex = currentLeaf.getKeyList(degree).size() - 1;
+            private final LeafReadAhead<K, V> leafReadAhead = new LeafReadAhead<>(indexIOSession, currentLeaf, leaf -> leaf.getPreviousSiblingPointer(degree), readAhead);
 
             @Override
             public boolean hasNext() {
@@ -180,7 +194,7 @@ public class BPlusTreeUtils {
                 List<KeyValue<K, V>> keyValueList = currentLeaf.getKeyValueList(degree);
 
                 if (keyIndex == -1){
-                    currentLeaf = (AbstractLeafTreeNode<K, V>) indexIOSession.read(currentLeaf.getPreviousSiblingPointer(degree).get());
+                    currentLeaf = leafReadAhead.next(currentLeaf);
                     keyIndex = currentLeaf.getKeyList(degree).size() - 1;
                     keyValueList = currentLeaf.getKeyValueList(degree);
                 }
@@ -192,5 +206,62 @@ public class BPlusTreeUtils {
         };
     }
 
+    /*
+     * Keeps reads of the following `window` leaves of a scan in flight. Each read is chained to the one before it, since
+     * only a leaf knows where its sibling is. Reads that are left when the scan is abandoned just complete on their own.
+     */
+    private static class LeafReadAhead<K extends Comparable<K>, V> {
+        private final IndexIOSession<K> indexIOSession;
+        private final Function<AbstractLeafTreeNode<K, V>, Optional<Pointer>> sibling;
+        private final int window;
+        private final Deque<CompletableFuture<AbstractLeafTreeNode<K, V>>> ahead = new ArrayDeque<>();
+
+        private LeafReadAhead(IndexIOSession<K> indexIOSession, AbstractLeafTreeNode<K, V> first, Function<AbstractLeafTreeNode<K, V>, Optional<Pointer>> sibling, int window) {
+            this.indexIOSession = indexIOSession;
+            this.sibling = sibling;
+            this.window = window;
+            this.fill(first);
+        }
+
+        // Sibling of `current`, which the caller made sure exists
+        @SuppressWarnings("unchecked")
+        private AbstractLeafTreeNode<K, V> next(AbstractLeafTreeNode<K, V> current) throws InternalOperationException {
+            AbstractLeafTreeNode<K, V> next = null;
+            CompletableFuture<AbstractLeafTreeNode<K, V>> future = this.ahead.poll();
+            if (future != null) {
+                try {
+                    next = future.join();
+                } catch (CompletionException e) {
+                    throw new InternalOperationException("Failed to read leaf ahead of scan", e.getCause());
+                }
+            }
+            // Nothing was read ahead, or the leaves were linked differently when they were
+            if (next == null || !next.getPointer().equals(this.sibling.apply(current).orElseThrow())) {
+                this.ahead.clear();
+                next = (AbstractLeafTreeNode<K, V>) this.indexIOSession.read(this.sibling.apply(current).orElseThrow());
+            }
+            this.fill(next);
+            return next;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void fill(AbstractLeafTreeNode<K, V> current) {
+            CompletableFuture<AbstractLeafTreeNode<K, V>> last = this.ahead.isEmpty() ? CompletableFuture.completedFuture(current) : this.ahead.getLast();
+            while (this.ahead.size() < this.window) {
+                last = last.thenCompose(leaf -> {
+                    Optional<Pointer> optionalPointer = leaf == null ? Optional.empty() : this.sibling.apply(leaf);
+                    if (optionalPointer.isEmpty()) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    try {
+                        return this.indexIOSession.readAsync(optionalPointer.get()).thenApply(node -> (AbstractLeafTreeNode<K, V>) node);
+                    } catch (InternalOperationException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+                this.ahead.add(last);
+            }
+        }
+    }
 
 }
@@ -0,0 +1,131 @@
+package com.github.sepgh.testudo.operation;
+
+import com.github.sepgh.testudo.ds.Pointer;
+import com.github.sepgh.testudo.exception.DeserializationException;
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.functional.CheckedFunction;
+import com.github.sepgh.testudo.index.UniqueQueryableIndex;
+import com.github.sepgh.testudo.index.UniqueTreeIndexManager;
+import com.github.sepgh.testudo.scheme.Scheme;
+import com.github.sepgh.testudo.serialization.CollectionSerializationUtil;
+import com.github.sepgh.testudo.storage.db.DatabaseStorageManager;
+import com.github.sepgh.testudo.storage.db.ObjectRelocator;
+import com.github.sepgh.testudo.utils.ReaderWriterLock;
+
+import java.util.Optional;
+
+
+/*
+ * Relocates objects of the collections of a scheme. Such objects are only referenced by the cluster index of their
+ * collection, since other indexes point to cluster ids.
+ *
+ * The cluster key of an object is looked up when the object is about to move: its primary key is read from the object
+ * and mapped to its cluster id through the primary index, which is then checked to point to the object in the cluster
+ * index. Objects of collections without a primary key are not known, and so they are left in place.
+ */
+public class ClusterIndexObjectRelocator implements ObjectRelocator {
+    private final Scheme scheme;
+    private final CollectionIndexProviderSingletonFactory collectionIndexProviderSingletonFactory;
+    private final DatabaseStorageManager storageManager;
+    private final ReaderWriterLockPool readerWriterLockPool = ReaderWriterLockPool.getInstance();
+
+    public ClusterIndexObjectRelocator(Scheme scheme, CollectionIndexProviderSingletonFactory collectionIndexProviderSingletonFactory, DatabaseStorageManager storageManager) {
+        this.scheme = scheme;
+        this.collectionIndexProviderSingletonFactory = collectionIndexProviderSingletonFactory;
+        this.storageManager = storageManager;
+    }
+
+    @Override
+    public boolean isKnown(int schemeId, int collectionId, Pointer pointer) throws InternalOperationException {
+        Optional<Scheme.Collection> optionalCollection = this.getCollection(schemeId, collectionId);
+        if (optionalCollection.isEmpty()) {
+            return false;
+        }
+
+        ReaderWriterLock readerWriterLock = this.readerWriterLockPool.getReaderWriterLock(this.scheme, optionalCollection.get());
+        readerWriterLock.getReadLock().lock();
+        try {
+            return this.getClusterKey(optionalCollection.get(), pointer).isPresent();
+        } finally {
+            readerWriterLock.getReadLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean relocate(int schemeId, int collectionId, Pointer pointer, CheckedFunction<Pointer, Pointer, InternalOperationException> mover) throws InternalOperationException {
+        Optional<Scheme.Collection> optionalCollection = this.getCollection(schemeId, collectionId);
+        if (optionalCollection.isEmpty()) {
+            return false;
+        }
+        return this.relocate(optionalCollection.get(), pointer, mover);
+    }
+
+    private <K extends Comparable<K>> boolean relocate(Scheme.Collection collection, Pointer pointer, CheckedFunction<Pointer, Pointer, InternalOperationException> mover) throws InternalOperationException {
+        ReaderWriterLock readerWriterLock = this.readerWriterLockPool.getReaderWriterLock(this.scheme, collection);
+        readerWriterLock.getWriteLock().lock();
+        try {
+            // Looked up again under the write lock, the object may have been changed since it was found to be known
+            Optional<K> optionalKey = this.getClusterKey(collection, pointer);
+            if (optionalKey.isEmpty()) {
+                return false;
+            }
+
+            Pointer newPointer = mover.apply(pointer);
+            UniqueTreeIndexManager<K, Pointer> clusterIndexManager = this.getClusterIndexManager(collection);
+            clusterIndexManager.addOrUpdateIndex(optionalKey.get(), newPointer);
+            return true;
+        } finally {
+            readerWriterLock.getWriteLock().unlock();
+        }
+    }
+
+    /*
+     * Returns the cluster key that points to the object at `pointer`, or empty if no cluster key does.
+     * Caller should be holding a lock of the collection.
+     */
+    @SuppressWarnings("unchecked")
+    private <K extends Comparable<K>, P extends Comparable<P>> Optional<K> getClusterKey(Scheme.Collection collection, Pointer pointer) throws InternalOperationException {
+        Optional<Scheme.Field> optionalPrimaryField = collection.getPrimaryField();
+        if (optionalPrimaryField.isEmpty()) {
+            return Optional.empty();
+        }
+        Scheme.Field primaryField = optionalPrimaryField.get();
+
+        Optional<P> optionalPrimaryKey;
+        try {
+            // Primary key is read in place, while the page of the object is pinned
+            optionalPrimaryKey = this.storageManager.select(pointer, dbObject ->
+                    dbObject.isAlive() ? Optional.of(CollectionSerializationUtil.<P>getValueOfFieldAsObject(collection, primaryField, dbObject)) : Optional.<P>empty()
+            ).flatMap(optional -> optional);
+        } catch (DeserializationException e) {
+            return Optional.empty();
+        }
+        if (optionalPrimaryKey.isEmpty()) {
+            return Optional.empty();
+        }
+
+        UniqueQueryableIndex<P, K> primaryIndexManager = (UniqueQueryableIndex<P, K>) this.collectionIndexProviderSingletonFactory.getInstance(collection).getUniqueIndexManager(primaryField);
+        Optional<K> optionalKey = primaryIndexManager.getIndex(optionalPrimaryKey.get());
+        if (optionalKey.isEmpty()) {
+            return Optional.empty();
+        }
+
+        UniqueTreeIndexManager<K, Pointer> clusterIndexManager = this.getClusterIndexManager(collection);
+        if (!clusterIndexManager.getIndex(optionalKey.get()).map(pointer::equals).orElse(false)) {
+            return Optional.empty();
+        }
+        return optionalKey;
+    }
+
+    private Optional<Scheme.Collection> getCollection(int schemeId, int collectionId) {
+        if (schemeId != this.scheme.getId()) {
+            return Optional.empty();
+        }
+        return this.scheme.getCollections().stream().filter(c -> c.getId() == collectionId).findFirst();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K extends Comparable<K>> UniqueTreeIndexManager<K, Pointer> getClusterIndexManager(Scheme.Collection collection) {
+        return (UniqueTreeIndexManager<K, Pointer>) this.collectionIndexProviderSingletonFactory.getInstance(collection).getClusterIndexManager();
+    }
+}
@@ -4,7 +4,15 @@ import com.github.sepgh.testudo.exception.DeserializationException;
 import com.github.sepgh.testudo.exception.InternalOperationException;
 import com.github.sepgh.testudo.exception.SerializationException;
 
+import java.util.List;
+
 public interface CollectionInsertOperation<T extends Number & Comparable<T>> {
     <V> V execute(V v) throws SerializationException, InternalOperationException, DeserializationException;
     byte[] execute(byte[] bytes) throws InternalOperationException, DeserializationException, SerializationException;
+
+    /*
+     * Inserts the objects as one batch, stored together in as few page writes as the storage manager allows.
+     * Objects before one that fails to be inserted stay inserted, the ones after it are not.
+     */
+    <V> List<V> executeAll(List<V> vs) throws SerializationException, InternalOperationException, DeserializationException;
 }
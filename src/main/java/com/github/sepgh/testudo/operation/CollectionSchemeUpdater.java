@@ -27,6 +27,10 @@ public class CollectionSchemeUpdater {
     private final DatabaseStorageManager databaseStorageManager;
     private final SchemeManager schemeManager;
     private static final int SCHEME_ID = -1;
+    private static final int RELOCATION_BATCH_SIZE = 64;
+
+    // Object that no longer fits its location, along with its new bytes, waiting to be stored with others of its batch
+    private record Relocation<K>(K key, Pointer pointer, byte[] bytes) {}
 
     public CollectionSchemeUpdater(
             DatabaseStorageManager databaseStorageManager,
@@ -59,6 +63,7 @@ public class CollectionSchemeUpdater {
         LockableIterator<? extends KeyValue<K, Pointer>> lockableIterator = clusterIndexManager.getSortedIterator(Order.DEFAULT);
 
         List<K> removedObjects = new ArrayList<>();
+        List<Relocation<K>> relocations = new ArrayList<>();
 
         lockableIterator.forEachRemaining(keyValue -> {
             Pointer pointer = keyValue.value();
@@ -98,18 +103,14 @@ public class CollectionSchemeUpdater {
                 } else {
                     dbObject.deactivate();
                     try {
-                        bytes = createNew(dbObject);
-                        Pointer newPointer = this.databaseStorageManager.store(
-                                SCHEME_ID,
-                                this.collectionFieldsUpdate.getAfter().getId(),
-                                this.collectionFieldsUpdate.getVersion(),
-                                bytes
-                        );
-                        clusterIndexManager.addOrUpdateIndex(keyValue.key(), newPointer);
-                        this.databaseStorageManager.remove(pointer);
-                    } catch (IOException | ExecutionException | InterruptedException | InternalOperationException | SerializationException  e) {
+                        relocations.add(new Relocation<>(keyValue.key(), pointer, createNew(dbObject)));
+                        if (relocations.size() >= RELOCATION_BATCH_SIZE) {
+                            this.relocate(clusterIndexManager, relocations);
+                        }
+                    } catch (IOException | ExecutionException | InterruptedException | InternalOperationException | SerializationException | DeserializationException e) {
                         throw new RuntimeException(e);
                     }
+                    return;
                 }
 
                 updateIndexes(bytes, keyValue.key());
@@ -117,6 +118,7 @@ public class CollectionSchemeUpdater {
                 throw new RuntimeException(e);
             }
         });
+        this.relocate(clusterIndexManager, relocations);
 
         purgeIndexesOfRemovedFields();
 
@@ -130,6 +132,30 @@ public class CollectionSchemeUpdater {
 
     }
 
+    /*
+     * Stores the relocated objects of a batch together, so that they are packed into pages that are each written once,
+     * then points their cluster keys to their new locations and removes the old ones.
+     */
+    private <K extends Number & Comparable<K>> void relocate(UniqueTreeIndexManager<K, Pointer> clusterIndexManager, List<Relocation<K>> relocations) throws InternalOperationException, DeserializationException, IOException, ExecutionException, InterruptedException {
+        if (relocations.isEmpty()) {
+            return;
+        }
+
+        List<Pointer> newPointers = this.databaseStorageManager.storeAll(
+                SCHEME_ID,
+                this.collectionFieldsUpdate.getAfter().getId(),
+                this.collectionFieldsUpdate.getVersion(),
+                relocations.stream().map(Relocation::bytes).toList()
+        );
+        for (int i = 0; i < relocations.size(); i++) {
+            Relocation<K> relocation = relocations.get(i);
+            clusterIndexManager.addOrUpdateIndex(relocation.key(), newPointers.get(i));
+            this.databaseStorageManager.remove(relocation.pointer());
+            updateIndexes(relocation.bytes(), relocation.key());
+        }
+        relocations.clear();
+    }
+
     private void purgeIndexesOfRemovedFields() throws InternalOperationException {
         for (Scheme.Field field : collectionFieldsUpdate.getRemovedFields()) {
             if (field.isIndexed()){
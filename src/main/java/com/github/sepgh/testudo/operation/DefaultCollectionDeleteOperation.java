@@ -14,7 +14,9 @@ import com.github.sepgh.testudo.storage.db.DatabaseStorageManager;
 import com.github.sepgh.testudo.utils.ReaderWriterLock;
 import lombok.Getter;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -66,14 +68,15 @@ public class DefaultCollectionDeleteOperation<T extends Number & Comparable<T>>
                 }
 
                 Pointer pointer = optionalPointer.get();
-                Optional<DBObject> optionalDBObject = this.storageManager.select(pointer);
+                // Only values of indexed fields are read, straight from the page
+                Optional<List<Object>> optionalIndexedValues = this.storageManager.select(pointer, this::getIndexedValues);
 
-                if (optionalDBObject.isEmpty()) {
+                if (optionalIndexedValues.isEmpty()) {
                     throw new InternalOperationException("No object present at: " + pointer);
                 }
 
 
-                this.removeFieldIndexes(clusterId, optionalDBObject.get().getData());
+                this.removeFieldIndexes(clusterId, optionalIndexedValues.get());
 
                 this.storageManager.remove(pointer);
                 this.clusterIndexManager.removeIndex(clusterId);
@@ -86,29 +89,31 @@ public class DefaultCollectionDeleteOperation<T extends Number & Comparable<T>>
         return counter.get();
     }
 
-    private void removeFieldIndexes(T clusterId, byte[] bytes) throws DeserializationException, InternalOperationException {
-        for (Scheme.Field field : collection.getFields().stream().filter(Scheme.Field::isIndexed).toList()) {
+    private List<Scheme.Field> getIndexedFields() {
+        return collection.getFields().stream().filter(Scheme.Field::isIndexed).toList();
+    }
+
+    private List<Object> getIndexedValues(DBObject dbObject) throws DeserializationException {
+        List<Object> values = new ArrayList<>();
+        for (Scheme.Field field : getIndexedFields()) {
+            values.add(CollectionSerializationUtil.getValueOfFieldAsObject(collection, field, dbObject));
+        }
+        return values;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K extends Comparable<K>> void removeFieldIndexes(T clusterId, List<Object> indexedValues) throws DeserializationException, InternalOperationException {
+        int i = 0;
+        for (Scheme.Field field : getIndexedFields()) {
+            K value = (K) indexedValues.get(i++);
             if (field.getIndex().isUnique()) {
-                UniqueQueryableIndex<?, T> uniqueIndexManager = (UniqueQueryableIndex<?, T>) collectionIndexProvider.getUniqueIndexManager(field);
-                uniqueIndexManager.removeIndex(
-                        CollectionSerializationUtil.getValueOfFieldAsObject(
-                                collection,
-                                field,
-                                bytes
-                        )
-                );
+                UniqueQueryableIndex<K, T> uniqueIndexManager = (UniqueQueryableIndex<K, T>) collectionIndexProvider.getUniqueIndexManager(field);
+                uniqueIndexManager.removeIndex(value);
 
             } else {
-                DuplicateQueryableIndex<?, T> duplicateIndexManager = (DuplicateQueryableIndex<?, T>) collectionIndexProvider.getDuplicateIndexManager(field);
-
-                duplicateIndexManager.removeIndex(
-                        CollectionSerializationUtil.getValueOfFieldAsObject(
-                                collection,
-                                field,
-                                bytes
-                        ),
-                        clusterId
-                );
+                DuplicateQueryableIndex<K, T> duplicateIndexManager = (DuplicateQueryableIndex<K, T>) collectionIndexProvider.getDuplicateIndexManager(field);
+
+                duplicateIndexManager.removeIndex(value, clusterId);
             }
         }
     }
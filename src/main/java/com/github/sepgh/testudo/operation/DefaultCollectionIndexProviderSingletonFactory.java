@@ -110,16 +110,16 @@ public class DefaultCollectionIndexProviderSingletonFactory extends CollectionIn
         @SuppressWarnings("unchecked")
         IndexBinaryObjectFactory<K> keyIndexBinaryObjectFactory = (IndexBinaryObjectFactory<K>) serializer.getIndexBinaryObjectFactory(field);
 
-        UniqueQueryableIndex<K, Pointer> clusterIndexManager = new ClusterBPlusTreeUniqueTreeIndexManager<>(
+        ClusterBPlusTreeUniqueTreeIndexManager<K> clusterIndexManager = new ClusterBPlusTreeUniqueTreeIndexManager<>(
                 indexId,
                 engineConfig.getBTreeDegree(),
                 indexStorageManagerSingletonFactory.create(this.scheme, collection),
                 keyIndexBinaryObjectFactory
         );
+        // Scans without conditions go through the leaves of the cluster index, next to the data pages they point to
+        clusterIndexManager.setLeafReadAhead(engineConfig.getDbReadAheadPages());
 
-        clusterIndexManager = this.decorateClusterWithCache(clusterIndexManager, keyIndexBinaryObjectFactory);
-
-        return clusterIndexManager;
+        return this.decorateClusterWithCache(clusterIndexManager, keyIndexBinaryObjectFactory);
     }
 
     private <K extends Comparable<K>> UniqueQueryableIndex<K, Pointer> decorateClusterWithCache(UniqueQueryableIndex<K, Pointer> clusterIndexManager, IndexBinaryObjectFactory<K> keyIndexBinaryObjectFactory) {
@@ -15,6 +15,7 @@ import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
@@ -50,10 +51,76 @@ public class DefaultCollectionInsertOperation<T extends Number & Comparable<T>>
         return (V) new ModelDeserializer<>(v.getClass()).deserialize(bytes);
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public <V> List<V> executeAll(List<V> vs) throws SerializationException, InternalOperationException, DeserializationException {
+        List<byte[]> bytesList = new ArrayList<>(vs.size());
+        for (V v : vs) {
+            bytesList.add(new ModelSerializer(v).serialize());
+        }
+        this.executeAllBytes(bytesList);
+
+        List<V> result = new ArrayList<>(vs.size());
+        for (int i = 0; i < vs.size(); i++) {
+            result.add((V) new ModelDeserializer<>(vs.get(i).getClass()).deserialize(bytesList.get(i)));
+        }
+        return result;
+    }
+
     protected Pointer storeBytes(CachedFieldValueReader cachedFieldValueReader) throws InternalOperationException {
         return storageManager.store(this.scheme.getId(), this.collection.getId(), scheme.getVersion(), cachedFieldValueReader.getBytes());
     }
 
+    protected List<Pointer> storeAllBytes(List<CachedFieldValueReader> cachedFieldValueReaders) throws InternalOperationException {
+        return storageManager.storeAll(this.scheme.getId(), this.collection.getId(), scheme.getVersion(), cachedFieldValueReaders.stream().map(CachedFieldValueReader::getBytes).toList());
+    }
+
+    /*
+     * All objects are verified before any of them is stored, and then stored together. If indexing one of them fails,
+     * it is rolled back like a single insert would be, and the objects stored after it are removed as well.
+     */
+    protected List<byte[]> executeAllBytes(List<byte[]> bytesList) throws InternalOperationException, DeserializationException, SerializationException {
+        try {
+            readerWriterLock.getWriteLock().lock();
+            List<CachedFieldValueReader> cachedFieldValueReaders = this.verifyAll(bytesList);
+            List<Pointer> pointers = this.storeAllBytes(cachedFieldValueReaders);
+            for (int i = 0; i < pointers.size(); i++) {
+                try {
+                    final T key = this.storeClusterIndex(pointers.get(i));
+                    this.storeFieldIndexes(cachedFieldValueReaders.get(i), key, pointers.get(i));
+                } catch (InternalOperationException | DeserializationException | SerializationException e) {
+                    this.removeAll(pointers.subList(i + 1, pointers.size()));
+                    throw e;
+                }
+            }
+            return bytesList;
+        } finally {
+            readerWriterLock.getWriteLock().unlock();
+        }
+    }
+
+    private <K extends Comparable<K>> List<CachedFieldValueReader> verifyAll(List<byte[]> bytesList) throws InternalOperationException, DeserializationException, SerializationException {
+        List<CachedFieldValueReader> cachedFieldValueReaders = new ArrayList<>(bytesList.size());
+        K previous = null;
+        for (byte[] bytes : bytesList) {
+            CachedFieldValueReader cachedFieldValueReader = new CachedFieldValueReader(collection, bytes);
+            this.verify(cachedFieldValueReader);
+            previous = this.handleAutoGeneratedPrimaryKey(cachedFieldValueReader, previous);
+            cachedFieldValueReaders.add(cachedFieldValueReader);
+        }
+        return cachedFieldValueReaders;
+    }
+
+    private void removeAll(List<Pointer> pointers) {
+        for (Pointer pointer : pointers) {
+            try {
+                storageManager.remove(pointer);
+            } catch (InternalOperationException e) {
+                logger.error("Failed to remove object of a failed batch from storage manager: {}", e.getMessage());
+            }
+        }
+    }
+
     @Override
     public byte[] execute(byte[] bytes) throws InternalOperationException, DeserializationException, SerializationException {
         try {
@@ -98,17 +165,25 @@ public class DefaultCollectionInsertOperation<T extends Number & Comparable<T>>
 
     }
 
-    protected <K extends Comparable<K>> void handleAutoGeneratedPrimaryKey(CachedFieldValueReader cachedFieldValueReader) throws InternalOperationException, DeserializationException, SerializationException {
+    protected void handleAutoGeneratedPrimaryKey(CachedFieldValueReader cachedFieldValueReader) throws InternalOperationException, DeserializationException, SerializationException {
+        this.handleAutoGeneratedPrimaryKey(cachedFieldValueReader, null);
+    }
+
+    /*
+     * Returns the generated key, if any. Within a batch, keys of the objects that are not indexed yet are passed as
+     * `previous`, so that the next object continues after them instead of taking the same key from the index.
+     */
+    protected <K extends Comparable<K>> K handleAutoGeneratedPrimaryKey(CachedFieldValueReader cachedFieldValueReader, K previous) throws InternalOperationException, DeserializationException, SerializationException {
         List<Scheme.Field> sortedFields = collection.getSortedFields();
         Optional<Scheme.Field> primaryKeyOptional = sortedFields.stream().filter(field -> field.isIndexed() && field.getIndex().isPrimary()).findFirst();
 
         if (primaryKeyOptional.isEmpty())
-            return;
+            return null;
 
         Scheme.Field field = primaryKeyOptional.get();
 
         if (!field.getIndex().isAutoIncrement())
-            return;
+            return null;
 
         Bitmap<Integer> nullsBitmap = CollectionSerializationUtil.getNullsBitmap(collection, cachedFieldValueReader.getBytes());
         nullsBitmap.off(sortedFields.indexOf(field));
@@ -118,18 +193,25 @@ public class DefaultCollectionInsertOperation<T extends Number & Comparable<T>>
                 nullsBitmap.getData()
         );
 
-        @SuppressWarnings("unchecked")
-        UniqueQueryableIndex<K, T> uniqueIndexManager = (UniqueQueryableIndex<K, T>) collectionIndexProvider.getUniqueIndexManager(field);
-        K pk = uniqueIndexManager.nextKey();
-
         @SuppressWarnings("unchecked")
         Serializer<K> serializer = (Serializer<K>) SerializerRegistry.getInstance().getSerializer(field.getType());
+
+        K pk;
+        if (previous == null) {
+            @SuppressWarnings("unchecked")
+            UniqueQueryableIndex<K, T> uniqueIndexManager = (UniqueQueryableIndex<K, T>) collectionIndexProvider.getUniqueIndexManager(field);
+            pk = uniqueIndexManager.nextKey();
+        } else {
+            pk = serializer.getIndexBinaryObjectFactory(field).create(previous).getNext();
+        }
+
         CollectionSerializationUtil.setValueOfField(
                 collection,
                 field,
                 cachedFieldValueReader.getBytes(),
                 serializer.serialize(pk)
         );
+        return pk;
     }
 
 
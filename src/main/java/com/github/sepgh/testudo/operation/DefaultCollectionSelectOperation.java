@@ -1,20 +1,21 @@
 package com.github.sepgh.testudo.operation;
 
 import com.github.sepgh.testudo.ds.Pointer;
-import com.github.sepgh.testudo.exception.DeserializationException;
+import com.github.sepgh.testudo.exception.BaseSerializationException;
 import com.github.sepgh.testudo.exception.InternalOperationException;
-import com.github.sepgh.testudo.exception.SerializationException;
 import com.github.sepgh.testudo.index.UniqueTreeIndexManager;
 import com.github.sepgh.testudo.operation.query.Query;
 import com.github.sepgh.testudo.scheme.Scheme;
 import com.github.sepgh.testudo.serialization.ModelDeserializer;
 import com.github.sepgh.testudo.storage.db.DBObject;
 import com.github.sepgh.testudo.storage.db.DatabaseStorageManager;
+import com.github.sepgh.testudo.storage.db.ReadAhead;
 import com.github.sepgh.testudo.utils.IteratorUtils;
 import com.github.sepgh.testudo.utils.LockableIterator;
 import com.github.sepgh.testudo.utils.ReaderWriterLock;
 import lombok.Getter;
 
+import java.lang.ref.Cleaner;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
@@ -60,16 +61,22 @@ public class DefaultCollectionSelectOperation<T extends Number & Comparable<T>>
         return query.execute(this.collectionIndexProvider);
     }
 
+    private <V> LockableIterator<V> wrapReader(Iterator<V> iterator, ReadAhead readAhead) {
+        return new ReadAheadIterator<>(LockableIterator.wrapReader(iterator, readerWriterLock), readAhead);
+    }
+
     @Override
     public LockableIterator<DBObject> execute() {
         Iterator<T> executedQuery = getExecutedQuery();
+        ReadAhead readAhead = this.storageManager.readAhead();
 
-        return LockableIterator.wrapReader(IteratorUtils.modifyNext(
+        return this.wrapReader(IteratorUtils.modifyNext(
                 executedQuery,
                 i -> {
                     try {
                         Optional<Pointer> optionalPointer = clusterIndexManager.getIndex(i);
                         if (optionalPointer.isPresent()) {
+                            readAhead.accessed(optionalPointer.get());
                             Optional<DBObject> dbObjectOptional = this.storageManager.select(optionalPointer.get());
                             if (dbObjectOptional.isPresent()) {
                                 return dbObjectOptional.get();
@@ -80,20 +87,35 @@ public class DefaultCollectionSelectOperation<T extends Number & Comparable<T>>
                         throw new RuntimeException(e);  // Ok
                     }
                 }
-        ), readerWriterLock);
+        ), readAhead);
 
     }
 
     @Override
     public <V> LockableIterator<V> execute(Class<V> clazz) {
         ModelDeserializer<V> modelDeserializer = new ModelDeserializer<>(clazz);
-        return LockableIterator.wrapReader(IteratorUtils.modifyNext(execute(), dbObject -> {
-            try {
-                return modelDeserializer.deserialize(dbObject.getData());
-            } catch (SerializationException | DeserializationException e) {
-                throw new RuntimeException(e); // Ok
-            }
-        }), readerWriterLock);
+        Iterator<T> executedQuery = getExecutedQuery();
+        ReadAhead readAhead = this.storageManager.readAhead();
+
+        // Objects are deserialized while their page is pinned, instead of being copied out of it first
+        return this.wrapReader(IteratorUtils.modifyNext(
+                executedQuery,
+                i -> {
+                    try {
+                        Optional<Pointer> optionalPointer = clusterIndexManager.getIndex(i);
+                        if (optionalPointer.isPresent()) {
+                            readAhead.accessed(optionalPointer.get());
+                            Optional<V> optional = this.storageManager.select(optionalPointer.get(), dbObject -> modelDeserializer.deserialize(dbObject));
+                            if (optional.isPresent()) {
+                                return optional.get();
+                            }
+                        }
+                        throw new InternalOperationException("Could not read object");
+                    } catch (InternalOperationException | BaseSerializationException e) {
+                        throw new RuntimeException(e);  // Ok
+                    }
+                }
+        ), readAhead);
     }
 
     @Override
@@ -125,6 +147,54 @@ public class DefaultCollectionSelectOperation<T extends Number & Comparable<T>>
         } else {
             query = new Query().limit(1);
         }
-        return this.execute().hasNext();
+        try (LockableIterator<DBObject> iterator = this.execute()) {
+            return iterator.hasNext();
+        }
+    }
+
+    /*
+     * Pages read ahead for the scan are let go once it's done, once the iterator is unlocked or closed, or at the latest
+     * once the iterator is no longer reachable, for scans that were abandoned without any of these.
+     */
+    private static class ReadAheadIterator<V> extends LockableIterator<V> {
+        private static final Cleaner CLEANER = Cleaner.create();
+        private final LockableIterator<V> lockableIterator;
+        private final Cleaner.Cleanable cleanable;
+
+        private ReadAheadIterator(LockableIterator<V> lockableIterator, ReadAhead readAhead) {
+            this.lockableIterator = lockableIterator;
+            // Action only holds the read-ahead, and runs once whichever way it's triggered
+            this.cleanable = CLEANER.register(this, readAhead::close);
+        }
+
+        @Override
+        public void lock() {
+            this.lockableIterator.lock();
+        }
+
+        @Override
+        public void unlock() {
+            this.close();
+            this.lockableIterator.unlock();
+        }
+
+        @Override
+        public void close() {
+            this.cleanable.clean();
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = this.lockableIterator.hasNext();
+            if (!hasNext) {
+                this.close();
+            }
+            return hasNext;
+        }
+
+        @Override
+        public V next() {
+            return this.lockableIterator.next();
+        }
     }
 }
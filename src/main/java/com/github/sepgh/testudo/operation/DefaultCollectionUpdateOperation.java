@@ -16,11 +16,9 @@ import com.github.sepgh.testudo.storage.db.DBObject;
 import com.github.sepgh.testudo.storage.db.DatabaseStorageManager;
 import com.github.sepgh.testudo.utils.CachedFieldValueReader;
 import com.github.sepgh.testudo.utils.ReaderWriterLock;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
-import java.security.MessageDigest;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicLong;
@@ -62,12 +60,6 @@ public class DefaultCollectionUpdateOperation<T extends Number & Comparable<T>>
         return this.query;
     }
 
-    @SneakyThrows
-    private byte[] hash(byte[] bytes) {
-        MessageDigest md = MessageDigest.getInstance("SHA-1");
-        return md.digest(bytes);
-    }
-
     protected long handleExecution(CheckedFunction<DBObject, byte[], BaseSerializationException> dbObjectConsumer) throws InternalOperationException, BaseSerializationException {
         AtomicLong atomicLong = new AtomicLong();
 
@@ -92,15 +84,14 @@ public class DefaultCollectionUpdateOperation<T extends Number & Comparable<T>>
                     continue;
                 }
 
+                // Old values are read in place, the object only gets copied by consumers that need its bytes
                 DBObject dbObject = dbObjectOptional.get();
-                byte[] preHash = hash(dbObject.getData());
                 byte[] updatedData = dbObjectConsumer.apply(dbObject);
-                byte[] postHash = hash(updatedData);
 
-                if (Arrays.equals(preHash, postHash))
+                if (dbObject.getDataView().equals(ByteBuffer.wrap(updatedData)))
                     continue;
 
-                this.update(pointer, updatedData, dbObject.getData(), clusterId);
+                this.update(pointer, updatedData, dbObject, clusterId);
                 atomicLong.incrementAndGet();
 
             }
@@ -113,7 +104,7 @@ public class DefaultCollectionUpdateOperation<T extends Number & Comparable<T>>
     }
 
     @SuppressWarnings("unchecked")
-    private <F extends Comparable<F>> void update(Pointer pointer, byte[] update, byte[] old, T clusterId) throws DeserializationException, InternalOperationException {
+    private <F extends Comparable<F>> void update(Pointer pointer, byte[] update, DBObject old, T clusterId) throws DeserializationException, InternalOperationException {
         CachedFieldValueReader updatedCachedFieldsReader = new CachedFieldValueReader(collection, update);
         CachedFieldValueReader oldCachedFieldsReader = new CachedFieldValueReader(collection, old);
 
@@ -122,6 +113,12 @@ public class DefaultCollectionUpdateOperation<T extends Number & Comparable<T>>
 
         this.verify(oldCachedFieldsReader, updatedCachedFieldsReader, oldNulls, newNulls);
 
+        // The old object may be overwritten in place by the update, so its indexed values are read (and cached) first
+        for (Scheme.Field field : collection.getSortedFields()) {
+            if (field.isIndexed())
+                oldCachedFieldsReader.get(field);
+        }
+
         this.storageManager.update(pointer, update);
 
         int fieldIndex = -1;
@@ -132,16 +129,8 @@ public class DefaultCollectionUpdateOperation<T extends Number & Comparable<T>>
             if (!field.isIndexed())
                 continue;
 
-            Object oldObject = CollectionSerializationUtil.getValueOfFieldAsObject(
-                    collection,
-                    field,
-                    old
-            );
-            Object newObject = CollectionSerializationUtil.getValueOfFieldAsObject(
-                    collection,
-                    field,
-                    update
-            );
+            Object oldObject = oldCachedFieldsReader.get(field);
+            Object newObject = updatedCachedFieldsReader.get(field);
 
             if ((oldObject).equals(newObject)) {
                 continue;
@@ -219,7 +208,7 @@ public class DefaultCollectionUpdateOperation<T extends Number & Comparable<T>>
         ModelSerializer modelSerializer = new ModelSerializer();
 
         return this.handleExecution(dbObject -> {
-            M model = modelDeserializer.deserialize(dbObject.getData());
+            M model = modelDeserializer.deserialize(dbObject);
             mConsumer.accept(model);
             return modelSerializer.reset(model).serialize();
         });
@@ -123,12 +123,6 @@ public class SchemeManager implements SchemeComparator.SchemeComparisonListener
         }
     }
 
-    @SneakyThrows
-    private void removeDBObject(KeyValue<?, ?> keyValue) {
-        Pointer pointer = (Pointer) keyValue.value();
-        databaseStorageManager.remove(pointer);
-    }
-
     public UniqueTreeIndexManager<?, Pointer> getClusterIndexManager(Scheme.Collection collection) {
         return this.collectionIndexProviderSingletonFactory.getInstance(collection).getClusterIndexManager();
     }
@@ -140,13 +134,16 @@ public class SchemeManager implements SchemeComparator.SchemeComparisonListener
 
     @SneakyThrows
     private void collectionRemoved(Scheme.Collection collection) {
+        // Objects are removed in one batch, so pages holding several of them are written once
+        List<Pointer> pointers = new ArrayList<>();
         LockableIterator<? extends KeyValue<?, ?>> lockableIterator = getClusterIterator(collection);
         try {
             lockableIterator.lock();
-            lockableIterator.forEachRemaining(this::removeDBObject);
+            lockableIterator.forEachRemaining(keyValue -> pointers.add((Pointer) keyValue.value()));
         } finally {
             lockableIterator.unlock();
         }
+        databaseStorageManager.removeAll(pointers);
 
         collection.getFields().forEach(field -> {
             if (field.isIndexed()) {
@@ -4,6 +4,7 @@ import com.github.sepgh.testudo.exception.DeserializationException;
 import com.github.sepgh.testudo.exception.SerializationException;
 import com.github.sepgh.testudo.scheme.Scheme;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 public class BooleanSerializer implements Serializer<Boolean> {
@@ -63,4 +64,9 @@ public class BooleanSerializer implements Serializer<Boolean> {
         }
         return (bytes[0] == (byte) 1);
     }
+
+    @Override
+    public Boolean deserialize(ByteBuffer buffer, int offset, Scheme.Meta meta) {
+        return buffer.get(offset) == (byte) 1;
+    }
 }
@@ -2,8 +2,10 @@ package com.github.sepgh.testudo.serialization;
 
 import com.github.sepgh.testudo.ds.Bitmap;
 import com.github.sepgh.testudo.exception.DeserializationException;
+import com.github.sepgh.testudo.functional.CheckedFunction;
 import com.github.sepgh.testudo.operation.query.Order;
 import com.github.sepgh.testudo.scheme.Scheme;
+import com.github.sepgh.testudo.storage.db.DBObject;
 import com.google.common.collect.Lists;
 import lombok.AllArgsConstructor;
 
@@ -15,9 +17,23 @@ public class CollectionDeserializer {
     private final Scheme.Collection collection;
 
     public Map<String, Object> deserialize(byte[] bytes) throws DeserializationException {
+        return this.deserialize(
+                CollectionSerializationUtil.getNullsBitmap(collection, bytes),
+                field -> CollectionSerializationUtil.getValueOfFieldAsObject(collection, field, bytes)
+        );
+    }
+
+    // Reads the fields straight from the object, which should be in a pinned page
+    public Map<String, Object> deserialize(DBObject dbObject) throws DeserializationException {
+        return this.deserialize(
+                CollectionSerializationUtil.getNullsBitmap(collection, dbObject),
+                field -> CollectionSerializationUtil.getValueOfFieldAsObject(collection, field, dbObject)
+        );
+    }
+
+    private Map<String, Object> deserialize(Bitmap<Integer> nullsBitmap, CheckedFunction<Scheme.Field, Object, DeserializationException> valueReader) throws DeserializationException {
         Map<String, Object> result = new HashMap<>();
 
-        Bitmap<Integer> nullsBitmap = CollectionSerializationUtil.getNullsBitmap(collection, bytes);
         ArrayList<Integer> nullFieldIds = Lists.newArrayList(nullsBitmap.getOnIterator(Order.ASC));
 
         List<Scheme.Field> fields = collection.getFields();
@@ -28,10 +44,7 @@ public class CollectionDeserializer {
             if (nullFieldIds.contains(fieldIndex)) {
                 result.put(field.getName(), null);
             } else {
-                result.put(
-                        field.getName(),
-                        CollectionSerializationUtil.getValueOfFieldAsObject(collection, field, bytes)
-                );
+                result.put(field.getName(), valueReader.apply(field));
             }
 
             fieldIndex++;
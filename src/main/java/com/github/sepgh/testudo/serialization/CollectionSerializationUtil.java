@@ -7,6 +7,7 @@ import com.github.sepgh.testudo.scheme.Scheme;
 import com.github.sepgh.testudo.storage.db.DBObject;
 
 import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 
@@ -19,6 +20,15 @@ public class CollectionSerializationUtil {
         return new Bitmap<>(Integer.class, nulls);
     }
 
+    // Reads the bitmap straight from the object, which should be in a pinned page
+    public static Bitmap<Integer> getNullsBitmap(Scheme.Collection collection, DBObject dbObject) {
+        ByteBuffer data = dbObject.getDataView();
+        int nullsLen = data.remaining() - CollectionSerializationUtil.getSizeOfCollection(collection);
+        byte[] nulls = new byte[nullsLen];
+        data.get(data.remaining() - nullsLen, nulls);
+        return new Bitmap<>(Integer.class, nulls);
+    }
+
     public static void setNullsBitmap(Scheme.Collection collection, byte[] bytes, byte[] bitmapBytes) {
         int nullsIndex = CollectionSerializationUtil.getSizeOfCollection(collection) - 1;
         System.arraycopy(bitmapBytes, 0, bytes, nullsIndex, bitmapBytes.length);
@@ -72,6 +82,13 @@ public class CollectionSerializationUtil {
         return serializer.deserialize(output, field.getMeta());
     }
 
+    // Reads the value straight from the object, which should be in a pinned page
+    public static <V extends Comparable<V>> V getValueOfFieldAsObject(Scheme.Collection collection, Scheme.Field field, DBObject dbObject) throws DeserializationException {
+        Serializer<V> serializer = (Serializer<V>) SerializerRegistry.getInstance().getSerializer(field.getType());
+        int offset = getByteArrOffsetTillFieldIndex(collection.getFields(), collection.getFields().indexOf(field));
+        return serializer.deserialize(dbObject.getDataView(), offset, field.getMeta());
+    }
+
     public static int getSizeOfCollection(Scheme.Collection collection) {
         int size = 0;
         for (Scheme.Field field : collection.getFields()) {
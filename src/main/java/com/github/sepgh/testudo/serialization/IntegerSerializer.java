@@ -6,6 +6,7 @@ import com.github.sepgh.testudo.scheme.Scheme;
 import com.github.sepgh.testudo.utils.BinaryUtils;
 import com.google.common.primitives.Ints;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 public class IntegerSerializer implements Serializer<Integer> {
@@ -46,6 +47,11 @@ public class IntegerSerializer implements Serializer<Integer> {
         return BinaryUtils.bytesToInteger(bytes, 0);
     }
 
+    @Override
+    public Integer deserialize(ByteBuffer buffer, int offset, Scheme.Meta meta) {
+        return buffer.getInt(offset);
+    }
+
     @Override
     public int getSize(Scheme.Meta meta) {
         return Integer.BYTES;
@@ -6,6 +6,7 @@ import com.github.sepgh.testudo.scheme.Scheme;
 import com.github.sepgh.testudo.utils.BinaryUtils;
 import com.google.common.primitives.Longs;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 public class LongSerializer implements Serializer<Long> {
@@ -46,6 +47,11 @@ public class LongSerializer implements Serializer<Long> {
         return BinaryUtils.bytesToLong(bytes, 0);
     }
 
+    @Override
+    public Long deserialize(ByteBuffer buffer, int offset, Scheme.Meta meta) {
+        return buffer.getLong(offset);
+    }
+
     @Override
     public int getSize(Scheme.Meta meta) {
         return Long.BYTES;
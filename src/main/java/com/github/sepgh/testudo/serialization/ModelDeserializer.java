@@ -4,6 +4,7 @@ import com.github.sepgh.testudo.exception.DeserializationException;
 import com.github.sepgh.testudo.exception.SerializationException;
 import com.github.sepgh.testudo.scheme.ModelToCollectionConverter;
 import com.github.sepgh.testudo.scheme.Scheme;
+import com.github.sepgh.testudo.storage.db.DBObject;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -18,8 +19,16 @@ public class ModelDeserializer<T> {
 
     public T deserialize(byte[] bytes) throws SerializationException, DeserializationException {
         Scheme.Collection collection = new ModelToCollectionConverter(tClass).toCollection();
-        CollectionDeserializer deserializer = new CollectionDeserializer(collection);
-        Map<String, Object> fieldValueMap = deserializer.deserialize(bytes);
+        return this.toModel(collection, new CollectionDeserializer(collection).deserialize(bytes));
+    }
+
+    // Reads the fields straight from the object, which should be in a pinned page
+    public T deserialize(DBObject dbObject) throws SerializationException, DeserializationException {
+        Scheme.Collection collection = new ModelToCollectionConverter(tClass).toCollection();
+        return this.toModel(collection, new CollectionDeserializer(collection).deserialize(dbObject));
+    }
+
+    private T toModel(Scheme.Collection collection, Map<String, Object> fieldValueMap) throws DeserializationException {
         T t;
         try {
             t = tClass.getConstructor().newInstance();
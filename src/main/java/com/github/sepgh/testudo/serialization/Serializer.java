@@ -5,6 +5,7 @@ import com.github.sepgh.testudo.exception.SerializationException;
 import com.github.sepgh.testudo.index.data.IndexBinaryObjectFactory;
 import com.github.sepgh.testudo.scheme.Scheme;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 public interface Serializer<T extends Comparable<T>> {
@@ -26,6 +27,13 @@ public interface Serializer<T extends Comparable<T>> {
 
     T deserialize(byte[] bytes, Scheme.Meta meta) throws DeserializationException;
 
+    // Deserializes the value at `offset` of the buffer, copying it only if the serializer can't read it in place
+    default T deserialize(ByteBuffer buffer, int offset, Scheme.Meta meta) throws DeserializationException {
+        byte[] bytes = new byte[this.getSize(meta)];
+        buffer.get(offset, bytes);
+        return this.deserialize(bytes, meta);
+    }
+
     default int getSize() {
         return this.getSize(Scheme.ImmutableDefaultMeta.INSTANCE);
     }
@@ -7,6 +7,7 @@ import com.github.sepgh.testudo.scheme.Scheme;
 import com.google.common.primitives.UnsignedInteger;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 import static com.github.sepgh.testudo.utils.BinaryUtils.toByteArray;
@@ -48,6 +49,11 @@ public class UnsignedIntegerSerializer implements Serializer<UnsignedInteger> {
         return UnsignedInteger.valueOf(bigInteger);
     }
 
+    @Override
+    public UnsignedInteger deserialize(ByteBuffer buffer, int offset, Scheme.Meta meta) {
+        return UnsignedInteger.fromIntBits(buffer.getInt(offset));
+    }
+
     @Override
     public int getSize(Scheme.Meta meta) {
         return Integer.BYTES;
@@ -7,6 +7,7 @@ import com.github.sepgh.testudo.scheme.Scheme;
 import com.google.common.primitives.UnsignedLong;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 import static com.github.sepgh.testudo.utils.BinaryUtils.toByteArray;
@@ -48,6 +49,11 @@ public class UnsignedLongSerializer implements Serializer<UnsignedLong> {
         return UnsignedLong.valueOf(bigInteger);
     }
 
+    @Override
+    public UnsignedLong deserialize(ByteBuffer buffer, int offset, Scheme.Meta meta) {
+        return UnsignedLong.fromLongBits(buffer.getLong(offset));
+    }
+
     @Override
     public int getSize(Scheme.Meta meta) {
         return Long.BYTES;
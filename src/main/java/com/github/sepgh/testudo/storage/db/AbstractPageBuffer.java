@@ -0,0 +1,78 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.functional.PageFactory;
+import com.github.sepgh.testudo.functional.PageWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+
+/*
+ * Holds what page buffer implementations share: the factory to load pages, the writer and the background flusher
+ * (which runs every `flushInterval` milliseconds, if positive) to write back dirty pages, and the listener that is
+ * called once a page has left the buffer and is no longer referenced.
+ */
+public abstract class AbstractPageBuffer implements PageBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(AbstractPageBuffer.class);
+
+    protected final PageFactory factory;
+    @Nullable
+    protected final PageWriter writer;
+    @Nullable
+    protected final ScheduledExecutorService flusher;
+    @Nullable
+    private final Consumer<Page> dropListener;
+
+    public AbstractPageBuffer(PageFactory factory, @Nullable PageWriter writer, long flushInterval, @Nullable Consumer<Page> dropListener) {
+        this.factory = factory;
+        this.writer = writer;
+        this.dropListener = dropListener;
+
+        if (writer != null) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "testudo-page-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (flushInterval > 0) {
+                this.flusher.scheduleWithFixedDelay(this::scheduledFlush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+            }
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    protected void dropped(Page page) {
+        if (dropListener != null) {
+            dropListener.accept(page);
+        }
+    }
+
+    protected void requireWriter() {
+        if (writer == null) {
+            throw new IllegalStateException("Page buffer has no page writer to write back dirty pages.");
+        }
+    }
+
+    private void scheduledFlush() {
+        try {
+            this.flush();
+        } catch (InternalOperationException e) {
+            logger.error("Failed to flush dirty pages", e);
+        }
+    }
+
+    @Override
+    public void close() throws InternalOperationException {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        this.flush();
+    }
+}
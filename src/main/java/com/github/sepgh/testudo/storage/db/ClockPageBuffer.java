@@ -0,0 +1,307 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.functional.PageFactory;
+import com.github.sepgh.testudo.functional.PageWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+
+/*
+ * Buffer pool of `limit` frames with CLOCK (second chance) eviction.
+ *
+ * A buffer hit takes no lock: the frame is looked up from a concurrent map and pinned with a CAS on its pin count.
+ * Misses are serialized per stripe of page titles, so a page is never loaded twice and is never loaded while its evicted
+ * frame is being written back. The clock hand only moves under the eviction lock, which is taken by misses alone.
+ *
+ * A frame's pin count is -1 while it's being evicted, so it can't be pinned. Pinned frames are never evicted.
+ * If every frame is pinned, the page is loaded into an overflow frame out of the clock, which is dropped on its last release.
+ *
+ * Dirty pages don't hold a pin. They are written back when their frame is evicted, by the flusher, or on `flush()`.
+ */
+public class ClockPageBuffer extends AbstractPageBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(ClockPageBuffer.class);
+    private static final int STRIPES = 64;
+
+    private final Frame[] frames;
+    private final Map<PageTitle, Frame> table;
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private int hand = 0;
+
+    public ClockPageBuffer(int limit, PageFactory factory, @Nullable PageWriter writer, long flushInterval, @Nullable Consumer<Page> dropListener) {
+        super(factory, writer, flushInterval, dropListener);
+        this.frames = new Frame[limit];
+        for (int i = 0; i < limit; i++) {
+            this.frames[i] = new Frame(false);
+        }
+        this.table = new ConcurrentHashMap<>(limit);
+        for (int i = 0; i < STRIPES; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public ClockPageBuffer(int limit, PageFactory factory, @Nullable PageWriter writer, long flushInterval) {
+        this(limit, factory, writer, flushInterval, null);
+    }
+
+    public ClockPageBuffer(int limit, PageFactory factory) {
+        this(limit, factory, null, 0);
+    }
+
+    @Override
+    public Page acquire(PageTitle title) throws InternalOperationException {
+        Frame frame = this.table.get(title);
+        if (frame != null && frame.tryPin(title)) {
+            return frame.page;
+        }
+
+        ReentrantLock stripe = this.stripe(title);
+        stripe.lock();
+        try {
+            // No other thread can load or evict this title while the stripe is locked
+            frame = this.table.get(title);
+            if (frame != null && frame.tryPin(title)) {
+                return frame.page;
+            }
+
+            Page page = factory.apply(title);
+            frame = this.victim();
+            frame.assign(title, page);
+            this.table.put(title, frame);
+            return page;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @Override
+    public void release(PageTitle title) {
+        Frame frame = this.table.get(title);
+        if (frame == null) {
+            return;
+        }
+
+        if (frame.unpin() == 0 && frame.overflow) {
+            ReentrantLock stripe = this.stripe(title);
+            stripe.lock();
+            try {
+                this.evict(frame);
+            } catch (InternalOperationException e) {
+                logger.error("Failed to write back overflow page {}", title, e);
+            } finally {
+                stripe.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void releaseAll() {
+        this.table.forEach((pageTitle, frame) -> {
+            if (frame.pinCount.get() > 0) {
+                this.release(pageTitle);
+            }
+        });
+    }
+
+    // The frame loses its second chance and is evicted on the next pass of the clock hand, unless it's referenced again
+    @Override
+    public void useOnce(PageTitle title) {
+        Frame frame = this.table.get(title);
+        if (frame != null) {
+            frame.referenced = false;
+        }
+    }
+
+    @Override
+    public void markDirty(Page page) {
+        this.requireWriter();
+
+        PageTitle pageTitle = PageTitle.of(page);
+        Frame frame = this.table.get(pageTitle);
+        if (frame == null || frame.pinCount.get() <= 0) {
+            throw new IllegalStateException("Page %s should be acquired before getting marked as dirty".formatted(pageTitle));
+        }
+        frame.dirty.set(true);
+    }
+
+    @Override
+    public Collection<PageTitle> flush() throws InternalOperationException {
+        List<PageTitle> flushed = new ArrayList<>();
+        if (writer == null) {
+            return flushed;
+        }
+
+        for (Map.Entry<PageTitle, Frame> entry : this.table.entrySet()) {
+            Frame frame = entry.getValue();
+            if (!frame.dirty.get() || !frame.tryPin(entry.getKey())) {
+                continue;
+            }
+
+            try {
+                if (this.write(frame)) {
+                    flushed.add(entry.getKey());
+                }
+            } finally {
+                this.release(entry.getKey());
+            }
+        }
+        return flushed;
+    }
+
+    private boolean write(Frame frame) throws InternalOperationException {
+        assert writer != null;
+        if (!frame.dirty.compareAndSet(true, false)) {
+            return false;
+        }
+
+        try {
+            writer.write(frame.page);
+        } catch (InternalOperationException e) {
+            frame.dirty.set(true);
+            throw e;
+        }
+        return true;
+    }
+
+    /*
+     * Finds a free frame, or evicts an unpinned one that has not been referenced since the last pass of the clock hand.
+     * Caller should be holding the stripe lock of the title the frame is going to be used for.
+     */
+    private Frame victim() {
+        evictionLock.lock();
+        try {
+            for (int i = 0; i < 2 * frames.length; i++) {
+                Frame frame = frames[hand];
+                hand = (hand + 1) % frames.length;
+
+                // Frames that were never used are claimed the same way as evicted ones are: by setting pin count to -1
+                if (frame.title == null) {
+                    if (frame.pinCount.compareAndSet(0, -1)) {
+                        return frame;
+                    }
+                    continue;
+                }
+
+                if (frame.referenced) {
+                    frame.referenced = false;
+                    continue;
+                }
+
+                // Title can't be loaded again while its frame is evicted, stripe is skipped if another miss holds it
+                ReentrantLock stripe = this.stripe(frame.title);
+                if (!stripe.tryLock()) {
+                    continue;
+                }
+                try {
+                    if (this.evict(frame)) {
+                        return frame;
+                    }
+                } catch (InternalOperationException e) {
+                    logger.error("Failed to write back evicted page {}", frame.title, e);
+                } finally {
+                    stripe.unlock();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+
+        return new Frame(true);
+    }
+
+    /*
+     * Evicts an unpinned frame, after writing it if it's dirty. Returns false if the frame is pinned.
+     * If writing fails the frame stays in the buffer.
+     */
+    private boolean evict(Frame frame) throws InternalOperationException {
+        if (!frame.pinCount.compareAndSet(0, -1)) {
+            return false;
+        }
+
+        PageTitle title = frame.title;
+        try {
+            if (frame.dirty.get()) {
+                this.write(frame);
+            }
+        } catch (InternalOperationException e) {
+            frame.pinCount.set(0);
+            throw e;
+        }
+
+        this.table.remove(title, frame);
+        this.dropped(frame.page);
+        frame.clear();
+        return true;
+    }
+
+    private ReentrantLock stripe(PageTitle title) {
+        return stripes[Math.floorMod(title.hashCode(), STRIPES)];
+    }
+
+    private static class Frame {
+        private final boolean overflow;
+        private final AtomicInteger pinCount = new AtomicInteger(0);
+        private final AtomicBoolean dirty = new AtomicBoolean(false);
+        private volatile PageTitle title;
+        private volatile Page page;
+        private volatile boolean referenced;
+
+        private Frame(boolean overflow) {
+            this.overflow = overflow;
+        }
+
+        /*
+         * Pins the frame if it's not being evicted and still holds the title.
+         * The title is checked after pinning, since a frame can't be evicted and reused while it's pinned.
+         */
+        private boolean tryPin(PageTitle title) {
+            int count;
+            do {
+                count = pinCount.get();
+                if (count < 0) {
+                    return false;
+                }
+            } while (!pinCount.compareAndSet(count, count + 1));
+
+            if (!title.equals(this.title)) {
+                pinCount.decrementAndGet();
+                return false;
+            }
+
+            referenced = true;
+            return true;
+        }
+
+        private int unpin() {
+            return pinCount.decrementAndGet();
+        }
+
+        // Title and page are set before the pin count is published
+        private void assign(PageTitle title, Page page) {
+            this.title = title;
+            this.page = page;
+            this.referenced = true;
+            this.dirty.set(false);
+            this.pinCount.set(1);
+        }
+
+        private void clear() {
+            this.title = null;
+            this.page = null;
+            this.referenced = false;
+            this.dirty.set(false);
+        }
+    }
+}
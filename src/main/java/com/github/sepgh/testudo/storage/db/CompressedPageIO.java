@@ -0,0 +1,102 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.context.EngineConfig;
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.storage.pool.FileHandlerPool;
+
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+
+
+/*
+ * Pages are kept encoded in a CompressedPageStore, see EngineConfig.PageCompression.
+ * Compressed pages are written as a whole, dirty ranges of a page only tell whether there is anything to write.
+ */
+public class CompressedPageIO implements PageIO {
+    private final EngineConfig engineConfig;
+    private final CompressedPageStore compressedPageStore;
+    private final FileHandlerPool fileHandlerPool;
+    @Nullable
+    private final PageFrameArena pageFrameArena;
+
+    public CompressedPageIO(EngineConfig engineConfig, CompressedPageStore compressedPageStore, FileHandlerPool fileHandlerPool, @Nullable PageFrameArena pageFrameArena) {
+        this.engineConfig = engineConfig;
+        this.compressedPageStore = compressedPageStore;
+        this.fileHandlerPool = fileHandlerPool;
+        this.pageFrameArena = pageFrameArena;
+    }
+
+    @Override
+    public ByteBuffer read(PageBuffer.PageTitle pageTitle) throws InternalOperationException {
+        byte[] data = this.compressedPageStore.read(pageTitle);
+        if (this.pageFrameArena != null) {
+            ByteBuffer frame = this.pageFrameArena.allocate();
+            frame.put(0, data);
+            return frame.clear();
+        }
+        return ByteBuffer.wrap(data);
+    }
+
+    @Override
+    public void write(Page page) throws InternalOperationException {
+        synchronized (page) {
+            List<Page.DirtyRange> dirtyRanges = page.drainDirtyRanges(0);
+            if (dirtyRanges.isEmpty()) {
+                return;
+            }
+            try {
+                this.compressedPageStore.write(
+                        new PageBuffer.PageTitle(page.getChunk(), page.getPageNumber()),
+                        page.getBytes(0, this.engineConfig.getDbPageSize())
+                );
+            } catch (InternalOperationException e) {
+                dirtyRanges.forEach(dirtyRange -> page.markDirty(dirtyRange.from(), dirtyRange.to()));
+                throw e;
+            }
+        }
+        // Files are marked dirty by the store, which forces them (and frees slots that pages moved away from) as a chunk
+        if (this.engineConfig.getDurability().equals(EngineConfig.Durability.COMMIT)) {
+            this.compressedPageStore.sync(page.getChunk());
+        }
+    }
+
+    // Redo records are within a single page, which is read and written back as a whole
+    @Override
+    public void write(int chunk, long position, byte[] data) throws InternalOperationException {
+        int pageSize = this.engineConfig.getDbPageSize();
+        PageBuffer.PageTitle pageTitle = new PageBuffer.PageTitle(chunk, (int) (position / pageSize));
+        byte[] page = this.compressedPageStore.read(pageTitle);
+        System.arraycopy(data, 0, page, (int) (position % pageSize), data.length);
+        this.compressedPageStore.write(pageTitle, page);
+    }
+
+    @Override
+    public void allocate(int chunk) throws InternalOperationException {
+        this.compressedPageStore.allocate(chunk);
+    }
+
+    @Override
+    public int getPageCount(int chunk) throws InternalOperationException {
+        return this.compressedPageStore.getPageCount(chunk);
+    }
+
+    @Override
+    public void sync(Collection<Integer> chunks) throws InternalOperationException {
+        for (Integer chunk : chunks) {
+            this.compressedPageStore.sync(chunk);
+        }
+    }
+
+    @Override
+    public void forceDirty() throws InternalOperationException {
+        this.fileHandlerPool.forceDirty();
+        this.compressedPageStore.syncAll();
+    }
+
+    @Override
+    public void close() {
+        this.compressedPageStore.close();
+    }
+}
@@ -0,0 +1,316 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.exception.ErrorMessage;
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.storage.pool.FileHandlerPool;
+import com.github.sepgh.testudo.utils.FileUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+
+/*
+ * Keeps pages of each chunk encoded by a PageCodec, instead of plain pages at `page number * page size` of the chunk file:
+ *
+ *   - Chunk file holds encoded pages. Each page is written to a slot of the file which is rounded up to SLOT_ALIGNMENT
+ *     bytes.
+ *   - Page offset table file (`testudo_%d.pot.bin`) has an entry per page of the chunk:
+ *      - Offset of the slot (long)
+ *      - Length of the encoded page (int), 0 if the page was allocated but never written
+ *      - Length of the slot (int)
+ *
+ * Pages are never written in place: an encoded page goes to a free slot (or to the end of the file) and its entry is
+ * switched to that slot afterward, so a write that is torn by a crash leaves the page readable from its previous slot.
+ * The previous slot is only reused once both files of the chunk are synced, since the entry that moved away from it may
+ * not be on disk until then. Chunks that are rarely synced are synced once they have as many such slots as pages, which
+ * keeps their files from growing for ever.
+ *
+ * Offset table of a chunk is read into memory on first use of the chunk, and free slots are found as the gaps between
+ * the slots of its pages. Files are opened through the file handler pool, and are marked dirty there once written.
+ */
+public class CompressedPageStore implements AutoCloseable {
+    public static final int SLOT_ALIGNMENT = 256;
+    private static final int ENTRY_BYTES = Long.BYTES + 2 * Integer.BYTES;
+
+    private final Path basePath;
+    private final int pageSize;
+    private final PageCodec pageCodec;
+    private final IntFunction<Path> chunkFileName;
+    private final FileHandlerPool fileHandlerPool;
+    private final Map<Integer, Chunk> chunks = new ConcurrentHashMap<>();
+
+    public CompressedPageStore(Path basePath, int pageSize, PageCodec pageCodec, IntFunction<Path> chunkFileName, FileHandlerPool fileHandlerPool) {
+        this.basePath = basePath;
+        this.pageSize = pageSize;
+        this.pageCodec = pageCodec;
+        this.chunkFileName = chunkFileName;
+        this.fileHandlerPool = fileHandlerPool;
+    }
+
+    // Zeroed page is returned for pages that were never written
+    public byte[] read(PageBuffer.PageTitle pageTitle) throws InternalOperationException {
+        Chunk chunk = this.getChunk(pageTitle.chunk());
+        byte[] data;
+        synchronized (chunk) {
+            if (pageTitle.pageNumber() >= chunk.pageCount || chunk.lengths[pageTitle.pageNumber()] == 0) {
+                return new byte[this.pageSize];
+            }
+            data = new byte[chunk.lengths[pageTitle.pageNumber()]];
+            this.read(chunk.dataPath, ByteBuffer.wrap(data), chunk.offsets[pageTitle.pageNumber()], ErrorMessage.EM_FILE_READ_EMPTY);
+        }
+        return this.pageCodec.decode(data, this.pageSize);
+    }
+
+    public void write(PageBuffer.PageTitle pageTitle, byte[] page) throws InternalOperationException {
+        byte[] data = this.pageCodec.encode(page);
+        Chunk chunk = this.getChunk(pageTitle.chunk());
+        synchronized (chunk) {
+            int pageNumber = pageTitle.pageNumber();
+            this.ensurePageCount(chunk, pageNumber + 1);
+
+            int slotLength = (data.length + SLOT_ALIGNMENT - 1) / SLOT_ALIGNMENT * SLOT_ALIGNMENT;
+            long offset = chunk.takeFreeSlot(slotLength);
+            this.write(chunk.dataPath, ByteBuffer.wrap(data), offset, ErrorMessage.EM_FILE_WRITE);
+
+            long previousOffset = chunk.offsets[pageNumber];
+            int previousSlotLength = chunk.slotLengths[pageNumber];
+            this.setEntry(chunk, pageNumber, offset, data.length, slotLength);
+            if (previousSlotLength > 0) {
+                chunk.unsyncedSlots.put(previousOffset, previousSlotLength);
+            }
+            if (chunk.unsyncedSlots.size() > chunk.pageCount) {
+                this.sync(pageTitle.chunk());
+            }
+        }
+    }
+
+    // Adds an empty page to the end of the chunk
+    public void allocate(int chunkNumber) throws InternalOperationException {
+        Chunk chunk = this.getChunk(chunkNumber);
+        synchronized (chunk) {
+            this.ensurePageCount(chunk, chunk.pageCount + 1);
+        }
+    }
+
+    public int getPageCount(int chunkNumber) throws InternalOperationException {
+        if (!this.chunks.containsKey(chunkNumber) && !Files.exists(this.chunkFileName.apply(chunkNumber))) {
+            return 0;
+        }
+        Chunk chunk = this.getChunk(chunkNumber);
+        synchronized (chunk) {
+            return chunk.pageCount;
+        }
+    }
+
+    // Data file is forced before the offset table, then slots that entries moved away from are free to be reused
+    public void sync(int chunkNumber) throws InternalOperationException {
+        Chunk chunk = this.getChunk(chunkNumber);
+        synchronized (chunk) {
+            this.fileHandlerPool.force(chunk.dataPath);
+            this.fileHandlerPool.force(chunk.tablePath);
+            chunk.unsyncedSlots.forEach(chunk::freeSlot);
+            chunk.unsyncedSlots.clear();
+        }
+    }
+
+    public void syncAll() throws InternalOperationException {
+        for (Integer chunkNumber : this.chunks.keySet()) {
+            this.sync(chunkNumber);
+        }
+    }
+
+    public Path getTableFileName(int chunk) {
+        return this.basePath.resolve(String.format("testudo_%d.pot.bin", chunk));
+    }
+
+    private Chunk getChunk(int chunkNumber) throws InternalOperationException {
+        Chunk chunk = this.chunks.get(chunkNumber);
+        if (chunk != null) {
+            return chunk;
+        }
+
+        synchronized (this.chunks) {
+            chunk = this.chunks.get(chunkNumber);
+            if (chunk == null) {
+                chunk = this.loadChunk(chunkNumber);
+                this.chunks.put(chunkNumber, chunk);
+            }
+            return chunk;
+        }
+    }
+
+    private Chunk loadChunk(int chunkNumber) throws InternalOperationException {
+        Chunk chunk = new Chunk(this.chunkFileName.apply(chunkNumber), this.getTableFileName(chunkNumber));
+        chunk.dataSize = this.withChannel(chunk.dataPath, AsynchronousFileChannel::size, ErrorMessage.EM_FILEHANDLER_CREATE);
+
+        long tableSize = this.withChannel(chunk.tablePath, AsynchronousFileChannel::size, ErrorMessage.EM_FILEHANDLER_CREATE);
+        ByteBuffer table = ByteBuffer.allocate((int) (tableSize / ENTRY_BYTES * ENTRY_BYTES));
+        this.read(chunk.tablePath, table, 0, ErrorMessage.EM_FILE_READ_EMPTY);
+        table.flip();
+        chunk.grow(table.remaining() / ENTRY_BYTES);
+        while (table.hasRemaining()) {
+            chunk.offsets[chunk.pageCount] = table.getLong();
+            chunk.lengths[chunk.pageCount] = table.getInt();
+            chunk.slotLengths[chunk.pageCount] = table.getInt();
+            chunk.pageCount++;
+        }
+        chunk.findFreeSlots();
+        return chunk;
+    }
+
+    // Pages in between are allocated as empty pages
+    private void ensurePageCount(Chunk chunk, int pageCount) throws InternalOperationException {
+        chunk.grow(pageCount);
+        while (chunk.pageCount < pageCount) {
+            this.setEntry(chunk, chunk.pageCount, 0, 0, 0);
+        }
+    }
+
+    private void setEntry(Chunk chunk, int pageNumber, long offset, int length, int slotLength) throws InternalOperationException {
+        ByteBuffer entry = ByteBuffer.allocate(ENTRY_BYTES)
+                .putLong(offset)
+                .putInt(length)
+                .putInt(slotLength)
+                .flip();
+        this.write(chunk.tablePath, entry, (long) pageNumber * ENTRY_BYTES, ErrorMessage.EM_FILE_WRITE);
+        chunk.offsets[pageNumber] = offset;
+        chunk.lengths[pageNumber] = length;
+        chunk.slotLengths[pageNumber] = slotLength;
+        chunk.pageCount = Math.max(chunk.pageCount, pageNumber + 1);
+    }
+
+    private void read(Path path, ByteBuffer buffer, long position, String errorMessage) throws InternalOperationException {
+        this.withChannel(path, fileChannel -> {
+            while (buffer.hasRemaining()) {
+                if (FileUtils.read(fileChannel, position + buffer.position(), buffer).get() < 0) {
+                    throw new IOException("Unexpected end of file");
+                }
+            }
+            return null;
+        }, errorMessage);
+    }
+
+    private void write(Path path, ByteBuffer buffer, long position, String errorMessage) throws InternalOperationException {
+        this.withChannel(path, fileChannel -> {
+            while (buffer.hasRemaining()) {
+                FileUtils.write(fileChannel, position + buffer.position(), buffer).get();
+            }
+            this.fileHandlerPool.markDirty(path);
+            return null;
+        }, errorMessage);
+    }
+
+    private <T> T withChannel(Path path, ChannelFunction<T> function, String errorMessage) throws InternalOperationException {
+        AsynchronousFileChannel fileChannel = this.fileHandlerPool.getFileChannel(path, 100, TimeUnit.SECONDS);
+        try {
+            return function.apply(fileChannel);
+        } catch (IOException | ExecutionException | InterruptedException e) {
+            throw new InternalOperationException(errorMessage, e);
+        } finally {
+            this.fileHandlerPool.releaseFileChannel(path, 100, TimeUnit.SECONDS);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChannelFunction<T> {
+        T apply(AsynchronousFileChannel fileChannel) throws IOException, ExecutionException, InterruptedException;
+    }
+
+    // Pool owns the files, so only the offset tables are dropped
+    @Override
+    public void close() {
+        this.chunks.clear();
+    }
+
+    private static class Chunk {
+        private final Path dataPath;
+        private final Path tablePath;
+        private long dataSize;
+        private int pageCount;
+        private long[] offsets = new long[16];
+        private int[] lengths = new int[16];
+        private int[] slotLengths = new int[16];
+        private final TreeMap<Long, Integer> freeSlots = new TreeMap<>();  // offset -> length, adjacent slots are merged
+        private final TreeMap<Long, Integer> unsyncedSlots = new TreeMap<>();  // Left by entries that moved since last sync
+
+        private Chunk(Path dataPath, Path tablePath) {
+            this.dataPath = dataPath;
+            this.tablePath = tablePath;
+        }
+
+        private void grow(int capacity) {
+            if (capacity <= this.offsets.length) {
+                return;
+            }
+            int length = Math.max(capacity, this.offsets.length * 2);
+            this.offsets = Arrays.copyOf(this.offsets, length);
+            this.lengths = Arrays.copyOf(this.lengths, length);
+            this.slotLengths = Arrays.copyOf(this.slotLengths, length);
+        }
+
+        // Gaps between slots of the pages, which were left by a previous run
+        private void findFreeSlots() {
+            List<Integer> pageNumbers = new ArrayList<>();
+            for (int i = 0; i < this.pageCount; i++) {
+                if (this.slotLengths[i] > 0) {
+                    pageNumbers.add(i);
+                }
+            }
+            pageNumbers.sort(Comparator.comparingLong(i -> this.offsets[i]));
+
+            long end = 0;
+            for (int pageNumber : pageNumbers) {
+                if (this.offsets[pageNumber] > end) {
+                    this.freeSlot(end, (int) (this.offsets[pageNumber] - end));
+                }
+                end = Math.max(end, this.offsets[pageNumber] + this.slotLengths[pageNumber]);
+            }
+            if (this.dataSize > end) {
+                this.freeSlot(end, (int) (this.dataSize - end));
+            }
+        }
+
+        // First free slot that is large enough is split, the file grows if there is none
+        private long takeFreeSlot(int length) {
+            for (Map.Entry<Long, Integer> entry : this.freeSlots.entrySet()) {
+                if (entry.getValue() >= length) {
+                    this.freeSlots.remove(entry.getKey());
+                    if (entry.getValue() > length) {
+                        this.freeSlots.put(entry.getKey() + length, entry.getValue() - length);
+                    }
+                    return entry.getKey();
+                }
+            }
+            long offset = this.dataSize;
+            this.dataSize += length;
+            return offset;
+        }
+
+        private void freeSlot(long offset, int length) {
+            Map.Entry<Long, Integer> previous = this.freeSlots.floorEntry(offset);
+            if (previous != null && previous.getKey() + previous.getValue() == offset) {
+                this.freeSlots.remove(previous.getKey());
+                offset = previous.getKey();
+                length += previous.getValue();
+            }
+            Integer nextLength = this.freeSlots.remove(offset + length);
+            if (nextLength != null) {
+                length += nextLength;
+            }
+            this.freeSlots.put(offset, length);
+        }
+    }
+}
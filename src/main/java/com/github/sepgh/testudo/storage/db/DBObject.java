@@ -1,16 +1,18 @@
 package com.github.sepgh.testudo.storage.db;
 
 import com.github.sepgh.testudo.exception.InvalidDBObjectWrapper;
-import com.github.sepgh.testudo.utils.BinaryUtils;
-import com.google.common.primitives.Ints;
 import lombok.Getter;
 
+import java.nio.ByteBuffer;
+
 
 /*
  * - META
  *      - Flags (1 byte):
  *          - 0x01  alive
  *          - 0x00  dead
+ *          - 0x02  overflow: data continues in fragments, see OverflowChain
+ *          - 0x04  fragment of an overflowed object
  *      - SchemeId (int, 4 bytes)
  *      - CollectionId (int, 4 bytes)
  *      - Version (int, 4 bytes)
@@ -19,13 +21,15 @@ import lombok.Getter;
  */
 public class DBObject {
     public static byte ALIVE_OBJ = 0x01;
+    public static byte OVERFLOW_OBJ = 0x02;
+    public static byte FRAGMENT_OBJ = 0x04;
     public static int FLAG_BYTES = 1;
     public static int META_BYTES = FLAG_BYTES + (4 * Integer.BYTES);
     public static int META_SCHEME_ID_OFFSET = FLAG_BYTES;
     public static int META_COLLECTION_ID_OFFSET = FLAG_BYTES + Integer.BYTES;
     public static int META_VERSION_OFFSET = FLAG_BYTES + (2 * Integer.BYTES);
     public static int META_SIZE_OFFSET = FLAG_BYTES + (3 * Integer.BYTES);
-    private final byte[] wrappedData;
+    private final ByteBuffer wrappedData;
     @Getter
     private final int begin;
     @Getter
@@ -47,8 +51,8 @@ public class DBObject {
     }
 
     private void verify() throws InvalidDBObjectWrapper {
-        if (end > this.wrappedData.length - 1)
-            throw new InvalidDBObjectWrapper("The passed value for end (%d) is larger than the data byte array length (%d).".formatted(end, this.wrappedData.length));
+        if (end > this.wrappedData.capacity() - 1)
+            throw new InvalidDBObjectWrapper("The passed value for end (%d) is larger than the data byte array length (%d).".formatted(end, this.wrappedData.capacity()));
 
         int min = META_BYTES + 1;
         if (this.length < min) {
@@ -65,11 +69,23 @@ public class DBObject {
     }
 
     public boolean isAlive() {
-        byte[] b = new byte[this.length];
-        System.arraycopy(wrappedData, this.begin, b, 0, this.length);
         return DBObject.isAlive(this.wrappedData, this.begin);
     }
 
+    public boolean isOverflow() {
+        return (this.wrappedData.get(this.begin) & OVERFLOW_OBJ) == OVERFLOW_OBJ;
+    }
+
+    public boolean isFragment() {
+        return (this.wrappedData.get(this.begin) & FRAGMENT_OBJ) == FRAGMENT_OBJ;
+    }
+
+    // `flag` is either OVERFLOW_OBJ, FRAGMENT_OBJ or 0 for an object that is not part of an overflow chain
+    public void setChainFlag(byte flag) {
+        this.wrappedData.put(begin, (byte) ((wrappedData.get(begin) & ~(OVERFLOW_OBJ | FRAGMENT_OBJ)) | flag));
+        this.modified(0, FLAG_BYTES);
+    }
+
     public int getObjectSize() {
         return this.getDataSize() + DBObject.META_BYTES;
     }
@@ -80,14 +96,7 @@ public class DBObject {
 
     public byte[] readData(int offset, int size) {
         byte[] output = new byte[size];
-
-        System.arraycopy(
-                this.wrappedData,
-                begin + META_BYTES + offset,
-                output,
-                0,
-                size
-        );
+        this.wrappedData.get(begin + META_BYTES + offset, output);
         return output;
     }
 
@@ -98,27 +107,13 @@ public class DBObject {
 
         this.setSize(value.length);
 
-        this.modified = true;
-
-        System.arraycopy(
-                value,
-                0,
-                this.wrappedData,
-                begin + META_BYTES,
-                value.length
-        );
+        this.wrappedData.put(begin + META_BYTES, value);
+        this.modified(META_BYTES, value.length);
     }
 
     public void modifyData(int offset, byte[] value){
-        this.modified = true;
-
-        System.arraycopy(
-                value,
-                0,
-                this.wrappedData,
-                begin + META_BYTES + offset,
-                value.length
-        );
+        this.wrappedData.put(begin + META_BYTES + offset, value);
+        this.modified(META_BYTES + offset, value.length);
     }
 
     public int getVersion() {
@@ -126,93 +121,95 @@ public class DBObject {
     }
 
     public void setVersion(int version) {
-        this.modified = true;
-
-        System.arraycopy(
-                Ints.toByteArray(version),
-                0,
-                this.wrappedData,
-                begin + META_VERSION_OFFSET,
-                Integer.BYTES
-        );
+        this.wrappedData.putInt(begin + META_VERSION_OFFSET, version);
+        this.modified(META_VERSION_OFFSET, Integer.BYTES);
     }
 
     public void setSchemeId(int schemeId) {
-        this.modified = true;
-
-        System.arraycopy(
-                Ints.toByteArray(schemeId),
-                0,
-                this.wrappedData,
-                begin + META_SCHEME_ID_OFFSET,
-                Integer.BYTES
-        );
+        this.wrappedData.putInt(begin + META_SCHEME_ID_OFFSET, schemeId);
+        this.modified(META_SCHEME_ID_OFFSET, Integer.BYTES);
     }
 
     public void setCollectionId(int collectionId) {
-        this.modified = true;
-
-        System.arraycopy(
-                Ints.toByteArray(collectionId),
-                0,
-                this.wrappedData,
-                begin + META_COLLECTION_ID_OFFSET,
-                Integer.BYTES
-        );
+        this.wrappedData.putInt(begin + META_COLLECTION_ID_OFFSET, collectionId);
+        this.modified(META_COLLECTION_ID_OFFSET, Integer.BYTES);
     }
 
     private void setSize(int size) {
-        this.modified = true;
-
-        System.arraycopy(
-                Ints.toByteArray(size),
-                0,
-                this.wrappedData,
-                begin + META_SIZE_OFFSET,
-                Integer.BYTES
-        );
+        this.wrappedData.putInt(begin + META_SIZE_OFFSET, size);
+        this.modified(META_SIZE_OFFSET, Integer.BYTES);
     }
 
     public void deactivate() {
-        this.modified = true;
-        this.wrappedData[begin] = (byte) (wrappedData[begin] & ~ALIVE_OBJ);
+        this.wrappedData.put(begin, (byte) (wrappedData.get(begin) & ~ALIVE_OBJ));
+        this.modified(0, FLAG_BYTES);
     }
 
     public void activate() {
+        this.wrappedData.put(begin, (byte) (wrappedData.get(begin) | ALIVE_OBJ));
+        this.modified(0, FLAG_BYTES);
+    }
+
+    /*
+     * Turns the wrapper into a dead object that covers all of its bytes, so the unused end of a reused object can still
+     * be skipped while iterating the page.
+     */
+    public void fill() {
+        this.deactivate();
+        this.setSize(this.length - META_BYTES);
+    }
+
+    // Offset is relative to beginning of the object
+    private void modified(int offset, int size) {
         this.modified = true;
-        this.wrappedData[begin] = (byte) (wrappedData[begin] | ALIVE_OBJ);
+        this.page.markDirty(begin + offset, begin + offset + size);
     }
 
     public byte[] getData() {
         byte[] result = new byte[getDataSize()];
-        System.arraycopy(
-                this.wrappedData,
-                begin + META_BYTES,
-                result,
-                0,
-                result.length
-        );
+        this.wrappedData.get(begin + META_BYTES, result);
         return result;
     }
 
-    public static int getSchemeId(byte[] wrappedData, int begin) {
-        return BinaryUtils.bytesToInteger(wrappedData, begin + META_SCHEME_ID_OFFSET);
+    /*
+     * Read-only view of the data, backed by the page. Nothing is copied, so the view (and the typed getters below) should
+     * only be used while the page is pinned: the page may be reused for another page once it leaves the buffer.
+     */
+    public ByteBuffer getDataView() {
+        return this.wrappedData.slice(begin + META_BYTES, getDataSize()).asReadOnlyBuffer();
+    }
+
+    // Offsets of typed getters are relative to the beginning of the data
+    public byte getByte(int offset) {
+        return this.wrappedData.get(begin + META_BYTES + offset);
+    }
+
+    public int getInt(int offset) {
+        return this.wrappedData.getInt(begin + META_BYTES + offset);
+    }
+
+    public long getLong(int offset) {
+        return this.wrappedData.getLong(begin + META_BYTES + offset);
+    }
+
+    public static int getSchemeId(ByteBuffer wrappedData, int begin) {
+        return wrappedData.getInt(begin + META_SCHEME_ID_OFFSET);
     }
 
-    public static int getCollectionId(byte[] wrappedData, int begin) {
-        return BinaryUtils.bytesToInteger(wrappedData, begin + META_COLLECTION_ID_OFFSET);
+    public static int getCollectionId(ByteBuffer wrappedData, int begin) {
+        return wrappedData.getInt(begin + META_COLLECTION_ID_OFFSET);
     }
 
-    public static int getVersion(byte[] wrappedData, int begin) {
-        return BinaryUtils.bytesToInteger(wrappedData, begin + META_VERSION_OFFSET);
+    public static int getVersion(ByteBuffer wrappedData, int begin) {
+        return wrappedData.getInt(begin + META_VERSION_OFFSET);
     }
 
-    public static boolean isAlive(byte[] wrappedData, int begin){
-        return (wrappedData[begin] & ALIVE_OBJ) == ALIVE_OBJ;
+    public static boolean isAlive(ByteBuffer wrappedData, int begin){
+        return (wrappedData.get(begin) & ALIVE_OBJ) == ALIVE_OBJ;
     }
 
-    public static int getDataSize(byte[] wrappedData, int begin){
-        return BinaryUtils.bytesToInteger(wrappedData, begin + META_SIZE_OFFSET);
+    public static int getDataSize(ByteBuffer wrappedData, int begin){
+        return wrappedData.getInt(begin + META_SIZE_OFFSET);
     }
 
     public static int getWrappedSize(int length) {
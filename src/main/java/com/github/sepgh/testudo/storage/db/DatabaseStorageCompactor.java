@@ -0,0 +1,139 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+
+/*
+ * Moves live objects out of sparse pages and recycles the pages once nothing is alive in them.
+ *
+ * Work is done one page per step, so the pause a step causes is bounded by the objects of a single page. Each object is
+ * moved through the ObjectRelocator, which holds whatever lock protects its references only while that object is moved.
+ * A page is skipped if it holds a live object that the relocator doesn't know about (ie: index nodes or bitmaps), or if
+ * its objects can't be iterated.
+ *
+ * Holes of a page are no longer traced for reuse once its objects start moving, so moved objects land in other pages.
+ * If the page doesn't end up recycled, its holes (including locations of the objects moved out of it) are traced again.
+ */
+public class DatabaseStorageCompactor implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseStorageCompactor.class);
+
+    private final DiskPageDatabaseStorageManager storageManager;
+    private final ObjectRelocator objectRelocator;
+    private final double maxLiveRatio;
+    private final ScheduledExecutorService scheduler;
+    private PageBuffer.PageTitle next = new PageBuffer.PageTitle(0, 0);
+
+    /*
+     * Pages with live bytes less than `maxLiveRatio` of their capacity are compacted.
+     * Steps run every `interval` milliseconds, a non-positive interval leaves running steps to the caller.
+     */
+    public DatabaseStorageCompactor(DiskPageDatabaseStorageManager storageManager, ObjectRelocator objectRelocator, double maxLiveRatio, long interval) {
+        this.storageManager = storageManager;
+        this.objectRelocator = objectRelocator;
+        this.maxLiveRatio = maxLiveRatio;
+        if (interval > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "testudo-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.scheduler.scheduleWithFixedDelay(this::scheduledStep, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    /*
+     * Compacts the next page. Returns false once a pass over all pages is done, and the next step starts a new pass.
+     */
+    public synchronized boolean step() throws InternalOperationException {
+        if (this.next.chunk() == 0 && this.next.pageNumber() == 0) {
+            this.objectRelocator.beginPass();
+        }
+
+        PageBuffer.PageTitle pageTitle = this.next;
+        Optional<DiskPageDatabaseStorageManager.PageUsage> optionalPageUsage = this.storageManager.getPageUsage(pageTitle);
+        if (optionalPageUsage.isEmpty()) {
+            if (pageTitle.pageNumber() == 0) {
+                this.next = new PageBuffer.PageTitle(0, 0);
+                return false;
+            }
+            this.next = new PageBuffer.PageTitle(pageTitle.chunk() + 1, 0);
+            return true;
+        }
+
+        this.next = new PageBuffer.PageTitle(pageTitle.chunk(), pageTitle.pageNumber() + 1);
+        this.compact(optionalPageUsage.get());
+        return true;
+    }
+
+    // Runs steps until a whole pass over the pages is done
+    public synchronized void compact() throws InternalOperationException {
+        this.next = new PageBuffer.PageTitle(0, 0);
+        while (this.step());
+    }
+
+    // Returns true if the page got recycled
+    private boolean compact(DiskPageDatabaseStorageManager.PageUsage pageUsage) throws InternalOperationException {
+        PageBuffer.PageTitle pageTitle = pageUsage.pageTitle();
+        if (!pageUsage.contiguous() || pageTitle.equals(this.storageManager.getLastPageTitle()) || pageTitle.equals(this.storageManager.getTailPageTitle())) {
+            return false;
+        }
+
+        int capacity = this.storageManager.getEngineConfig().getDbPageSize() - Page.META_BYTES;
+        // Empty pages are recycled too, such as pages that all objects were removed from
+        if (pageUsage.liveBytes() >= this.maxLiveRatio * capacity) {
+            return false;
+        }
+
+        for (DiskPageDatabaseStorageManager.LiveObject liveObject : pageUsage.liveObjects()) {
+            if (!this.objectRelocator.isKnown(liveObject.schemeId(), liveObject.collectionId(), liveObject.pointer())) {
+                return false;
+            }
+        }
+
+        long pagePosition = (long) pageTitle.pageNumber() * this.storageManager.getEngineConfig().getDbPageSize();
+        this.storageManager.getRemovedObjectsTracer().removeLocations(pageTitle.chunk(), pagePosition, pagePosition + this.storageManager.getEngineConfig().getDbPageSize());
+
+        boolean recycled = false;
+        try {
+            for (DiskPageDatabaseStorageManager.LiveObject liveObject : pageUsage.liveObjects()) {
+                if (!this.objectRelocator.relocate(liveObject.schemeId(), liveObject.collectionId(), liveObject.pointer(), this.storageManager::relocate)) {
+                    return false;
+                }
+            }
+
+            recycled = this.storageManager.recyclePage(pageTitle);
+            if (recycled) {
+                logger.debug("Recycled page {} after moving {} objects", pageTitle, pageUsage.liveObjects().size());
+            }
+            return recycled;
+        } finally {
+            if (!recycled) {
+                this.storageManager.traceFreeLocations(pageTitle);
+            }
+        }
+    }
+
+    private void scheduledStep() {
+        try {
+            this.step();
+        } catch (InternalOperationException e) {
+            logger.error("Compaction step failed", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+        }
+    }
+}
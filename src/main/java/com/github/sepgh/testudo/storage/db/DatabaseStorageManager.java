@@ -2,16 +2,77 @@ package com.github.sepgh.testudo.storage.db;
 
 import com.github.sepgh.testudo.ds.Pointer;
 import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.functional.CheckedFunction;
 import com.github.sepgh.testudo.functional.DBObjectUpdateConsumer;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 
 public interface DatabaseStorageManager {
     Pointer store(int scheme, int collectionId, int version, byte[] data) throws InternalOperationException;
+
+    // Pointers are returned in the order of `dataList`. Implementations may pack the objects and write each page once
+    default List<Pointer> storeAll(int scheme, int collectionId, int version, List<byte[]> dataList) throws InternalOperationException {
+        List<Pointer> pointers = new ArrayList<>(dataList.size());
+        for (byte[] data : dataList) {
+            pointers.add(this.store(scheme, collectionId, version, data));
+        }
+        return pointers;
+    }
     void update(Pointer pointer, DBObjectUpdateConsumer<DBObject> dbObjectConsumer) throws InternalOperationException;
     void update(Pointer pointer, byte[] bytes) throws InternalOperationException;
+
+    /*
+     * Writes `data` over the object, which may be longer than the object is. Only `data[0, header)` and `data[from, ...)`
+     * differ from what is stored, so implementations that split large objects may leave the rest of them alone. Returns
+     * the pointer of the object, which changes if the object had to be moved.
+     */
+    default Pointer extend(int scheme, int collectionId, int version, Pointer pointer, byte[] data, int header, int from) throws InternalOperationException {
+        Optional<Integer> optionalSize = this.select(pointer, DBObject::getDataSize);
+        if (optionalSize.isPresent() && optionalSize.get() == data.length) {
+            this.update(pointer, data);
+            return pointer;
+        }
+        Pointer newPointer = this.store(scheme, collectionId, version, data);
+        this.remove(pointer);
+        return newPointer;
+    }
     Optional<DBObject> select(Pointer pointer) throws InternalOperationException;
+
+    /*
+     * Applies `function` to the object while it's still in its page, which avoids copying the object when only a part of
+     * it is needed. The object should not be kept or modified by the function.
+     */
+    default <T, E extends Exception> Optional<T> select(Pointer pointer, CheckedFunction<DBObject, T, E> function) throws InternalOperationException, E {
+        Optional<DBObject> optional = this.select(pointer);
+        if (optional.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(function.apply(optional.get()));
+    }
+    /*
+     * Streams data of the object. Implementations that split large objects over several pages may read them part by part,
+     * rather than assembling them in memory like select does.
+     */
+    default Optional<InputStream> openDataStream(Pointer pointer) throws InternalOperationException {
+        return this.select(pointer).map(dbObject -> new ByteArrayInputStream(dbObject.getData()));
+    }
+
     void remove(Pointer pointer) throws InternalOperationException;
+
+    default void removeAll(List<Pointer> pointers) throws InternalOperationException {
+        for (Pointer pointer : pointers) {
+            this.remove(pointer);
+        }
+    }
+
+    // Should be closed once the scan it's made for is done. See ReadAhead
+    default ReadAhead readAhead() {
+        return ReadAhead.NONE;
+    }
     default void close(){}
 }
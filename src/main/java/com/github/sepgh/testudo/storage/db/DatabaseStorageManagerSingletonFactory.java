@@ -3,6 +3,8 @@ package com.github.sepgh.testudo.storage.db;
 import com.github.sepgh.testudo.context.EngineConfig;
 import com.github.sepgh.testudo.storage.pool.FileHandlerPoolSingletonFactory;
 
+import java.nio.file.Path;
+
 public abstract class DatabaseStorageManagerSingletonFactory {
     protected final EngineConfig engineConfig;
     private DatabaseStorageManager databaseStorageManager;
@@ -30,20 +32,35 @@ public abstract class DatabaseStorageManagerSingletonFactory {
 
         @Override
         public DatabaseStorageManager create() {
-            if (engineConfig.getRemovedObjectTrackingStrategy().equals(EngineConfig.RemovedObjectTrackingStrategy.IN_MEMORY)) {
-                return new DiskPageDatabaseStorageManager(
+            if (engineConfig.getPageLayout().equals(EngineConfig.PageLayout.SLOTTED)) {
+                return new SlottedPageDatabaseStorageManager(
                         engineConfig,
-                        fileHandlerPoolSingletonFactory.getInstance(),
-                        new RemovedObjectsTracer.InMemoryRemovedObjectsTracer(engineConfig.getIMROTMinLengthToSplit())
+                        fileHandlerPoolSingletonFactory.getInstance()
                 );
+            }
+
+            RemovedObjectsTracer removedObjectsTracer;
+            if (engineConfig.getRemovedObjectTrackingStrategy().equals(EngineConfig.RemovedObjectTrackingStrategy.DISK)) {
+                removedObjectsTracer = new DiskRemovedObjectsTracer(Path.of(engineConfig.getBaseDBPath()));
+            } else if (engineConfig.getRemovedObjectTrackingStrategy().equals(EngineConfig.RemovedObjectTrackingStrategy.IN_MEMORY_SEGREGATED)) {
+                removedObjectsTracer = new SegregatedRemovedObjectsTracer(engineConfig.getIMROTMinLengthToSplit());
             } else {
-                // Note: no difference than above line for now, does the same thing! Todo: update if new implementations of Removed Object Tracker has been added
-                return new DiskPageDatabaseStorageManager(
+                removedObjectsTracer = new RemovedObjectsTracer.InMemoryRemovedObjectsTracer(engineConfig.getIMROTMinLengthToSplit());
+            }
+
+            if (engineConfig.getPageStorageStrategy().equals(EngineConfig.PageStorageStrategy.MEMORY_MAPPED)) {
+                return new MappedPageDatabaseStorageManager(
                         engineConfig,
-                        fileHandlerPoolSingletonFactory.getInstance()
+                        fileHandlerPoolSingletonFactory.getInstance(),
+                        removedObjectsTracer
                 );
             }
 
+            return new DiskPageDatabaseStorageManager(
+                    engineConfig,
+                    fileHandlerPoolSingletonFactory.getInstance(),
+                    removedObjectsTracer
+            );
         }
     }
 }
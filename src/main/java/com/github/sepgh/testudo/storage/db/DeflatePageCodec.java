@@ -0,0 +1,69 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.exception.ErrorMessage;
+import com.github.sepgh.testudo.exception.InternalOperationException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+
+/*
+ * Deflate (LZ77 and Huffman coding) page codec. Pages are mostly zero padded fields and free space, which even the
+ * fastest level of deflate shrinks several times.
+ * Deflaters and inflaters hold native memory, so one of each is kept per thread rather than made per page.
+ */
+public class DeflatePageCodec implements PageCodec {
+    private final ThreadLocal<Deflater> deflaters;
+    private final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(Inflater::new);
+
+    public DeflatePageCodec(int level) {
+        this.deflaters = ThreadLocal.withInitial(() -> new Deflater(level));
+    }
+
+    public DeflatePageCodec() {
+        this(Deflater.BEST_SPEED);
+    }
+
+    @Override
+    public byte[] encode(byte[] page) {
+        Deflater deflater = this.deflaters.get();
+        deflater.reset();
+        deflater.setInput(page);
+        deflater.finish();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream(page.length / 4);
+        byte[] buffer = new byte[Math.max(64, page.length / 4)];
+        while (!deflater.finished()) {
+            int length = deflater.deflate(buffer);
+            output.write(buffer, 0, length);
+        }
+        return output.toByteArray();
+    }
+
+    @Override
+    public byte[] decode(byte[] data, int pageSize) throws InternalOperationException {
+        Inflater inflater = this.inflaters.get();
+        inflater.reset();
+        inflater.setInput(data);
+
+        byte[] page = new byte[pageSize];
+        try {
+            int length = 0;
+            while (length < pageSize && !inflater.finished()) {
+                int inflated = inflater.inflate(page, length, pageSize - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != pageSize) {
+                throw new InternalOperationException("%s: expected %d bytes, inflated %d".formatted(ErrorMessage.EM_PAGE_DECODE, pageSize, length));
+            }
+        } catch (DataFormatException e) {
+            throw new InternalOperationException(ErrorMessage.EM_PAGE_DECODE, e);
+        }
+        return page;
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.context.EngineConfig;
+import com.github.sepgh.testudo.storage.pool.FileHandlerPool;
+import com.github.sepgh.testudo.utils.BufferPool;
+import com.github.sepgh.testudo.utils.FileUtils;
+import lombok.Getter;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntFunction;
+
+
+/*
+ * Chunk files are opened with O_DIRECT, bypassing the OS page cache, see EngineConfig.dbDirectIO.
+ *
+ * Reads and writes need direct buffers which address, position and length are aligned to EngineConfig.DIRECT_IO_ALIGNMENT.
+ * Frames of the arena are aligned already, other content is copied through pooled aligned buffers of a page each.
+ * Dirty ranges of pages are expanded to whole aligned blocks, and redo records are applied by rewriting their page.
+ */
+public class DirectFilePageIO extends FilePageIO {
+    @Getter
+    private final BufferPool alignedBufferPool;
+    private final int writeAlignment;
+
+    public DirectFilePageIO(EngineConfig engineConfig, FileHandlerPool fileHandlerPool, IntFunction<Path> chunkFileName, @Nullable PageFrameArena pageFrameArena) {
+        super(engineConfig, fileHandlerPool, chunkFileName, pageFrameArena);
+        int alignment = engineConfig.getDbPageWriteAlignment();
+        this.writeAlignment = alignment > 0 && alignment % EngineConfig.DIRECT_IO_ALIGNMENT == 0 ? alignment : EngineConfig.DIRECT_IO_ALIGNMENT;
+        this.alignedBufferPool = BufferPool.aligned(engineConfig.getDbPageSize(), EngineConfig.DIRECT_IO_ALIGNMENT, engineConfig.getFileHandlerPoolThreads());
+    }
+
+    // Direct I/O needs the page size to be a multiple of the alignment, otherwise pages can't be read or written whole
+    public static boolean isSupported(EngineConfig engineConfig) {
+        return engineConfig.getDbPageSize() % EngineConfig.DIRECT_IO_ALIGNMENT == 0;
+    }
+
+    // A page past the end of the file is read as an empty page, since only whole aligned blocks can be appended
+    @Override
+    protected int readPage(AsynchronousFileChannel fileChannel, long position, ByteBuffer target) throws ExecutionException, InterruptedException {
+        return this.read(fileChannel, position, target);
+    }
+
+    @Override
+    protected int read(AsynchronousFileChannel fileChannel, long position, ByteBuffer target) throws ExecutionException, InterruptedException {
+        if (isAligned(target)) {
+            return FileUtils.read(fileChannel, position, target).get();
+        }
+
+        ByteBuffer buffer = this.alignedBufferPool.acquire();
+        try {
+            int read = FileUtils.read(fileChannel, position, buffer.slice(0, target.remaining())).get();
+            if (read > 0) {
+                target.put(target.position(), buffer, 0, read);
+            }
+            return read;
+        } finally {
+            this.alignedBufferPool.release(buffer);
+        }
+    }
+
+    // Copied content goes back to the pool once it's written
+    @Override
+    protected CompletableFuture<Integer> write(AsynchronousFileChannel fileChannel, long position, ByteBuffer data) {
+        if (isAligned(data)) {
+            return FileUtils.write(fileChannel, position, data);
+        }
+
+        ByteBuffer buffer = this.alignedBufferPool.acquire();
+        ByteBuffer aligned = buffer.slice(0, data.remaining()).put(0, data, data.position(), data.remaining());
+        return FileUtils.write(fileChannel, position, aligned).whenComplete((result, throwable) -> this.alignedBufferPool.release(buffer));
+    }
+
+    // Only whole pages can be written, so the page is read and patched first
+    @Override
+    protected void write(AsynchronousFileChannel fileChannel, long position, byte[] data) throws ExecutionException, InterruptedException {
+        int pageSize = this.engineConfig.getDbPageSize();
+        long pagePosition = position / pageSize * pageSize;
+        byte[] page = new byte[pageSize];
+        this.read(fileChannel, pagePosition, ByteBuffer.wrap(page));
+        System.arraycopy(data, 0, page, (int) (position - pagePosition), data.length);
+        this.write(fileChannel, pagePosition, ByteBuffer.wrap(page)).get();
+    }
+
+    @Override
+    protected void allocate(AsynchronousFileChannel fileChannel, int size) throws IOException, ExecutionException, InterruptedException {
+        this.write(fileChannel, fileChannel.size(), ByteBuffer.wrap(new byte[size])).get();
+    }
+
+    @Override
+    protected int getWriteAlignment() {
+        return this.writeAlignment;
+    }
+
+    @Override
+    protected boolean isDirectIO() {
+        return true;
+    }
+
+    private static boolean isAligned(ByteBuffer buffer) {
+        return buffer.isDirect() && buffer.alignmentOffset(buffer.position(), EngineConfig.DIRECT_IO_ALIGNMENT) == 0;
+    }
+}
@@ -2,49 +2,281 @@ package com.github.sepgh.testudo.storage.db;
 
 import com.github.sepgh.testudo.context.EngineConfig;
 import com.github.sepgh.testudo.ds.Pointer;
-import com.github.sepgh.testudo.exception.ErrorMessage;
 import com.github.sepgh.testudo.exception.InternalOperationException;
 import com.github.sepgh.testudo.exception.InvalidDBObjectWrapper;
+import com.github.sepgh.testudo.functional.CheckedFunction;
 import com.github.sepgh.testudo.functional.DBObjectUpdateConsumer;
+import com.github.sepgh.testudo.functional.PageWriter;
 import com.github.sepgh.testudo.storage.pool.FileHandlerPool;
-import com.github.sepgh.testudo.utils.FileUtils;
+import com.github.sepgh.testudo.storage.wal.Checkpointer;
+import com.github.sepgh.testudo.storage.wal.RedoRecord;
+import com.github.sepgh.testudo.storage.wal.WriteAheadLog;
+import com.google.common.primitives.Ints;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.SneakyThrows;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.channels.AsynchronousFileChannel;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Optional;
-import java.util.concurrent.ExecutionException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
 import static com.github.sepgh.testudo.exception.ErrorMessage.*;
 
 
 @Getter
 public class DiskPageDatabaseStorageManager implements DatabaseStorageManager {
+    private static final Logger logger = LoggerFactory.getLogger(DiskPageDatabaseStorageManager.class);
+
     private final PageBuffer pageBuffer;
     private final EngineConfig engineConfig;
     private final FileHandlerPool fileHandlerPool;
     private final RemovedObjectsTracer removedObjectsTracer;
-    private volatile PageBuffer.PageTitle lastPageTitle;
+    private final Checkpointer checkpointer;
+    @Nullable
+    private final PageFrameArena pageFrameArena;
+    private final PageIO pageIO;
+    @Getter(AccessLevel.NONE)
+    private final PageWriter pageCommitter;  // Commits a modified page according to EngineConfig.PageCommitStrategy
+    @Nullable
+    @Getter(AccessLevel.NONE)
+    private final ExecutorService readAheadExecutor;
+    @Nullable
+    @Getter(AccessLevel.NONE)
+    private final ScheduledExecutorService forceScheduler;  // Forces dirty files under PERIODIC durability
+    @Getter(AccessLevel.NONE)
+    private final Superblock superblock;
+    private volatile boolean superblockClean = true;  // Whether the superblock on disk may still claim a clean shutdown
+    private volatile PageBuffer.PageTitle lastPageTitle;  // Page that new objects are appended to
+    private volatile PageBuffer.PageTitle tailPageTitle;  // Last allocated page of the files
+    @Getter(AccessLevel.NONE)
+    private final Set<PageBuffer.PageTitle> recycledPages = new LinkedHashSet<>();
+    // Pages are only recycled while no object is being allocated or removed
+    @Getter(AccessLevel.NONE)
+    private final ReadWriteLock allocationLock = new ReentrantReadWriteLock();
 
     public DiskPageDatabaseStorageManager(EngineConfig engineConfig, FileHandlerPool fileHandlerPool, RemovedObjectsTracer removedObjectsTracer) {
         this.engineConfig = engineConfig;
-        this.fileHandlerPool = fileHandlerPool;
         this.removedObjectsTracer = removedObjectsTracer;
-        this.pageBuffer = new PageBuffer(
-                this.engineConfig.getDbPageBufferSize(),
-                this::pageFactory
-        );
+        this.fileHandlerPool = fileHandlerPool;
+        this.superblock = new Superblock(Path.of(engineConfig.getBaseDBPath()));
+        if (engineConfig.getDbPageFrameArenaSize() > 0) {
+            this.pageFrameArena = new PageFrameArena(engineConfig.getDbPageSize(), engineConfig.getDbPageFrameArenaSize());
+        } else {
+            this.pageFrameArena = null;
+        }
+        this.pageIO = this.createPageIO(engineConfig, fileHandlerPool, this.pageFrameArena);
+        if (engineConfig.getDbReadAheadPages() > 0 && engineConfig.getFileIOStrategy().equals(EngineConfig.FileIOStrategy.SYNCHRONOUS)) {
+            // Pages are read in the threads that acquire them, each read ahead gets a virtual thread of its own
+            this.readAheadExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("testudo-read-ahead-", 0).factory());
+        } else if (engineConfig.getDbReadAheadPages() > 0) {
+            // Pages are read by the file handler pool threads, these only wait for them
+            this.readAheadExecutor = Executors.newFixedThreadPool(Math.min(engineConfig.getDbReadAheadPages(), engineConfig.getFileHandlerPoolThreads()), runnable -> {
+                Thread thread = new Thread(runnable, "testudo-read-ahead");
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.readAheadExecutor = null;
+        }
+        Consumer<Page> dropListener = this.pageFrameArena == null ? null : page -> this.pageFrameArena.recycle(page.getData());
+
+        EngineConfig.PageCommitStrategy pageCommitStrategy = engineConfig.getPageCommitStrategy();
+        PageWriter pageWriter = pageCommitStrategy.equals(EngineConfig.PageCommitStrategy.IMMEDIATE) ? null : this.pageIO::write;
+        // Under write-ahead log dirty pages are flushed by the checkpointer
+        long flushInterval = pageCommitStrategy.equals(EngineConfig.PageCommitStrategy.WRITE_BACK) ? this.engineConfig.getDbPageFlushInterval() : 0;
+        if (engineConfig.getPageBufferStrategy().equals(EngineConfig.PageBufferStrategy.CLOCK)) {
+            this.pageBuffer = new ClockPageBuffer(this.engineConfig.getDbPageBufferSize(), this::pageFactory, pageWriter, flushInterval, dropListener);
+        } else if (engineConfig.getPageBufferStrategy().equals(EngineConfig.PageBufferStrategy.TWO_Q)) {
+            this.pageBuffer = new TwoQPageBuffer(this.engineConfig.getDbPageBufferSize(), this::pageFactory, pageWriter, flushInterval, dropListener);
+        } else {
+            this.pageBuffer = new LRUPageBuffer(this.engineConfig.getDbPageBufferSize(), this::pageFactory, pageWriter, flushInterval, dropListener);
+        }
+
+        if (pageCommitStrategy.equals(EngineConfig.PageCommitStrategy.WRITE_AHEAD_LOG)) {
+            this.checkpointer = this.createCheckpointer();
+        } else {
+            this.checkpointer = null;
+        }
+        this.pageCommitter = switch (pageCommitStrategy) {
+            case IMMEDIATE -> this.pageIO::write;
+            case WRITE_BACK -> this.pageBuffer::markDirty;
+            // Only the modified ranges are logged, the page is written back on checkpoint
+            case WRITE_AHEAD_LOG -> this.checkpointer::commit;
+        };
+
+        if (engineConfig.getDurability().equals(EngineConfig.Durability.PERIODIC)) {
+            this.forceScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "testudo-force");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = engineConfig.getDurabilityForceInterval();
+            this.forceScheduler.scheduleWithFixedDelay(this::forceDirty, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.forceScheduler = null;
+        }
     }
 
     public DiskPageDatabaseStorageManager(EngineConfig engineConfig, FileHandlerPool fileHandlerPool) {
         this(engineConfig, fileHandlerPool, new RemovedObjectsTracer.InMemoryRemovedObjectsTracer(engineConfig.getIMROTMinLengthToSplit()));
     }
 
+    /*
+     * Picks how pages are read from and written to the chunk files. Called from the constructor, so implementations should
+     * only depend on the arguments.
+     * Only data files are opened with O_DIRECT under direct I/O, so index files keep using the OS page cache.
+     */
+    protected PageIO createPageIO(EngineConfig engineConfig, FileHandlerPool fileHandlerPool, @Nullable PageFrameArena pageFrameArena) {
+        if (engineConfig.getPageCompression().equals(EngineConfig.PageCompression.DEFLATE)) {
+            CompressedPageStore compressedPageStore = new CompressedPageStore(Path.of(engineConfig.getBaseDBPath()), engineConfig.getDbPageSize(), new DeflatePageCodec(), this::getDBFileName, fileHandlerPool);
+            return new CompressedPageIO(engineConfig, compressedPageStore, fileHandlerPool, pageFrameArena);
+        }
+        if (engineConfig.isDbDirectIO()) {
+            if (DirectFilePageIO.isSupported(engineConfig)) {
+                return new DirectFilePageIO(engineConfig, fileHandlerPool, this::getDBFileName, pageFrameArena);
+            }
+            logger.warn("Page size {} is not a multiple of {}, data files are opened without direct I/O", engineConfig.getDbPageSize(), EngineConfig.DIRECT_IO_ALIGNMENT);
+        }
+        return new FilePageIO(engineConfig, fileHandlerPool, this::getDBFileName, pageFrameArena);
+    }
+
 
     public Pointer store(int schemeId, int collectionId, int version, byte[] data) throws InternalOperationException {
+        this.allocationLock.readLock().lock();
+        try {
+            return this.allocate(schemeId, collectionId, version, data);
+        } finally {
+            this.allocationLock.readLock().unlock();
+        }
+    }
+
+    /*
+     * Objects are appended to the last page and then to new pages, each page is acquired once and committed once for all
+     * the objects that were packed into it. Locations of removed objects are not reused, as they would scatter the batch
+     * over pages that are each written for a single object.
+     */
+    @Override
+    public List<Pointer> storeAll(int schemeId, int collectionId, int version, List<byte[]> dataList) throws InternalOperationException {
+        List<Pointer> pointers = new ArrayList<>(dataList.size());
+        this.allocationLock.readLock().lock();
+        try {
+            Page page = this.getBufferedLastPage().orElse(null);
+            int from = Integer.MAX_VALUE;
+            int to = 0;
+            try {
+                for (byte[] data : dataList) {
+                    // Chains of objects that don't fit a page are stored on their own
+                    if (!OverflowChain.fitsPage(this.engineConfig.getDbPageSize(), data.length)) {
+                        pointers.add(this.storeOverflow(schemeId, collectionId, version, data));
+                        continue;
+                    }
+
+                    Optional<DBObject> optionalDBObject = page == null ? Optional.empty() : page.getEmptyDBObjectWrapper(data.length);
+                    // Other threads may fill a new page before this one gets to use it, in which case another page is made
+                    while (optionalDBObject.isEmpty()) {
+                        if (page != null) {
+                            this.commitPacked(page, from, to);
+                            this.pageBuffer.release(page);
+                            page = null;
+                        }
+                        from = Integer.MAX_VALUE;
+                        to = 0;
+                        page = this.getBufferedNewPage();
+                        optionalDBObject = page.getEmptyDBObjectWrapper(data.length);
+                    }
+
+                    DBObject dbObject = optionalDBObject.get();
+                    this.fill(dbObject, schemeId, collectionId, version, data);
+                    from = Math.min(from, dbObject.getBegin());
+                    to = Math.max(to, dbObject.getEnd());
+                    pointers.add(new Pointer(
+                            Pointer.TYPE_DATA,
+                            ((long) page.getPageNumber() * this.engineConfig.getDbPageSize()) + dbObject.getBegin(),
+                            page.getChunk()
+                    ));
+                }
+                if (page != null) {
+                    this.commitPacked(page, from, to);
+                }
+            } finally {
+                if (page != null) {
+                    this.pageBuffer.release(page);
+                }
+            }
+        } finally {
+            this.allocationLock.readLock().unlock();
+        }
+        return pointers;
+    }
+
+    // Range [from, to) covers the objects packed into the page, the page is not committed if it's empty
+    private void commitPacked(Page page, int from, int to) throws InternalOperationException {
+        if (from < to) {
+            this.commit(page);
+        }
+    }
+
+    private Pointer allocate(int schemeId, int collectionId, int version, byte[] data) throws InternalOperationException {
+        if (!OverflowChain.fitsPage(this.engineConfig.getDbPageSize(), data.length)) {
+            return this.storeOverflow(schemeId, collectionId, version, data);
+        }
+        return this.allocate(schemeId, collectionId, version, data, (byte) 0);
+    }
+
+    /*
+     * Stores the fragments of the chain from the last one to the first one, and then the head, so nothing points to the
+     * chain before all of it is stored.
+     */
+    private Pointer storeOverflow(int schemeId, int collectionId, int version, byte[] data) throws InternalOperationException {
+        int maxDataSize = OverflowChain.getMaxDataSize(this.engineConfig.getDbPageSize());
+        int headPartSize = maxDataSize - OverflowChain.HEAD_BYTES;
+        int fragmentPartSize = maxDataSize - OverflowChain.FRAGMENT_BYTES;
+        if (headPartSize <= 0 || fragmentPartSize <= 0) {
+            throw new InvalidDBObjectWrapper("Object of size %d doesn't fit a page".formatted(data.length));
+        }
+
+        Fragments fragments = this.storeFragments(schemeId, collectionId, version, data, headPartSize);
+        return this.allocate(schemeId, collectionId, version, OverflowChain.head(data.length, fragments.first(), fragments.tail(), fragments.tailDataOffset(), data, 0, headPartSize), DBObject.OVERFLOW_OBJ);
+    }
+
+    // First and last of the fragments stored for a part of the data of a chain, where the last one's data begins
+    private record Fragments(Pointer first, Pointer tail, int tailDataOffset) {}
+
+    // Stores `data` from `from` on as fragments, the last one first so each knows its next one
+    private Fragments storeFragments(int schemeId, int collectionId, int version, byte[] data, int from) throws InternalOperationException {
+        int fragmentPartSize = OverflowChain.getMaxDataSize(this.engineConfig.getDbPageSize()) - OverflowChain.FRAGMENT_BYTES;
+        int fragments = (data.length - from + fragmentPartSize - 1) / fragmentPartSize;
+        int tailDataOffset = from + (fragments - 1) * fragmentPartSize;
+
+        Pointer next = Pointer.empty();
+        Pointer tail = null;
+        for (int i = fragments - 1; i >= 0; i--) {
+            int fragmentFrom = from + i * fragmentPartSize;
+            int fragmentTo = Math.min(data.length, fragmentFrom + fragmentPartSize);
+            next = this.allocate(schemeId, collectionId, version, OverflowChain.fragment(next, data, fragmentFrom, fragmentTo), DBObject.FRAGMENT_OBJ);
+            if (tail == null) {
+                tail = next;
+            }
+        }
+        return new Fragments(next, tail, tailDataOffset);
+    }
+
+    // `chainFlag` marks the object as part of an overflow chain, see DBObject.setChainFlag()
+    private Pointer allocate(int schemeId, int collectionId, int version, byte[] data, byte chainFlag) throws InternalOperationException {
         Optional<RemovedObjectsTracer.RemovedObjectLocation> optionalRemovedObjectLocation = this.removedObjectsTracer.getRemovedObjectLocation(DBObject.getWrappedSize(data.length));
 
         if (optionalRemovedObjectLocation.isPresent()) {
@@ -60,14 +292,21 @@ public class DiskPageDatabaseStorageManager implements DatabaseStorageManager {
             int offset = (int) (removedObjectLocation.pointer().getPosition() % this.engineConfig.getDbPageSize());
 
             Optional<DBObject> optionalDBObjectWrapper = page.getDBObjectFromPool(offset, data.length);
-            if (optionalDBObjectWrapper.isPresent()) {
+            // A persisted tracer may point to an object which removal never reached the disk, that location is not free
+            if (optionalDBObjectWrapper.isPresent() && !optionalDBObjectWrapper.get().isAlive()) {
                 try {
-                    this.store(optionalDBObjectWrapper.get(), schemeId, collectionId, version, data);
+                    this.fillUnusedBytes(page, offset, removedObjectLocation.length(), DBObject.getWrappedSize(data.length));
+                    this.store(optionalDBObjectWrapper.get(), schemeId, collectionId, version, data, chainFlag);
                     return removedObjectLocation.pointer();
+                } catch (InternalOperationException e) {
+                    // Location is still free as far as the tracer should know, it's checked again before it's reused
+                    this.removedObjectsTracer.add(removedObjectLocation);
+                    throw e;
                 } finally {
                     this.pageBuffer.release(page);
                 }
             }
+            this.pageBuffer.release(page);
 
         }
 
@@ -81,6 +320,8 @@ public class DiskPageDatabaseStorageManager implements DatabaseStorageManager {
                 Optional<DBObject> optionalDBObjectWrapper = page.getEmptyDBObjectWrapper(data.length);
                 if (optionalDBObjectWrapper.isPresent()) {
                     dbObject = optionalDBObjectWrapper.get();
+                } else {
+                    this.pageBuffer.release(page);
                 }
             } catch (InvalidDBObjectWrapper e) {
                 this.pageBuffer.release(page);
@@ -88,10 +329,22 @@ public class DiskPageDatabaseStorageManager implements DatabaseStorageManager {
             }
         }
 
-        if (dbObject == null){
+        // Callers route objects that don't fit a page to overflow chains, new pages are not made for one that got here anyway
+        boolean fitsEmptyPage = this.engineConfig.getDbPageSize() - Page.META_BYTES > DBObject.getWrappedSize(data.length);
+        if (dbObject == null && !fitsEmptyPage) {
+            throw new InvalidDBObjectWrapper("Object of size %d doesn't fit an empty page".formatted(data.length));
+        }
+
+        // Other threads may fill a new page before this one gets to use it, in which case another page is made
+        while (dbObject == null){
             page = this.getBufferedNewPage();
             try {
-                dbObject = page.getEmptyDBObjectWrapper(data.length).get();
+                Optional<DBObject> optionalDBObjectWrapper = page.getEmptyDBObjectWrapper(data.length);
+                if (optionalDBObjectWrapper.isPresent()) {
+                    dbObject = optionalDBObjectWrapper.get();
+                } else {
+                    this.pageBuffer.release(page);
+                }
             } catch (InvalidDBObjectWrapper e) {
                 this.pageBuffer.release(page);
                 throw e;
@@ -99,7 +352,7 @@ public class DiskPageDatabaseStorageManager implements DatabaseStorageManager {
         }
 
         try {
-            this.store(dbObject, schemeId, collectionId, version, data);
+            this.store(dbObject, schemeId, collectionId, version, data, chainFlag);
             return new Pointer(
                     Pointer.TYPE_DATA,
                     ((long) page.getPageNumber() * this.engineConfig.getDbPageSize()) + dbObject.getBegin(),
@@ -110,13 +363,38 @@ public class DiskPageDatabaseStorageManager implements DatabaseStorageManager {
         }
     }
 
-    private void store(DBObject dbObject, int schemeId, int collectionId, int version, byte[] data) throws InternalOperationException {
+    /*
+     * When a removed object is reused by a smaller one, the rest of it is turned into a dead object so the page can
+     * still be iterated. Rest of the location is too small to hold an object header if it's not longer than its meta.
+     */
+    private void fillUnusedBytes(Page page, int offset, int locationLength, int length) throws InvalidDBObjectWrapper {
+        if (locationLength - length <= DBObject.META_BYTES) {
+            return;
+        }
+        page.cleanPool(offset + length, locationLength - length - 1);
+        new DBObject(page, offset + length, offset + locationLength).fill();
+    }
+
+    protected void store(DBObject dbObject, int schemeId, int collectionId, int version, byte[] data) throws InternalOperationException {
+        this.store(dbObject, schemeId, collectionId, version, data, (byte) 0);
+    }
+
+    private void store(DBObject dbObject, int schemeId, int collectionId, int version, byte[] data, byte chainFlag) throws InternalOperationException {
+        this.fill(dbObject, schemeId, collectionId, version, data);
+        if (chainFlag != 0) {
+            dbObject.setChainFlag(chainFlag);
+        }
+        this.commit(dbObject);
+    }
+
+    // Writes the object into its page without committing it. Reused locations may still carry flags of a removed chain
+    protected void fill(DBObject dbObject, int schemeId, int collectionId, int version, byte[] data) throws InternalOperationException {
         dbObject.activate();
+        dbObject.setChainFlag((byte) 0);
         dbObject.setSchemeId(schemeId);
         dbObject.modifyData(data);
         dbObject.setCollectionId(collectionId);
         dbObject.setVersion(version);
-        this.commitPage(dbObject.getPage());
     }
 
     public void update(Pointer pointer, DBObjectUpdateConsumer<DBObject> dbObjectConsumer) throws InternalOperationException {
@@ -132,9 +410,19 @@ public class DiskPageDatabaseStorageManager implements DatabaseStorageManager {
             if (optionalDBObjectWrapper.isEmpty()) {}  // Todo
 
             DBObject dbObject = optionalDBObjectWrapper.get();
+            if (dbObject.isOverflow()) {
+                // Consumer modifies the assembled object, which is then written back over the chain
+                DBObject assembled = this.assemble(dbObject);
+                dbObjectConsumer.accept(assembled);
+                dbObject.setSchemeId(assembled.getSchemeId());
+                dbObject.setCollectionId(assembled.getCollectionId());
+                dbObject.setVersion(assembled.getVersion());
+                this.writeChain(dbObject, assembled.getData());
+                return;
+            }
             dbObjectConsumer.accept(dbObject);
 
-            this.commitPage(dbObject.getPage());
+            this.commit(dbObject);
         } finally {
             this.pageBuffer.release(page);
         }
@@ -156,11 +444,115 @@ public class DiskPageDatabaseStorageManager implements DatabaseStorageManager {
             if (optionalDBObjectWrapper.isEmpty()) {}  // Todo
 
             DBObject dbObject = optionalDBObjectWrapper.get();
+            if (dbObject.isOverflow()) {
+                this.writeChain(dbObject, bytes);
+                return;
+            }
             dbObject.modifyData(bytes);
-            this.commitPage(dbObject.getPage());
+            this.commit(dbObject);
+        } finally {
+            this.pageBuffer.release(page);
+        }
+    }
+
+    /*
+     * Chains are written in place, from `from` on, and data past what they hold is stored as new fragments linked after
+     * their last one. So growing a chain costs the part that changed and the part that was added, rather than storing
+     * all of it again. Other objects are written in place when their size stays the same, and are moved otherwise.
+     */
+    @Override
+    public Pointer extend(int schemeId, int collectionId, int version, Pointer pointer, byte[] data, int header, int from) throws InternalOperationException {
+        PageBuffer.PageTitle pageTitle = new PageBuffer.PageTitle(pointer.getChunk(), (int) (pointer.getPosition() / this.engineConfig.getDbPageSize()));
+        Page page = this.pageBuffer.acquire(pageTitle);
+
+        try {
+            Optional<DBObject> optional = page.getDBObjectFromPool(
+                    (int) (pointer.getPosition() % this.engineConfig.getDbPageSize())
+            );
+            if (optional.isEmpty()) {
+                throw new InternalOperationException("No object present at: " + pointer);
+            }
+
+            DBObject dbObject = optional.get();
+            if (dbObject.isOverflow()) {
+                this.extendChain(dbObject, schemeId, collectionId, version, data, header, from);
+                return pointer;
+            }
+            if (dbObject.getDataSize() == data.length) {
+                dbObject.modifyData(data);
+                this.commit(dbObject);
+                return pointer;
+            }
+        } finally {
+            this.pageBuffer.release(page);
+        }
+
+        Pointer newPointer = this.store(schemeId, collectionId, version, data);
+        this.remove(pointer);
+        return newPointer;
+    }
+
+    // New fragments and the last fragment are written before the head, so the head never points to a fragment not stored yet
+    private void extendChain(DBObject head, int schemeId, int collectionId, int version, byte[] data, int header, int from) throws InternalOperationException {
+        int headPartSize = head.getDataSize() - OverflowChain.HEAD_BYTES;
+        int tailDataOffset = OverflowChain.getTailDataOffset(head);
+        Pointer tail = OverflowChain.getTail(head);
+        if (header > headPartSize) {
+            from = Math.min(from, header);
+        }
+
+        if (from < tailDataOffset) {
+            this.writeFragments(head, data, Math.max(from, headPartSize), tailDataOffset);
+        }
+
+        Page page = this.getBufferedPage(tail.getChunk(), tail.getPosition());
+        try {
+            DBObject tailFragment = this.getFragment(page, tail);
+            int capacity = tailDataOffset + tailFragment.getDataSize() - OverflowChain.FRAGMENT_BYTES;
+            int tailFrom = Math.max(from, tailDataOffset);
+            int tailTo = Math.min(data.length, capacity);
+            if (tailFrom < tailTo) {
+                tailFragment.modifyData(OverflowChain.FRAGMENT_BYTES + tailFrom - tailDataOffset, Arrays.copyOfRange(data, tailFrom, tailTo));
+            }
+            if (data.length > capacity) {
+                Fragments fragments = this.storeFragments(schemeId, collectionId, version, data, capacity);
+                tailFragment.modifyData(0, fragments.first().toBytes());
+                OverflowChain.setTail(head, fragments.tail(), fragments.tailDataOffset());
+            }
+            if (tailFrom < tailTo || data.length > capacity) {
+                this.commit(tailFragment);
+            }
         } finally {
             this.pageBuffer.release(page);
         }
+
+        head.modifyData(0, Ints.toByteArray(data.length));
+        head.modifyData(OverflowChain.HEAD_BYTES, Arrays.copyOf(data, Math.min(data.length, headPartSize)));
+        this.commit(head);
+    }
+
+    // Writes `data[from, to)` into the fragments of the chain that hold it, fragments before `from` are only walked over
+    private void writeFragments(DBObject head, byte[] data, int from, int to) throws InternalOperationException {
+        int offset = head.getDataSize() - OverflowChain.HEAD_BYTES;
+        Pointer next = OverflowChain.getNext(head);
+        to = Math.min(to, data.length);
+        while (offset < to && next != null) {
+            Page page = this.getBufferedPage(next.getChunk(), next.getPosition());
+            try {
+                DBObject fragment = this.getFragment(page, next);
+                int length = fragment.getDataSize() - OverflowChain.FRAGMENT_BYTES;
+                int writeFrom = Math.max(from, offset);
+                int writeTo = Math.min(to, offset + length);
+                if (writeFrom < writeTo) {
+                    fragment.modifyData(OverflowChain.FRAGMENT_BYTES + writeFrom - offset, Arrays.copyOfRange(data, writeFrom, writeTo));
+                    this.commit(fragment);
+                }
+                offset += length;
+                next = OverflowChain.getNext(fragment);
+            } finally {
+                this.pageBuffer.release(page);
+            }
+        }
     }
 
     public Optional<DBObject> select(Pointer pointer) throws InternalOperationException {
@@ -172,7 +564,16 @@ public class DiskPageDatabaseStorageManager implements DatabaseStorageManager {
                     (int) (pointer.getPosition() % this.engineConfig.getDbPageSize())
             );
             if (optional.isPresent()) {
-                return Optional.of(new MutableDBObjectDecorator(optional.get()));
+                DBObject dbObject = optional.get();
+                if (dbObject.isOverflow()) {
+                    return Optional.of(new MutableDBObjectDecorator(this.assemble(dbObject)));
+                }
+                // The object is a view over the page, frames of the arena are not reused while such views are reachable
+                MutableDBObjectDecorator view = new MutableDBObjectDecorator(dbObject);
+                if (this.pageFrameArena != null) {
+                    this.pageFrameArena.retain(page.getData(), view);
+                }
+                return Optional.of(view);
             }
             return Optional.empty();
         } finally {
@@ -180,7 +581,8 @@ public class DiskPageDatabaseStorageManager implements DatabaseStorageManager {
         }
     }
 
-    public void remove(Pointer pointer) throws InternalOperationException {
+    @Override
+    public <T, E extends Exception> Optional<T> select(Pointer pointer, CheckedFunction<DBObject, T, E> function) throws InternalOperationException, E {
         PageBuffer.PageTitle pageTitle = new PageBuffer.PageTitle(pointer.getChunk(), (int) (pointer.getPosition() / this.engineConfig.getDbPageSize()));
         Page page = this.pageBuffer.acquire(pageTitle);
 
@@ -188,83 +590,419 @@ public class DiskPageDatabaseStorageManager implements DatabaseStorageManager {
             Optional<DBObject> optional = page.getDBObjectFromPool(
                     (int) (pointer.getPosition() % this.engineConfig.getDbPageSize())
             );
-            if (optional.isPresent()) {
+            if (optional.isEmpty()) {
+                return Optional.empty();
+            }
+            // Page is pinned until the function returns, so its frame doesn't need to be retained for the object
+            DBObject dbObject = optional.get().isOverflow() ? this.assemble(optional.get()) : optional.get();
+            return Optional.of(function.apply(new MutableDBObjectDecorator(dbObject)));
+        } finally {
+            this.pageBuffer.release(page);
+        }
+    }
+
+    // Data of an overflowed object is read a fragment at a time, rather than assembled in memory
+    @Override
+    public Optional<InputStream> openDataStream(Pointer pointer) throws InternalOperationException {
+        PageBuffer.PageTitle pageTitle = new PageBuffer.PageTitle(pointer.getChunk(), (int) (pointer.getPosition() / this.engineConfig.getDbPageSize()));
+        Page page = this.pageBuffer.acquire(pageTitle);
+
+        try {
+            Optional<DBObject> optional = page.getDBObjectFromPool(
+                    (int) (pointer.getPosition() % this.engineConfig.getDbPageSize())
+            );
+            if (optional.isEmpty()) {
+                return Optional.empty();
+            }
+            if (optional.get().isOverflow()) {
+                return Optional.of(new OverflowChain.Reader(optional.get().getData(), this::readFragment));
+            }
+            return Optional.of(new ByteArrayInputStream(optional.get().getData()));
+        } finally {
+            this.pageBuffer.release(page);
+        }
+    }
+
+    // Even without read-ahead, the scan still hints the page buffer about the pages it's done with
+    @Override
+    public ReadAhead readAhead() {
+        int window = this.readAheadExecutor == null ? 0 : this.engineConfig.getDbReadAheadPages();
+        return new PageReadAhead(this.pageBuffer, this.readAheadExecutor, this.engineConfig.getDbPageSize(), window, this::getPageCount);
+    }
+
+    public void remove(Pointer pointer) throws InternalOperationException {
+        this.allocationLock.readLock().lock();
+        try {
+            this.free(pointer, true);
+        } finally {
+            this.allocationLock.readLock().unlock();
+        }
+    }
+
+    // Pointers are grouped by page, so each page is acquired once and committed once for all of its removed objects
+    @Override
+    public void removeAll(List<Pointer> pointers) throws InternalOperationException {
+        Map<PageBuffer.PageTitle, List<Pointer>> pointersByPage = new LinkedHashMap<>();
+        for (Pointer pointer : pointers) {
+            PageBuffer.PageTitle pageTitle = new PageBuffer.PageTitle(pointer.getChunk(), (int) (pointer.getPosition() / this.engineConfig.getDbPageSize()));
+            pointersByPage.computeIfAbsent(pageTitle, k -> new ArrayList<>()).add(pointer);
+        }
+
+        this.allocationLock.readLock().lock();
+        try {
+            for (Map.Entry<PageBuffer.PageTitle, List<Pointer>> entry : pointersByPage.entrySet()) {
+                this.free(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            this.allocationLock.readLock().unlock();
+        }
+    }
+
+    private void free(PageBuffer.PageTitle pageTitle, List<Pointer> pointers) throws InternalOperationException {
+        Page page = this.pageBuffer.acquire(pageTitle);
+        try {
+            List<RemovedObjectsTracer.RemovedObjectLocation> removedObjectLocations = new ArrayList<>(pointers.size());
+            List<Pointer> chains = new ArrayList<>();
+            int from = Integer.MAX_VALUE;
+            int to = 0;
+            for (Pointer pointer : pointers) {
+                int offset = (int) (pointer.getPosition() % this.engineConfig.getDbPageSize());
+                Optional<DBObject> optional = page.getDBObjectFromPool(offset);
+                if (optional.isEmpty()) {
+                    continue;
+                }
                 DBObject dbObject = optional.get();
+                Pointer next = OverflowChain.getNext(dbObject);
+                if (next != null) {
+                    chains.add(next);
+                }
                 dbObject.deactivate();
-                int dbObjectLength = dbObject.getLength();
-                int offset = (int) (pointer.getPosition() % this.engineConfig.getDbPageSize());
-                page.cleanPool(offset, dbObjectLength);
-                this.commitPage(page);
+                page.cleanPool(offset, dbObject.getLength());
+                from = Math.min(from, dbObject.getBegin());
+                to = Math.max(to, dbObject.getEnd());
+                removedObjectLocations.add(new RemovedObjectsTracer.RemovedObjectLocation(pointer, dbObject.getLength()));
+            }
+            this.commitPacked(page, from, to);
+            // Locations are traced once the removals are committed, same as for a single object
+            this.trace(removedObjectLocations);
+            for (Pointer next : chains) {
+                this.free(next, true);
+            }
+        } finally {
+            this.pageBuffer.release(page);
+        }
+    }
 
-                this.removedObjectsTracer.add(
-                        new RemovedObjectsTracer.RemovedObjectLocation(
-                                pointer,
-                                dbObjectLength
-                        )
-                );
+    // Fragments of an overflowed object are freed along with it
+    private void free(Pointer pointer, boolean trace) throws InternalOperationException {
+        Pointer next = this.freeObject(pointer, trace);
+        while (next != null) {
+            next = this.freeObject(next, trace);
+        }
+    }
+
+    // Returns the next object of the chain of the freed object, if there is one
+    private Pointer freeObject(Pointer pointer, boolean trace) throws InternalOperationException {
+        PageBuffer.PageTitle pageTitle = new PageBuffer.PageTitle(pointer.getChunk(), (int) (pointer.getPosition() / this.engineConfig.getDbPageSize()));
+        Page page = this.pageBuffer.acquire(pageTitle);
+
+        try {
+            Optional<DBObject> optional = page.getDBObjectFromPool(
+                    (int) (pointer.getPosition() % this.engineConfig.getDbPageSize())
+            );
+            if (optional.isEmpty()) {
+                return null;
             }
+            DBObject dbObject = optional.get();
+            Pointer next = OverflowChain.getNext(dbObject);
+            dbObject.deactivate();
+            int dbObjectLength = dbObject.getLength();
+            int offset = (int) (pointer.getPosition() % this.engineConfig.getDbPageSize());
+            page.cleanPool(offset, dbObjectLength);
+            this.commit(dbObject);
+
+            if (trace) {
+                this.trace(List.of(new RemovedObjectsTracer.RemovedObjectLocation(pointer, dbObjectLength)));
+            }
+            return next;
         } finally {
             this.pageBuffer.release(page);
         }
     }
 
+    // Under COMMIT durability the traced locations are made durable along with the removals
+    private void trace(List<RemovedObjectsTracer.RemovedObjectLocation> removedObjectLocations) throws InternalOperationException {
+        for (RemovedObjectsTracer.RemovedObjectLocation removedObjectLocation : removedObjectLocations) {
+            this.removedObjectsTracer.add(removedObjectLocation);
+        }
+        if (this.engineConfig.getDurability().equals(EngineConfig.Durability.COMMIT)) {
+            this.removedObjectsTracer.force();
+        }
+    }
 
 
-    /****** Helpers ******/
 
+    /****** Compaction ******/
 
-    private void commitPage(Page page) throws InternalOperationException {
-        Path path = getDBFileName(page.getChunk());
-        AsynchronousFileChannel fileChannel = this.fileHandlerPool.getFileChannel(path, 100, TimeUnit.SECONDS);
+    public record LiveObject(Pointer pointer, int schemeId, int collectionId, int length) {}
 
-        // Todo: could return future instead maybe? Or just queue for submission?
-        //       For transactions we'd need something similar to FileSessionIO!
-        //       In such case, releasing the page from buffer should happen after write is completed
-        //       Maybe would be a good idea to do that (last line) here now too?  Temp Answer: No, we'd release twice for a single acquire
-        //       Call backs could help in that case (CompletableFuture has such functionality)
+    /*
+     * `contiguous` is false when objects of the page can't be iterated up to its cursor. In that case live objects of the
+     * page are unknown, and all of its used bytes are considered live.
+     */
+    public record PageUsage(PageBuffer.PageTitle pageTitle, boolean contiguous, int usedBytes, int liveBytes, List<LiveObject> liveObjects) {}
+
+    // Returns empty if the page is not allocated in the files yet
+    public Optional<PageUsage> getPageUsage(PageBuffer.PageTitle pageTitle) throws InternalOperationException {
+        if (!this.isAllocated(pageTitle)) {
+            return Optional.empty();
+        }
+
+        Page page = this.pageBuffer.acquire(pageTitle);
         try {
-            FileUtils.write(fileChannel, (long) page.getPageNumber() * this.engineConfig.getDbPageSize(), page.getData()).get();
-        } catch (ExecutionException | InterruptedException e) {
-            throw new InternalOperationException(EM_FILE_WRITE, e);
+            int usedBytes = page.getCursorPosition() - Page.META_BYTES;
+            Optional<List<DBObject>> optionalObjects = page.getContiguousObjectList();
+            if (optionalObjects.isEmpty()) {
+                return Optional.of(new PageUsage(pageTitle, false, usedBytes, usedBytes, List.of()));
+            }
+
+            long pagePosition = (long) page.getPageNumber() * this.engineConfig.getDbPageSize();
+            int liveBytes = 0;
+            List<LiveObject> liveObjects = new ArrayList<>();
+            for (DBObject dbObject : optionalObjects.get()) {
+                if (!dbObject.isAlive()) {
+                    continue;
+                }
+                liveBytes += dbObject.getLength();
+                liveObjects.add(new LiveObject(
+                        new Pointer(Pointer.TYPE_DATA, pagePosition + dbObject.getBegin(), page.getChunk()),
+                        dbObject.getSchemeId(),
+                        dbObject.getCollectionId(),
+                        dbObject.getLength()
+                ));
+            }
+            return Optional.of(new PageUsage(pageTitle, true, usedBytes, liveBytes, liveObjects));
         } finally {
-            this.fileHandlerPool.releaseFileChannel(path, 100, TimeUnit.SECONDS); // Todo
+            this.pageBuffer.release(page);
         }
+    }
+
+    /*
+     * Stores a copy of a live object the same way a new object would be stored, and removes the object from its current
+     * location without tracing it for reuse. Returns the new pointer of the object.
+     * Caller is responsible for updating whatever references the old pointer.
+     */
+    public Pointer relocate(Pointer pointer) throws InternalOperationException {
+        this.allocationLock.readLock().lock();
+        try {
+            Optional<DBObject> optionalDBObject = this.select(pointer);
+            if (optionalDBObject.isEmpty() || !optionalDBObject.get().isAlive()) {
+                throw new InternalOperationException("No live object present at: " + pointer);
+            }
 
+            DBObject dbObject = optionalDBObject.get();
+            Pointer newPointer = this.allocate(dbObject.getSchemeId(), dbObject.getCollectionId(), dbObject.getVersion(), dbObject.getData());
+            this.free(pointer, false);
+            return newPointer;
+        } finally {
+            this.allocationLock.readLock().unlock();
+        }
     }
 
-    // Factory function to be used only in the buffer
-    private Page pageFactory(PageBuffer.PageTitle pageTitle) throws InternalOperationException {
+    /*
+     * Resets a page that has no live objects, so new objects fill it before the files grow.
+     * The page that objects are currently appended to, and the last page of the files are never recycled.
+     * Recycled pages are recorded in the superblock, so they are still filled first after a restart.
+     */
+    public boolean recyclePage(PageBuffer.PageTitle pageTitle) throws InternalOperationException {
+        this.allocationLock.writeLock().lock();
         try {
-            Path path = getDBFileName(pageTitle.chunk());
+            synchronized (this) {
+                if (this.lastPageTitle == null || pageTitle.equals(this.lastPageTitle) || pageTitle.equals(this.tailPageTitle) || this.recycledPages.contains(pageTitle)) {
+                    return false;
+                }
+            }
+            if (!this.isAllocated(pageTitle)) {
+                return false;
+            }
 
-            AsynchronousFileChannel fileChannel = fileHandlerPool.getFileChannel(
-                    path,
-                    100,        // Todo
-                    TimeUnit.SECONDS
-            );
-            int size = this.engineConfig.getDbPageSize();
-            int offset = pageTitle.pageNumber() * size;
+            Page page = this.pageBuffer.acquire(pageTitle);
+            try {
+                Optional<List<DBObject>> optionalObjects = page.getContiguousObjectList();
+                if (optionalObjects.isEmpty() || optionalObjects.get().stream().anyMatch(DBObject::isAlive)) {
+                    return false;
+                }
 
-            byte[] data = FileUtils.readBytes(fileChannel, offset, size).get();
+                long pagePosition = (long) page.getPageNumber() * this.engineConfig.getDbPageSize();
+                this.removedObjectsTracer.removeLocations(page.getChunk(), pagePosition, pagePosition + this.engineConfig.getDbPageSize());
+                page.reset();
+                this.commit(page);
+            } finally {
+                this.pageBuffer.release(page);
+            }
 
-            // Note: Apparently this if statement may not be useful ever!
-            if (data.length == 0) {
-                FileUtils.allocate(fileChannel, offset, size).get();
-                data = FileUtils.readBytes(fileChannel, offset, size).get();
+            synchronized (this) {
+                this.recycledPages.add(pageTitle);
             }
+            this.writeSuperblock(false);
+            return true;
+        } finally {
+            this.allocationLock.writeLock().unlock();
+        }
+    }
 
-            fileHandlerPool.releaseFileChannel(path, 100, TimeUnit.SECONDS);
-            return new Page(
-                    pageTitle.pageNumber(),
-                    size,
-                    pageTitle.chunk(),
-                    data
-            );
-        } catch (InterruptedException | IOException | ExecutionException e) {
-            throw new InternalOperationException(ErrorMessage.EM_FILE_ALLOCATION, e);
+    /*
+     * Traces every dead object of the page for reuse, replacing whatever is traced for it already.
+     * Used when the holes of a page were untraced for compaction, but the page was not recycled in the end.
+     */
+    public void traceFreeLocations(PageBuffer.PageTitle pageTitle) throws InternalOperationException {
+        this.allocationLock.writeLock().lock();
+        try {
+            Page page = this.pageBuffer.acquire(pageTitle);
+            try {
+                Optional<List<DBObject>> optionalObjects = page.getContiguousObjectList();
+                if (optionalObjects.isEmpty()) {
+                    return;
+                }
+
+                long pagePosition = (long) page.getPageNumber() * this.engineConfig.getDbPageSize();
+                this.removedObjectsTracer.removeLocations(page.getChunk(), pagePosition, pagePosition + this.engineConfig.getDbPageSize());
+                List<RemovedObjectsTracer.RemovedObjectLocation> removedObjectLocations = new ArrayList<>();
+                for (DBObject dbObject : optionalObjects.get()) {
+                    if (!dbObject.isAlive()) {
+                        Pointer pointer = new Pointer(Pointer.TYPE_DATA, pagePosition + dbObject.getBegin(), page.getChunk());
+                        removedObjectLocations.add(new RemovedObjectsTracer.RemovedObjectLocation(pointer, dbObject.getLength()));
+                    }
+                }
+                this.trace(removedObjectLocations);
+            } finally {
+                this.pageBuffer.release(page);
+            }
+        } finally {
+            this.allocationLock.writeLock().unlock();
+        }
+    }
+
+    protected boolean isAllocated(PageBuffer.PageTitle pageTitle) throws InternalOperationException {
+        return pageTitle.pageNumber() < this.getPageCount(pageTitle.chunk());
+    }
+
+    private int getPageCount(int chunk) throws InternalOperationException {
+        return this.pageIO.getPageCount(chunk);
+    }
+
+    /****** Helpers ******/
+
+    protected void commit(DBObject dbObject) throws InternalOperationException {
+        this.commit(dbObject.getPage());
+    }
+
+    // Modified parts of the page are known from its dirty ranges, whether it is written or logged
+    protected void commit(Page page) throws InternalOperationException {
+        this.pageCommitter.write(page);
+    }
+
+    private void forceDirty() {
+        try {
+            this.pageIO.forceDirty();
+            this.removedObjectsTracer.force();
+        } catch (InternalOperationException e) {
+            logger.error("Failed to force dirty data files", e);
         }
     }
 
+    // Factory function to be used only in the buffer
+    protected Page pageFactory(PageBuffer.PageTitle pageTitle) throws InternalOperationException {
+        return this.newPage(pageTitle.pageNumber(), this.engineConfig.getDbPageSize(), pageTitle.chunk(), this.pageIO.read(pageTitle));
+    }
+
+    // Wraps data of a page read by the page factory
+    protected Page newPage(int pageNumber, int pageSize, int chunk, ByteBuffer data) {
+        return new Page(pageNumber, pageSize, chunk, data);
+    }
+
+    // Copies the head of a chain and the data of all of its fragments into a single object, outside of any page
+    private DBObject assemble(DBObject head) throws InternalOperationException {
+        int totalSize = OverflowChain.getTotalSize(head);
+        int length = DBObject.getWrappedSize(totalSize);
+        ByteBuffer data = ByteBuffer.allocate(length + 1);
+        data.put(0, head.getPage().getData(), head.getBegin(), DBObject.META_BYTES);
+        data.putInt(DBObject.META_SIZE_OFFSET, totalSize);
+
+        try (InputStream inputStream = new OverflowChain.Reader(head.getData(), this::readFragment)) {
+            inputStream.readNBytes(data.array(), DBObject.META_BYTES, totalSize);
+        } catch (IOException e) {
+            throw new InternalOperationException(EM_FILE_READ_EMPTY, e);
+        }
+
+        Page page = head.getPage();
+        DBObject dbObject = new DBObject(new Page(page.getPageNumber(), page.getPageSize(), page.getChunk(), data), 0, length);
+        dbObject.setChainFlag((byte) 0);
+        return dbObject;
+    }
+
+    private byte[] readFragment(Pointer pointer) throws InternalOperationException {
+        Page page = this.getBufferedPage(pointer.getChunk(), pointer.getPosition());
+        try {
+            return this.getFragment(page, pointer).getData();
+        } finally {
+            this.pageBuffer.release(page);
+        }
+    }
+
+    private DBObject getFragment(Page page, Pointer pointer) throws InternalOperationException {
+        Optional<DBObject> optional = page.getDBObjectFromPool((int) (pointer.getPosition() % this.engineConfig.getDbPageSize()));
+        if (optional.isEmpty() || !optional.get().isFragment()) {
+            throw new InternalOperationException("No overflow fragment present at: " + pointer);
+        }
+        return optional.get();
+    }
+
+    /*
+     * Writes data over the head and fragments of a chain in place. Size of each object of the chain stays the same, so the
+     * data can't be longer than what the chain holds now.
+     */
+    private void writeChain(DBObject head, byte[] data) throws InternalOperationException {
+        if (data.length > OverflowChain.getTotalSize(head)) {
+            throw new InvalidDBObjectWrapper("Can't extend DBObject size. Create a new one.");
+        }
+
+        int written = Math.min(data.length, head.getDataSize() - OverflowChain.HEAD_BYTES);
+        head.modifyData(0, Ints.toByteArray(data.length));
+        head.modifyData(OverflowChain.HEAD_BYTES, Arrays.copyOf(data, written));
+        this.commit(head);
+
+        Pointer next = OverflowChain.getNext(head);
+        while (written < data.length && next != null) {
+            Page page = this.getBufferedPage(next.getChunk(), next.getPosition());
+            try {
+                Optional<DBObject> optional = page.getDBObjectFromPool((int) (next.getPosition() % this.engineConfig.getDbPageSize()));
+                if (optional.isEmpty() || !optional.get().isFragment()) {
+                    throw new InternalOperationException("No overflow fragment present at: " + next);
+                }
+                DBObject fragment = optional.get();
+                int length = Math.min(data.length - written, fragment.getDataSize() - OverflowChain.FRAGMENT_BYTES);
+                fragment.modifyData(OverflowChain.FRAGMENT_BYTES, Arrays.copyOfRange(data, written, written + length));
+                this.commit(fragment);
+                written += length;
+                next = OverflowChain.getNext(fragment);
+            } finally {
+                this.pageBuffer.release(page);
+            }
+        }
+    }
+
+    protected DBObject detach(DBObject dbObject) throws InvalidDBObjectWrapper {
+        Page page = dbObject.getPage();
+        ByteBuffer data = ByteBuffer.allocate(dbObject.getLength() + 1);
+        data.put(0, page.getData(), dbObject.getBegin(), dbObject.getLength());
+        return new DBObject(
+                new Page(page.getPageNumber(), page.getPageSize(), page.getChunk(), data),
+                0,
+                dbObject.getLength()
+        );
+    }
+
     public Path getDBFileName(int chunk){
         return Path.of(
                 this.engineConfig.getBaseDBPath(),
@@ -278,15 +1016,23 @@ public class DiskPageDatabaseStorageManager implements DatabaseStorageManager {
         return this.pageBuffer.acquire(pageTitle);
     }
 
-    private synchronized Page getBufferedNewPage() throws InternalOperationException {
-        PageBuffer.PageTitle lastPageTitle = this.lastPageTitle;  // This surely exists since getBufferedLastPage was called first
+    protected synchronized Page getBufferedNewPage() throws InternalOperationException {
+        // Recycled pages are filled before the files grow
+        Iterator<PageBuffer.PageTitle> recycledPagesIterator = this.recycledPages.iterator();
+        if (recycledPagesIterator.hasNext()) {
+            this.lastPageTitle = recycledPagesIterator.next();
+            recycledPagesIterator.remove();
+            return this.pageBuffer.acquire(this.lastPageTitle);
+        }
+
+        PageBuffer.PageTitle tailPageTitle = this.tailPageTitle;  // This surely exists since getBufferedLastPage was called first
 
         int chunk = 0;
         int pageNumber = 0;
 
-        if (lastPageTitle != null){
-            chunk = lastPageTitle.chunk();
-            pageNumber = lastPageTitle.pageNumber() + 1;
+        if (tailPageTitle != null){
+            chunk = tailPageTitle.chunk();
+            pageNumber = tailPageTitle.pageNumber() + 1;
         }
 
         if (this.engineConfig.getDbPageMaxFileSize() != EngineConfig.UNLIMITED_FILE_SIZE && (long) pageNumber * this.engineConfig.getDbPageSize() > this.engineConfig.getDbPageMaxFileSize()) {
@@ -295,65 +1041,169 @@ public class DiskPageDatabaseStorageManager implements DatabaseStorageManager {
         this.generateNewEmptyPage(chunk);
 
         this.lastPageTitle = new PageBuffer.PageTitle(chunk, pageNumber);
+        this.tailPageTitle = this.lastPageTitle;
+        this.markSuperblockUnclean();
         return this.pageBuffer.acquire(this.lastPageTitle);
     }
 
     private synchronized void generateNewEmptyPage(int chunk) throws InternalOperationException {
-        int size = this.engineConfig.getDbPageSize();
-        Path path = getDBFileName(chunk);
-        AsynchronousFileChannel fileChannel;
-        try {
-            fileChannel = this.fileHandlerPool.getFileChannel(path, 100, TimeUnit.SECONDS);// Todo
-        } catch (InternalOperationException e) {
-            throw new InternalOperationException(EM_FILEHANDLER_POOL, e);
-        }
-        try {
-            FileUtils.allocate(fileChannel, size).get();
-        } catch (IOException | ExecutionException | InterruptedException e) {
-            throw new InternalOperationException(EM_FILE_ALLOCATION, e);
-        } finally {
-            this.fileHandlerPool.releaseFileChannel(path, 100, TimeUnit.SECONDS); // Todo
-        }
+        this.pageIO.allocate(chunk);
     }
 
-    private Optional<Page> getBufferedLastPage() throws InternalOperationException {
+    protected Optional<Page> getBufferedLastPage() throws InternalOperationException {
         if (this.lastPageTitle != null){
             return Optional.of(this.pageBuffer.acquire(this.lastPageTitle));
         }
 
-        int lastChunk = -1;
+        synchronized (this){
+            if (this.lastPageTitle == null && !this.locateLastPage()) {
+                return Optional.empty();
+            }
+            return Optional.of(this.pageBuffer.acquire(this.lastPageTitle));
+        }
+    }
+
+    /*
+     * Last page is taken from the superblock if the storage was shut down cleanly. Otherwise chunk files are probed, starting
+     * from the chunk count that the superblock had, since files only grow.
+     * Returns false if there is no chunk file yet.
+     */
+    private boolean locateLastPage() throws InternalOperationException {
+        Optional<Superblock.State> optionalState = this.superblock.read();
+        if (optionalState.isPresent() && optionalState.get().clean() && Files.exists(getDBFileName(optionalState.get().tailPageTitle().chunk())) && !Files.exists(getDBFileName(optionalState.get().chunkCount()))) {
+            this.tailPageTitle = optionalState.get().tailPageTitle();
+            this.lastPageTitle = optionalState.get().lastPageTitle();
+            this.addReusablePages(optionalState.get().recycledPageTitles());
+        } else {
+            int lastChunk = optionalState.map(state -> state.chunkCount() - 1).filter(chunk -> Files.exists(getDBFileName(chunk))).orElse(-1);
+            while (
+                    Files.exists(
+                            getDBFileName(lastChunk + 1)
+                    )
+            ){
+                lastChunk++;
+            }
+
+            if (lastChunk == -1){
+                return false;
+            }
 
-        while (
-                Files.exists(
-                        getDBFileName(lastChunk + 1)
-                )
-        ){
-            lastChunk++;
+            int pageNumber = Math.max(0, this.getPageCount(lastChunk) - 1);
+            this.lastPageTitle = new PageBuffer.PageTitle(lastChunk, pageNumber);
+            this.tailPageTitle = this.lastPageTitle;
+            if (optionalState.isPresent()) {
+                this.addReusablePages(optionalState.get().recycledPageTitles());
+            }
         }
 
-        if (lastChunk == -1){
-            return Optional.empty();
+        this.markSuperblockUnclean();
+        return true;
+    }
+
+    /*
+     * Adds the reusable pages recorded in the superblock, see getReusablePages().
+     * Recycled pages of an unclean superblock may have been filled since, which is harmless: objects are only appended
+     * after the cursor of a page, so such a page is just used until it's full.
+     */
+    protected void addReusablePages(List<PageBuffer.PageTitle> pageTitles) throws InternalOperationException {
+        for (PageBuffer.PageTitle pageTitle : pageTitles) {
+            if (!pageTitle.equals(this.lastPageTitle) && !pageTitle.equals(this.tailPageTitle) && this.isAllocated(pageTitle)) {
+                this.recycledPages.add(pageTitle);
+            }
         }
+    }
 
-        synchronized (this){
-            try {
-                AsynchronousFileChannel fileChannel = fileHandlerPool.getFileChannel(getDBFileName(lastChunk), 100, TimeUnit.SECONDS);// Todo
-                long fileSize = fileChannel.size();
-                long size = fileSize == 0 ? 0 : fileSize - 1;
-                int pageNumber = (int) (size / this.engineConfig.getDbPageSize());
-                fileHandlerPool.releaseFileChannel(getDBFileName(lastChunk), 100, TimeUnit.SECONDS);  // Todo
+    /*
+     * Pages other than the last page that new objects should fill before the files grow, which are recorded in the
+     * superblock. These are the recycled pages, subclasses that reuse space of pages in another way may have their own.
+     */
+    protected List<PageBuffer.PageTitle> getReusablePages() {
+        synchronized (this) {
+            return List.copyOf(this.recycledPages);
+        }
+    }
 
-                this.lastPageTitle = new PageBuffer.PageTitle(lastChunk, pageNumber);
+    // Records the reusable pages in the superblock, once the last page is known
+    protected void reusablePagesChanged() throws InternalOperationException {
+        if (this.locatePages()) {
+            this.writeSuperblock(false);
+        }
+    }
+
+    // Locates the last page and the reusable pages if they are not known yet. Returns false if there is no chunk file yet
+    protected synchronized boolean locatePages() throws InternalOperationException {
+        return this.lastPageTitle != null || this.locateLastPage();
+    }
 
-                return Optional.of(this.pageBuffer.acquire(this.lastPageTitle));
-            } catch (IOException e) {
-                throw new InternalOperationException(EM_FILEHANDLER_POOL, e);
+    // Files are about to change, so a crash from now on should not be taken as a clean shutdown
+    private void markSuperblockUnclean() throws InternalOperationException {
+        if (this.superblockClean) {
+            this.writeSuperblock(false);
+        }
+    }
+
+    private void writeSuperblock(boolean clean) throws InternalOperationException {
+        // Taken before the superblock lock, since the storage manager lock may be held while the superblock is written
+        List<PageBuffer.PageTitle> recycledPageTitles = this.getReusablePages();
+        synchronized (this.superblock) {
+            PageBuffer.PageTitle tailPageTitle = this.tailPageTitle;
+            PageBuffer.PageTitle lastPageTitle = this.lastPageTitle;
+            if (tailPageTitle == null || lastPageTitle == null) {
+                return;
             }
+            this.superblock.write(new Superblock.State(clean, tailPageTitle.chunk() + 1, tailPageTitle, lastPageTitle, recycledPageTitles));
+            this.superblockClean = clean;
         }
     }
 
+    @SneakyThrows  // Nothing can be read safely if the log can not be replayed, so the storage manager is not usable
+    private Checkpointer createCheckpointer() {
+        WriteAheadLog writeAheadLog = new WriteAheadLog(Path.of(this.engineConfig.getBaseDBPath(), "testudo.wal.bin"));
+        Checkpointer checkpointer = new Checkpointer(
+                writeAheadLog,
+                this.pageBuffer,
+                new Checkpointer.Target() {
+                    @Override
+                    public void apply(RedoRecord redoRecord) throws InternalOperationException {
+                        pageIO.write(redoRecord.chunk(), redoRecord.position(), redoRecord.data());
+                    }
+
+                    @Override
+                    public void sync(Collection<Integer> chunks) throws InternalOperationException {
+                        pageIO.sync(chunks);
+                        removedObjectsTracer.force();
+                        writeSuperblock(false);
+                    }
+                },
+                this.engineConfig.getWalCheckpointInterval(),
+                this.engineConfig.getWalMaxFileSize()
+        );
+        checkpointer.recover();
+        return checkpointer;
+    }
+
     @Override
     public void close() {
+        if (this.readAheadExecutor != null) {
+            this.readAheadExecutor.shutdownNow();
+        }
+        if (this.forceScheduler != null) {
+            this.forceScheduler.shutdownNow();
+        }
+        try {
+            if (this.checkpointer != null) {
+                this.checkpointer.close();
+            }
+            this.pageBuffer.close();
+            if (!this.engineConfig.getDurability().equals(EngineConfig.Durability.NONE)) {
+                this.forceDirty();
+            }
+            this.writeSuperblock(true);
+        } catch (InternalOperationException e) {
+            logger.error("Failed to write back dirty pages while closing storage manager", e);
+        }
         this.pageBuffer.releaseAll();
+        this.pageIO.close();
+        this.removedObjectsTracer.close();
     }
 }
@@ -0,0 +1,229 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.ds.Pointer;
+import com.github.sepgh.testudo.exception.ErrorMessage;
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import lombok.SneakyThrows;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+
+/*
+ * Keeps removed object locations in a free-space map file per chunk (`testudo_%d.fsm.bin`), so they survive restarts.
+ * Files are read on first use of the tracer.
+ *
+ * Each record of a file is:
+ *      - State (1 byte): 0x01 free, 0x00 consumed
+ *      - Position (long, 8 bytes)
+ *      - Length (int, 4 bytes)
+ * Consumed records are reused by later additions, so a file only grows as much as the number of locations it holds at once.
+ *
+ * A location is added after its page is committed, and is consumed before it's reused. So a crash may at worst leave
+ * the map pointing to an object that is alive, which the storage manager checks before reusing a location.
+ * Files are forced by `force()`, which the storage manager calls as it makes data files durable.
+ * Unlike InMemoryRemovedObjectsTracer, locations are not split.
+ */
+public class DiskRemovedObjectsTracer implements RemovedObjectsTracer {
+    private static final Logger logger = LoggerFactory.getLogger(DiskRemovedObjectsTracer.class);
+    private static final Pattern FILE_NAME_PATTERN = Pattern.compile("testudo_(\\d+)\\.fsm\\.bin");
+    private static final byte FREE = 0x01;
+    private static final byte CONSUMED = 0x00;
+    private static final int RECORD_BYTES = 1 + Long.BYTES + Integer.BYTES;
+
+    private final Path basePath;
+    private final Map<Integer, FileChannel> fileChannels = new HashMap<>();
+    private final Map<Integer, Deque<Long>> consumedRecords = new HashMap<>();
+    private final TreeMap<Integer, Deque<Entry>> entries = new TreeMap<>();  // length -> locations
+    private boolean loaded = false;
+
+    public DiskRemovedObjectsTracer(Path basePath) {
+        this.basePath = basePath;
+    }
+
+    @Override
+    public synchronized void add(RemovedObjectLocation removedObjectLocation) throws InternalOperationException {
+        this.load();
+
+        int chunk = removedObjectLocation.pointer().getChunk();
+        try {
+            FileChannel fileChannel = this.getFileChannel(chunk);
+            Deque<Long> consumed = this.consumedRecords.computeIfAbsent(chunk, c -> new ArrayDeque<>());
+            long recordPosition = consumed.isEmpty() ? fileChannel.size() : consumed.poll();
+
+            ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES)
+                    .put(FREE)
+                    .putLong(removedObjectLocation.pointer().getPosition())
+                    .putInt(removedObjectLocation.length())
+                    .flip();
+            while (record.hasRemaining()) {
+                fileChannel.write(record, recordPosition + record.position());
+            }
+
+            this.entries.computeIfAbsent(removedObjectLocation.length(), l -> new ArrayDeque<>())
+                    .add(new Entry(removedObjectLocation, recordPosition));
+        } catch (IOException e) {
+            throw new InternalOperationException(ErrorMessage.EM_FILE_WRITE, e);
+        }
+    }
+
+    @Override
+    public synchronized Optional<RemovedObjectLocation> getRemovedObjectLocation(int length) throws InternalOperationException {
+        this.load();
+
+        Map.Entry<Integer, Deque<Entry>> mapEntry = this.entries.ceilingEntry(length);
+        if (mapEntry == null) {
+            return Optional.empty();
+        }
+
+        Entry entry = mapEntry.getValue().poll();
+        if (mapEntry.getValue().isEmpty()) {
+            this.entries.remove(mapEntry.getKey());
+        }
+        assert entry != null;
+
+        this.consume(entry);
+        return Optional.of(entry.removedObjectLocation());
+    }
+
+    @SneakyThrows
+    @Override
+    public synchronized List<RemovedObjectLocation> getRemovedObjectLocations() {
+        this.load();
+
+        List<RemovedObjectLocation> output = new ArrayList<>();
+        this.entries.values().forEach(deque -> deque.forEach(entry -> output.add(entry.removedObjectLocation())));
+        return output;
+    }
+
+    @Override
+    public synchronized void removeLocations(int chunk, long from, long to) throws InternalOperationException {
+        this.load();
+
+        Iterator<Deque<Entry>> iterator = this.entries.values().iterator();
+        while (iterator.hasNext()) {
+            Deque<Entry> deque = iterator.next();
+            Iterator<Entry> entryIterator = deque.iterator();
+            while (entryIterator.hasNext()) {
+                Entry entry = entryIterator.next();
+                if (entry.removedObjectLocation().isIn(chunk, from, to)) {
+                    this.consume(entry);
+                    entryIterator.remove();
+                }
+            }
+            if (deque.isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void force() throws InternalOperationException {
+        try {
+            for (FileChannel fileChannel : this.fileChannels.values()) {
+                fileChannel.force(false);
+            }
+        } catch (IOException e) {
+            throw new InternalOperationException(ErrorMessage.EM_FILE_WRITE, e);
+        }
+    }
+
+    private void consume(Entry entry) throws InternalOperationException {
+        int chunk = entry.removedObjectLocation().pointer().getChunk();
+        try {
+            FileChannel fileChannel = this.getFileChannel(chunk);
+            fileChannel.write(ByteBuffer.wrap(new byte[]{CONSUMED}), entry.recordPosition());
+            this.consumedRecords.computeIfAbsent(chunk, c -> new ArrayDeque<>()).add(entry.recordPosition());
+        } catch (IOException e) {
+            throw new InternalOperationException(ErrorMessage.EM_FILE_WRITE, e);
+        }
+    }
+
+    private void load() throws InternalOperationException {
+        if (this.loaded) {
+            return;
+        }
+
+        try (Stream<Path> files = Files.list(this.basePath)) {
+            for (Path path : files.toList()) {
+                Matcher matcher = FILE_NAME_PATTERN.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    this.load(Integer.parseInt(matcher.group(1)));
+                }
+            }
+        } catch (IOException e) {
+            throw new InternalOperationException(ErrorMessage.EM_FILE_ALLOCATION, e);
+        }
+        this.loaded = true;
+    }
+
+    private void load(int chunk) throws IOException {
+        FileChannel fileChannel = this.getFileChannel(chunk);
+        long size = fileChannel.size() - (fileChannel.size() % RECORD_BYTES);  // Ignoring a torn record at the end
+        ByteBuffer content = ByteBuffer.allocate((int) size);
+        while (content.hasRemaining()) {
+            if (fileChannel.read(content, content.position()) < 0) {
+                break;
+            }
+        }
+        content.flip();
+
+        Deque<Long> consumed = this.consumedRecords.computeIfAbsent(chunk, c -> new ArrayDeque<>());
+        for (long recordPosition = 0; recordPosition + RECORD_BYTES <= content.limit(); recordPosition += RECORD_BYTES) {
+            int i = (int) recordPosition;
+            if (content.get(i) != FREE) {
+                consumed.add(recordPosition);
+                continue;
+            }
+
+            RemovedObjectLocation removedObjectLocation = new RemovedObjectLocation(
+                    new Pointer(Pointer.TYPE_DATA, content.getLong(i + 1), chunk),
+                    content.getInt(i + 1 + Long.BYTES)
+            );
+            this.entries.computeIfAbsent(removedObjectLocation.length(), l -> new ArrayDeque<>())
+                    .add(new Entry(removedObjectLocation, recordPosition));
+        }
+    }
+
+    private FileChannel getFileChannel(int chunk) throws IOException {
+        FileChannel fileChannel = this.fileChannels.get(chunk);
+        if (fileChannel == null) {
+            fileChannel = FileChannel.open(
+                    this.basePath.resolve("testudo_%d.fsm.bin".formatted(chunk)),
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE
+            );
+            this.fileChannels.put(chunk, fileChannel);
+        }
+        return fileChannel;
+    }
+
+    @Override
+    public synchronized void close() {
+        this.fileChannels.forEach((chunk, fileChannel) -> {
+            try {
+                fileChannel.force(false);
+                fileChannel.close();
+            } catch (IOException e) {
+                logger.error("Failed to close free-space map of chunk {}", chunk, e);
+            }
+        });
+        this.fileChannels.clear();
+        this.consumedRecords.clear();
+        this.entries.clear();
+        this.loaded = false;
+    }
+
+    private record Entry(RemovedObjectLocation removedObjectLocation, long recordPosition) {}
+}
@@ -0,0 +1,236 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.context.EngineConfig;
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.storage.pool.FileHandlerPool;
+import com.github.sepgh.testudo.utils.FileUtils;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static com.github.sepgh.testudo.exception.ErrorMessage.*;
+
+
+/*
+ * Pages are stored as they are, at `page number * page size` of the chunk file. Files are opened through the file handler
+ * pool and are accessed through the OS page cache.
+ *
+ * Pages are read into frames of the arena when there is one, otherwise into heap buffers of their own.
+ * Only the dirty ranges of a page are written, expanded to EngineConfig.dbPageWriteAlignment if it's set.
+ */
+public class FilePageIO implements PageIO {
+    protected final EngineConfig engineConfig;
+    protected final FileHandlerPool fileHandlerPool;
+    protected final IntFunction<Path> chunkFileName;
+    @Nullable
+    private final PageFrameArena pageFrameArena;
+
+    public FilePageIO(EngineConfig engineConfig, FileHandlerPool fileHandlerPool, IntFunction<Path> chunkFileName, @Nullable PageFrameArena pageFrameArena) {
+        this.engineConfig = engineConfig;
+        this.fileHandlerPool = fileHandlerPool;
+        this.chunkFileName = chunkFileName;
+        this.pageFrameArena = pageFrameArena;
+    }
+
+    @Override
+    public ByteBuffer read(PageBuffer.PageTitle pageTitle) throws InternalOperationException {
+        int size = this.engineConfig.getDbPageSize();
+        long position = (long) pageTitle.pageNumber() * size;
+        ByteBuffer target = this.pageFrameArena != null ? this.pageFrameArena.allocate() : ByteBuffer.allocate(size);
+
+        Path path = this.chunkFileName.apply(pageTitle.chunk());
+        AsynchronousFileChannel fileChannel = this.getFileChannel(path);
+        try {
+            int read = Math.max(0, this.readPage(fileChannel, position, target));
+            // Rest of a reused frame may still hold the content of its previous page
+            for (int i = read; i < size; i++) {
+                target.put(i, (byte) 0);
+            }
+            return target.clear();
+        } catch (IOException | ExecutionException | InterruptedException e) {
+            throw new InternalOperationException(EM_FILE_ALLOCATION, e);
+        } finally {
+            this.releaseFileChannel(path);
+        }
+    }
+
+    /*
+     * Reads the page at `position` into `target`, returns the number of bytes read.
+     * Pages are allocated before they are read, a page past the end of the file is allocated here anyway.
+     */
+    protected int readPage(AsynchronousFileChannel fileChannel, long position, ByteBuffer target) throws IOException, ExecutionException, InterruptedException {
+        int read = this.read(fileChannel, position, target);
+        if (read <= 0) {
+            FileUtils.allocate(fileChannel, position, target.remaining()).get();
+            read = FileUtils.read(fileChannel, position, target).get();
+        }
+        return read;
+    }
+
+    // Reads into the remaining space of `target`
+    protected int read(AsynchronousFileChannel fileChannel, long position, ByteBuffer target) throws ExecutionException, InterruptedException {
+        return FileUtils.read(fileChannel, position, target).get();
+    }
+
+    // Writes the remaining content of `data`
+    protected CompletableFuture<Integer> write(AsynchronousFileChannel fileChannel, long position, ByteBuffer data) {
+        return FileUtils.write(fileChannel, position, data);
+    }
+
+    // Alignment that dirty ranges of pages are expanded to before they are written, not aligned if it's not positive
+    protected int getWriteAlignment() {
+        return this.engineConfig.getDbPageWriteAlignment();
+    }
+
+    @Override
+    public void write(Page page) throws InternalOperationException {
+        Path path = this.chunkFileName.apply(page.getChunk());
+        AsynchronousFileChannel fileChannel = this.getFileChannel(path);
+
+        long pagePosition = (long) page.getPageNumber() * this.engineConfig.getDbPageSize();
+        List<Page.DirtyRange> dirtyRanges = List.of();
+        try {
+            // Ranges are written straight from the page data, and concurrent writes of the same page are serialized
+            // to make sure an older state of a range never lands on disk after a newer one
+            synchronized (page) {
+                dirtyRanges = page.drainDirtyRanges(this.getWriteAlignment());
+                List<CompletableFuture<Integer>> futures = new ArrayList<>(dirtyRanges.size());
+                for (Page.DirtyRange dirtyRange : dirtyRanges) {
+                    futures.add(this.write(
+                            fileChannel,
+                            pagePosition + dirtyRange.from(),
+                            page.getBuffer(dirtyRange.from(), dirtyRange.to())
+                    ));
+                }
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+            }
+            // Page lock is not held while forcing, so writes of other pages can coalesce with this one
+            if (!dirtyRanges.isEmpty()) {
+                this.written(path);
+            }
+        } catch (ExecutionException | InterruptedException e) {
+            // Ranges are marked again so next write of the page retries them
+            dirtyRanges.forEach(dirtyRange -> page.markDirty(dirtyRange.from(), dirtyRange.to()));
+            throw new InternalOperationException(EM_FILE_WRITE, e);
+        } finally {
+            this.releaseFileChannel(path);
+        }
+    }
+
+    @Override
+    public void write(int chunk, long position, byte[] data) throws InternalOperationException {
+        Path path = this.chunkFileName.apply(chunk);
+        AsynchronousFileChannel fileChannel = this.getFileChannel(path);
+        try {
+            this.write(fileChannel, position, data);
+        } catch (ExecutionException | InterruptedException e) {
+            throw new InternalOperationException(EM_FILE_WRITE, e);
+        } finally {
+            this.releaseFileChannel(path);
+        }
+    }
+
+    // Writes `data` at `position` of the file, which is within a single page
+    protected void write(AsynchronousFileChannel fileChannel, long position, byte[] data) throws ExecutionException, InterruptedException {
+        this.write(fileChannel, position, ByteBuffer.wrap(data)).get();
+    }
+
+    @Override
+    public void allocate(int chunk) throws InternalOperationException {
+        Path path = this.chunkFileName.apply(chunk);
+        AsynchronousFileChannel fileChannel;
+        try {
+            fileChannel = this.getFileChannel(path);
+        } catch (InternalOperationException e) {
+            throw new InternalOperationException(EM_FILEHANDLER_POOL, e);
+        }
+        try {
+            this.allocate(fileChannel, this.engineConfig.getDbPageSize());
+            this.written(path);
+        } catch (IOException | ExecutionException | InterruptedException e) {
+            throw new InternalOperationException(EM_FILE_ALLOCATION, e);
+        } finally {
+            this.releaseFileChannel(path);
+        }
+    }
+
+    // Appends `size` empty bytes to the file
+    protected void allocate(AsynchronousFileChannel fileChannel, int size) throws IOException, ExecutionException, InterruptedException {
+        FileUtils.allocate(fileChannel, size).get();
+    }
+
+    @Override
+    public int getPageCount(int chunk) throws InternalOperationException {
+        Path path = this.chunkFileName.apply(chunk);
+        if (!Files.exists(path)) {
+            return 0;
+        }
+
+        AsynchronousFileChannel fileChannel = this.getFileChannel(path);
+        try {
+            return (int) ((fileChannel.size() + this.engineConfig.getDbPageSize() - 1) / this.engineConfig.getDbPageSize());
+        } catch (IOException e) {
+            throw new InternalOperationException(EM_FILEHANDLER_POOL, e);
+        } finally {
+            this.releaseFileChannel(path);
+        }
+    }
+
+    @Override
+    public void sync(Collection<Integer> chunks) throws InternalOperationException {
+        for (Integer chunk : chunks) {
+            Path path = this.chunkFileName.apply(chunk);
+            AsynchronousFileChannel fileChannel = this.getFileChannel(path);
+            try {
+                fileChannel.force(false);
+            } catch (IOException e) {
+                throw new InternalOperationException(EM_FILE_WRITE, e);
+            } finally {
+                this.releaseFileChannel(path);
+            }
+        }
+    }
+
+    @Override
+    public void forceDirty() throws InternalOperationException {
+        this.fileHandlerPool.forceDirty();
+    }
+
+    /*
+     * Called once a chunk file is written, while its channel is still acquired. The file is made durable according to
+     * EngineConfig.Durability.
+     */
+    protected void written(Path path) throws InternalOperationException {
+        switch (this.engineConfig.getDurability()) {
+            case PERIODIC -> this.fileHandlerPool.markDirty(path);
+            case COMMIT -> {
+                this.fileHandlerPool.markDirty(path);
+                this.fileHandlerPool.force(path);
+            }
+        }
+    }
+
+    // Whether chunk files are opened with O_DIRECT
+    protected boolean isDirectIO() {
+        return false;
+    }
+
+    protected AsynchronousFileChannel getFileChannel(Path path) throws InternalOperationException {
+        return this.fileHandlerPool.getFileChannel(path, this.isDirectIO(), 100, TimeUnit.SECONDS);  // Todo
+    }
+
+    protected void releaseFileChannel(Path path) throws InternalOperationException {
+        this.fileHandlerPool.releaseFileChannel(path, 100, TimeUnit.SECONDS);  // Todo
+    }
+}
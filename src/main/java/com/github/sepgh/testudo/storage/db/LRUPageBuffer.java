@@ -0,0 +1,181 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.functional.PageFactory;
+import com.github.sepgh.testudo.functional.PageWriter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/*
+ * Least recently used pages are evicted once the buffer is full, unless they are referenced.
+ *
+ * When a PageWriter is passed, the buffer also works as a write-back queue:
+ *      Pages marked as dirty hold an extra reference, so they stay in memory after their last release.
+ *      Repeated modifications of a dirty page are coalesced, and the page is written once when it's flushed.
+ *      Dirty pages are flushed when they are evicted from the cache, every `flushInterval` milliseconds, or on `flush()`
+ */
+public class LRUPageBuffer extends AbstractPageBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(LRUPageBuffer.class);
+
+    private final Cache<PageTitle, PageWrapper> buffer;
+    private final Map<PageTitle, PageWrapper> referencedWrappers = new ConcurrentHashMap<>();
+
+    public LRUPageBuffer(int limit, PageFactory factory, @Nullable PageWriter writer, long flushInterval, @Nullable Consumer<Page> dropListener) {
+        super(factory, writer, flushInterval, dropListener);
+        this.buffer = CacheBuilder
+                .newBuilder()
+                .maximumSize(limit)
+                .initialCapacity(limit / 2)
+                .removalListener((RemovalListener<PageTitle, PageWrapper>) notification -> {
+                    PageWrapper pageWrapper = notification.getValue();
+                    if (pageWrapper.getRefCount() == 0) {
+                        referencedWrappers.remove(notification.getKey());
+                        // Explicit removals come from release(), which drops the page itself
+                        if (!notification.getCause().equals(RemovalCause.EXPLICIT)) {
+                            this.dropped(pageWrapper.getPage());
+                        }
+                    } else if (pageWrapper.isDirty() && notification.getCause().equals(RemovalCause.SIZE)) {
+                        this.scheduleFlush(pageWrapper);
+                    }
+                })
+                .build();
+    }
+
+    public LRUPageBuffer(int limit, PageFactory factory, @Nullable PageWriter writer, long flushInterval) {
+        this(limit, factory, writer, flushInterval, null);
+    }
+
+    public LRUPageBuffer(int limit, PageFactory factory) {
+        this(limit, factory, null, 0);
+    }
+
+    @Override
+    public synchronized Page acquire(PageTitle title) throws InternalOperationException {
+        AtomicReference<InternalOperationException> exception = new AtomicReference<>();
+
+        PageWrapper pageWrapper1 = this.referencedWrappers.computeIfAbsent(title, pageTitle -> {
+            PageWrapper pageWrapper;
+            pageWrapper = buffer.getIfPresent(title);
+            if (pageWrapper == null) {
+                Page page = null;
+                try {
+                    page = factory.apply(title);
+                } catch (InternalOperationException e) {
+                    exception.set(e);
+                    return null;
+                }
+                pageWrapper = new PageWrapper(page);
+                buffer.put(title, pageWrapper);
+            }
+            return pageWrapper;
+        });
+
+        if (exception.get() != null) {
+            throw exception.get();
+        }
+
+        assert pageWrapper1 != null;
+        pageWrapper1.incrementRefCount();
+        return pageWrapper1.getPage();
+    }
+
+    @Override
+    public synchronized void release(PageTitle title) {
+        this.referencedWrappers.computeIfPresent(title, (pageTitle, pageWrapper) -> {
+            pageWrapper.decrementRefCount();
+            if (pageWrapper.getRefCount() == 0){
+                buffer.invalidate(title);
+                this.dropped(pageWrapper.getPage());
+                return null;
+            }
+            return pageWrapper;
+        });
+    }
+
+    @Override
+    public void releaseAll() {
+        this.referencedWrappers.forEach((cacheKey, pageWrapper) -> {
+            release(cacheKey);
+        });
+    }
+
+    /*
+     * The first modification since the last flush takes a reference of its own, which is released once the page is written.
+     */
+    @Override
+    public void markDirty(Page page) {
+        this.requireWriter();
+
+        PageWrapper pageWrapper = this.referencedWrappers.get(PageTitle.of(page));
+        if (pageWrapper == null) {
+            throw new IllegalStateException("Page %s should be acquired before getting marked as dirty".formatted(PageTitle.of(page)));
+        }
+
+        if (pageWrapper.markDirty()) {
+            pageWrapper.incrementRefCount();
+        }
+    }
+
+    @Override
+    public Collection<PageTitle> flush() throws InternalOperationException {
+        List<PageTitle> flushed = new ArrayList<>();
+        if (writer == null) {
+            return flushed;
+        }
+
+        for (PageWrapper pageWrapper : new ArrayList<>(this.referencedWrappers.values())) {
+            if (this.flush(pageWrapper)) {
+                flushed.add(PageTitle.of(pageWrapper.getPage()));
+            }
+        }
+        return flushed;
+    }
+
+    private boolean flush(PageWrapper pageWrapper) throws InternalOperationException {
+        assert writer != null;
+        // Synchronized on the wrapper so a flush that finds the page clean can't return while another thread is still writing it
+        synchronized (pageWrapper) {
+            if (!pageWrapper.clearDirty()) {
+                return false;
+            }
+
+            try {
+                writer.write(pageWrapper.getPage());
+            } catch (InternalOperationException e) {
+                // Keep the page dirty (and referenced) so the next flush retries it,
+                // unless it's already marked dirty again, which means another reference is taken for it.
+                if (!pageWrapper.markDirty()) {
+                    this.release(pageWrapper.getPage());
+                }
+                throw e;
+            }
+        }
+
+        this.release(pageWrapper.getPage());
+        return true;
+    }
+
+    private void scheduleFlush(PageWrapper pageWrapper) {
+        assert flusher != null;
+        flusher.execute(() -> {
+            try {
+                this.flush(pageWrapper);
+            } catch (InternalOperationException e) {
+                logger.error("Failed to flush evicted page {}", PageTitle.of(pageWrapper.getPage()), e);
+            }
+        });
+    }
+}
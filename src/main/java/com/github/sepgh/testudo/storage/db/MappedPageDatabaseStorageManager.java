@@ -0,0 +1,42 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.context.EngineConfig;
+import com.github.sepgh.testudo.storage.pool.FileHandlerPool;
+
+import javax.annotation.Nullable;
+
+
+/*
+ * Pages are views over memory mapped regions of the chunk files, instead of heap copies read through the file handler pool.
+ * A page that is not in the page buffer costs a mapping (and page faults on access) rather than a read and a copy.
+ *
+ * Changes made through DBObjects land directly in the mapped memory, so committing a page only drains its dirty ranges.
+ * Same as writes of DiskPageDatabaseStorageManager, they are left to the OS to be written back, unless pages are being
+ * flushed by WRITE_BACK commit strategy, where dirty ranges are forced to the file. See MappedPageIO.
+ *
+ * WRITE_AHEAD_LOG commit strategy is not supported: the OS may write a mapped page back at any time, before the log
+ * records of its changes are durable, which breaks the write-ahead rule recovery depends on.
+ */
+public class MappedPageDatabaseStorageManager extends DiskPageDatabaseStorageManager {
+
+    public MappedPageDatabaseStorageManager(EngineConfig engineConfig, FileHandlerPool fileHandlerPool, RemovedObjectsTracer removedObjectsTracer) {
+        super(requireSupported(engineConfig), fileHandlerPool, removedObjectsTracer);
+    }
+
+    public MappedPageDatabaseStorageManager(EngineConfig engineConfig, FileHandlerPool fileHandlerPool) {
+        super(requireSupported(engineConfig), fileHandlerPool);
+    }
+
+    // Checked before the super constructor starts the checkpointer or replays a log into mapped pages
+    private static EngineConfig requireSupported(EngineConfig engineConfig) {
+        if (engineConfig.getPageCommitStrategy().equals(EngineConfig.PageCommitStrategy.WRITE_AHEAD_LOG)) {
+            throw new IllegalArgumentException("Memory mapped pages can't be used with WRITE_AHEAD_LOG page commit strategy");
+        }
+        return engineConfig;
+    }
+
+    @Override
+    protected PageIO createPageIO(EngineConfig engineConfig, FileHandlerPool fileHandlerPool, @Nullable PageFrameArena pageFrameArena) {
+        return new MappedPageIO(engineConfig, fileHandlerPool, this::getDBFileName);
+    }
+}
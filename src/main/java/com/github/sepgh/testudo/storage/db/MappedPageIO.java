@@ -0,0 +1,106 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.context.EngineConfig;
+import com.github.sepgh.testudo.exception.ErrorMessage;
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.storage.pool.FileHandlerPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+
+/*
+ * Pages are views over memory mapped regions of the chunk files, see MappedPageDatabaseStorageManager.
+ * Chunk files are allocated and sized through the file handler pool, same as plain files.
+ *
+ * Writing a page only drains its dirty ranges, unless pages are being flushed by WRITE_BACK commit strategy, where dirty
+ * ranges are forced to the file.
+ */
+public class MappedPageIO extends FilePageIO {
+    private static final Logger logger = LoggerFactory.getLogger(MappedPageIO.class);
+    private final Map<Integer, FileChannel> fileChannels = new ConcurrentHashMap<>();
+
+    public MappedPageIO(EngineConfig engineConfig, FileHandlerPool fileHandlerPool, IntFunction<Path> chunkFileName) {
+        super(engineConfig, fileHandlerPool, chunkFileName, null);
+    }
+
+    @Override
+    public ByteBuffer read(PageBuffer.PageTitle pageTitle) throws InternalOperationException {
+        int size = this.engineConfig.getDbPageSize();
+        try {
+            // Mapping a region beyond the end of the file grows the file
+            return this.getFileChannel(pageTitle.chunk()).map(
+                    FileChannel.MapMode.READ_WRITE,
+                    (long) pageTitle.pageNumber() * size,
+                    size
+            );
+        } catch (IOException | UncheckedIOException e) {
+            throw new InternalOperationException(ErrorMessage.EM_FILE_ALLOCATION, e);
+        }
+    }
+
+    @Override
+    public void write(Page page) throws InternalOperationException {
+        boolean force = !this.engineConfig.getPageCommitStrategy().equals(EngineConfig.PageCommitStrategy.IMMEDIATE);
+        MappedByteBuffer mappedByteBuffer = (MappedByteBuffer) page.getData();
+
+        synchronized (page) {
+            List<Page.DirtyRange> dirtyRanges = page.drainDirtyRanges(0);
+            if (!force) {
+                return;
+            }
+
+            try {
+                for (Page.DirtyRange dirtyRange : dirtyRanges) {
+                    mappedByteBuffer.force(dirtyRange.from(), dirtyRange.length());
+                }
+            } catch (UncheckedIOException e) {
+                dirtyRanges.forEach(dirtyRange -> page.markDirty(dirtyRange.from(), dirtyRange.to()));
+                throw new InternalOperationException(ErrorMessage.EM_FILE_WRITE, e);
+            }
+        }
+    }
+
+    private FileChannel getFileChannel(int chunk) throws IOException {
+        try {
+            return this.fileChannels.computeIfAbsent(chunk, c -> {
+                try {
+                    return FileChannel.open(
+                            this.chunkFileName.apply(c),
+                            StandardOpenOption.READ,
+                            StandardOpenOption.WRITE,
+                            StandardOpenOption.CREATE
+                    );
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public void close() {
+        // Mapped regions stay valid after their channel is closed
+        this.fileChannels.forEach((chunk, fileChannel) -> {
+            try {
+                fileChannel.close();
+            } catch (IOException e) {
+                logger.error("Failed to close file channel of chunk {}", chunk, e);
+            }
+        });
+        this.fileChannels.clear();
+    }
+}
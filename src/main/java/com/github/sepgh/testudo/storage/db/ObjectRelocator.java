@@ -0,0 +1,23 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.ds.Pointer;
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.functional.CheckedFunction;
+
+
+/*
+ * Knows what references objects of the storage manager, so the objects can be moved by the compactor.
+ */
+public interface ObjectRelocator {
+    // Called when the compactor starts a new pass over the pages
+    default void beginPass() throws InternalOperationException {}
+
+    // Returns true if whatever references the live object at `pointer` is known, so it can be relocated
+    boolean isKnown(int schemeId, int collectionId, Pointer pointer) throws InternalOperationException;
+
+    /*
+     * Moves the live object at `pointer` by calling `mover`, which returns its new pointer, and updates whatever references it.
+     * Returns false if the object is not known to the relocator, in which case it should not be moved.
+     */
+    boolean relocate(int schemeId, int collectionId, Pointer pointer, CheckedFunction<Pointer, Pointer, InternalOperationException> mover) throws InternalOperationException;
+}
@@ -0,0 +1,156 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.ds.Pointer;
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.functional.CheckedFunction;
+import com.github.sepgh.testudo.utils.BinaryUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+
+/*
+ * Objects which data doesn't fit an empty page are split into a chain of objects, each fitting a page:
+ *
+ *   - Head (flagged with DBObject.OVERFLOW_OBJ), which is where pointers to the object point to. Its data is:
+ *      - Total size of the data (int)
+ *      - Pointer to the first fragment
+ *      - Pointer to the last fragment
+ *      - Offset of the data of the last fragment within the whole data (int)
+ *      - First part of the data
+ *   - Fragments (flagged with DBObject.FRAGMENT_OBJ), each holding:
+ *      - Pointer to the next fragment, empty for the last one
+ *      - Next part of the data
+ *
+ * Fragments are ordinary objects of their pages and are stored the same way, last one first so each knows its next one.
+ * They carry the scheme and collection of their head, but nothing points to them except the chain. Chains grow by new
+ * fragments linked after the last one, which the head points to, so fragments are not all of the same size.
+ */
+public class OverflowChain {
+    public static final int HEAD_BYTES = Integer.BYTES + Pointer.BYTES + Pointer.BYTES + Integer.BYTES;
+    private static final int HEAD_TAIL_OFFSET = Integer.BYTES + Pointer.BYTES;
+    private static final int HEAD_TAIL_DATA_OFFSET = HEAD_TAIL_OFFSET + Pointer.BYTES;
+    public static final int FRAGMENT_BYTES = Pointer.BYTES;
+
+    // Largest data of a single object that fits an empty page
+    public static int getMaxDataSize(int pageSize) {
+        return pageSize - Page.META_BYTES - DBObject.META_BYTES - 1;
+    }
+
+    public static boolean fitsPage(int pageSize, int length) {
+        return length <= getMaxDataSize(pageSize);
+    }
+
+    // Returns null if the object is not part of a chain, or if it is the last fragment of one
+    public static Pointer getNext(DBObject dbObject) {
+        Pointer next;
+        if (dbObject.isOverflow()) {
+            next = Pointer.fromBytes(dbObject.readData(Integer.BYTES, Pointer.BYTES));
+        } else if (dbObject.isFragment()) {
+            next = Pointer.fromBytes(dbObject.readData(0, Pointer.BYTES));
+        } else {
+            return null;
+        }
+        return next.isDataPointer() ? next : null;
+    }
+
+    public static int getTotalSize(DBObject head) {
+        return head.getInt(0);
+    }
+
+    public static Pointer getTail(DBObject head) {
+        return Pointer.fromBytes(head.readData(HEAD_TAIL_OFFSET, Pointer.BYTES));
+    }
+
+    public static int getTailDataOffset(DBObject head) {
+        return head.getInt(HEAD_TAIL_DATA_OFFSET);
+    }
+
+    // Points the head to a new last fragment, which data starts at `tailDataOffset` of the whole data
+    public static void setTail(DBObject head, Pointer tail, int tailDataOffset) {
+        head.modifyData(HEAD_TAIL_OFFSET, tail.toBytes());
+        head.modifyData(HEAD_TAIL_DATA_OFFSET, ByteBuffer.allocate(Integer.BYTES).putInt(tailDataOffset).array());
+    }
+
+    public static byte[] head(int totalSize, Pointer next, Pointer tail, int tailDataOffset, byte[] data, int from, int to) {
+        return ByteBuffer.allocate(HEAD_BYTES + to - from)
+                .putInt(totalSize)
+                .put(next.toBytes())
+                .put(tail.toBytes())
+                .putInt(tailDataOffset)
+                .put(data, from, to - from)
+                .array();
+    }
+
+    public static byte[] fragment(Pointer next, byte[] data, int from, int to) {
+        return ByteBuffer.allocate(FRAGMENT_BYTES + to - from)
+                .put(next.toBytes())
+                .put(data, from, to - from)
+                .array();
+    }
+
+    /*
+     * Streams data of a chain, a fragment at a time. Only the fragment being read is held in memory, and its page is only
+     * pinned while its data is copied by `fragmentReader`, which returns data of the fragment object at a pointer.
+     */
+    public static class Reader extends InputStream {
+        private final CheckedFunction<Pointer, byte[], InternalOperationException> fragmentReader;
+        private int remaining;
+        private byte[] part;
+        private int partOffset;
+        private Pointer next;
+
+        // `headData` is data of the head object
+        public Reader(byte[] headData, CheckedFunction<Pointer, byte[], InternalOperationException> fragmentReader) {
+            this.fragmentReader = fragmentReader;
+            this.remaining = BinaryUtils.bytesToInteger(headData, 0);
+            this.next = Pointer.fromBytes(headData, Integer.BYTES);
+            this.part = headData;
+            this.partOffset = HEAD_BYTES;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return this.read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (this.remaining == 0) {
+                return -1;
+            }
+            while (this.partOffset == this.part.length) {
+                this.nextPart();
+            }
+
+            int read = Math.min(Math.min(length, this.part.length - this.partOffset), this.remaining);
+            System.arraycopy(this.part, this.partOffset, buffer, offset, read);
+            this.partOffset += read;
+            this.remaining -= read;
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return Math.min(this.part.length - this.partOffset, this.remaining);
+        }
+
+        private void nextPart() throws IOException {
+            if (!this.next.isDataPointer()) {
+                throw new IOException("Overflow chain ended with %d bytes left to read".formatted(this.remaining));
+            }
+            try {
+                this.part = this.fragmentReader.apply(this.next);
+            } catch (InternalOperationException e) {
+                throw new IOException(e);
+            }
+            this.next = Pointer.fromBytes(this.part, 0);
+            this.partOffset = FRAGMENT_BYTES;
+        }
+    }
+}
@@ -2,18 +2,27 @@ package com.github.sepgh.testudo.storage.db;
 
 
 import com.github.sepgh.testudo.exception.InvalidDBObjectWrapper;
-import com.github.sepgh.testudo.utils.BinaryUtils;
 import com.google.common.collect.ImmutableList;
-import com.google.common.primitives.Ints;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Getter;
 import lombok.SneakyThrows;
 
+import java.nio.ByteBuffer;
 import java.util.*;
 
 
 /*
 *   Meta:  cursorPosition (int)
+*
+*   Page data is a ByteBuffer, which is either a heap buffer filled from the chunk file or a view over its mapped memory.
+*   Only absolute get/put methods should be used on it, since the buffer is shared between the objects of the page.
+*
+*   Modifications of page data (through DBObjects or the cursor) are recorded as dirty byte ranges,
+*   so that committing a page only has to write the changed parts of it.
+*   Ranges that are not in the write-ahead log yet are recorded separately, since pages are logged more often than
+*   they are written.
 */
 
 @AllArgsConstructor
@@ -25,28 +34,43 @@ public class Page {
     private final int pageSize;
     private final int chunk;
     private int cursorPosition;
-    private final byte[] data;
+    private final ByteBuffer data;
     private final Map<Integer, DBObject> wrapperPool;
+    @Getter(AccessLevel.NONE)
+    private final TreeMap<Integer, Integer> dirtyRanges = new TreeMap<>();  // from (inclusive) -> to (exclusive)
+    @Getter(AccessLevel.NONE)
+    private final TreeMap<Integer, Integer> unloggedRanges = new TreeMap<>();
 
-    public Page(int pageNumber, int pageSize, int chunk, byte[] data) {
+    public Page(int pageNumber, int pageSize, int chunk, ByteBuffer data) {
         this.pageNumber = pageNumber;
         this.pageSize = pageSize;
         this.chunk = chunk;
-        this.cursorPosition = BinaryUtils.bytesToInteger(data, 0) + META_BYTES;
+        // Cursor is stored as an absolute offset in the page, it's 0 only for pages that were never written to
+        int cursorPosition = data.getInt(0);
+        this.cursorPosition = cursorPosition == 0 ? META_BYTES : cursorPosition;
         this.data = data;
         this.wrapperPool = new HashMap<>();
     }
 
+    /*
+     * Page whose data has a layout of its own (see SlottedPage) rather than a cursor followed by objects. Its cursor is
+     * kept at the end of the page, which leaves no room for appending objects to it, and it's not read from the data.
+     * Objects of such a page are only found through its own layout, never by iterating the page.
+     */
+    public static Page withoutCursor(int pageNumber, int pageSize, int chunk, ByteBuffer data) {
+        return new Page(pageNumber, pageSize, chunk, data.capacity(), data, new HashMap<>());
+    }
+
+    public Page(int pageNumber, int pageSize, int chunk, byte[] data) {
+        this(pageNumber, pageSize, chunk, ByteBuffer.wrap(data));
+    }
+
     public Page(int pageNumber, int pageSize, int chunk) {
         this(pageNumber, pageSize, chunk, new byte[0]);
     }
 
     public synchronized void cleanPool(int offset, int size) {
-        for (Integer key : wrapperPool.keySet()) {
-            if (key >= offset && key <= offset + size) {
-                wrapperPool.remove(key);
-            }
-        }
+        wrapperPool.keySet().removeIf(key -> key >= offset && key <= offset + size);
     }
 
     public synchronized Optional<DBObject> getDBObjectFromPool(int offset) throws InvalidDBObjectWrapper {
@@ -83,13 +107,124 @@ public class Page {
         return ImmutableList.copyOf(getIterator());
     }
 
+    /*
+     * Objects of the page, only if iterating them ends exactly at the cursor. Otherwise, some bytes of the page are not
+     * covered by any object header (ie: page was written before unused parts of reused objects were filled) and the page
+     * can't be safely scanned.
+     */
+    public synchronized Optional<List<DBObject>> getContiguousObjectList() {
+        PageDBObjectsIterator iterator = new PageDBObjectsIterator(this);
+        List<DBObject> output = new ArrayList<>();
+        while (iterator.hasNext()) {
+            output.add(iterator.next());
+        }
+        if (iterator.cursor != this.cursorPosition) {
+            return Optional.empty();
+        }
+        return Optional.of(output);
+    }
+
+    // Drops every object of the page and moves the cursor back to the beginning of it
+    public synchronized void reset() {
+        int to = this.cursorPosition;
+        this.data.put(0, new byte[to]);
+        this.wrapperPool.clear();
+        this.setCursorPosition(META_BYTES);
+        this.markDirty(0, to);
+    }
+
     private void setCursorPosition(int cursorPosition){
         this.cursorPosition = cursorPosition;
-        System.arraycopy(Ints.toByteArray(cursorPosition), 0, this.data, 0, Integer.BYTES);
+        this.data.putInt(0, cursorPosition);
+        this.markDirty(0, META_BYTES);
+    }
+
+    // Should be called after the bytes in [from, to) are modified
+    public synchronized void markDirty(int from, int to) {
+        merge(dirtyRanges, from, to);
+        merge(unloggedRanges, from, to);
+    }
+
+    private static void merge(TreeMap<Integer, Integer> ranges, int from, int to) {
+        Map.Entry<Integer, Integer> floor = ranges.floorEntry(from);
+        if (floor != null && floor.getValue() >= from) {
+            from = floor.getKey();
+            to = Math.max(to, floor.getValue());
+        }
+
+        Map.Entry<Integer, Integer> next = ranges.ceilingEntry(from);
+        while (next != null && next.getKey() <= to) {
+            to = Math.max(to, next.getValue());
+            ranges.remove(next.getKey());
+            next = ranges.higherEntry(from);
+        }
+
+        ranges.put(from, to);
+    }
+
+    public synchronized boolean isDirty() {
+        return !dirtyRanges.isEmpty();
+    }
+
+    /*
+     * Returns merged dirty ranges of the page and clears them.
+     * When alignment is positive, ranges are expanded to `alignment` boundaries of the file (not the page) and clamped to the page.
+     */
+    public synchronized List<DirtyRange> drainDirtyRanges(int alignment) {
+        List<DirtyRange> output = new ArrayList<>();
+        long pagePosition = (long) pageNumber * pageSize;
+
+        for (Map.Entry<Integer, Integer> entry : dirtyRanges.entrySet()) {
+            int from = entry.getKey();
+            int to = entry.getValue();
+            if (alignment > 0) {
+                from = (int) Math.max(0, ((pagePosition + from) / alignment) * alignment - pagePosition);
+                to = (int) Math.min(data.capacity(), ((pagePosition + to + alignment - 1) / alignment) * alignment - pagePosition);
+            }
+
+            if (!output.isEmpty() && output.getLast().to() >= from) {
+                DirtyRange last = output.removeLast();
+                from = last.from();
+                to = Math.max(to, last.to());
+            }
+            output.add(new DirtyRange(from, to));
+        }
+
+        dirtyRanges.clear();
+        return output;
+    }
+
+    /*
+     * Returns ranges modified since they were last drained for the write-ahead log and clears them.
+     * Dirty ranges are kept, the page still has to be written back.
+     */
+    public synchronized List<DirtyRange> drainUnloggedRanges() {
+        List<DirtyRange> output = new ArrayList<>(unloggedRanges.size());
+        unloggedRanges.forEach((from, to) -> output.add(new DirtyRange(from, to)));
+        unloggedRanges.clear();
+        return output;
+    }
+
+    // Copy of the page data in [from, to)
+    public byte[] getBytes(int from, int to) {
+        byte[] output = new byte[to - from];
+        this.data.get(from, output);
+        return output;
+    }
+
+    // View of the page data in [from, to), for writing it without a copy
+    public ByteBuffer getBuffer(int from, int to) {
+        return this.data.slice(from, to - from);
+    }
+
+    public record DirtyRange(int from, int to) {
+        public int length() {
+            return to - from;
+        }
     }
 
     public synchronized Optional<DBObject> getEmptyDBObjectWrapper(int length) throws InvalidDBObjectWrapper {
-        if (getData().length - cursorPosition > DBObject.getWrappedSize(length)){
+        if (getData().capacity() - cursorPosition > DBObject.getWrappedSize(length)){
             DBObject dbObject = new DBObject(this, cursorPosition, cursorPosition + DBObject.getWrappedSize(length));
             Optional<DBObject> output = Optional.of(dbObject);
             this.wrapperPool.putIfAbsent(cursorPosition, dbObject);
@@ -100,7 +235,7 @@ public class Page {
     }
 
     private static class PageDBObjectsIterator implements Iterator<DBObject> {
-        private int cursor = 0;
+        private int cursor = META_BYTES;
         private final Page page;
 
         private PageDBObjectsIterator(Page page) {
@@ -109,7 +244,11 @@ public class Page {
 
         @Override
         public boolean hasNext() {
-            return DBObject.getDataSize(this.page.getData(), this.cursor) != 0;
+            if (this.cursor + DBObject.META_BYTES >= this.page.getCursorPosition()) {
+                return false;
+            }
+            int dataSize = DBObject.getDataSize(this.page.getData(), this.cursor);
+            return dataSize > 0 && this.cursor + DBObject.getWrappedSize(dataSize) <= this.page.getCursorPosition();
         }
 
         @SneakyThrows
@@ -1,93 +1,54 @@
 package com.github.sepgh.testudo.storage.db;
 
 import com.github.sepgh.testudo.exception.InternalOperationException;
-import com.github.sepgh.testudo.functional.PageFactory;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.RemovalListener;
 import lombok.Getter;
 
-import java.util.Map;
+import java.util.Collection;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
-
-public class PageBuffer {
-    private final Cache<PageTitle, PageWrapper> buffer;
-    private final PageFactory factory;
-    private final Map<PageTitle, PageWrapper> referencedWrappers = new ConcurrentHashMap<>();
-
-    public PageBuffer(int limit, PageFactory factory) {
-        this.factory = factory;
-        this.buffer = CacheBuilder
-                .newBuilder()
-                .maximumSize(limit)
-                .initialCapacity(limit / 2)
-                .removalListener((RemovalListener<PageTitle, PageWrapper>) notification -> {
-                    if (notification.getValue().getRefCount() == 0) {
-                        referencedWrappers.remove(notification.getKey());
-                    }
-                })
-                .build();
-    }
 
-    public synchronized Page acquire(PageTitle title) throws InternalOperationException {
-        AtomicReference<InternalOperationException> exception = new AtomicReference<>();
-
-        PageWrapper pageWrapper1 = this.referencedWrappers.computeIfAbsent(title, pageTitle -> {
-            PageWrapper pageWrapper;
-            pageWrapper = buffer.getIfPresent(title);
-            if (pageWrapper == null) {
-                Page page = null;
-                try {
-                    page = factory.apply(title);
-                } catch (InternalOperationException e) {
-                    exception.set(e);
-                    return null;
-                }
-                pageWrapper = new PageWrapper(page);
-                buffer.put(title, pageWrapper);
-            }
-            return pageWrapper;
-        });
-
-        if (exception.get() != null) {
-            throw exception.get();
-        }
 
-        assert pageWrapper1 != null;
-        pageWrapper1.incrementRefCount();
-        return pageWrapper1.getPage();
+/*
+ * Pages are acquired (pinned) before being used and should be released once the caller is done with them.
+ * A pinned page is never evicted from the buffer.
+ *
+ * When a buffer is created with a PageWriter, it also works as a write-back queue for pages marked as dirty.
+ */
+public interface PageBuffer {
+    Page acquire(PageTitle title) throws InternalOperationException;
+    void release(PageTitle title);
+    default void release(Page page) {
+        this.release(PageTitle.of(page));
     }
+    void releaseAll();
 
-    public synchronized void release(PageTitle title) {
-        this.referencedWrappers.computeIfPresent(title, (pageTitle, pageWrapper) -> {
-            pageWrapper.decrementRefCount();
-            if (pageWrapper.getRefCount() == 0){
-                buffer.invalidate(title);
-                return null;
-            }
-            return pageWrapper;
-        });
+    /*
+     * Hints that the page is not going to be used again soon, i.e. it was read by a scan, so buffers with a replacement
+     * policy that cares about it can evict it before pages that are being reused.
+     */
+    default void useOnce(PageTitle title) {
     }
 
-    public void release(Page page){
-        this.release(PageTitle.of(page));
-    }
+    /*
+     * Marks a page that is currently acquired by the caller as modified, so it's written before leaving the buffer.
+     */
+    void markDirty(Page page);
 
-    public void releaseAll() {
-        this.referencedWrappers.forEach((cacheKey, pageWrapper) -> {
-            release(cacheKey);
-        });
-    }
+    /*
+     * Writes every dirty page and returns the titles of the written pages.
+     */
+    Collection<PageTitle> flush() throws InternalOperationException;
+
+    void close() throws InternalOperationException;
 
-    public static class PageWrapper {
+    class PageWrapper {
         @Getter
         private final Page page;
         private final AtomicInteger refCount = new AtomicInteger(0);
+        private final AtomicBoolean dirty = new AtomicBoolean(false);
 
-        private PageWrapper(Page page) {
+        PageWrapper(Page page) {
             this.page = page;
         }
 
@@ -102,9 +63,23 @@ public class PageBuffer {
         public int getRefCount() {
             return refCount.get();
         }
+
+        public boolean isDirty() {
+            return dirty.get();
+        }
+
+        // Returns true if the page was not dirty before
+        public boolean markDirty() {
+            return dirty.compareAndSet(false, true);
+        }
+
+        // Returns true if the page was dirty before
+        public boolean clearDirty() {
+            return dirty.compareAndSet(true, false);
+        }
     }
 
-    public record PageTitle(int chunk, int pageNumber) {
+    record PageTitle(int chunk, int pageNumber) {
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -0,0 +1,15 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.exception.InternalOperationException;
+
+
+/*
+ * Compresses whole pages before they are written to chunk files, and decompresses them when they are read into the
+ * page buffer. See CompressedPageStore.
+ */
+public interface PageCodec {
+    byte[] encode(byte[] page);
+
+    // `pageSize` is the length of the page that `data` was encoded from
+    byte[] decode(byte[] data, int pageSize) throws InternalOperationException;
+}
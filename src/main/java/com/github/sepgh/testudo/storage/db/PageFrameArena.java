@@ -0,0 +1,88 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.context.EngineConfig;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/*
+ * Fixed number of off-heap page frames, allocated once as a single direct buffer.
+ * Pages are read into free frames, and frames are handed back once their page leaves the page buffer, so steady page
+ * churn allocates nothing and the memory of the buffer is known upfront.
+ *
+ * A frame is held by the page buffer from `allocate()` to `recycle()`, and by every view over it that is `retain`ed
+ * until that view is unreachable. It goes back to the free frames once nothing holds it.
+ *
+ * When every frame is in use, heap buffers are handed out instead. Those are not recycled.
+ */
+public class PageFrameArena {
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final int frameSize;
+    private final Map<ByteBuffer, AtomicInteger> holds;  // identity based, since ByteBuffer equality is based on content
+    private final Queue<ByteBuffer> freeFrames = new ConcurrentLinkedQueue<>();
+
+    public PageFrameArena(int frameSize, int frameCount) {
+        this.frameSize = frameSize;
+        // Frames are aligned for direct I/O as long as the frame size is a multiple of the alignment
+        int size = Math.multiplyExact(frameSize, frameCount);
+        ByteBuffer memory = ByteBuffer.allocateDirect(Math.addExact(size, EngineConfig.DIRECT_IO_ALIGNMENT));
+        int offset = memory.alignmentOffset(0, EngineConfig.DIRECT_IO_ALIGNMENT);
+        memory = memory.slice(offset == 0 ? 0 : EngineConfig.DIRECT_IO_ALIGNMENT - offset, size);
+        Map<ByteBuffer, AtomicInteger> holds = new IdentityHashMap<>();
+        for (int i = 0; i < frameCount; i++) {
+            ByteBuffer frame = memory.slice(i * frameSize, frameSize);
+            holds.put(frame, new AtomicInteger(0));
+            freeFrames.add(frame);
+        }
+        this.holds = Collections.unmodifiableMap(holds);
+    }
+
+    // Returned buffer is cleared, but its content is whatever the previous page left in it
+    public ByteBuffer allocate() {
+        ByteBuffer frame = freeFrames.poll();
+        if (frame == null) {
+            return ByteBuffer.allocate(frameSize);
+        }
+        holds.get(frame).set(1);
+        return frame.clear();
+    }
+
+    /*
+     * Keeps the frame out of the free frames until `holder` is unreachable, so `holder` can be a view over it that
+     * outlives the page. Caller should be holding the frame already, i.e. by having its page pinned.
+     * Returns false if the buffer is not a frame, in which case nothing is retained.
+     */
+    public boolean retain(ByteBuffer buffer, Object holder) {
+        AtomicInteger hold = holds.get(buffer);
+        if (hold == null) {
+            return false;
+        }
+        hold.incrementAndGet();
+        CLEANER.register(holder, () -> this.recycle(buffer));
+        return true;
+    }
+
+    public void recycle(ByteBuffer buffer) {
+        AtomicInteger hold = holds.get(buffer);
+        if (hold != null && hold.decrementAndGet() == 0) {
+            freeFrames.add(buffer);
+        }
+    }
+
+    // Whether the buffer is one of the frames, rather than a heap buffer handed out once the arena ran out of frames
+    public boolean isFrame(ByteBuffer buffer) {
+        return holds.containsKey(buffer);
+    }
+
+    public int getFreeFrameCount() {
+        return freeFrames.size();
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.exception.InternalOperationException;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+
+/*
+ * Reads and writes pages of the chunk files of a storage manager. Implementations decide how pages are laid out in the
+ * files (plain or compressed) and how the files are accessed (through the page cache, with direct I/O or mapped).
+ * Written files are made durable according to EngineConfig.Durability.
+ */
+public interface PageIO extends AutoCloseable {
+    // Data of the page, which is zeroed if the page was never written
+    ByteBuffer read(PageBuffer.PageTitle pageTitle) throws InternalOperationException;
+
+    // Writes the dirty ranges of the page, which are drained. Ranges are marked dirty again if the write fails
+    void write(Page page) throws InternalOperationException;
+
+    // Writes `data` at `position` of the chunk, within a single page. Used to apply redo records of the write-ahead log
+    void write(int chunk, long position, byte[] data) throws InternalOperationException;
+
+    // Adds an empty page to the end of the chunk
+    void allocate(int chunk) throws InternalOperationException;
+
+    // Number of pages allocated in a chunk, including a partially allocated last page
+    int getPageCount(int chunk) throws InternalOperationException;
+
+    void sync(Collection<Integer> chunks) throws InternalOperationException;
+
+    // Forces files that were written since they were last forced, see EngineConfig.Durability.PERIODIC
+    void forceDirty() throws InternalOperationException;
+
+    @Override
+    default void close() {}
+}
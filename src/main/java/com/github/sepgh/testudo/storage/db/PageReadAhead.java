@@ -0,0 +1,146 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.ds.Pointer;
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.functional.CheckedFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+
+/*
+ * Reads data pages ahead of a scan once it's moving through them sequentially.
+ *
+ * When the scan moves from a page to the next one, the following `window` pages of the chunk are acquired in the
+ * background and kept pinned, so they are still in the page buffer when the scan gets to them. Pages the scan has
+ * passed are released, and so is everything on close or when the scan jumps somewhere else.
+ * Pages beyond the last allocated page of the chunk are never read, since loading them would allocate them.
+ *
+ * Pages the scan is done with are hinted to the page buffer as used once, so the scan doesn't evict pages that are being
+ * reused. With a `window` of 0 that's all it does, and no executor is needed.
+ *
+ * Not thread safe, a read-ahead belongs to a single scan.
+ */
+public class PageReadAhead implements ReadAhead {
+    private static final Logger logger = LoggerFactory.getLogger(PageReadAhead.class);
+
+    private final PageBuffer pageBuffer;
+    @Nullable
+    private final Executor executor;
+    private final int pageSize;
+    private final int window;
+    private final CheckedFunction<Integer, Integer, InternalOperationException> pageCounter;
+    private final Map<PageBuffer.PageTitle, CompletableFuture<Page>> pinned = new LinkedHashMap<>();
+    private PageBuffer.PageTitle current;
+    private int currentChunkPageCount = -1;
+    private boolean closed = false;
+
+    public PageReadAhead(PageBuffer pageBuffer, @Nullable Executor executor, int pageSize, int window, CheckedFunction<Integer, Integer, InternalOperationException> pageCounter) {
+        this.pageBuffer = pageBuffer;
+        this.executor = executor;
+        this.pageSize = pageSize;
+        this.window = window;
+        this.pageCounter = pageCounter;
+    }
+
+    @Override
+    public void accessed(Pointer pointer) {
+        if (this.closed) {
+            return;
+        }
+
+        PageBuffer.PageTitle pageTitle = new PageBuffer.PageTitle(pointer.getChunk(), (int) (pointer.getPosition() / this.pageSize));
+        PageBuffer.PageTitle previous = this.current;
+        if (pageTitle.equals(previous)) {
+            return;
+        }
+        this.current = pageTitle;
+        if (previous != null) {
+            this.pageBuffer.useOnce(previous);
+        }
+        if (this.window == 0) {
+            return;
+        }
+
+        if (previous == null || previous.chunk() != pageTitle.chunk()) {
+            this.currentChunkPageCount = -1;
+            this.releaseAll();
+            return;
+        }
+
+        int distance = pageTitle.pageNumber() - previous.pageNumber();
+        if (distance <= 0 || distance > Math.max(1, this.window)) {
+            this.releaseAll();
+            return;
+        }
+
+        this.releaseBefore(pageTitle);
+        this.readAhead(pageTitle);
+    }
+
+    private void readAhead(PageBuffer.PageTitle pageTitle) {
+        int last = pageTitle.pageNumber() + this.window;
+        try {
+            if (this.currentChunkPageCount <= last) {
+                this.currentChunkPageCount = this.pageCounter.apply(pageTitle.chunk());
+            }
+        } catch (InternalOperationException e) {
+            logger.warn("Could not read pages of chunk {} ahead", pageTitle.chunk(), e);
+            return;
+        }
+
+        last = Math.min(last, this.currentChunkPageCount - 1);
+        for (int pageNumber = pageTitle.pageNumber() + 1; pageNumber <= last; pageNumber++) {
+            PageBuffer.PageTitle next = new PageBuffer.PageTitle(pageTitle.chunk(), pageNumber);
+            if (this.pinned.containsKey(next)) {
+                continue;
+            }
+            this.pinned.put(next, CompletableFuture.supplyAsync(() -> {
+                try {
+                    return this.pageBuffer.acquire(next);
+                } catch (InternalOperationException e) {
+                    throw new CompletionException(e);
+                }
+            }, this.executor));
+        }
+    }
+
+    private void releaseBefore(PageBuffer.PageTitle pageTitle) {
+        Iterator<Map.Entry<PageBuffer.PageTitle, CompletableFuture<Page>>> iterator = this.pinned.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<PageBuffer.PageTitle, CompletableFuture<Page>> entry = iterator.next();
+            if (entry.getKey().pageNumber() >= pageTitle.pageNumber()) {
+                // Pages are pinned in order, so the rest are ahead of the scan too
+                return;
+            }
+            this.release(entry.getValue());
+            iterator.remove();
+        }
+    }
+
+    private void releaseAll() {
+        this.pinned.values().forEach(this::release);
+        this.pinned.clear();
+    }
+
+    // Pages that are still being read are released once they are, and failed reads have nothing to release
+    private void release(CompletableFuture<Page> future) {
+        future.thenAccept(this.pageBuffer::release);
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        this.releaseAll();
+        if (this.current != null) {
+            this.pageBuffer.useOnce(this.current);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.ds.Pointer;
+
+
+/*
+ * Created per scan over objects. The scan tells it about every pointer it is about to select, and closes it once done,
+ * so that whatever was read ahead for the scan is let go.
+ */
+public interface ReadAhead extends AutoCloseable {
+    ReadAhead NONE = new ReadAhead() {
+        @Override
+        public void accessed(Pointer pointer) {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    void accessed(Pointer pointer);
+
+    @Override
+    void close();
+}
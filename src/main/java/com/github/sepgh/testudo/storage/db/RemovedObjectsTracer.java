@@ -1,6 +1,7 @@
 package com.github.sepgh.testudo.storage.db;
 
 import com.github.sepgh.testudo.ds.Pointer;
+import com.github.sepgh.testudo.exception.InternalOperationException;
 import lombok.Getter;
 
 import java.util.Collections;
@@ -10,11 +11,20 @@ import java.util.Optional;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 public interface RemovedObjectsTracer {
-    void add(RemovedObjectLocation removedObjectLocation);
-    Optional<RemovedObjectLocation> getRemovedObjectLocation(int length);
+    void add(RemovedObjectLocation removedObjectLocation) throws InternalOperationException;
+    Optional<RemovedObjectLocation> getRemovedObjectLocation(int length) throws InternalOperationException;
     List<RemovedObjectLocation> getRemovedObjectLocations();
+    // Stops tracing locations of `chunk` that begin in [from, to)
+    void removeLocations(int chunk, long from, long to) throws InternalOperationException;
+    // Makes traced locations durable, for tracers that persist them
+    default void force() throws InternalOperationException {}
+    default void close() {}
 
-    record RemovedObjectLocation(Pointer pointer, int length){}
+    record RemovedObjectLocation(Pointer pointer, int length){
+        public boolean isIn(int chunk, long from, long to) {
+            return pointer.getChunk() == chunk && pointer.getPosition() >= from && pointer.getPosition() < to;
+        }
+    }
 
     class InMemoryRemovedObjectsTracer implements RemovedObjectsTracer {
         @Getter
@@ -68,5 +78,10 @@ public interface RemovedObjectsTracer {
 
             return Optional.empty();
         }
+
+        @Override
+        public synchronized void removeLocations(int chunk, long from, long to) {
+            this.removedObjectLocations.removeIf(removedObjectLocation -> removedObjectLocation.isIn(chunk, from, to));
+        }
     }
 }
@@ -0,0 +1,94 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.ds.Pointer;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+
+/*
+ * Keeps removed object locations in free lists segregated by length, so best fit is found in O(log n) and neither adding
+ * nor taking a location copies or locks the whole list, like InMemoryRemovedObjectsTracer does.
+ *
+ * A free list that gets empty is removed from the map. Since a location may be added to it at the same time, both sides
+ * check for that after the removal: the adder moves its location to the current list of its length if it's still there,
+ * and the remover moves whatever is left in the removed list.
+ */
+public class SegregatedRemovedObjectsTracer implements RemovedObjectsTracer {
+    private final ConcurrentNavigableMap<Integer, Deque<RemovedObjectLocation>> freeLists = new ConcurrentSkipListMap<>();
+    private final int minLengthToSplit;
+
+    public SegregatedRemovedObjectsTracer(int minLengthToSplit) {
+        this.minLengthToSplit = minLengthToSplit;
+    }
+
+    @Override
+    public void add(RemovedObjectLocation removedObjectLocation) {
+        while (true) {
+            Deque<RemovedObjectLocation> freeList = this.freeLists.computeIfAbsent(removedObjectLocation.length(), l -> new ConcurrentLinkedDeque<>());
+            freeList.push(removedObjectLocation);
+            if (this.freeLists.get(removedObjectLocation.length()) == freeList || !freeList.remove(removedObjectLocation)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public Optional<RemovedObjectLocation> getRemovedObjectLocation(int length) {
+        for (Map.Entry<Integer, Deque<RemovedObjectLocation>> entry : this.freeLists.tailMap(length, true).entrySet()) {
+            Deque<RemovedObjectLocation> freeList = entry.getValue();
+            RemovedObjectLocation removedObjectLocation = freeList.poll();
+            if (freeList.isEmpty()) {
+                this.removeFreeList(entry.getKey(), freeList);
+            }
+            if (removedObjectLocation == null) {
+                continue;
+            }
+
+            if (removedObjectLocation.length() - length > this.minLengthToSplit) {
+                this.add(
+                        new RemovedObjectLocation(
+                                new Pointer(
+                                        removedObjectLocation.pointer().getType(),
+                                        removedObjectLocation.pointer().getPosition() + length,
+                                        removedObjectLocation.pointer().getChunk()
+                                ),
+                                removedObjectLocation.length() - length
+                        )
+                );
+            }
+            return Optional.of(removedObjectLocation);
+        }
+
+        return Optional.empty();
+    }
+
+    @Override
+    public List<RemovedObjectLocation> getRemovedObjectLocations() {
+        List<RemovedObjectLocation> output = new ArrayList<>();
+        this.freeLists.values().forEach(output::addAll);
+        return output;
+    }
+
+    @Override
+    public void removeLocations(int chunk, long from, long to) {
+        this.freeLists.values().forEach(freeList -> freeList.removeIf(removedObjectLocation -> removedObjectLocation.isIn(chunk, from, to)));
+    }
+
+    private void removeFreeList(int length, Deque<RemovedObjectLocation> freeList) {
+        if (!this.freeLists.remove(length, freeList)) {
+            return;
+        }
+
+        RemovedObjectLocation removedObjectLocation;
+        while ((removedObjectLocation = freeList.poll()) != null) {
+            this.add(removedObjectLocation);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.exception.InvalidDBObjectWrapper;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+
+/*
+ * Slotted layout over the data of a page:
+ *
+ *   - Header
+ *      - Slot count (int)
+ *      - Heap start (int): objects are stored from the end of the page towards the slot directory
+ *      - Fragmented bytes (int): bytes of removed or shrunk objects, only reusable after the page is compacted
+ *      - First free slot (int): head of the chain of free slots, -1 if there is none
+ *   - Slot directory (int per slot): offset of the object of the slot, or the next free slot encoded as -(next + 2)
+ *   - Free space
+ *   - Objects
+ *
+ * Slot ids are stable, objects are only found through the directory, so they can be moved within the page (compaction)
+ * or to a larger location of it (update) without changing their pointers.
+ * A page is initialized on first access if its heap start is 0, which is only the case for pages that were never written to.
+ *
+ * Every method synchronizes on the page, same as methods of Page do.
+ */
+public class SlottedPage {
+    public static final int HEADER_BYTES = 4 * Integer.BYTES;
+    public static final int SLOT_BYTES = Integer.BYTES;
+    private static final int SLOT_COUNT_OFFSET = 0;
+    private static final int HEAP_START_OFFSET = Integer.BYTES;
+    private static final int FRAGMENTED_BYTES_OFFSET = 2 * Integer.BYTES;
+    private static final int FIRST_FREE_SLOT_OFFSET = 3 * Integer.BYTES;
+    private static final int NO_SLOT = -1;
+
+    private final Page page;
+    private final ByteBuffer data;
+
+    public SlottedPage(Page page) {
+        this.page = page;
+        this.data = page.getData();
+        synchronized (this.page) {
+            if (this.getHeapStart() == 0) {
+                this.data.putInt(SLOT_COUNT_OFFSET, 0);
+                // Last byte of the page is never used, see DBObject.verify()
+                this.data.putInt(HEAP_START_OFFSET, this.getHeapEnd());
+                this.data.putInt(FRAGMENTED_BYTES_OFFSET, 0);
+                this.data.putInt(FIRST_FREE_SLOT_OFFSET, NO_SLOT);
+                this.page.markDirty(0, HEADER_BYTES);
+            }
+        }
+    }
+
+    public record Slot(int id, DBObject dbObject) {}
+
+    // Largest object data that fits an empty page
+    public static int getMaxDataSize(int pageSize) {
+        return pageSize - 1 - HEADER_BYTES - SLOT_BYTES - DBObject.META_BYTES;
+    }
+
+    public Optional<DBObject> get(int slot) throws InvalidDBObjectWrapper {
+        synchronized (this.page) {
+            int offset = this.getSlotOffset(slot);
+            if (offset <= 0) {
+                return Optional.empty();
+            }
+            return Optional.of(this.wrap(offset));
+        }
+    }
+
+    /*
+     * Reserves a slot for an object with data of `length` bytes. The page is compacted first if its contiguous free space
+     * is not enough but its fragmented bytes make up for it.
+     * Returned object is not activated, its size is not set either.
+     */
+    public Optional<Slot> allocate(int length) throws InvalidDBObjectWrapper {
+        synchronized (this.page) {
+            int wrappedSize = DBObject.getWrappedSize(length);
+            int required = wrappedSize + (this.getFirstFreeSlot() == NO_SLOT ? SLOT_BYTES : 0);
+            if (required > this.getFreeBytes()) {
+                return Optional.empty();
+            }
+            if (required > this.getContiguousFreeBytes()) {
+                this.compact();
+            }
+
+            int offset = this.getHeapStart() - wrappedSize;
+            this.setHeapStart(offset);
+            int slot = this.takeFreeSlot();
+            this.setSlotOffset(slot, offset);
+            return Optional.of(new Slot(slot, new DBObject(this.page, offset, offset + wrappedSize)));
+        }
+    }
+
+    /*
+     * Replaces data of the object of a slot. Object is moved to a new location of the page if the new data doesn't fit
+     * its current location. Returns empty if the slot is free, or if the page doesn't have enough space for the data.
+     */
+    public Optional<DBObject> modifyData(int slot, byte[] value) throws InvalidDBObjectWrapper {
+        synchronized (this.page) {
+            int offset = this.getSlotOffset(slot);
+            if (offset <= 0) {
+                return Optional.empty();
+            }
+
+            int size = this.getObjectSize(offset);
+            int wrappedSize = DBObject.getWrappedSize(value.length);
+            if (wrappedSize <= size) {
+                DBObject dbObject = new DBObject(this.page, offset, offset + size);
+                dbObject.modifyData(value);
+                this.addFragmentedBytes(size - wrappedSize);
+                return Optional.of(new DBObject(this.page, offset, offset + wrappedSize));
+            }
+
+            // Current location of the object counts as free space too, but only once the page is compacted
+            if (wrappedSize > this.getFreeBytes() + size) {
+                return Optional.empty();
+            }
+
+            byte[] meta = this.page.getBytes(offset, offset + DBObject.META_BYTES);
+            this.setSlotOffset(slot, 0);
+            this.addFragmentedBytes(size);
+            if (wrappedSize > this.getContiguousFreeBytes()) {
+                this.compact();
+            }
+
+            int newOffset = this.getHeapStart() - wrappedSize;
+            this.setHeapStart(newOffset);
+            this.setSlotOffset(slot, newOffset);
+            this.data.put(newOffset, meta);
+            DBObject dbObject = new DBObject(this.page, newOffset, newOffset + wrappedSize);
+            dbObject.modifyData(value);
+            this.page.markDirty(newOffset, newOffset + wrappedSize);
+            return Optional.of(dbObject);
+        }
+    }
+
+    // Returns the removed object, or empty if the slot was already free
+    public Optional<DBObject> free(int slot) throws InvalidDBObjectWrapper {
+        synchronized (this.page) {
+            int offset = this.getSlotOffset(slot);
+            if (offset <= 0) {
+                return Optional.empty();
+            }
+
+            DBObject dbObject = this.wrap(offset);
+            dbObject.deactivate();
+            this.addFragmentedBytes(dbObject.getLength());
+            this.setSlotOffset(slot, -(this.getFirstFreeSlot() + 2));
+            this.setFirstFreeSlot(slot);
+            return Optional.of(dbObject);
+        }
+    }
+
+    /*
+     * Moves live objects of the page next to each other at the end of the page, so that fragmented bytes become part of
+     * the contiguous free space. Only offsets in the slot directory change.
+     */
+    public void compact() {
+        synchronized (this.page) {
+            int slotCount = this.getSlotCount();
+            List<int[]> objects = new ArrayList<>(slotCount);  // [slot, offset, size]
+            for (int slot = 0; slot < slotCount; slot++) {
+                int offset = this.getSlotOffset(slot);
+                if (offset > 0) {
+                    objects.add(new int[]{slot, offset, this.getObjectSize(offset)});
+                }
+            }
+
+            // Objects only move towards the end of the page, so the ones closer to it are moved first
+            objects.sort(Comparator.comparingInt((int[] object) -> object[1]).reversed());
+            int heapStart = this.getHeapEnd();
+            for (int[] object : objects) {
+                heapStart -= object[2];
+                if (heapStart != object[1]) {
+                    this.data.put(heapStart, this.page.getBytes(object[1], object[1] + object[2]));
+                    this.setSlotOffset(object[0], heapStart);
+                }
+            }
+
+            int previousHeapStart = this.getHeapStart();
+            this.setHeapStart(heapStart);
+            this.data.putInt(FRAGMENTED_BYTES_OFFSET, 0);
+            this.page.markDirty(FRAGMENTED_BYTES_OFFSET, FRAGMENTED_BYTES_OFFSET + Integer.BYTES);
+            if (previousHeapStart < heapStart) {
+                this.page.markDirty(previousHeapStart, heapStart);
+            }
+            this.page.markDirty(heapStart, this.getHeapEnd());
+        }
+    }
+
+    // Free bytes of the page, including fragmented bytes that are only usable after compaction
+    public int getFreeBytes() {
+        synchronized (this.page) {
+            return this.getContiguousFreeBytes() + this.getFragmentedBytes();
+        }
+    }
+
+    public int getContiguousFreeBytes() {
+        synchronized (this.page) {
+            return this.getHeapStart() - this.getDirectoryEnd();
+        }
+    }
+
+    public int getSlotCount() {
+        return this.data.getInt(SLOT_COUNT_OFFSET);
+    }
+
+    public int getFragmentedBytes() {
+        return this.data.getInt(FRAGMENTED_BYTES_OFFSET);
+    }
+
+    // End of the header and the slot directory, which is the range that changes of slots are made in
+    public int getDirectoryEnd() {
+        return HEADER_BYTES + this.getSlotCount() * SLOT_BYTES;
+    }
+
+    private DBObject wrap(int offset) throws InvalidDBObjectWrapper {
+        return new DBObject(this.page, offset, offset + this.getObjectSize(offset));
+    }
+
+    private int getObjectSize(int offset) {
+        return DBObject.getWrappedSize(DBObject.getDataSize(this.data, offset));
+    }
+
+    private int getHeapEnd() {
+        return this.data.capacity() - 1;
+    }
+
+    private int getHeapStart() {
+        return this.data.getInt(HEAP_START_OFFSET);
+    }
+
+    private void setHeapStart(int heapStart) {
+        this.data.putInt(HEAP_START_OFFSET, heapStart);
+        this.page.markDirty(HEAP_START_OFFSET, HEAP_START_OFFSET + Integer.BYTES);
+    }
+
+    private void addFragmentedBytes(int bytes) {
+        if (bytes == 0) {
+            return;
+        }
+        this.data.putInt(FRAGMENTED_BYTES_OFFSET, this.getFragmentedBytes() + bytes);
+        this.page.markDirty(FRAGMENTED_BYTES_OFFSET, FRAGMENTED_BYTES_OFFSET + Integer.BYTES);
+    }
+
+    private int getFirstFreeSlot() {
+        return this.data.getInt(FIRST_FREE_SLOT_OFFSET);
+    }
+
+    private void setFirstFreeSlot(int slot) {
+        this.data.putInt(FIRST_FREE_SLOT_OFFSET, slot);
+        this.page.markDirty(FIRST_FREE_SLOT_OFFSET, FIRST_FREE_SLOT_OFFSET + Integer.BYTES);
+    }
+
+    private int getSlotOffset(int slot) {
+        if (slot < 0 || slot >= this.getSlotCount()) {
+            return 0;
+        }
+        return this.data.getInt(HEADER_BYTES + slot * SLOT_BYTES);
+    }
+
+    private void setSlotOffset(int slot, int value) {
+        int position = HEADER_BYTES + slot * SLOT_BYTES;
+        this.data.putInt(position, value);
+        this.page.markDirty(position, position + SLOT_BYTES);
+    }
+
+    // Pops the chain of free slots, or appends a slot to the directory if there is no free one
+    private int takeFreeSlot() {
+        int slot = this.getFirstFreeSlot();
+        if (slot != NO_SLOT) {
+            this.setFirstFreeSlot(-this.getSlotOffset(slot) - 2);
+            return slot;
+        }
+
+        slot = this.getSlotCount();
+        this.data.putInt(SLOT_COUNT_OFFSET, slot + 1);
+        this.page.markDirty(SLOT_COUNT_OFFSET, SLOT_COUNT_OFFSET + Integer.BYTES);
+        return slot;
+    }
+}
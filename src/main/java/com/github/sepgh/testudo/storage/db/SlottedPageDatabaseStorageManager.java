@@ -0,0 +1,368 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.context.EngineConfig;
+import com.github.sepgh.testudo.ds.Pointer;
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.exception.InvalidDBObjectWrapper;
+import com.github.sepgh.testudo.functional.CheckedFunction;
+import com.github.sepgh.testudo.functional.DBObjectUpdateConsumer;
+import com.github.sepgh.testudo.storage.pool.FileHandlerPool;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/*
+ * Stores objects in slotted pages (see SlottedPage). Pointers address the slot of an object rather than its offset, the
+ * position of a pointer is `page number * page size + slot id`. Finding or removing an object is a lookup in the slot
+ * directory of its page, and objects can move within their page without their pointers changing.
+ *
+ * Space of removed objects is reused within their page, so the removed objects tracer is not used. Pages that got space
+ * back are tried before the last page, until an object doesn't fit them. They are recorded in the superblock in place of
+ * recycled pages (pages are never recycled here), so they are still tried after a restart. A page recorded by an unclean
+ * superblock may have been filled since, which only costs a failed attempt to store an object in it.
+ *
+ * Pages are not read with a cursor (see Page.withoutCursor()), the first bytes of a page belong to its slotted header.
+ *
+ * Objects may be moved by another thread once the page is not locked, so selected objects are always copied out of the
+ * page, and functions passed to select are applied while the page is locked.
+ *
+ * Objects are never split over pages: unlike the append layout, there are no overflow chains here, and objects larger
+ * than SlottedPage.getMaxDataSize() are rejected with InvalidDBObjectWrapper. Duplicate indexes which posting lists
+ * outgrow a page can't be used with this layout.
+ */
+public class SlottedPageDatabaseStorageManager extends DiskPageDatabaseStorageManager {
+    private final Set<PageBuffer.PageTitle> pagesWithFreeSpace = ConcurrentHashMap.newKeySet();
+
+    public SlottedPageDatabaseStorageManager(EngineConfig engineConfig, FileHandlerPool fileHandlerPool) {
+        super(engineConfig, fileHandlerPool);
+    }
+
+    @Override
+    protected Page newPage(int pageNumber, int pageSize, int chunk, ByteBuffer data) {
+        return Page.withoutCursor(pageNumber, pageSize, chunk, data);
+    }
+
+    @Override
+    protected List<PageBuffer.PageTitle> getReusablePages() {
+        return List.copyOf(this.pagesWithFreeSpace);
+    }
+
+    @Override
+    protected void addReusablePages(List<PageBuffer.PageTitle> pageTitles) throws InternalOperationException {
+        for (PageBuffer.PageTitle pageTitle : pageTitles) {
+            if (this.isAllocated(pageTitle)) {
+                this.pagesWithFreeSpace.add(pageTitle);
+            }
+        }
+    }
+
+    // Superblock is only written when a page is added, pages that are left out when full are dropped from it later on
+    private void gotFreeSpace(PageBuffer.PageTitle pageTitle) throws InternalOperationException {
+        if (this.pagesWithFreeSpace.add(pageTitle)) {
+            this.reusablePagesChanged();
+        }
+    }
+
+    @Override
+    public Pointer store(int schemeId, int collectionId, int version, byte[] data) throws InternalOperationException {
+        if (data.length > SlottedPage.getMaxDataSize(this.getEngineConfig().getDbPageSize())) {
+            throw new InvalidDBObjectWrapper("Object of size %d doesn't fit a page".formatted(data.length));
+        }
+
+        this.locatePages();
+        for (PageBuffer.PageTitle pageTitle : this.pagesWithFreeSpace) {
+            Optional<Pointer> optionalPointer = this.store(this.getPageBuffer().acquire(pageTitle), schemeId, collectionId, version, data);
+            if (optionalPointer.isPresent()) {
+                return optionalPointer.get();
+            }
+            this.pagesWithFreeSpace.remove(pageTitle);
+        }
+
+        Optional<Page> optionalLastPage = this.getBufferedLastPage();
+        if (optionalLastPage.isPresent()) {
+            Optional<Pointer> optionalPointer = this.store(optionalLastPage.get(), schemeId, collectionId, version, data);
+            if (optionalPointer.isPresent()) {
+                return optionalPointer.get();
+            }
+        }
+
+        // Other threads may fill a new page before this one gets to use it, in which case another page is made
+        while (true) {
+            Optional<Pointer> optionalPointer = this.store(this.getBufferedNewPage(), schemeId, collectionId, version, data);
+            if (optionalPointer.isPresent()) {
+                return optionalPointer.get();
+            }
+        }
+    }
+
+    /*
+     * Objects are packed into the last page and then into new pages, each page is committed once for all the objects
+     * that were packed into it. Pages with free space are left to single stores, as they usually fit a few objects only.
+     */
+    @Override
+    public List<Pointer> storeAll(int schemeId, int collectionId, int version, List<byte[]> dataList) throws InternalOperationException {
+        for (byte[] data : dataList) {
+            if (data.length > SlottedPage.getMaxDataSize(this.getEngineConfig().getDbPageSize())) {
+                throw new InvalidDBObjectWrapper("Object of size %d doesn't fit a page".formatted(data.length));
+            }
+        }
+
+        List<Pointer> pointers = new ArrayList<>(dataList.size());
+        int index = 0;
+        Optional<Page> optionalLastPage = this.getBufferedLastPage();
+        if (optionalLastPage.isPresent()) {
+            index = this.storeAll(optionalLastPage.get(), schemeId, collectionId, version, dataList, index, pointers);
+        }
+        while (index < dataList.size()) {
+            index = this.storeAll(this.getBufferedNewPage(), schemeId, collectionId, version, dataList, index, pointers);
+        }
+        return pointers;
+    }
+
+    // Stores objects of `dataList` from `index` until the page is full, and returns the index of the first object left. Releases the page
+    private int storeAll(Page page, int schemeId, int collectionId, int version, List<byte[]> dataList, int index, List<Pointer> pointers) throws InternalOperationException {
+        try {
+            SlottedPage slottedPage = new SlottedPage(page);
+            synchronized (page) {
+                int from = Integer.MAX_VALUE;
+                int to = 0;
+                for (; index < dataList.size(); index++) {
+                    byte[] data = dataList.get(index);
+                    Optional<SlottedPage.Slot> optionalSlot = slottedPage.allocate(data.length);
+                    if (optionalSlot.isEmpty()) {
+                        break;
+                    }
+                    DBObject dbObject = optionalSlot.get().dbObject();
+                    this.fill(dbObject, schemeId, collectionId, version, data);
+                    from = Math.min(from, dbObject.getBegin());
+                    to = Math.max(to, dbObject.getEnd());
+                    pointers.add(this.getPointer(page, optionalSlot.get().id()));
+                }
+                if (from >= to) {
+                    return index;
+                }
+            }
+
+            this.commit(page);
+            return index;
+        } finally {
+            this.getPageBuffer().release(page);
+        }
+    }
+
+    // Releases the page
+    private Optional<Pointer> store(Page page, int schemeId, int collectionId, int version, byte[] data) throws InternalOperationException {
+        try {
+            SlottedPage slottedPage = new SlottedPage(page);
+            SlottedPage.Slot slot;
+            synchronized (page) {
+                Optional<SlottedPage.Slot> optionalSlot = slottedPage.allocate(data.length);
+                if (optionalSlot.isEmpty()) {
+                    return Optional.empty();
+                }
+                slot = optionalSlot.get();
+                DBObject dbObject = slot.dbObject();
+                this.fill(dbObject, schemeId, collectionId, version, data);
+            }
+
+            this.commit(page);
+            return Optional.of(this.getPointer(page, slot.id()));
+        } finally {
+            this.getPageBuffer().release(page);
+        }
+    }
+
+    @Override
+    public void update(Pointer pointer, DBObjectUpdateConsumer<DBObject> dbObjectConsumer) throws InternalOperationException {
+        Page page = this.getPageBuffer().acquire(this.getPageTitle(pointer));
+        try {
+            SlottedPage slottedPage = new SlottedPage(page);
+            synchronized (page) {
+                Optional<DBObject> optionalDBObject = slottedPage.get(this.getSlot(pointer));
+                if (optionalDBObject.isEmpty()) {
+                    throw new InternalOperationException("No object present at: " + pointer);
+                }
+                dbObjectConsumer.accept(optionalDBObject.get());
+            }
+            this.commit(page);
+        } finally {
+            this.getPageBuffer().release(page);
+        }
+    }
+
+    // Object is moved within its page if the new data is larger, but never to another page
+    @Override
+    public void update(Pointer pointer, byte[] bytes) throws InternalOperationException {
+        if (!this.modifyData(pointer, bytes)) {
+            throw new InvalidDBObjectWrapper("Can't extend DBObject size. Create a new one.");
+        }
+    }
+
+    // Objects are not split over pages, so the object is written whole, and moved to another page if it's out of room
+    @Override
+    public Pointer extend(int schemeId, int collectionId, int version, Pointer pointer, byte[] data, int header, int from) throws InternalOperationException {
+        if (this.modifyData(pointer, data)) {
+            return pointer;
+        }
+        Pointer newPointer = this.store(schemeId, collectionId, version, data);
+        this.remove(pointer);
+        return newPointer;
+    }
+
+    // Returns false if the page has no room for the new data
+    private boolean modifyData(Pointer pointer, byte[] bytes) throws InternalOperationException {
+        Page page = this.getPageBuffer().acquire(this.getPageTitle(pointer));
+        try {
+            SlottedPage slottedPage = new SlottedPage(page);
+            synchronized (page) {
+                Optional<DBObject> optionalDBObject = slottedPage.modifyData(this.getSlot(pointer), bytes);
+                if (optionalDBObject.isEmpty()) {
+                    return false;
+                }
+            }
+            this.commit(page);
+            return true;
+        } finally {
+            this.getPageBuffer().release(page);
+        }
+    }
+
+    @Override
+    public Optional<DBObject> select(Pointer pointer) throws InternalOperationException {
+        Page page = this.getPageBuffer().acquire(this.getPageTitle(pointer));
+        try {
+            SlottedPage slottedPage = new SlottedPage(page);
+            synchronized (page) {
+                Optional<DBObject> optionalDBObject = slottedPage.get(this.getSlot(pointer));
+                if (optionalDBObject.isEmpty()) {
+                    return Optional.empty();
+                }
+                // Objects move within the page when it's compacted, so a view over the page could end up over another object
+                return Optional.of(new MutableDBObjectDecorator(this.detach(optionalDBObject.get())));
+            }
+        } finally {
+            this.getPageBuffer().release(page);
+        }
+    }
+
+    @Override
+    public <T, E extends Exception> Optional<T> select(Pointer pointer, CheckedFunction<DBObject, T, E> function) throws InternalOperationException, E {
+        Page page = this.getPageBuffer().acquire(this.getPageTitle(pointer));
+        try {
+            SlottedPage slottedPage = new SlottedPage(page);
+            synchronized (page) {
+                Optional<DBObject> optionalDBObject = slottedPage.get(this.getSlot(pointer));
+                if (optionalDBObject.isEmpty()) {
+                    return Optional.empty();
+                }
+                return Optional.of(function.apply(new MutableDBObjectDecorator(optionalDBObject.get())));
+            }
+        } finally {
+            this.getPageBuffer().release(page);
+        }
+    }
+
+    // There are no overflow chains to stream a part at a time
+    @Override
+    public Optional<InputStream> openDataStream(Pointer pointer) throws InternalOperationException {
+        return this.select(pointer).map(dbObject -> new ByteArrayInputStream(dbObject.getData()));
+    }
+
+    @Override
+    public void remove(Pointer pointer) throws InternalOperationException {
+        PageBuffer.PageTitle pageTitle = this.getPageTitle(pointer);
+        Page page = this.getPageBuffer().acquire(pageTitle);
+        try {
+            SlottedPage slottedPage = new SlottedPage(page);
+            synchronized (page) {
+                Optional<DBObject> optionalDBObject = slottedPage.free(this.getSlot(pointer));
+                if (optionalDBObject.isEmpty()) {
+                    return;
+                }
+            }
+            this.commit(page);
+            this.gotFreeSpace(pageTitle);
+        } finally {
+            this.getPageBuffer().release(page);
+        }
+    }
+
+    // Pointers are grouped by page, so each page is acquired once and committed once for all of its removed objects
+    @Override
+    public void removeAll(List<Pointer> pointers) throws InternalOperationException {
+        Map<PageBuffer.PageTitle, List<Pointer>> pointersByPage = new LinkedHashMap<>();
+        for (Pointer pointer : pointers) {
+            pointersByPage.computeIfAbsent(this.getPageTitle(pointer), k -> new ArrayList<>()).add(pointer);
+        }
+
+        for (Map.Entry<PageBuffer.PageTitle, List<Pointer>> entry : pointersByPage.entrySet()) {
+            Page page = this.getPageBuffer().acquire(entry.getKey());
+            try {
+                SlottedPage slottedPage = new SlottedPage(page);
+                    synchronized (page) {
+                    int from = Integer.MAX_VALUE;
+                    int to = 0;
+                    for (Pointer pointer : entry.getValue()) {
+                        Optional<DBObject> optionalDBObject = slottedPage.free(this.getSlot(pointer));
+                        if (optionalDBObject.isPresent()) {
+                            from = Math.min(from, optionalDBObject.get().getBegin());
+                            to = Math.max(to, optionalDBObject.get().getEnd());
+                        }
+                    }
+                    if (from >= to) {
+                        continue;
+                    }
+                }
+                this.commit(page);
+                this.gotFreeSpace(entry.getKey());
+            } finally {
+                this.getPageBuffer().release(page);
+            }
+        }
+    }
+
+    // Pages compact themselves, the storage compactor has nothing to move between them
+    @Override
+    public Optional<PageUsage> getPageUsage(PageBuffer.PageTitle pageTitle) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Pointer relocate(Pointer pointer) throws InternalOperationException {
+        Optional<DBObject> optionalDBObject = this.select(pointer);
+        if (optionalDBObject.isEmpty() || !optionalDBObject.get().isAlive()) {
+            throw new InternalOperationException("No live object present at: " + pointer);
+        }
+
+        DBObject dbObject = optionalDBObject.get();
+        Pointer newPointer = this.store(dbObject.getSchemeId(), dbObject.getCollectionId(), dbObject.getVersion(), dbObject.getData());
+        this.remove(pointer);
+        return newPointer;
+    }
+
+    @Override
+    public boolean recyclePage(PageBuffer.PageTitle pageTitle) {
+        return false;
+    }
+
+    private Pointer getPointer(Page page, int slot) {
+        return new Pointer(Pointer.TYPE_DATA, ((long) page.getPageNumber() * this.getEngineConfig().getDbPageSize()) + slot, page.getChunk());
+    }
+
+    private PageBuffer.PageTitle getPageTitle(Pointer pointer) {
+        return new PageBuffer.PageTitle(pointer.getChunk(), (int) (pointer.getPosition() / this.getEngineConfig().getDbPageSize()));
+    }
+
+    private int getSlot(Pointer pointer) {
+        return (int) (pointer.getPosition() % this.getEngineConfig().getDbPageSize());
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.exception.ErrorMessage;
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+
+/*
+ * Small binary file (`testudo.superblock.bin`) that records where the chunk files end, so the storage manager doesn't
+ * have to probe them on startup:
+ *      - Magic (int)
+ *      - Flags (1 byte):
+ *          - 0x01  clean shutdown
+ *      - Chunk count (int)
+ *      - Tail page: chunk (int), page number (int)
+ *      - Last page: chunk (int), page number (int)
+ *      - Recycled page count (int), followed by chunk (int) and page number (int) of each recycled page
+ * Superblocks written before recycled pages were recorded end after the last page, and are read with no recycled pages.
+ *
+ * The file is replaced as a whole (written to a temporary file which is moved over it), so it's never partially written.
+ * It's written with the clean flag on shutdown, and without it once the files are about to change after startup and on
+ * checkpoints. State of an unclean file is only a lower bound: files may have grown after it was written.
+ */
+public class Superblock {
+    private static final Logger logger = LoggerFactory.getLogger(Superblock.class);
+    private static final int MAGIC = 0x54455355;
+    private static final byte CLEAN = 0x01;
+    private static final int BYTES = Integer.BYTES + 1 + 5 * Integer.BYTES;  // without recycled pages
+    private static final int PAGE_TITLE_BYTES = 2 * Integer.BYTES;
+
+    private final Path path;
+
+    public Superblock(Path basePath) {
+        this.path = basePath.resolve("testudo.superblock.bin");
+    }
+
+    public record State(boolean clean, int chunkCount, PageBuffer.PageTitle tailPageTitle, PageBuffer.PageTitle lastPageTitle, List<PageBuffer.PageTitle> recycledPageTitles) {}
+
+    // Returns empty if there is no superblock, or if it's not readable
+    public Optional<State> read() {
+        if (!Files.exists(this.path)) {
+            return Optional.empty();
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(this.path));
+            if (buffer.remaining() < BYTES || buffer.getInt() != MAGIC) {
+                logger.warn("Ignoring invalid superblock {}", this.path);
+                return Optional.empty();
+            }
+            boolean clean = (buffer.get() & CLEAN) == CLEAN;
+            int chunkCount = buffer.getInt();
+            PageBuffer.PageTitle tailPageTitle = new PageBuffer.PageTitle(buffer.getInt(), buffer.getInt());
+            PageBuffer.PageTitle lastPageTitle = new PageBuffer.PageTitle(buffer.getInt(), buffer.getInt());
+
+            List<PageBuffer.PageTitle> recycledPageTitles = new ArrayList<>();
+            if (buffer.hasRemaining()) {
+                int count = buffer.remaining() >= Integer.BYTES ? buffer.getInt() : -1;
+                if (count < 0 || buffer.remaining() != (long) count * PAGE_TITLE_BYTES) {
+                    logger.warn("Ignoring invalid superblock {}", this.path);
+                    return Optional.empty();
+                }
+                for (int i = 0; i < count; i++) {
+                    recycledPageTitles.add(new PageBuffer.PageTitle(buffer.getInt(), buffer.getInt()));
+                }
+            }
+            return Optional.of(new State(clean, chunkCount, tailPageTitle, lastPageTitle, recycledPageTitles));
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable superblock {}", this.path, e);
+            return Optional.empty();
+        }
+    }
+
+    public void write(State state) throws InternalOperationException {
+        ByteBuffer buffer = ByteBuffer.allocate(BYTES + Integer.BYTES + state.recycledPageTitles().size() * PAGE_TITLE_BYTES)
+                .putInt(MAGIC)
+                .put(state.clean() ? CLEAN : 0)
+                .putInt(state.chunkCount())
+                .putInt(state.tailPageTitle().chunk())
+                .putInt(state.tailPageTitle().pageNumber())
+                .putInt(state.lastPageTitle().chunk())
+                .putInt(state.lastPageTitle().pageNumber())
+                .putInt(state.recycledPageTitles().size());
+        for (PageBuffer.PageTitle pageTitle : state.recycledPageTitles()) {
+            buffer.putInt(pageTitle.chunk()).putInt(pageTitle.pageNumber());
+        }
+        buffer.flip();
+
+        Path temporaryPath = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+        try {
+            try (FileChannel fileChannel = FileChannel.open(temporaryPath, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    fileChannel.write(buffer);
+                }
+                fileChannel.force(false);
+            }
+            Files.move(temporaryPath, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new InternalOperationException(ErrorMessage.EM_SUPERBLOCK_WRITE, e);
+        }
+    }
+}
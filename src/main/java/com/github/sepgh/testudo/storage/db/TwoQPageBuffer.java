@@ -0,0 +1,277 @@
+package com.github.sepgh.testudo.storage.db;
+
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.functional.PageFactory;
+import com.github.sepgh.testudo.functional.PageWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+
+/*
+ * Buffer of `limit` pages with 2Q replacement, so pages that are only touched once (i.e. by a scan) can't push out the
+ * pages that are used repeatedly:
+ *
+ *   - IN:      FIFO of pages loaded for the first time, a quarter of the buffer. Hits don't reorder it.
+ *   - OUT:     titles (not pages) of pages recently evicted from IN, as many as half of the buffer.
+ *              A page that is loaded again while its title is in OUT has been reused, and goes to MAIN.
+ *   - MAIN:    LRU of reused pages. Pages only get evicted from it while IN is within its share.
+ *   - ONCE:    FIFO of pages hinted by `useOnce()`, which are evicted before any other page and are not remembered in OUT.
+ *
+ * Pinned pages are never evicted; if every page is pinned the buffer grows past its limit until pages are released.
+ * Dirty pages don't hold a pin. They are written back when evicted, by the flusher, or on `flush()`. Writes never happen
+ * while the buffer is locked: dirty victims are picked under the lock, and written back once the lock is left.
+ */
+public class TwoQPageBuffer extends AbstractPageBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(TwoQPageBuffer.class);
+
+    private final int limit;
+    private final int inLimit;
+    private final int outLimit;
+    private final Map<PageTitle, Entry> entries = new HashMap<>();
+    private final LinkedHashSet<PageTitle> in = new LinkedHashSet<>();
+    private final LinkedHashSet<PageTitle> main = new LinkedHashSet<>();
+    private final LinkedHashSet<PageTitle> once = new LinkedHashSet<>();
+    private final LinkedHashSet<PageTitle> out = new LinkedHashSet<>();
+
+    public TwoQPageBuffer(int limit, PageFactory factory, @Nullable PageWriter writer, long flushInterval, @Nullable Consumer<Page> dropListener) {
+        super(factory, writer, flushInterval, dropListener);
+        this.limit = limit;
+        this.inLimit = Math.max(1, limit / 4);
+        this.outLimit = Math.max(1, limit / 2);
+    }
+
+    public TwoQPageBuffer(int limit, PageFactory factory, @Nullable PageWriter writer, long flushInterval) {
+        this(limit, factory, writer, flushInterval, null);
+    }
+
+    public TwoQPageBuffer(int limit, PageFactory factory) {
+        this(limit, factory, null, 0);
+    }
+
+    @Override
+    public Page acquire(PageTitle title) throws InternalOperationException {
+        Page page;
+        List<Map.Entry<PageTitle, Entry>> victims;
+        synchronized (this) {
+            Entry entry = this.entries.get(title);
+            if (entry != null) {
+                entry.pinCount++;
+                if (entry.queue == main) {
+                    main.remove(title);
+                    main.add(title);
+                } else if (entry.queue == once) {
+                    // Used again after the hint, so it's treated as a page loaded for the first time
+                    this.move(title, entry, in);
+                }
+                return entry.page;
+            }
+
+            page = factory.apply(title);
+            entry = new Entry(page, out.remove(title) ? main : in);
+            entry.pinCount = 1;
+            entry.queue.add(title);
+            this.entries.put(title, entry);
+            victims = this.evict();
+        }
+        this.writeBack(victims);
+        return page;
+    }
+
+    @Override
+    public void release(PageTitle title) {
+        this.writeBack(this.unpin(title, true));
+    }
+
+    @Override
+    public void releaseAll() {
+        List<PageTitle> titles;
+        synchronized (this) {
+            titles = new ArrayList<>(this.entries.keySet());
+        }
+        titles.forEach(this::release);
+    }
+
+    // Returns the dirty victims of the eviction that the release may cause, see evict()
+    private synchronized List<Map.Entry<PageTitle, Entry>> unpin(PageTitle title, boolean evict) {
+        Entry entry = this.entries.get(title);
+        if (entry == null || entry.pinCount == 0) {
+            return List.of();
+        }
+        entry.pinCount--;
+        if (evict && entry.pinCount == 0 && this.entries.size() > this.limit) {
+            return this.evict();
+        }
+        return List.of();
+    }
+
+    /*
+     * Pages of MAIN have already proven to be reused and are left where they are.
+     */
+    @Override
+    public synchronized void useOnce(PageTitle title) {
+        Entry entry = this.entries.get(title);
+        if (entry != null && entry.queue == in) {
+            this.move(title, entry, once);
+        }
+    }
+
+    @Override
+    public synchronized void markDirty(Page page) {
+        this.requireWriter();
+
+        PageTitle pageTitle = PageTitle.of(page);
+        Entry entry = this.entries.get(pageTitle);
+        if (entry == null || entry.pinCount == 0) {
+            throw new IllegalStateException("Page %s should be acquired before getting marked as dirty".formatted(pageTitle));
+        }
+        entry.dirty.set(true);
+    }
+
+    /*
+     * Dirty pages are pinned while they are written, so they can't be evicted (and written) at the same time,
+     * but the buffer is not locked during writes.
+     */
+    @Override
+    public Collection<PageTitle> flush() throws InternalOperationException {
+        List<PageTitle> flushed = new ArrayList<>();
+        if (writer == null) {
+            return flushed;
+        }
+
+        List<Map.Entry<PageTitle, Entry>> dirty = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<PageTitle, Entry> mapEntry : this.entries.entrySet()) {
+                if (mapEntry.getValue().dirty.get()) {
+                    mapEntry.getValue().pinCount++;
+                    dirty.add(mapEntry);
+                }
+            }
+        }
+
+        InternalOperationException exception = null;
+        for (Map.Entry<PageTitle, Entry> mapEntry : dirty) {
+            try {
+                if (exception == null && this.write(mapEntry.getValue())) {
+                    flushed.add(mapEntry.getKey());
+                }
+            } catch (InternalOperationException e) {
+                exception = e;
+            } finally {
+                this.release(mapEntry.getKey());
+            }
+        }
+
+        if (exception != null) {
+            throw exception;
+        }
+        return flushed;
+    }
+
+    private boolean write(Entry entry) throws InternalOperationException {
+        assert writer != null;
+        synchronized (entry) {
+            if (!entry.dirty.compareAndSet(true, false)) {
+                return false;
+            }
+
+            try {
+                writer.write(entry.page);
+            } catch (InternalOperationException e) {
+                entry.dirty.set(true);
+                throw e;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Evicts unpinned pages until the buffer is within its limit: ONCE first, then IN if it's over its share,
+     * otherwise MAIN, falling back to the other queues if the chosen one only has pinned pages.
+     * Dirty victims are not written here, since the caller holds the lock of the buffer. They are pinned and returned
+     * instead, to be passed to writeBack() once the lock is left. Their release then evicts them, clean this time.
+     */
+    private List<Map.Entry<PageTitle, Entry>> evict() {
+        List<Map.Entry<PageTitle, Entry>> victims = new ArrayList<>();
+        while (this.entries.size() - victims.size() > this.limit) {
+            boolean evicted = this.evictFrom(once, victims)
+                    || (in.size() > inLimit ? this.evictFrom(in, victims) || this.evictFrom(main, victims) : this.evictFrom(main, victims) || this.evictFrom(in, victims));
+            if (!evicted) {
+                break;
+            }
+        }
+        return victims;
+    }
+
+    private boolean evictFrom(LinkedHashSet<PageTitle> queue, List<Map.Entry<PageTitle, Entry>> victims) {
+        Iterator<PageTitle> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            PageTitle title = iterator.next();
+            Entry entry = this.entries.get(title);
+            if (entry.pinCount > 0) {
+                continue;
+            }
+
+            if (entry.dirty.get()) {
+                entry.pinCount++;
+                victims.add(Map.entry(title, entry));
+                return true;
+            }
+
+            iterator.remove();
+            this.entries.remove(title);
+            this.dropped(entry.page);
+            if (queue == in) {
+                this.remember(title);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    // Writes back the dirty victims of evict() and releases them. Must not be called while holding the lock of the buffer
+    private void writeBack(List<Map.Entry<PageTitle, Entry>> victims) {
+        for (Map.Entry<PageTitle, Entry> victim : victims) {
+            try {
+                this.write(victim.getValue());
+            } catch (InternalOperationException e) {
+                // Page stays in the buffer and is retried by the next flush or eviction
+                logger.error("Failed to write back evicted page {}", victim.getKey(), e);
+                this.unpin(victim.getKey(), false);
+                continue;
+            }
+            this.release(victim.getKey());
+        }
+    }
+
+    private void remember(PageTitle title) {
+        out.add(title);
+        if (out.size() > outLimit) {
+            Iterator<PageTitle> iterator = out.iterator();
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private void move(PageTitle title, Entry entry, LinkedHashSet<PageTitle> queue) {
+        entry.queue.remove(title);
+        entry.queue = queue;
+        queue.add(title);
+    }
+
+    private static class Entry {
+        private final Page page;
+        private final AtomicBoolean dirty = new AtomicBoolean(false);
+        private LinkedHashSet<PageTitle> queue;
+        private int pinCount;
+
+        private Entry(Page page, LinkedHashSet<PageTitle> queue) {
+            this.page = page;
+            this.queue = queue;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.github.sepgh.testudo.storage.index;
 import com.github.sepgh.testudo.context.EngineConfig;
 import com.github.sepgh.testudo.ds.KVSize;
 import com.github.sepgh.testudo.ds.Pointer;
+import com.github.sepgh.testudo.exception.ErrorMessage;
 import com.github.sepgh.testudo.exception.InternalOperationException;
 import com.github.sepgh.testudo.storage.index.header.IndexHeaderManager;
 import com.github.sepgh.testudo.storage.index.header.IndexHeaderManagerSingletonFactory;
@@ -10,17 +11,20 @@ import com.github.sepgh.testudo.storage.pool.FileHandler;
 import com.github.sepgh.testudo.storage.pool.FileHandlerPool;
 import com.github.sepgh.testudo.storage.pool.ManagedFileHandler;
 import com.github.sepgh.testudo.storage.pool.UnlimitedFileHandlerPool;
+import com.github.sepgh.testudo.utils.BufferPool;
 import com.github.sepgh.testudo.utils.FileUtils;
 import lombok.Getter;
 import lombok.SneakyThrows;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousFileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Optional;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.IntPredicate;
 
 import static com.github.sepgh.testudo.exception.ErrorMessage.EM_FILE_READ_EMPTY;
 import static com.github.sepgh.testudo.index.tree.node.AbstractTreeNode.TYPE_INTERNAL_NODE_BIT;
@@ -31,7 +35,10 @@ public abstract class BaseFileIndexStorageManager extends AbstractFileIndexStora
     protected final IndexHeaderManager indexHeaderManager;
     protected final FileHandlerPool fileHandlerPool;
     public static final String INDEX_FILE_NAME = "index";
+    // Runs of adjacent nodes up to this size are merged in pooled buffers on channels that can't gather, see FileUtils.writeAll()
+    private static final int MERGE_BUFFER_SIZE = 16 * 1024;
     protected final String customName;
+    private final BufferPool mergeBufferPool;
 
     public BaseFileIndexStorageManager(
             @Nullable String customName,
@@ -43,6 +50,7 @@ public abstract class BaseFileIndexStorageManager extends AbstractFileIndexStora
         this.customName = customName;
         this.indexHeaderManager = indexHeaderManagerSingletonFactory.getInstance(this.getHeaderPath());
         this.fileHandlerPool = fileHandlerPool;
+        this.mergeBufferPool = BufferPool.heap(MERGE_BUFFER_SIZE, engineConfig.getFileHandlerPoolThreads());
     }
 
     public BaseFileIndexStorageManager(
@@ -74,12 +82,51 @@ public abstract class BaseFileIndexStorageManager extends AbstractFileIndexStora
         this.fileHandlerPool.releaseFileChannel(indexFilePath, engineConfig.getFileCloseTimeout(), engineConfig.getFileCloseUnit());
     }
 
+    /*
+     * Called once an index file is written, while its channel is still acquired. The file is made durable according to
+     * EngineConfig.Durability, the same way data files are.
+     */
+    protected void written(int indexId, int chunk) throws InternalOperationException {
+        Path indexFilePath = getIndexFilePath(indexId, chunk);
+        switch (engineConfig.getDurability()) {
+            case PERIODIC -> this.fileHandlerPool.markDirty(indexFilePath);
+            case COMMIT -> {
+                this.fileHandlerPool.markDirty(indexFilePath);
+                this.fileHandlerPool.force(indexFilePath);
+            }
+        }
+    }
+
+    // Nodes taken for the nodes about to be written are persisted in the header first, see IndexHeaderManager.flush()
+    protected void flushHeader() throws InternalOperationException {
+        try {
+            this.indexHeaderManager.flush(engineConfig.getDurability() == EngineConfig.Durability.COMMIT);
+        } catch (IOException e) {
+            throw new InternalOperationException(ErrorMessage.EM_INDEX_HEADER_MANAGEMENT, e);
+        }
+    }
+
+    // Marks the write as done (see written()) and releases the channel, returns the first failure of the two
+    @Nullable
+    private Throwable writeDone(int indexId, int chunk, @Nullable Throwable throwable) {
+        if (throwable == null) {
+            try {
+                this.written(indexId, chunk);
+            } catch (InternalOperationException e) {
+                throwable = e;
+            }
+        }
+        releaseFileChannel(indexId, chunk);
+        return throwable;
+    }
+
     protected ManagedFileHandler getManagedFileHandler(int indexId, int chunk){
         Path indexFilePath = getIndexFilePath(indexId, chunk);
         return new ManagedFileHandler(this.fileHandlerPool, indexFilePath,  engineConfig);
     }
 
-    protected abstract IndexHeaderManager.Location getIndexBeginningInChunk(int indexId, int chunk) throws InternalOperationException;
+    // Position in the chunk file of the node at `position` of the index, which is the position node pointers hold
+    protected abstract long getFilePosition(int indexId, int chunk, long position) throws InternalOperationException;
 
     @Override
     public CompletableFuture<Optional<NodeData>> getRoot(int indexId, KVSize kvSize) throws InternalOperationException {
@@ -92,11 +139,11 @@ public abstract class BaseFileIndexStorageManager extends AbstractFileIndexStora
         }
 
         IndexHeaderManager.Location rootLocation = optionalRootOfIndex.get();
-        IndexHeaderManager.Location beginningInChunk = getIndexBeginningInChunk(indexId, rootLocation.getChunk());
+        long filePosition = getFilePosition(indexId, rootLocation.getChunk(), rootLocation.getOffset());
 
         FileUtils.readBytes(
                 acquireFileChannel(indexId, rootLocation.getChunk()),
-                beginningInChunk.getOffset()  + rootLocation.getOffset(),
+                filePosition,
                 this.getBinarySpace(kvSize)
         ).whenComplete((bytes, throwable) -> {
             releaseFileChannel(indexId, rootLocation.getChunk());
@@ -125,9 +172,7 @@ public abstract class BaseFileIndexStorageManager extends AbstractFileIndexStora
     public CompletableFuture<NodeData> readNode(int indexId, long position, int chunk, KVSize size) throws InternalOperationException {
         CompletableFuture<NodeData> output = new CompletableFuture<>();
 
-        IndexHeaderManager.Location beginningInChunk = getIndexBeginningInChunk(indexId, chunk);
-
-        long filePosition = beginningInChunk.getOffset() + position;
+        long filePosition = getFilePosition(indexId, chunk, position);
 
         AsynchronousFileChannel asynchronousFileChannel = acquireFileChannel(indexId, chunk);
         try {
@@ -160,6 +205,7 @@ public abstract class BaseFileIndexStorageManager extends AbstractFileIndexStora
     public CompletableFuture<NodeData> writeNewNode(int indexId, byte[] data, boolean isRoot, KVSize kvSize) throws InternalOperationException {
         CompletableFuture<NodeData> output = new CompletableFuture<>();
         Pointer pointer = this.getAllocatedSpaceForNewNode(indexId, 0, kvSize);
+        this.flushHeader();
         int binarySpace = this.getBinarySpace(kvSize);
         if (data.length < binarySpace){
             byte[] finalData = new byte[binarySpace];
@@ -168,16 +214,10 @@ public abstract class BaseFileIndexStorageManager extends AbstractFileIndexStora
         }
 
         byte[] finalData1 = data;
-        long offset = pointer.getPosition();
-
-        IndexHeaderManager.Location indexBeginningInChunk = this.getIndexBeginningInChunk(indexId, pointer.getChunk());
-
-        // setting pointer position according to the index fileOffset. Reading table again since a new chunk may have been created
-        pointer.setPosition(offset - indexBeginningInChunk.getOffset());
-
-        FileUtils.write(acquireFileChannel(indexId, pointer.getChunk()), offset, data).whenComplete((size, throwable) -> {
-            releaseFileChannel(indexId, pointer.getChunk());
+        long offset = getFilePosition(indexId, pointer.getChunk(), pointer.getPosition());
 
+        FileUtils.write(acquireFileChannel(indexId, pointer.getChunk()), offset, data).whenComplete((size, writeThrowable) -> {
+            Throwable throwable = writeDone(indexId, pointer.getChunk(), writeThrowable);
             if (throwable != null){
                 output.completeExceptionally(throwable);
                 return;
@@ -202,29 +242,31 @@ public abstract class BaseFileIndexStorageManager extends AbstractFileIndexStora
     }
 
 
+    // Space is taken the same way writeNewNode() takes it
+    @Override
+    public Pointer allocateNode(int indexId, KVSize kvSize) throws InternalOperationException {
+        return this.getAllocatedSpaceForNewNode(indexId, 0, kvSize);
+    }
+
     /**
      * ## How it works:
-     *      if the chunk is new for this indexId, then just allocate at the end of the file and add the chunk index to header
-     *      and return. But if there isn't space left, try next chunk.
-     *      if file size is not 0,
-     *          see if there is any empty space in the file (allocated before but never written to) and return the
-     *          pointer to that space if is available.
+     *      see if there is any empty space allocated to the index before (never written to, or removed) and return
+     *      the pointer to that space if is available.
      *      if file size is equal or greater than maximum file size try next chunk
-     *      allocate space at end of the file and return pointer if the index is at end of the file
-     *      otherwise, allocate space right before the next index in this chunk begins and push next tables to the end
-     *          also make sure to update possible roots and chunk indexes fileOffset for next indexes
+     *      otherwise allocate space for the index and return pointer to the beginning of it
      * @param indexId index to allocate space in
-     * @return Pointer to the beginning of allocated location
+     * @return Pointer to the beginning of allocated location, holding its position within the index (see getFilePosition())
      */
     protected abstract Pointer getAllocatedSpaceForNewNode(int indexId, int chunk, KVSize kvSize) throws InternalOperationException;
 
     /*
-     * Returns the empty position within byte[] passed to the method
+     * Returns the empty position within byte[] passed to the method, skipping the positions that are `taken` even though
+     * nothing is written there yet
      */
-    protected Optional<Integer> getPossibleAllocationLocation(byte[] bytes, KVSize kvSize){
+    protected Optional<Integer> getPossibleAllocationLocation(byte[] bytes, KVSize kvSize, IntPredicate taken){
         for (int i = 0; i < engineConfig.getBTreeGrowthNodeAllocationCount(); i++){
             int position = i * this.getBinarySpace(kvSize);
-            if ((bytes[position] & TYPE_LEAF_NODE_BIT) != TYPE_LEAF_NODE_BIT && (bytes[position] & TYPE_INTERNAL_NODE_BIT) != TYPE_INTERNAL_NODE_BIT){
+            if (!taken.test(position) && (bytes[position] & TYPE_LEAF_NODE_BIT) != TYPE_LEAF_NODE_BIT && (bytes[position] & TYPE_INTERNAL_NODE_BIT) != TYPE_INTERNAL_NODE_BIT){
                 return Optional.of(position);
             }
         }
@@ -233,14 +275,19 @@ public abstract class BaseFileIndexStorageManager extends AbstractFileIndexStora
 
     @Override
     public CompletableFuture<Void> updateNode(int indexId, byte[] data, Pointer pointer, boolean isRoot) throws InternalOperationException {
-        long offset = getIndexBeginningInChunk(indexId, pointer.getChunk()).getOffset() + pointer.getPosition();
+        this.flushHeader();
+        long offset = getFilePosition(indexId, pointer.getChunk(), pointer.getPosition());
 
         AsynchronousFileChannel asynchronousFileChannel = acquireFileChannel(indexId, pointer.getChunk());
 
         CompletableFuture<Void> output = new CompletableFuture<>();
 
-        FileUtils.write(asynchronousFileChannel, offset, data).whenComplete((integer, throwable) -> {
-            releaseFileChannel(indexId, pointer.getChunk());
+        FileUtils.write(asynchronousFileChannel, offset, data).whenComplete((integer, writeThrowable) -> {
+            Throwable throwable = writeDone(indexId, pointer.getChunk(), writeThrowable);
+            if (throwable != null){
+                output.completeExceptionally(throwable);
+                return;
+            }
             if (isRoot){
                 try {
                     this.updateRoot(indexId, pointer);
@@ -257,6 +304,49 @@ public abstract class BaseFileIndexStorageManager extends AbstractFileIndexStora
         return output;
     }
 
+    /*
+     * Nodes are grouped by chunk, and the nodes of each chunk file are written with FileUtils.writeAll(), so the new and
+     * old halves of a split and their parent go to the file together rather than as a write per node.
+     */
+    @Override
+    public CompletableFuture<Void> updateNodes(int indexId, List<NodeData> nodes, @Nullable Pointer root) throws InternalOperationException {
+        this.flushHeader();
+        Map<Integer, List<FileUtils.Write>> writesPerChunk = new TreeMap<>();
+        for (NodeData node : nodes) {
+            Pointer pointer = node.pointer();
+            long offset = getFilePosition(indexId, pointer.getChunk(), pointer.getPosition());
+            writesPerChunk.computeIfAbsent(pointer.getChunk(), chunk -> new ArrayList<>()).add(new FileUtils.Write(offset, ByteBuffer.wrap(node.bytes())));
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(writesPerChunk.size());
+        for (Map.Entry<Integer, List<FileUtils.Write>> entry : writesPerChunk.entrySet()) {
+            int chunk = entry.getKey();
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            FileUtils.writeAll(acquireFileChannel(indexId, chunk), entry.getValue(), this.mergeBufferPool).whenComplete((unused, writeThrowable) -> {
+                Throwable throwable = writeDone(indexId, chunk, writeThrowable);
+                if (throwable != null){
+                    future.completeExceptionally(throwable);
+                } else {
+                    future.complete(null);
+                }
+            });
+            futures.add(future);
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenRun(() -> {
+            if (root != null){
+                try {
+                    this.updateRoot(indexId, root);
+                } catch (IOException e) {
+                    throw new RuntimeException(
+                            String.format(ROOT_UPDATE_RUNTIME_ERR_STR, getHeaderPath(), getIndexFilePath(indexId, root.getChunk())),
+                            e
+                    );
+                }
+            }
+        });
+    }
+
     private void updateRoot(int indexId, Pointer pointer) throws IOException {
         indexHeaderManager.setRootOfIndex(indexId, IndexHeaderManager.Location.fromPointer(pointer));
     }
@@ -270,10 +360,9 @@ public abstract class BaseFileIndexStorageManager extends AbstractFileIndexStora
     public CompletableFuture<Void> removeNode(int indexId, Pointer pointer, KVSize size) throws InternalOperationException {
         CompletableFuture<Void> output = new CompletableFuture<>();
 
-        IndexHeaderManager.Location location = indexHeaderManager.getIndexBeginningInChunk(indexId, pointer.getChunk()).orElseGet(() -> new IndexHeaderManager.Location(pointer.getChunk(), 0));
-        long offset = location.getOffset() + pointer.getPosition();
-        FileUtils.write(acquireFileChannel(indexId, pointer.getChunk()), offset, new byte[this.getBinarySpace(size)]).whenComplete((integer, throwable) -> {
-            releaseFileChannel(indexId, pointer.getChunk());
+        long offset = getFilePosition(indexId, pointer.getChunk(), pointer.getPosition());
+        FileUtils.write(acquireFileChannel(indexId, pointer.getChunk()), offset, new byte[this.getBinarySpace(size)]).whenComplete((integer, writeThrowable) -> {
+            Throwable throwable = writeDone(indexId, pointer.getChunk(), writeThrowable);
             if (throwable != null){
                 output.completeExceptionally(throwable);
             } else {
@@ -6,7 +6,9 @@ import com.github.sepgh.testudo.exception.InternalOperationException;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 
+import javax.annotation.Nullable;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -81,6 +83,20 @@ public class CachedIndexStorageManagerDecorator extends IndexStorageManagerDecor
         });
     }
 
+    public CompletableFuture<Void> updateNodes(int indexId, List<NodeData> nodes, @Nullable Pointer root) throws InternalOperationException {
+        return super.updateNodes(indexId, nodes, root).whenComplete((integer, throwable) -> {
+            if (throwable == null) {
+                for (NodeData nodeData : nodes) {
+                    cache.put(new IndexPointer(indexId, nodeData.pointer()), nodeData);
+                    synchronized (rootCache) {
+                        if (nodeData.pointer().equals(root))
+                            rootCache.put(indexId, nodeData);
+                    }
+                }
+            }
+        });
+    }
+
     public void close() throws InternalOperationException {
         this.cache.invalidateAll();
         super.close();
@@ -5,19 +5,28 @@ import com.github.sepgh.testudo.ds.KVSize;
 import com.github.sepgh.testudo.ds.Pointer;
 import com.github.sepgh.testudo.exception.ErrorMessage;
 import com.github.sepgh.testudo.exception.InternalOperationException;
-import com.github.sepgh.testudo.storage.index.header.IndexHeaderManager;
 import com.github.sepgh.testudo.storage.index.header.IndexHeaderManagerSingletonFactory;
 import com.github.sepgh.testudo.storage.pool.FileHandlerPool;
 import com.github.sepgh.testudo.storage.pool.ManagedFileHandler;
 import com.github.sepgh.testudo.utils.FileUtils;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.channels.AsynchronousFileChannel;
 import java.nio.file.Path;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 
 public class CompactFileIndexStorageManager extends BaseFileIndexStorageManager {
+    // Positions handed out for new nodes that are not written yet. They still look empty on disk, but are taken
+    private final Set<Long> reservedPositions = ConcurrentHashMap.newKeySet();
+    /*
+     * Positions of removed nodes by node size, which are reused before the file grows. The file mixes the nodes of all
+     * indexes and the header has no layout of it to keep them in, so they are only known until the manager is closed.
+     */
+    private final Map<Integer, Set<Long>> removedPositions = new HashMap<>();
 
     public CompactFileIndexStorageManager(IndexHeaderManagerSingletonFactory indexHeaderManagerSingletonFactory, EngineConfig engineConfig, FileHandlerPool fileHandlerPool) {
         super(null, indexHeaderManagerSingletonFactory, engineConfig, fileHandlerPool);
@@ -32,8 +41,8 @@ public class CompactFileIndexStorageManager extends BaseFileIndexStorageManager
     }
 
     @Override
-    protected IndexHeaderManager.Location getIndexBeginningInChunk(int indexId, int chunk) {
-        return new IndexHeaderManager.Location(0,0);
+    protected long getFilePosition(int indexId, int chunk, long position) {
+        return position;
     }
 
     /* Todo:
@@ -52,6 +61,16 @@ public class CompactFileIndexStorageManager extends BaseFileIndexStorageManager
             AsynchronousFileChannel asynchronousFileChannel = managedFileHandler.getAsynchronousFileChannel();
 
             synchronized (this){
+                Set<Long> removed = this.removedPositions.computeIfAbsent(this.getBinarySpace(kvSize), integer -> new LinkedHashSet<>());
+                if (!removed.isEmpty()) {
+                    Iterator<Long> iterator = removed.iterator();
+                    long position = iterator.next();
+                    iterator.remove();
+                    managedFileHandler.close();
+                    this.reservedPositions.add(position);
+                    return new Pointer(Pointer.TYPE_NODE, position, chunk);
+                }
+
                 long fileSize = asynchronousFileChannel.size();
 
                 // Check if we have an empty space
@@ -61,10 +80,12 @@ public class CompactFileIndexStorageManager extends BaseFileIndexStorageManager
                     long positionToCheck = fileSize - this.getIndexGrowthAllocationSize(kvSize);
 
                     byte[] bytes = FileUtils.readBytes(asynchronousFileChannel, positionToCheck, this.getIndexGrowthAllocationSize(kvSize)).get();
-                    Optional<Integer> optionalAdditionalPosition = getPossibleAllocationLocation(bytes, kvSize);
+                    Optional<Integer> optionalAdditionalPosition = getPossibleAllocationLocation(bytes, kvSize, position -> this.reservedPositions.contains(positionToCheck + position));
                     if (optionalAdditionalPosition.isPresent()){
                         long finalPosition = positionToCheck + optionalAdditionalPosition.get();
                         managedFileHandler.close();
+                        this.reservedPositions.add(finalPosition);
+                        removed.remove(finalPosition);
                         return new Pointer(Pointer.TYPE_NODE, finalPosition, chunk);
                     }
 
@@ -72,6 +93,7 @@ public class CompactFileIndexStorageManager extends BaseFileIndexStorageManager
 
                 Long position = FileUtils.allocate(asynchronousFileChannel, this.getIndexGrowthAllocationSize(kvSize)).get();
                 managedFileHandler.close();
+                this.reservedPositions.add(position);
                 return new Pointer(Pointer.TYPE_NODE, position, chunk);
             }
         } catch (IOException | ExecutionException | InterruptedException e) {
@@ -81,4 +103,34 @@ public class CompactFileIndexStorageManager extends BaseFileIndexStorageManager
 
     }
 
+    // Node is only reused once it's zeroed on disk
+    @Override
+    public CompletableFuture<Void> removeNode(int indexId, Pointer pointer, KVSize size) throws InternalOperationException {
+        return super.removeNode(indexId, pointer, size).thenRun(() -> {
+            synchronized (this) {
+                this.removedPositions.computeIfAbsent(this.getBinarySpace(size), integer -> new LinkedHashSet<>()).add(pointer.getPosition());
+            }
+        });
+    }
+
+    // Reserved positions are released once the node is written there
+    @Override
+    public CompletableFuture<NodeData> writeNewNode(int indexId, byte[] data, boolean isRoot, KVSize kvSize) throws InternalOperationException {
+        return super.writeNewNode(indexId, data, isRoot, kvSize).whenComplete((nodeData, throwable) -> {
+            if (nodeData != null) {
+                this.reservedPositions.remove(nodeData.pointer().getPosition());
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> updateNode(int indexId, byte[] data, Pointer pointer, boolean isRoot) throws InternalOperationException {
+        return super.updateNode(indexId, data, pointer, isRoot).whenComplete((unused, throwable) -> this.reservedPositions.remove(pointer.getPosition()));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateNodes(int indexId, List<NodeData> nodes, @Nullable Pointer root) throws InternalOperationException {
+        return super.updateNodes(indexId, nodes, root).whenComplete((unused, throwable) -> nodes.forEach(node -> this.reservedPositions.remove(node.pointer().getPosition())));
+    }
+
 }
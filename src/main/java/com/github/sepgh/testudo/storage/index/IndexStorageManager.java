@@ -5,8 +5,12 @@ import com.github.sepgh.testudo.ds.Pointer;
 import com.github.sepgh.testudo.exception.InternalOperationException;
 import com.github.sepgh.testudo.storage.index.header.IndexHeaderManager;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 public interface IndexStorageManager {
     CompletableFuture<Optional<NodeData>> getRoot(int indexId, KVSize kvSize) throws InternalOperationException;
@@ -26,6 +30,27 @@ public interface IndexStorageManager {
     }
     CompletableFuture<Void> updateNode(int indexId, byte[] data, Pointer pointer, boolean root) throws InternalOperationException;
 
+    /*
+     * Takes the space of a new node without writing it, so the node can be written by updateNodes() along with the nodes
+     * it's linked to. Default writes an empty node in its place.
+     */
+    default Pointer allocateNode(int indexId, KVSize kvSize) throws InternalOperationException {
+        try {
+            return this.writeNewNode(indexId, this.getEmptyNode(kvSize), kvSize).get().pointer();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new InternalOperationException(e);
+        }
+    }
+
+    // Updates several existing nodes of the index at once, `root` is the pointer of the node among them that is the root, if any
+    default CompletableFuture<Void> updateNodes(int indexId, List<NodeData> nodes, @Nullable Pointer root) throws InternalOperationException {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(nodes.size());
+        for (NodeData node : nodes) {
+            futures.add(this.updateNode(indexId, node.bytes(), node.pointer(), node.pointer().equals(root)));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
     void close() throws InternalOperationException;
 
     CompletableFuture<Void> removeNode(int indexId, Pointer pointer, KVSize size) throws InternalOperationException;
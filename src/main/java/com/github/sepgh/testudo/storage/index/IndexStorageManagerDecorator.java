@@ -5,6 +5,8 @@ import com.github.sepgh.testudo.ds.Pointer;
 import com.github.sepgh.testudo.exception.InternalOperationException;
 import com.github.sepgh.testudo.storage.index.header.IndexHeaderManager;
 
+import javax.annotation.Nullable;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
@@ -43,6 +45,12 @@ public class IndexStorageManagerDecorator implements IndexStorageManager {
     public CompletableFuture<Void> updateNode(int indexId, byte[] data, Pointer pointer, boolean root) throws InternalOperationException {
         return this.decorated.updateNode(indexId, data, pointer, root);
     }
+    public Pointer allocateNode(int indexId, KVSize kvSize) throws InternalOperationException {
+        return this.decorated.allocateNode(indexId, kvSize);
+    }
+    public CompletableFuture<Void> updateNodes(int indexId, List<NodeData> nodes, @Nullable Pointer root) throws InternalOperationException {
+        return this.decorated.updateNodes(indexId, nodes, root);
+    }
 
     public void close() throws InternalOperationException {
         this.decorated.close();
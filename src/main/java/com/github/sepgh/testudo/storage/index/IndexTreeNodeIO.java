@@ -6,6 +6,8 @@ import com.github.sepgh.testudo.exception.InternalOperationException;
 import com.github.sepgh.testudo.index.tree.node.AbstractTreeNode;
 import com.github.sepgh.testudo.index.tree.node.NodeFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
@@ -56,6 +58,26 @@ public class IndexTreeNodeIO {
         }
     }
 
+    // Nodes should have been written before, see IndexStorageManager.updateNodes()
+    public static <K extends Comparable<K>> void updateAll(IndexStorageManager indexStorageManager, int indexId, List<? extends AbstractTreeNode<K>> nodes) throws InternalOperationException {
+        if (nodes.isEmpty())
+            return;
+
+        List<IndexStorageManager.NodeData> nodeDataList = new ArrayList<>(nodes.size());
+        Pointer root = null;
+        for (AbstractTreeNode<K> node : nodes) {
+            nodeDataList.add(new IndexStorageManager.NodeData(node.getPointer(), node.getData()));
+            if (node.isRoot())
+                root = node.getPointer();
+        }
+
+        try {
+            indexStorageManager.updateNodes(indexId, nodeDataList, root).get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new InternalOperationException(e);
+        }
+    }
+
     public static <E extends Comparable<E>> void remove(IndexStorageManager indexStorageManager, int indexId, AbstractTreeNode<E> node, KVSize kvSize) throws ExecutionException, InterruptedException, InternalOperationException {
         remove(indexStorageManager, indexId, node.getPointer(), kvSize);
     }
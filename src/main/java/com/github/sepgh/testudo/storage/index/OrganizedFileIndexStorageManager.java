@@ -14,19 +14,27 @@ import lombok.SneakyThrows;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousFileChannel;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 
 
 /*
-Todo: when a node is removed, depending on it's index and chunk we can keep a reference to it's location to reuse it in next allocation calls
-*/
-
+ * Indexes share the chunk files and each one grows by extents of `bTreeGrowthNodeAllocationCount` nodes, which are
+ * appended to the end of the file and listed in the header. Extents of an index can be anywhere in the file, in between
+ * extents of other indexes. Node pointers hold the position of the node among the extents of its index in the chunk,
+ * in the order they were allocated, so growing an index never moves what other indexes have already stored.
+ *
+ * Free nodes of each index are tracked in the header (see IndexHeaderManager.takeFreeNodeOfIndex()), so allocation
+ * reuses removed nodes anywhere in the index before adding an extent, without reading the file.
+ */
 public class OrganizedFileIndexStorageManager extends BaseFileIndexStorageManager {
-
     public OrganizedFileIndexStorageManager(@Nullable String customName, IndexHeaderManagerSingletonFactory indexHeaderManagerSingletonFactory, EngineConfig engineConfig, FileHandlerPool fileHandlerPool) {
         super(customName, indexHeaderManagerSingletonFactory, engineConfig, fileHandlerPool);
     }
@@ -40,105 +48,63 @@ public class OrganizedFileIndexStorageManager extends BaseFileIndexStorageManage
     }
 
     @Override
-    protected IndexHeaderManager.Location getIndexBeginningInChunk(int indexId, int chunk) throws InternalOperationException {
-        Optional<IndexHeaderManager.Location> optional = this.indexHeaderManager.getIndexBeginningInChunk(indexId, chunk);
-        if (optional.isPresent()) {
-            return optional.get();
+    protected long getFilePosition(int indexId, int chunk, long position) throws InternalOperationException {
+        Optional<Integer> optionalExtentSize = this.indexHeaderManager.getExtentSizeOfIndex(indexId);
+        Optional<IndexHeaderManager.Location> optionalExtent = optionalExtentSize.flatMap(
+                extentSize -> this.indexHeaderManager.getExtentOfIndex(indexId, chunk, (int) (position / extentSize))
+        );
+        if (optionalExtent.isEmpty()) {
+            throw new InternalOperationException("No extent of index %d holds position %d of chunk %d".formatted(indexId, position, chunk));
         }
-
-        List<Integer> indexesInChunk = this.indexHeaderManager.getIndexesInChunk(chunk);
-        IndexHeaderManager.Location location;
-        if (indexesInChunk.isEmpty()) {
-            location = new IndexHeaderManager.Location(chunk, 0);
-        } else {
-            AsynchronousFileChannel asynchronousFileChannel = this.acquireFileChannel(indexId, chunk);
-            try {
-                location = new IndexHeaderManager.Location(chunk, asynchronousFileChannel.size());
-            } catch (IOException e) {
-                throw new InternalOperationException(e);
-            }
-            this.releaseFileChannel(indexId, chunk);
-        }
-
-        try {
-            this.indexHeaderManager.setIndexBeginningInChunk(indexId, location);
-        } catch (IOException e) {
-            throw new InternalOperationException(e);
-        }
-        return location;
+        return optionalExtent.get().getOffset() + position % optionalExtentSize.get();
     }
 
     protected synchronized Pointer getAllocatedSpaceForNewNode(int indexId, int chunk, KVSize size) throws InternalOperationException {
+        AsynchronousFileChannel asynchronousFileChannel = this.acquireFileChannel(indexId, chunk);
         try {
-
-            Optional<IndexHeaderManager.Location> optionalIndexBeginningLocation = this.indexHeaderManager.getIndexBeginningInChunk(indexId, chunk);
-            boolean createNewChunk = optionalIndexBeginningLocation.isEmpty();
-
-            // Despite if it's a new chunk for this index or not, go to next chunk if file is already full
-            AsynchronousFileChannel asynchronousFileChannel = this.acquireFileChannel(indexId, chunk);
-            if (
-                    this.engineConfig.getBTreeMaxFileSize() != EngineConfig.UNLIMITED_FILE_SIZE &&
-                            asynchronousFileChannel.size() >= this.engineConfig.getBTreeMaxFileSize()
-            ) {
-                this.releaseFileChannel(indexId, chunk);
-                return this.getAllocatedSpaceForNewNode(indexId, chunk + 1, size);
+            // Removed nodes are reused even if the file is already full
+            Optional<Integer> freeNode = this.indexHeaderManager.takeFreeNodeOfIndex(indexId, chunk);
+
+            // Go to next chunk if file is already full
+            if (freeNode.isEmpty() && (
+                    this.engineConfig.getBTreeMaxFileSize() == EngineConfig.UNLIMITED_FILE_SIZE ||
+                            asynchronousFileChannel.size() < this.engineConfig.getBTreeMaxFileSize()
+            )) {
+                this.addExtent(asynchronousFileChannel, indexId, chunk, size);
+                freeNode = this.indexHeaderManager.takeFreeNodeOfIndex(indexId, chunk);
             }
 
-            // If it's a new chunk for this index, allocate at the end of the file!
-            if (createNewChunk){
-                this.indexHeaderManager.setIndexBeginningInChunk(indexId, new IndexHeaderManager.Location(chunk, asynchronousFileChannel.size()));
-                Long position = FileUtils.allocate(asynchronousFileChannel, this.getIndexGrowthAllocationSize(size)).get();
-                this.releaseFileChannel(indexId, chunk);
-                return new Pointer(Pointer.TYPE_NODE, position, chunk);
+            if (freeNode.isPresent()) {
+                return new Pointer(Pointer.TYPE_NODE, (long) freeNode.get() * this.getBinarySpace(size), chunk);
             }
+        } catch (IOException | ExecutionException | InterruptedException e) {
+            throw new InternalOperationException(ErrorMessage.EM_FILE_ALLOCATION, e);
+        } finally {
+            this.releaseFileChannel(indexId, chunk);
+        }
+        return this.getAllocatedSpaceForNewNode(indexId, chunk + 1, size);
+    }
 
+    // Appends an extent to the end of the file, all of its nodes are free
+    private void addExtent(AsynchronousFileChannel asynchronousFileChannel, int indexId, int chunk, KVSize size) throws IOException, ExecutionException, InterruptedException {
+        int extentSize = this.indexHeaderManager.getExtentSizeOfIndex(indexId).orElse(this.getIndexGrowthAllocationSize(size));
+        int nodesPerExtent = this.indexHeaderManager.getNodesPerExtentOfIndex(indexId).orElse(extentSize / this.getBinarySpace(size));
 
-            // If it's not a new chunk for this index, see if other indexes exist or not
-
-            Optional<IndexHeaderManager.Location> nextIndexBeginningInChunk = this.indexHeaderManager.getNextIndexBeginningInChunk(indexId, chunk);
-            long positionToCheck;
-            if (nextIndexBeginningInChunk.isPresent()){
-                // Another index exists, so lets check if we have a space left before the next index
-                positionToCheck = nextIndexBeginningInChunk.get().getOffset() - this.getIndexGrowthAllocationSize(size);
-            } else {
-                // Another index doesn't exist, so lets check if we have a space left in the end of the file
-                positionToCheck = asynchronousFileChannel.size() - this.getIndexGrowthAllocationSize(size);
-            }
-
-            if (positionToCheck >= 0){
-                // Check if we have an empty space
-                byte[] bytes = FileUtils.readBytes(asynchronousFileChannel, positionToCheck, this.getIndexGrowthAllocationSize(size)).get();
-                Optional<Integer> optionalAdditionalPosition = getPossibleAllocationLocation(bytes, size);
-                if (optionalAdditionalPosition.isPresent()){
-                    long finalPosition = positionToCheck + optionalAdditionalPosition.get();
-                    this.releaseFileChannel(indexId, chunk);
-                    return new Pointer(Pointer.TYPE_NODE, finalPosition, chunk);
-                }
-            }
+        long extentOffset = FileUtils.allocate(asynchronousFileChannel, extentSize).get();
+        this.indexHeaderManager.addExtentOfIndex(indexId, extentSize, nodesPerExtent, new IndexHeaderManager.Location(chunk, extentOffset));
+    }
 
-            // Empty space not found, allocate in the end or before next index
-            long allocatedOffset;
-            if (nextIndexBeginningInChunk.isPresent()){
-                allocatedOffset = FileUtils.allocate(
-                        asynchronousFileChannel,
-                        nextIndexBeginningInChunk.get().getOffset(),
-                        this.getIndexGrowthAllocationSize(size)
-                ).get();
-                Integer nextIndex = this.indexHeaderManager.getNextIndexIdInChunk(indexId, chunk).get();
-                this.indexHeaderManager.setIndexBeginningInChunk(nextIndex, new IndexHeaderManager.Location(chunk, nextIndexBeginningInChunk.get().getOffset() + this.getIndexGrowthAllocationSize(size)));
-            } else {
-                allocatedOffset = FileUtils.allocate(
-                        asynchronousFileChannel,
-                        this.getIndexGrowthAllocationSize(size)
-                ).get();
+    // Node is only freed once it's zeroed on disk
+    @Override
+    public CompletableFuture<Void> removeNode(int indexId, Pointer pointer, KVSize size) throws InternalOperationException {
+        int slot = (int) (pointer.getPosition() / this.getBinarySpace(size));
+        return super.removeNode(indexId, pointer, size).thenRun(() -> {
+            try {
+                this.indexHeaderManager.freeNodesOfIndex(indexId, pointer.getChunk(), slot, slot + 1);
+            } catch (IOException e) {
+                throw new CompletionException(e);
             }
-
-            this.releaseFileChannel(indexId, chunk);
-
-            return new Pointer(Pointer.TYPE_NODE, allocatedOffset, chunk);
-        } catch (IOException | ExecutionException | InterruptedException e) {
-            throw new InternalOperationException(ErrorMessage.EM_FILE_ALLOCATION, e);
-        }
+        });
     }
 
     @Override
@@ -149,26 +115,28 @@ public class OrganizedFileIndexStorageManager extends BaseFileIndexStorageManage
     @SneakyThrows
     @Override
     public void purgeIndex(int indexId) {
-        List<Integer> chunksOfIndex = this.indexHeaderManager.getChunksOfIndex(indexId);
-        for (Integer chunk : chunksOfIndex) {
-            Optional<IndexHeaderManager.Location> optionalLocation = this.indexHeaderManager.getIndexBeginningInChunk(indexId, chunk);
-            if (optionalLocation.isEmpty()) {continue;}
+        Optional<Integer> optionalExtentSize = this.indexHeaderManager.getExtentSizeOfIndex(indexId);
+        if (optionalExtentSize.isEmpty()) {
+            return;
+        }
 
+        ByteBuffer zeros = ByteBuffer.allocate(optionalExtentSize.get());
+        for (Integer chunk : this.indexHeaderManager.getChunksOfIndex(indexId)) {
             ManagedFileHandler managedFileHandler = this.getManagedFileHandler(indexId, chunk);
 
-            IndexHeaderManager.Location location = optionalLocation.get();
-            Optional<IndexHeaderManager.Location> nextIndexBeginningInChunk = this.indexHeaderManager.getNextIndexBeginningInChunk(indexId, chunk);
-            long size;
-            if (nextIndexBeginningInChunk.isPresent()) {
-                size = nextIndexBeginningInChunk.get().getOffset() - location.getOffset();
-
-            } else {
-                size = managedFileHandler.getAsynchronousFileChannel().size() - location.getOffset();
+            int extentCount = this.indexHeaderManager.getExtentCountOfIndex(indexId, chunk);
+            List<FileUtils.Write> writes = new ArrayList<>(extentCount);
+            for (int extent = 0; extent < extentCount; extent++) {
+                long offset = this.indexHeaderManager.getExtentOfIndex(indexId, chunk, extent).orElseThrow().getOffset();
+                writes.add(new FileUtils.Write(offset, zeros.duplicate()));
             }
-            byte[] bytes = new byte[Math.toIntExact(size)];
-            FileUtils.write(managedFileHandler.getAsynchronousFileChannel(), location.getOffset(), bytes).get();
+            FileUtils.writeAll(managedFileHandler.getAsynchronousFileChannel(), writes).get();
+            this.written(indexId, chunk);
+            // Extents keep the node count they were added with, even if `bTreeGrowthNodeAllocationCount` changed since
+            this.indexHeaderManager.freeNodesOfIndex(indexId, chunk, 0, extentCount * this.indexHeaderManager.getNodesPerExtentOfIndex(indexId).orElseThrow());
 
             managedFileHandler.close();
         }
+        this.flushHeader();
     }
 }
@@ -10,32 +10,34 @@ import java.util.*;
 @NoArgsConstructor
 @AllArgsConstructor
 public class Header {
+    // Headers without a version are from before extents, see JsonIndexHeaderManager
+    public static final int VERSION = 3;
+
+    int version = VERSION;
     Map<Integer, IndexHeaderManager.Location> roots = new HashMap<>();
-    Map<Integer, List<Header.IndexOffset>> chunkIndexOffset = new HashMap<>();
+    Map<Integer, Header.IndexExtents> indexExtents = new HashMap<>();
     Map<Integer, IndexHeaderManager.Location> nullBitmaps = new HashMap<>();
 
+    /*
+     * Offsets of the extents of an index per chunk, in the order they were allocated, and its free nodes per chunk.
+     * Offsets and free nodes are not serialized with the rest of the header, JsonIndexHeaderManager keeps them in a log
+     * of their own.
+     */
     @Data
+    @NoArgsConstructor
     @AllArgsConstructor
-    public static class IndexOffset {
-        private int indexId;
-        private long offset;
-    }
-
-    public List<Header.IndexOffset> getIndexOffsets(int chunk) {
-        List<Header.IndexOffset> indexOffsets = this.chunkIndexOffset.computeIfAbsent(chunk, k -> new ArrayList<>());
-        indexOffsets.sort(Comparator.comparingLong(o -> o.offset));
-        return indexOffsets;
+    public static class IndexExtents {
+        private int extentSize;
+        private int nodesPerExtent;
+        private transient Map<Integer, List<Long>> chunkOffsets = new HashMap<>();
+        private transient Map<Integer, BitSet> chunkFreeNodes = new HashMap<>();
     }
 
-    public Optional<Header.IndexOffset> getNextIndexOffset(int chunk, int indexId) {
-        List<Header.IndexOffset> indexOffsets = this.getIndexOffsets(chunk);
-
-        for (int i = 0; i < indexOffsets.size(); i++) {
-            if (indexOffsets.get(i).getIndexId() == indexId && i != indexOffsets.size() - 1) {
-                return Optional.of(indexOffsets.get(i + 1));
-            }
+    public List<Long> getExtentOffsets(int indexId, int chunk) {
+        Header.IndexExtents extents = this.indexExtents.get(indexId);
+        if (extents == null) {
+            return List.of();
         }
-
-        return Optional.empty();
+        return extents.getChunkOffsets().getOrDefault(chunk, List.of());
     }
 }
@@ -7,7 +7,15 @@ import java.nio.file.Path;
 import java.util.*;
 
 public class InMemoryIndexHeaderManager implements IndexHeaderManager {
-    private final Header header = new Header();
+    private final Header header;
+
+    public InMemoryIndexHeaderManager() {
+        this(new Header());
+    }
+
+    protected InMemoryIndexHeaderManager(Header header) {
+        this.header = header;
+    }
 
     @Override
     public synchronized Optional<Location> getRootOfIndex(int indexId) {
@@ -21,73 +29,75 @@ public class InMemoryIndexHeaderManager implements IndexHeaderManager {
     }
 
     @Override
-    public synchronized void setIndexBeginningInChunk(int indexId, Location location) throws IOException {
-        List<Header.IndexOffset> indexOffsets = this.header.getChunkIndexOffset().computeIfAbsent(
-                location.getChunk(),
-                integer -> new ArrayList<>()
-        );
-
-        Optional<Header.IndexOffset> optionalIndexOffset = indexOffsets.stream().filter(indexOffset -> indexOffset.getIndexId() == indexId).findFirst();
-        if (optionalIndexOffset.isPresent()) {
-            optionalIndexOffset.get().setOffset(location.getOffset());
-        } else {
-            indexOffsets.add(new Header.IndexOffset(indexId, location.getOffset()));
-        }
-
+    public synchronized Optional<Integer> getExtentSizeOfIndex(int indexId) {
+        return Optional.ofNullable(this.header.getIndexExtents().get(indexId)).map(Header.IndexExtents::getExtentSize);
     }
 
     @Override
-    public synchronized Optional<Location> getIndexBeginningInChunk(int indexId, int chunk) {
-        List<Header.IndexOffset> indexOffsets = this.header.getChunkIndexOffset().computeIfAbsent(
-                chunk,
-                integer -> new ArrayList<>()
-        );
-        Optional<Header.IndexOffset> optionalIndexOffset = indexOffsets.stream().filter(indexOffset -> indexOffset.getIndexId() == indexId).findFirst();
-        return optionalIndexOffset.map(indexOffset -> new Location(chunk, indexOffset.getOffset()));
+    public synchronized Optional<Integer> getNodesPerExtentOfIndex(int indexId) {
+        return Optional.ofNullable(this.header.getIndexExtents().get(indexId)).map(Header.IndexExtents::getNodesPerExtent);
     }
 
     @Override
-    public synchronized Optional<Location> getNextIndexBeginningInChunk(int indexId, int chunk) {
-        Optional<Header.IndexOffset> nextIndexOffset = this.header.getNextIndexOffset(chunk, indexId);
-        return nextIndexOffset.map(indexOffset -> new Location(chunk, indexOffset.getOffset()));
+    public synchronized int getExtentCountOfIndex(int indexId, int chunk) {
+        return this.header.getExtentOffsets(indexId, chunk).size();
     }
 
     @Override
-    public synchronized List<Integer> getIndexesInChunk(int chunk) {
-        List<Header.IndexOffset> indexOffsets = this.header.getIndexOffsets(chunk);
-        List<Integer> indexes = new ArrayList<>(indexOffsets.size());
-        for (Header.IndexOffset indexOffset : indexOffsets) {
-            indexes.add(indexOffset.getIndexId());
+    public synchronized Optional<Location> getExtentOfIndex(int indexId, int chunk, int extent) {
+        List<Long> offsets = this.header.getExtentOffsets(indexId, chunk);
+        if (extent < 0 || extent >= offsets.size()) {
+            return Optional.empty();
         }
-        indexes.sort(Comparator.naturalOrder());
-        return indexes;
+        return Optional.of(new Location(chunk, offsets.get(extent)));
     }
 
     @Override
-    public synchronized Optional<Integer> getNextIndexIdInChunk(int indexId, int chunk) {
-        List<Header.IndexOffset> indexOffsets = this.header.getIndexOffsets(chunk);
-        int currIndex = -1;
-        for (int i = 0; i < indexOffsets.size(); i++) {
-            if (indexId == indexOffsets.get(i).getIndexId()) {
-                currIndex = i;
-                break;
-            }
+    public synchronized void addExtentOfIndex(int indexId, int extentSize, int nodesPerExtent, Location location) throws IOException {
+        Header.IndexExtents extents = this.header.getIndexExtents().computeIfAbsent(
+                indexId,
+                integer -> new Header.IndexExtents(extentSize, nodesPerExtent, new HashMap<>(), new HashMap<>())
+        );
+        if (extents.getExtentSize() != extentSize || extents.getNodesPerExtent() != nodesPerExtent) {
+            throw new IllegalArgumentException("Extents of index %d are %d bytes of %d nodes, not %d bytes of %d nodes".formatted(indexId, extents.getExtentSize(), extents.getNodesPerExtent(), extentSize, nodesPerExtent));
         }
+        List<Long> offsets = extents.getChunkOffsets().computeIfAbsent(location.getChunk(), integer -> new ArrayList<>());
+        offsets.add(location.getOffset());
+        int firstSlot = (offsets.size() - 1) * nodesPerExtent;
+        extents.getChunkFreeNodes().computeIfAbsent(location.getChunk(), integer -> new BitSet()).set(firstSlot, firstSlot + nodesPerExtent);
+    }
 
-        if (currIndex == -1 || currIndex == indexOffsets.size() - 1) {
+    // Lowest free slot is taken first, so nodes are packed towards the beginning of the index
+    @Override
+    public synchronized Optional<Integer> takeFreeNodeOfIndex(int indexId, int chunk) throws IOException {
+        Header.IndexExtents extents = this.header.getIndexExtents().get(indexId);
+        BitSet freeNodes = extents == null ? null : extents.getChunkFreeNodes().get(chunk);
+        if (freeNodes == null || freeNodes.isEmpty()) {
             return Optional.empty();
         }
+        int slot = freeNodes.nextSetBit(0);
+        freeNodes.clear(slot);
+        return Optional.of(slot);
+    }
 
-        return Optional.of(indexOffsets.get(currIndex + 1).getIndexId());
+    @Override
+    public synchronized void freeNodesOfIndex(int indexId, int chunk, int fromSlot, int toSlot) throws IOException {
+        Header.IndexExtents extents = this.header.getIndexExtents().get(indexId);
+        int slotCount = extents == null ? 0 : extents.getChunkOffsets().getOrDefault(chunk, List.of()).size() * extents.getNodesPerExtent();
+        if (extents == null || fromSlot < 0 || toSlot > slotCount) {
+            throw new IllegalStateException("Index %d has no nodes %d to %d in chunk %d to free".formatted(indexId, fromSlot, toSlot, chunk));
+        }
+        extents.getChunkFreeNodes().computeIfAbsent(chunk, integer -> new BitSet()).set(fromSlot, toSlot);
     }
 
     @Override
     public synchronized List<Integer> getChunksOfIndex(int indexId) {
-        List<Integer> chunks = new ArrayList<>();
-        Map<Integer, List<Header.IndexOffset>> chunkIndexOffset = this.header.getChunkIndexOffset();
-        chunkIndexOffset.forEach((chunk, indexOffsets) -> {
-            indexOffsets.stream().filter(indexOffset -> indexOffset.getIndexId() == indexId).findAny().ifPresent(indexOffset -> chunks.add(chunk));
-        });
+        Header.IndexExtents extents = this.header.getIndexExtents().get(indexId);
+        if (extents == null) {
+            return new ArrayList<>();
+        }
+        List<Integer> chunks = new ArrayList<>(extents.getChunkOffsets().keySet());
+        chunks.sort(Comparator.naturalOrder());
         return chunks;
     }
 
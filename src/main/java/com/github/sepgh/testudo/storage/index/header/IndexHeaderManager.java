@@ -13,16 +13,26 @@ public interface IndexHeaderManager {
     Optional<Location> getRootOfIndex(int indexId);
     void setRootOfIndex(int indexId, Location location) throws IOException;
 
-    default void setIndexBeginningInChunk(int indexId, Location location) throws IOException {}
-    default Optional<Location> getIndexBeginningInChunk(int indexId, int chunk){return Optional.of(new Location(0, 0));}
+    /*
+     * Extents are the fixed-size regions of chunk files that an index grows by. Extents of an index are numbered per
+     * chunk in the order they were added, and all of them have the size and node count the first one was added with.
+     */
+    Optional<Integer> getExtentSizeOfIndex(int indexId);
+    Optional<Integer> getNodesPerExtentOfIndex(int indexId);
+    int getExtentCountOfIndex(int indexId, int chunk);
+    Optional<Location> getExtentOfIndex(int indexId, int chunk, int extent);
+    void addExtentOfIndex(int indexId, int extentSize, int nodesPerExtent, Location location) throws IOException;
 
-    default Optional<Location> getNextIndexBeginningInChunk(int indexId, int chunk){
-        return Optional.of(new Location(0, 0));
-    }
-
-    List<Integer> getIndexesInChunk(int chunk);
+    /*
+     * Free nodes of an index in a chunk, by their slot (position of the node within the index divided by node size).
+     * Slots of an extent are free once it's added, taken on allocation, and freed again once removed.
+     */
+    Optional<Integer> takeFreeNodeOfIndex(int indexId, int chunk) throws IOException;
+    void freeNodesOfIndex(int indexId, int chunk, int fromSlot, int toSlot) throws IOException;
 
-    Optional<Integer> getNextIndexIdInChunk(int indexId, int chunk);
+    // Persists the changes to free nodes, which managers may hold on to. Should be called before nodes that were taken are written
+    default void flush(boolean force) throws IOException {
+    }
 
     List<Integer> getChunksOfIndex(int indexId);
 
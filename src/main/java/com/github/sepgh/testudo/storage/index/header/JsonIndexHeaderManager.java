@@ -1,50 +1,244 @@
 package com.github.sepgh.testudo.storage.index.header;
 
+import com.github.sepgh.testudo.exception.ErrorMessage;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.gson.stream.JsonReader;
 import lombok.SneakyThrows;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
 
+/*
+ * Header is written as JSON, except for the extents and their free nodes. These are kept in a log next to the header,
+ * with one record per extent: (index id, chunk, offset) followed by a bitmap of its free nodes. Adding an extent appends
+ * a record, and taking or freeing nodes only rewrites the bytes of their bitmaps in place once flushed, so neither
+ * depends on how large the index is. A record that was cut short by a crash is dropped when the log is read.
+ * The JSON part is replaced atomically through a temporary file.
+ */
 public class JsonIndexHeaderManager extends InMemoryIndexHeaderManager {
 
+    private static final Gson gson = new GsonBuilder().enableComplexMapKeySerialization().setPrettyPrinting().serializeNulls().create();
+    private static final int EXTENT_RECORD_HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES;
+
     private final Path path;
+    private final Path extentsPath;
     private final Header header;
-    private final Gson gson = new GsonBuilder().enableComplexMapKeySerialization().setPrettyPrinting().serializeNulls().create();
+    // File positions of the free node bitmap of each extent, per index and chunk
+    private final Map<Integer, Map<Integer, List<Long>>> bitmapPositions = new HashMap<>();
+    // Bitmap bytes that changed since the last flush, by their position in the log
+    private final TreeMap<Long, Byte> dirtyBytes = new TreeMap<>();
+    private long extentsSize;
 
     public JsonIndexHeaderManager(Path path) throws IOException {
-        Header Header1;
+        this(path, read(path));
+    }
+
+    // Header is shared with InMemoryIndexHeaderManager, which keeps it up to date
+    private JsonIndexHeaderManager(Path path, Header header) throws IOException {
+        super(header);
         this.path = path;
+        this.extentsPath = path.resolveSibling(path.getFileName() + ".extents");
+        this.header = header;
+        if (!path.toFile().exists()) {
+            this.write();
+        }
+        this.readExtents();
+    }
 
-        Header readObject;
+    private static Header read(Path path) throws IOException {
+        JsonElement jsonElement;
         try (JsonReader jsonReader = new JsonReader(new FileReader(path.toFile()))) {
-            readObject = gson.fromJson(jsonReader, Header.class);
-            Header1 = readObject;
+            jsonElement = JsonParser.parseReader(jsonReader);
         } catch (FileNotFoundException e) {
-            Header1 = new Header();
-            this.write();
+            return new Header();
+        }
+        if (!jsonElement.isJsonObject()) {
+            return new Header();
+        }
+
+        JsonObject jsonObject = jsonElement.getAsJsonObject();
+        if (!jsonObject.has("version")) {
+            // Headers from before extents listed one region per index in each chunk. Those without any are upgraded as is
+            if (jsonObject.has("chunkIndexOffset") && !jsonObject.getAsJsonObject("chunkIndexOffset").entrySet().stream().allMatch(entry -> entry.getValue().getAsJsonArray().isEmpty())) {
+                throw new IOException(ErrorMessage.EM_INDEX_HEADER_LEGACY.formatted(path));
+            }
+            jsonObject.addProperty("version", Header.VERSION);
+        }
+
+        int version = jsonObject.get("version").getAsInt();
+        if (version != Header.VERSION) {
+            throw new IOException(ErrorMessage.EM_INDEX_HEADER_VERSION.formatted(path, version, Header.VERSION));
+        }
+        return gson.fromJson(jsonObject, Header.class);
+    }
+
+    private static int getBitmapSize(int nodesPerExtent) {
+        return (nodesPerExtent + 7) / 8;
+    }
+
+    // Loads the extents and their free nodes from the log, and cuts off the record that may have been partially appended
+    private void readExtents() throws IOException {
+        if (!Files.exists(this.extentsPath)) {
+            return;
+        }
+
+        ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(this.extentsPath));
+        while (records.remaining() >= EXTENT_RECORD_HEADER_SIZE) {
+            int indexId = records.getInt(records.position());
+            Header.IndexExtents extents = this.header.getIndexExtents().get(indexId);
+            if (extents == null) {
+                throw new IOException(ErrorMessage.EM_INDEX_HEADER_EXTENTS.formatted(this.extentsPath, indexId));
+            }
+            int nodesPerExtent = extents.getNodesPerExtent();
+            if (records.remaining() < EXTENT_RECORD_HEADER_SIZE + getBitmapSize(nodesPerExtent)) {
+                break;
+            }
+
+            records.getInt();
+            int chunk = records.getInt();
+            long offset = records.getLong();
+            List<Long> offsets = extents.getChunkOffsets().computeIfAbsent(chunk, integer -> new ArrayList<>());
+            offsets.add(offset);
+            this.bitmapPositions.computeIfAbsent(indexId, integer -> new HashMap<>()).computeIfAbsent(chunk, integer -> new ArrayList<>()).add((long) records.position());
+
+            BitSet freeNodes = extents.getChunkFreeNodes().computeIfAbsent(chunk, integer -> new BitSet());
+            int firstSlot = (offsets.size() - 1) * nodesPerExtent;
+            for (int i = 0; i < getBitmapSize(nodesPerExtent); i++) {
+                byte bits = records.get();
+                for (int bit = 0; bit < 8 && i * 8 + bit < nodesPerExtent; bit++) {
+                    if ((bits & (1 << bit)) != 0) {
+                        freeNodes.set(firstSlot + i * 8 + bit);
+                    }
+                }
+            }
+        }
+
+        this.extentsSize = records.position();
+        if (records.hasRemaining()) {
+            try (FileChannel fileChannel = FileChannel.open(this.extentsPath, StandardOpenOption.WRITE)) {
+                fileChannel.truncate(this.extentsSize);
+            }
+        }
+    }
+
+    // Bits of `freeNodes` from `fromSlot`, up to 8 of them and not past `toSlot`, as a bitmap byte
+    private static byte getBitmapByte(BitSet freeNodes, int fromSlot, int toSlot) {
+        int bits = 0;
+        for (int slot = fromSlot; slot < toSlot; slot++) {
+            if (freeNodes.get(slot)) {
+                bits |= 1 << (slot - fromSlot);
+            }
+        }
+        return (byte) bits;
+    }
+
+    private void appendExtent(int indexId, Location location) throws IOException {
+        Header.IndexExtents extents = this.header.getIndexExtents().get(indexId);
+        int nodesPerExtent = extents.getNodesPerExtent();
+        BitSet freeNodes = extents.getChunkFreeNodes().get(location.getChunk());
+        int firstSlot = (extents.getChunkOffsets().get(location.getChunk()).size() - 1) * nodesPerExtent;
+
+        ByteBuffer record = ByteBuffer.allocate(EXTENT_RECORD_HEADER_SIZE + getBitmapSize(nodesPerExtent))
+                .putInt(indexId)
+                .putInt(location.getChunk())
+                .putLong(location.getOffset());
+        for (int slot = firstSlot; slot < firstSlot + nodesPerExtent; slot += 8) {
+            record.put(getBitmapByte(freeNodes, slot, Math.min(slot + 8, firstSlot + nodesPerExtent)));
         }
+        record.flip();
 
-        this.header = Header1;
+        try (FileChannel fileChannel = FileChannel.open(this.extentsPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            write(fileChannel, this.extentsSize, record);
+            fileChannel.force(false);
+        }
+        this.bitmapPositions.computeIfAbsent(indexId, integer -> new HashMap<>()).computeIfAbsent(location.getChunk(), integer -> new ArrayList<>()).add(this.extentsSize + EXTENT_RECORD_HEADER_SIZE);
+        this.extentsSize += record.capacity();
     }
 
+    // Keeps the bitmap bytes of the slots to write them on flush()
+    private void changed(int indexId, int chunk, int fromSlot, int toSlot) {
+        Header.IndexExtents extents = this.header.getIndexExtents().get(indexId);
+        int nodesPerExtent = extents.getNodesPerExtent();
+        BitSet freeNodes = extents.getChunkFreeNodes().get(chunk);
+        List<Long> positions = this.bitmapPositions.get(indexId).get(chunk);
+
+        int slot = fromSlot;
+        while (slot < toSlot) {
+            int extent = slot / nodesPerExtent;
+            int byteOfExtent = (slot % nodesPerExtent) / 8;
+            int firstSlotOfByte = extent * nodesPerExtent + byteOfExtent * 8;
+            int endSlotOfByte = Math.min(firstSlotOfByte + 8, (extent + 1) * nodesPerExtent);
+            this.dirtyBytes.put(positions.get(extent) + byteOfExtent, getBitmapByte(freeNodes, firstSlotOfByte, endSlotOfByte));
+            slot = endSlotOfByte;
+        }
+    }
+
+    // Writes the header to a temporary file and moves it over the previous one, so a crash leaves either of them whole
     private synchronized void write() throws IOException {
-        try (FileWriter writer = new FileWriter(this.path.toFile())) {
-            gson.toJson(this.header, writer);
-            writer.flush();
-        } catch (FileNotFoundException e) {
-            if (!this.path.toFile().createNewFile()) {
-                throw e;
+        Path temporaryPath = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+        ByteBuffer json = StandardCharsets.UTF_8.encode(gson.toJson(this.header));
+        try (FileChannel fileChannel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (json.hasRemaining()) {
+                fileChannel.write(json);
             }
-            this.write();
+            fileChannel.force(true);
+        }
+        Files.move(temporaryPath, this.path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        // The rename is durable once the directory is forced, which not all platforms allow
+        try (FileChannel directory = FileChannel.open(this.path.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static void write(FileChannel fileChannel, long position, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            position += fileChannel.write(bytes, position);
         }
     }
 
+    @Override
+    public synchronized void flush(boolean force) throws IOException {
+        if (this.dirtyBytes.isEmpty()) {
+            return;
+        }
+
+        // Runs of adjacent bytes are written at once
+        try (FileChannel fileChannel = FileChannel.open(this.extentsPath, StandardOpenOption.WRITE)) {
+            ByteArrayOutputStream run = new ByteArrayOutputStream();
+            long runPosition = this.dirtyBytes.firstKey();
+            for (Map.Entry<Long, Byte> entry : this.dirtyBytes.entrySet()) {
+                if (entry.getKey() != runPosition + run.size()) {
+                    write(fileChannel, runPosition, ByteBuffer.wrap(run.toByteArray()));
+                    run.reset();
+                    runPosition = entry.getKey();
+                }
+                run.write(entry.getValue());
+            }
+            write(fileChannel, runPosition, ByteBuffer.wrap(run.toByteArray()));
+
+            if (force) {
+                fileChannel.force(false);
+            }
+        }
+        this.dirtyBytes.clear();
+    }
+
     @Override
     public synchronized void setRootOfIndex(int indexId, Location location) throws IOException {
         super.setRootOfIndex(indexId, location);
@@ -52,9 +246,27 @@ public class JsonIndexHeaderManager extends InMemoryIndexHeaderManager {
     }
 
     @Override
-    public synchronized void setIndexBeginningInChunk(int indexId, Location location) throws IOException {
-        super.setIndexBeginningInChunk(indexId, location);
-        this.write();
+    public synchronized void addExtentOfIndex(int indexId, int extentSize, int nodesPerExtent, Location location) throws IOException {
+        boolean firstExtent = this.getExtentSizeOfIndex(indexId).isEmpty();
+        super.addExtentOfIndex(indexId, extentSize, nodesPerExtent, location);
+        // Extent size is only in the header, which has to have it before the log lists extents of the index
+        if (firstExtent) {
+            this.write();
+        }
+        this.appendExtent(indexId, location);
+    }
+
+    @Override
+    public synchronized Optional<Integer> takeFreeNodeOfIndex(int indexId, int chunk) throws IOException {
+        Optional<Integer> slot = super.takeFreeNodeOfIndex(indexId, chunk);
+        slot.ifPresent(integer -> this.changed(indexId, chunk, integer, integer + 1));
+        return slot;
+    }
+
+    @Override
+    public synchronized void freeNodesOfIndex(int indexId, int chunk, int fromSlot, int toSlot) throws IOException {
+        super.freeNodesOfIndex(indexId, chunk, fromSlot, toSlot);
+        this.changed(indexId, chunk, fromSlot, toSlot);
     }
 
     @Override
@@ -9,7 +9,10 @@ import com.github.sepgh.testudo.storage.index.IndexStorageManager;
 import com.github.sepgh.testudo.storage.index.IndexTreeNodeIO;
 import lombok.Getter;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 public class ImmediateCommitIndexIOSession<K extends Comparable<K>> implements IndexIOSession<K> {
@@ -45,11 +48,34 @@ public class ImmediateCommitIndexIOSession<K extends Comparable<K>> implements I
         }
     }
 
+    @Override
+    public void allocate(AbstractTreeNode<K> node) throws InternalOperationException {
+        node.setPointer(indexStorageManager.allocateNode(indexId, kvSize));
+    }
+
+    // New nodes are written first as they need to be allocated, the rest are updated together
+    @Override
+    public void writeAll(List<? extends AbstractTreeNode<K>> nodes) throws InternalOperationException {
+        List<AbstractTreeNode<K>> existing = new ArrayList<>(nodes.size());
+        for (AbstractTreeNode<K> node : nodes) {
+            if (node.getPointer() == null)
+                this.write(node);
+            else
+                existing.add(node);
+        }
+        IndexTreeNodeIO.updateAll(indexStorageManager, indexId, existing);
+    }
+
     @Override
     public AbstractTreeNode<K> read(Pointer pointer) throws InternalOperationException {
         return IndexTreeNodeIO.read(indexStorageManager, indexId, pointer, nodeFactory, kvSize);
     }
 
+    @Override
+    public CompletableFuture<AbstractTreeNode<K>> readAsync(Pointer pointer) throws InternalOperationException {
+        return indexStorageManager.readNode(indexId, pointer, kvSize).thenApply(nodeFactory::fromNodeData);
+    }
+
     @Override
     public final void update(AbstractTreeNode<K> node) throws InternalOperationException {
         IndexTreeNodeIO.update(indexStorageManager, indexId, node);
@@ -5,12 +5,28 @@ import com.github.sepgh.testudo.exception.InternalOperationException;
 import com.github.sepgh.testudo.index.tree.node.AbstractTreeNode;
 import com.github.sepgh.testudo.storage.index.IndexStorageManager;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface IndexIOSession<K extends Comparable<K>> {
     Optional<AbstractTreeNode<K>> getRoot() throws InternalOperationException;
     IndexStorageManager.NodeData write(AbstractTreeNode<K> node) throws InternalOperationException;
+    // Gives the new node a pointer before it's written, so it can be written along with the nodes that point to it
+    default void allocate(AbstractTreeNode<K> node) throws InternalOperationException {
+        this.write(node);
+    }
+    // Same as writing the nodes one by one, but sessions may write the nodes that already exist together
+    default void writeAll(List<? extends AbstractTreeNode<K>> nodes) throws InternalOperationException {
+        for (AbstractTreeNode<K> node : nodes) {
+            this.write(node);
+        }
+    }
     AbstractTreeNode<K> read(Pointer pointer) throws InternalOperationException;
+    // Reads the node in the background if the session can, i.e. to read leaves ahead of a scan. Default reads it right away
+    default CompletableFuture<AbstractTreeNode<K>> readAsync(Pointer pointer) throws InternalOperationException {
+        return CompletableFuture.completedFuture(this.read(pointer));
+    }
     void update(AbstractTreeNode<K> node) throws InternalOperationException;
     void remove(AbstractTreeNode<K> node) throws InternalOperationException;
     IndexStorageManager getIndexStorageManager();
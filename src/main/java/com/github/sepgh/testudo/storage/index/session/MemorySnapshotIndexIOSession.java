@@ -66,11 +66,39 @@ public class MemorySnapshotIndexIOSession<K extends Comparable<K>> implements In
         } catch (InterruptedException | ExecutionException e) {
             throw new InternalOperationException(e);
         }
-        this.created.add(nodeData.pointer());
-        this.pool.put(nodeData.pointer(), node);
+        this.written(node);
+        return nodeData;
+    }
+
+    @Override
+    public void allocate(AbstractTreeNode<K> node) throws InternalOperationException {
+        node.setPointer(indexStorageManager.allocateNode(indexId, kvSize));
+        this.written(node);
+    }
+
+    // New nodes are written first as they need to be allocated, the rest are updated together
+    @Override
+    public void writeAll(List<? extends AbstractTreeNode<K>> nodes) throws InternalOperationException {
+        List<AbstractTreeNode<K>> existing = new ArrayList<>(nodes.size());
+        for (AbstractTreeNode<K> node : nodes) {
+            if (node.getPointer() == null)
+                this.write(node);
+            else
+                existing.add(node);
+        }
+        IndexTreeNodeIO.updateAll(indexStorageManager, indexId, existing);
+        for (AbstractTreeNode<K> node : existing) {
+            this.pool.put(node.getPointer(), node);
+            if (node.isRoot())
+                root = node;
+        }
+    }
+
+    private void written(AbstractTreeNode<K> node) {
+        this.created.add(node.getPointer());
+        this.pool.put(node.getPointer(), node);
         if (node.isRoot())
             root = node;
-        return nodeData;
     }
 
     @Override
@@ -128,9 +156,11 @@ public class MemorySnapshotIndexIOSession<K extends Comparable<K>> implements In
         }
 
         try {
+            List<AbstractTreeNode<K>> updatedNodes = new ArrayList<>(updated.size());
             for (Pointer pointer : updated) {
-                IndexTreeNodeIO.update(indexStorageManager, indexId, pool.get(pointer));
+                updatedNodes.add(pool.get(pointer));
             }
+            IndexTreeNodeIO.updateAll(indexStorageManager, indexId, updatedNodes);
         } catch (InternalOperationException e) {
             try {
                 this.rollback();
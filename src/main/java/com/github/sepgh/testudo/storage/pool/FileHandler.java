@@ -2,6 +2,7 @@ package com.github.sepgh.testudo.storage.pool;
 
 import com.github.sepgh.testudo.exception.ErrorMessage;
 import com.github.sepgh.testudo.exception.InternalOperationException;
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,34 +10,85 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Getter
 public class FileHandler {
     private static final Logger logger = LoggerFactory.getLogger(FileHandler.class);
+    @Nullable
+    private static final OpenOption DIRECT_OPEN_OPTION = directOpenOption();
 
     private final AsynchronousFileChannel fileChannel;
     private ExecutorService executor;
     private int usageCount = 0;
     private volatile boolean closed = Boolean.FALSE;
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong writes = new AtomicLong();  // Counts writes marked dirty, see force()
+    @Getter(AccessLevel.NONE)
+    private volatile long forcedWrites = 0;
+    @Getter(AccessLevel.NONE)
+    private final Object forceLock = new Object();
 
     public FileHandler(String filePath, ExecutorService executorService) throws IOException {
-        this.fileChannel = AsynchronousFileChannel.open(Path.of(filePath),
-                Set.of(
-                        StandardOpenOption.READ,
-                        StandardOpenOption.WRITE,
-                        StandardOpenOption.CREATE
-                ),
-                executorService
-        );
+        this(filePath, executorService, false);
+    }
+
+    /*
+     * With `directIO` the file is opened with O_DIRECT, bypassing the OS page cache. Reads and writes of the channel then
+     * need direct buffers which address, position and length are aligned to EngineConfig.DIRECT_IO_ALIGNMENT (see
+     * FileUtils.allocateAligned()), otherwise they fail with EINVAL.
+     * A null executor service associates the channel with the default thread pool.
+     */
+    public FileHandler(String filePath, @Nullable ExecutorService executorService, boolean directIO) throws IOException {
+        this.fileChannel = AsynchronousFileChannel.open(Path.of(filePath), openOptions(directIO), executorService);
         this.executor = executorService;
     }
 
+    private FileHandler(AsynchronousFileChannel fileChannel) {
+        this.fileChannel = fileChannel;
+    }
+
+    // Handler which channel does its I/O in the calling thread, see SynchronousFileChannel
+    public static FileHandler synchronous(String filePath, boolean directIO) throws IOException {
+        return new FileHandler(new SynchronousFileChannel(Path.of(filePath), openOptions(directIO)));
+    }
+
+    private static Set<OpenOption> openOptions(boolean directIO) {
+        Set<OpenOption> openOptions = new HashSet<>(Set.of(
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE
+        ));
+        if (directIO && DIRECT_OPEN_OPTION != null) {
+            openOptions.add(DIRECT_OPEN_OPTION);
+        }
+        return openOptions;
+    }
+
+    /*
+     * O_DIRECT is only offered through a JDK specific option, which is looked up by name rather than compiled against.
+     * Files are opened with buffered I/O if the JDK doesn't have it.
+     */
+    @Nullable
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static OpenOption directOpenOption() {
+        try {
+            Class<? extends Enum> optionClass = Class.forName("com.sun.nio.file.ExtendedOpenOption").asSubclass(Enum.class);
+            return (OpenOption) Enum.valueOf(optionClass, "DIRECT");
+        } catch (ReflectiveOperationException | IllegalArgumentException | ClassCastException e) {
+            logger.warn("Direct I/O is not supported by this JDK, files are opened with buffered I/O", e);
+            return null;
+        }
+    }
+
     public FileHandler(String filePath) throws IOException {
         this.fileChannel = AsynchronousFileChannel.open(Path.of(filePath),
                 StandardOpenOption.READ,
@@ -58,14 +110,53 @@ public class FileHandler {
         }
     }
 
+    // Writers mark the handler once a write to its channel is done, so it's forced by the next force()
+    public void markDirty() {
+        this.writes.incrementAndGet();
+    }
+
+    public boolean isDirty() {
+        return this.writes.get() != this.forcedWrites;
+    }
+
+    /*
+     * Forces the writes that were marked dirty before the call. Concurrent callers are coalesced: whoever gets the lock
+     * forces every write marked so far, and the callers that waited for it return without forcing again if their writes
+     * got covered.
+     */
+    public void force() throws IOException {
+        long target = this.writes.get();
+        if (this.forcedWrites >= target) {
+            return;
+        }
+        synchronized (this.forceLock) {
+            if (this.forcedWrites >= target) {
+                return;
+            }
+            long covered = this.writes.get();
+            this.fileChannel.force(false);
+            this.forcedWrites = covered;
+        }
+    }
+
+    /*
+     * Waits for the channel to be released by its users before closing it. With a limited wait the channel is closed
+     * anyway once the timeout passes.
+     */
     private void close(boolean limitedWait, long timeout, TimeUnit timeUnit) throws InternalOperationException {
         this.closed = Boolean.TRUE;
+        long deadline = limitedWait ? System.nanoTime() + timeUnit.toNanos(timeout) : 0;
         synchronized (this){
             try {
                 while (usageCount > 0){
                     try {
                         if (limitedWait){
-                            wait(timeUnit.toMillis(timeout));
+                            long remaining = deadline - System.nanoTime();
+                            if (remaining <= 0) {
+                                logger.warn("Closing file channel that is still used by {} callers", usageCount);
+                                break;
+                            }
+                            TimeUnit.NANOSECONDS.timedWait(this, remaining);
                         } else {
                             wait();
                         }
@@ -76,6 +167,14 @@ public class FileHandler {
                 }
             } finally {
                 usageCount = 0;
+                try {
+                    // Writes marked dirty are not left to the OS once the channel is closed
+                    if (this.isDirty()) {
+                        this.force();
+                    }
+                } catch (IOException e) {
+                    logger.error("Failed to force file channel", e);
+                }
                 try {
                     fileChannel.close();
                 } catch (IOException e){
@@ -124,6 +223,25 @@ public class FileHandler {
                 return new FileHandler(path);
             return new FileHandler(path, executorService);
         }
+
+        @Override
+        public synchronized FileHandler getFileHandler(String path, boolean directIO) throws IOException {
+            return new FileHandler(path, executorService, directIO);
+        }
+    }
+
+    // Opens handlers which channels do their I/O in the calling thread, see synchronous()
+    public static class SynchronousFileHandlerFactory implements FileHandlerFactory {
+
+        @Override
+        public FileHandler getFileHandler(String path) throws IOException {
+            return FileHandler.synchronous(path, false);
+        }
+
+        @Override
+        public FileHandler getFileHandler(String path, boolean directIO) throws IOException {
+            return FileHandler.synchronous(path, directIO);
+        }
     }
 
 }
@@ -4,4 +4,9 @@ import java.io.IOException;
 
 public interface FileHandlerFactory {
     FileHandler getFileHandler(String path) throws IOException;
+
+    // With `directIO` the file is opened with O_DIRECT, see FileHandler. Factories that can't do so open it as usual
+    default FileHandler getFileHandler(String path, boolean directIO) throws IOException {
+        return this.getFileHandler(path);
+    }
 }
@@ -10,12 +10,44 @@ public interface FileHandlerPool {
     default AsynchronousFileChannel getFileChannel(Path filePath, long timeout, TimeUnit timeUnit) throws InternalOperationException {
         return this.getFileChannel(filePath.toString(), timeout, timeUnit);
     }
-    AsynchronousFileChannel getFileChannel(String filePath, long timeout, TimeUnit timeUnit) throws InternalOperationException;
+    default AsynchronousFileChannel getFileChannel(String filePath, long timeout, TimeUnit timeUnit) throws InternalOperationException {
+        return this.getFileChannel(filePath, false, timeout, timeUnit);
+    }
+
+    /*
+     * With `directIO` a file that is not open yet is opened with O_DIRECT (see FileHandlerFactory), so it still counts
+     * against the limits of the pool. A file keeps the mode it was opened with, callers should always pass the same value.
+     */
+    default AsynchronousFileChannel getFileChannel(Path filePath, boolean directIO, long timeout, TimeUnit timeUnit) throws InternalOperationException {
+        return this.getFileChannel(filePath.toString(), directIO, timeout, timeUnit);
+    }
+    AsynchronousFileChannel getFileChannel(String filePath, boolean directIO, long timeout, TimeUnit timeUnit) throws InternalOperationException;
     default void releaseFileChannel(Path path, long timeout, TimeUnit timeUnit) throws InternalOperationException {
         this.releaseFileChannel(path.toString(), timeout, timeUnit);
     }
     void releaseFileChannel(String path, long timeout, TimeUnit timeUnit) throws InternalOperationException;
 
+    /*
+     * Dirty tracking per channel. Writers mark the path they wrote to while they still hold its channel, and the writes are
+     * made durable by force() or forceDirty(), depending on EngineConfig.Durability.
+     * Channels that are closed by the pool are forced before closing if they are dirty.
+     */
+    default void markDirty(Path path) {
+        this.markDirty(path.toString());
+    }
+    void markDirty(String path);
+    default boolean isDirty(Path path) {
+        return this.isDirty(path.toString());
+    }
+    boolean isDirty(String path);
+
+    // Forces the channel of the path if it's dirty, concurrent callers are coalesced into a single force
+    default void force(Path path) throws InternalOperationException {
+        this.force(path.toString());
+    }
+    void force(String path) throws InternalOperationException;
+    void forceDirty() throws InternalOperationException;
+
     void closeAll(long timeout, TimeUnit timeUnit) throws InternalOperationException;
     void closeAll() throws InternalOperationException;
 }
@@ -36,14 +36,18 @@ public abstract class FileHandlerPoolSingletonFactory {
 
         @Override
         public FileHandlerPool create() {
+            FileHandlerFactory fileHandlerFactory;
+            if (engineConfig.getFileIOStrategy().equals(EngineConfig.FileIOStrategy.SYNCHRONOUS)) {
+                fileHandlerFactory = new FileHandler.SynchronousFileHandlerFactory();
+            } else {
+                fileHandlerFactory = FileHandler.SingletonFileHandlerFactory.getInstance(executorService);
+            }
 
             if (engineConfig.getFileHandlerStrategy().equals(EngineConfig.FileHandlerStrategy.UNLIMITED)){
-                return new UnlimitedFileHandlerPool(
-                        FileHandler.SingletonFileHandlerFactory.getInstance(executorService)
-                );
+                return new UnlimitedFileHandlerPool(fileHandlerFactory);
             } else {
                 return new LimitedFileHandlerPool(
-                        FileHandler.SingletonFileHandlerFactory.getInstance(executorService),
+                        fileHandlerFactory,
                         engineConfig.getFileHandlerPoolMaxFiles()
                 );
             }
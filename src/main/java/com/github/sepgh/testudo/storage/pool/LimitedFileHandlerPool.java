@@ -1,53 +1,127 @@
 package com.github.sepgh.testudo.storage.pool;
 
 import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.functional.CheckedConsumer;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.ClosedChannelException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.github.sepgh.testudo.exception.ErrorMessage.EM_FILEHANDLER_CREATE;
-
+import static com.github.sepgh.testudo.exception.ErrorMessage.EM_FILE_WRITE;
+
+/*
+ * Keeps at most `maxFiles` files open. Handlers that are no longer used stay open in an LRU of idle handlers, so the next
+ * use of the same file doesn't reopen it. The least recently used idle handler is closed only when another file has to
+ * be opened while the pool is full; if none is idle, the caller waits (up to the timeout) for one to become idle.
+ *
+ * Handlers are never closed while holding the lock of the pool, since closing waits for the channel to be released
+ * (which takes the lock) and may force the file. Handlers being closed still count against `maxFiles`.
+ */
 public class LimitedFileHandlerPool implements FileHandlerPool {
     private final Map<String, FileHandler> fileHandlers;
-    private final Semaphore semaphore;
+    private final LinkedHashSet<String> idleFileHandlers = new LinkedHashSet<>();  // Least recently used first
+    private final int maxFiles;
     private final FileHandlerFactory fileHandlerFactory;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private int closingFileHandlers = 0;
 
     public LimitedFileHandlerPool(FileHandlerFactory fileHandlerFactory, int maxFiles) {
         this.fileHandlerFactory = fileHandlerFactory;
-        fileHandlers = new ConcurrentHashMap<>();
-        semaphore = new Semaphore(maxFiles);
+        this.fileHandlers = new ConcurrentHashMap<>();
+        this.maxFiles = maxFiles;
     }
 
     public FileHandler getFileHandler(String filePath){
         return this.fileHandlers.get(filePath);
     }
 
-    public AsynchronousFileChannel getFileChannel(String filePath, long timeout, TimeUnit timeUnit) throws InternalOperationException {
+    // Number of times a file channel was requested while its handler was already open
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    // Number of times a file had to be opened
+    public long getMisses() {
+        return this.misses.get();
+    }
 
-        FileHandler fileHandler;
+    public AsynchronousFileChannel getFileChannel(String filePath, boolean directIO, long timeout, TimeUnit timeUnit) throws InternalOperationException {
+        long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
+        boolean missed = false;
+        while (true) {
+            FileHandler idleFileHandler;
+            synchronized (this) {
+                FileHandler fileHandler = fileHandlers.get(filePath);
+                if (fileHandler != null) {
+                    this.hits.incrementAndGet();
+                    this.idleFileHandlers.remove(filePath);
+                    fileHandler.incrementUsage();
+                    return fileHandler.getFileChannel();
+                }
 
-        synchronized (fileHandlers) {
-            fileHandler = fileHandlers.get(filePath);
-            if (fileHandler == null) {
+                if (!missed) {
+                    missed = true;
+                    this.misses.incrementAndGet();
+                }
                 try {
-                    if (!semaphore.tryAcquire(timeout, timeUnit)) {
-                        throw new IllegalStateException("Timeout while waiting to acquire file handler for " + filePath);
+                    idleFileHandler = this.makeRoom(filePath, deadline);
+                    if (idleFileHandler == null) {
+                        fileHandler = fileHandlerFactory.getFileHandler(filePath, directIO);
+                        fileHandlers.put(filePath, fileHandler);
+                        fileHandler.incrementUsage();
+                        return fileHandler.getFileChannel();
                     }
-                    fileHandler = fileHandlerFactory.getFileHandler(filePath);
-                    fileHandlers.put(filePath, fileHandler);
                 } catch (IOException | InterruptedException e) {
                     throw new InternalOperationException(EM_FILEHANDLER_CREATE, e);
                 }
             }
-            fileHandler.incrementUsage();
+            this.closeIdle(idleFileHandler);
+        }
+    }
+
+    /*
+     * Returns null once the pool has room for another file. Otherwise takes the least recently used idle handler out of
+     * the pool and returns it, for the caller to close once it left the lock, or waits for a handler to become idle.
+     */
+    @Nullable
+    private FileHandler makeRoom(String filePath, long deadline) throws InterruptedException {
+        while (fileHandlers.size() + closingFileHandlers >= maxFiles) {
+            Iterator<String> iterator = this.idleFileHandlers.iterator();
+            if (iterator.hasNext()) {
+                String idle = iterator.next();
+                iterator.remove();
+                closingFileHandlers++;
+                return fileHandlers.remove(idle);
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new IllegalStateException("Timeout while waiting to acquire file handler for " + filePath);
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
         }
+        return null;
+    }
 
-        return fileHandler.getFileChannel();
+    private void closeIdle(FileHandler fileHandler) throws InternalOperationException {
+        try {
+            fileHandler.close();
+        } finally {
+            synchronized (this) {
+                closingFileHandlers--;
+                this.notifyAll();
+            }
+        }
     }
 
     @Override
@@ -56,43 +130,90 @@ public class LimitedFileHandlerPool implements FileHandlerPool {
         if (fileHandler != null) {
             fileHandler.decrementUsage();
             if (fileHandler.getUsageCount() <= 0) {
-                semaphore.release(); // Release the permit
-                fileHandlers.remove(filePath);
-                fileHandler.close(timeout, timeUnit);
+                this.idleFileHandlers.add(filePath);
+                this.notifyAll();
             }
         }
     }
 
     @Override
-    public void closeAll(long timeout, TimeUnit timeUnit) throws InternalOperationException {
-        AtomicReference<InternalOperationException> exception = new AtomicReference<>();
-        fileHandlers.forEach((s, fileHandler) -> {
-            try {
-                fileHandler.close(timeout, timeUnit);
-            } catch (InternalOperationException e) {
-                exception.set(e);
-            }
-        });
+    public void markDirty(String path) {
+        FileHandler fileHandler = fileHandlers.get(path);
+        if (fileHandler != null) {
+            fileHandler.markDirty();
+        }
+    }
 
-        if (exception.get() != null) {
-            throw exception.get();
+    @Override
+    public boolean isDirty(String path) {
+        FileHandler fileHandler = fileHandlers.get(path);
+        return fileHandler != null && fileHandler.isDirty();
+    }
+
+    @Override
+    public void force(String path) throws InternalOperationException {
+        FileHandler fileHandler = fileHandlers.get(path);
+        if (fileHandler == null) {
+            return;
+        }
+        try {
+            fileHandler.force();
+        } catch (ClosedChannelException e) {
+            // Handler got closed in between, which forces it
+        } catch (IOException e) {
+            throw new InternalOperationException(EM_FILE_WRITE, e);
         }
     }
 
+    @Override
+    public void forceDirty() throws InternalOperationException {
+        for (String path : fileHandlers.keySet()) {
+            this.force(path);
+        }
+    }
+
+    // Closed handlers are dropped, so files are opened again if the pool is used after
+    @Override
+    public void closeAll(long timeout, TimeUnit timeUnit) throws InternalOperationException {
+        this.closeAll(fileHandler -> fileHandler.close(timeout, timeUnit));
+    }
+
     @Override
     public void closeAll() throws InternalOperationException {
-        AtomicReference<InternalOperationException> exception = new AtomicReference<>();
-        fileHandlers.forEach((s, fileHandler) -> {
+        this.closeAll(FileHandler::close);
+    }
+
+    /*
+     * Handlers are closed outside the lock of the pool, so their users can still release them while they are waited for.
+     * They are only dropped from the pool once they are closed.
+     */
+    private void closeAll(CheckedConsumer<FileHandler, InternalOperationException> closer) throws InternalOperationException {
+        Map<String, FileHandler> closing;
+        synchronized (this) {
+            closing = new HashMap<>(fileHandlers);
+        }
+
+        InternalOperationException exception = null;
+        for (FileHandler fileHandler : closing.values()) {
             try {
-                fileHandler.close();
+                closer.accept(fileHandler);
             } catch (InternalOperationException e) {
-                exception.set(e);
+                exception = e;
             }
-        });
+        }
+
+        synchronized (this) {
+            closing.forEach((path, fileHandler) -> {
+                if (fileHandlers.remove(path, fileHandler)) {
+                    idleFileHandlers.remove(path);
+                }
+            });
+            this.notifyAll();
+        }
 
-        if (exception.get() != null) {
-            throw exception.get();
+        if (exception != null) {
+            throw exception;
         }
     }
 
-}
\ No newline at end of file
+}
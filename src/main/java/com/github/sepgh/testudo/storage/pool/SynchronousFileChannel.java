@@ -0,0 +1,193 @@
+package com.github.sepgh.testudo.storage.pool;
+
+import com.github.sepgh.testudo.utils.GatheringChannel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+
+/*
+ * AsynchronousFileChannel that does positional reads and writes on a FileChannel in the calling thread, and completes
+ * the returned future or calls the completion handler before returning. Callers that block on the result right away
+ * (which is what FileUtils callers do) don't pay for handing the I/O over to a thread pool and back.
+ * Blocking FileChannel I/O is fine to do from virtual threads.
+ *
+ * A FileChannel is closed when a thread doing I/O on it gets interrupted. Since the channel is shared by every user of
+ * the file, it's reopened for the others, and only the interrupted operation fails.
+ */
+public class SynchronousFileChannel extends AsynchronousFileChannel implements GatheringChannel {
+    private final Path path;
+    private final Set<? extends OpenOption> openOptions;
+    private final Object gatherLock = new Object();
+    private volatile FileChannel fileChannel;
+    private volatile boolean closed = false;
+
+    public SynchronousFileChannel(Path path, Set<? extends OpenOption> openOptions) throws IOException {
+        this.path = path;
+        this.openOptions = openOptions;
+        this.fileChannel = FileChannel.open(path, openOptions);
+    }
+
+    @Override
+    public long size() throws IOException {
+        return this.channel().size();
+    }
+
+    @Override
+    public AsynchronousFileChannel truncate(long size) throws IOException {
+        this.channel().truncate(size);
+        return this;
+    }
+
+    @Override
+    public void force(boolean metaData) throws IOException {
+        this.channel().force(metaData);
+    }
+
+    @Override
+    public <A> void lock(long position, long size, boolean shared, A attachment, CompletionHandler<FileLock, ? super A> handler) {
+        try {
+            handler.completed(this.channel().lock(position, size, shared), attachment);
+        } catch (Throwable e) {
+            handler.failed(e, attachment);
+        }
+    }
+
+    @Override
+    public Future<FileLock> lock(long position, long size, boolean shared) {
+        try {
+            return CompletableFuture.completedFuture(this.channel().lock(position, size, shared));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+        return this.channel().tryLock(position, size, shared);
+    }
+
+    @Override
+    public <A> void read(ByteBuffer dst, long position, A attachment, CompletionHandler<Integer, ? super A> handler) {
+        int result;
+        try {
+            result = this.transfer(dst, position, true);
+        } catch (Throwable e) {
+            handler.failed(e, attachment);
+            return;
+        }
+        handler.completed(result, attachment);
+    }
+
+    @Override
+    public Future<Integer> read(ByteBuffer dst, long position) {
+        try {
+            return CompletableFuture.completedFuture(this.transfer(dst, position, true));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public <A> void write(ByteBuffer src, long position, A attachment, CompletionHandler<Integer, ? super A> handler) {
+        int result;
+        try {
+            result = this.transfer(src, position, false);
+        } catch (Throwable e) {
+            handler.failed(e, attachment);
+            return;
+        }
+        handler.completed(result, attachment);
+    }
+
+    @Override
+    public Future<Integer> write(ByteBuffer src, long position) {
+        try {
+            return CompletableFuture.completedFuture(this.transfer(src, position, false));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /*
+     * Gathering write of the remaining content of `sources`, one after the other, starting at `position`.
+     * FileChannel only gathers at its own position, which no other operation of this class uses, so writes that set it
+     * are serialized.
+     */
+    @Override
+    public long write(ByteBuffer[] sources, long position) throws IOException {
+        if (position < 0) {
+            throw new IllegalArgumentException("Negative position");
+        }
+        long size = 0;
+        for (ByteBuffer source : sources) {
+            size += source.remaining();
+        }
+
+        synchronized (this.gatherLock) {
+            FileChannel channel = this.channel();
+            try {
+                channel.position(position);
+                long written = 0;
+                while (written < size) {
+                    written += channel.write(sources);
+                }
+                return written;
+            } catch (ClosedByInterruptException e) {
+                this.reopen(channel);
+                throw e;
+            }
+        }
+    }
+
+    // Reads into `buffer`, or writes it when `read` is false
+    private int transfer(ByteBuffer buffer, long position, boolean read) throws IOException {
+        if (position < 0) {
+            throw new IllegalArgumentException("Negative position");
+        }
+        FileChannel channel = this.channel();
+        try {
+            return read ? channel.read(buffer, position) : channel.write(buffer, position);
+        } catch (ClosedByInterruptException e) {
+            this.reopen(channel);
+            throw e;
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        FileChannel channel = this.fileChannel;
+        if (!channel.isOpen() && !this.closed) {
+            this.reopen(channel);
+            channel = this.fileChannel;
+        }
+        return channel;
+    }
+
+    private synchronized void reopen(FileChannel channel) throws IOException {
+        if (this.closed || this.fileChannel != channel) {
+            return;
+        }
+        this.fileChannel = FileChannel.open(this.path, this.openOptions);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !this.closed;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        this.closed = true;
+        this.fileChannel.close();
+    }
+}
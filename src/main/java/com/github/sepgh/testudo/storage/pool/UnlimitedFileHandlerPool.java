@@ -4,11 +4,14 @@ import com.github.sepgh.testudo.exception.InternalOperationException;
 
 import java.io.IOException;
 import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.ClosedChannelException;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static com.github.sepgh.testudo.exception.ErrorMessage.EM_FILE_WRITE;
+
 public class UnlimitedFileHandlerPool implements FileHandlerPool {
     private final Map<String, FileHandler> fileHandlers;
     private final FileHandlerFactory fileHandlerFactory;
@@ -18,12 +21,12 @@ public class UnlimitedFileHandlerPool implements FileHandlerPool {
         fileHandlers = new ConcurrentHashMap<>();
     }
 
-    public AsynchronousFileChannel getFileChannel(String filePath, long timeout, TimeUnit timeUnit) throws InternalOperationException {
+    public AsynchronousFileChannel getFileChannel(String filePath, boolean directIO, long timeout, TimeUnit timeUnit) throws InternalOperationException {
         AtomicReference<InternalOperationException> exception = new AtomicReference<>();
 
         FileHandler fileHandler = fileHandlers.computeIfAbsent(filePath, filePath1 -> {
             try {
-                return fileHandlerFactory.getFileHandler(filePath1);
+                return fileHandlerFactory.getFileHandler(filePath1, directIO);
             } catch (IOException e) {
                 exception.set(new InternalOperationException(e));
                 return null;
@@ -45,6 +48,42 @@ public class UnlimitedFileHandlerPool implements FileHandlerPool {
         }
     }
 
+    @Override
+    public void markDirty(String path) {
+        FileHandler fileHandler = fileHandlers.get(path);
+        if (fileHandler != null) {
+            fileHandler.markDirty();
+        }
+    }
+
+    @Override
+    public boolean isDirty(String path) {
+        FileHandler fileHandler = fileHandlers.get(path);
+        return fileHandler != null && fileHandler.isDirty();
+    }
+
+    @Override
+    public void force(String path) throws InternalOperationException {
+        FileHandler fileHandler = fileHandlers.get(path);
+        if (fileHandler == null) {
+            return;
+        }
+        try {
+            fileHandler.force();
+        } catch (ClosedChannelException e) {
+            // Handler got closed in between, which forces it
+        } catch (IOException e) {
+            throw new InternalOperationException(EM_FILE_WRITE, e);
+        }
+    }
+
+    @Override
+    public void forceDirty() throws InternalOperationException {
+        for (String path : fileHandlers.keySet()) {
+            this.force(path);
+        }
+    }
+
     @Override
     public void closeAll(long timeout, TimeUnit timeUnit) throws InternalOperationException {
         AtomicReference<InternalOperationException> exception = new AtomicReference<>();
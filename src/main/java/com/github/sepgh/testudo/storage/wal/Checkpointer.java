@@ -0,0 +1,154 @@
+package com.github.sepgh.testudo.storage.wal;
+
+import com.github.sepgh.testudo.exception.ErrorMessage;
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.storage.db.Page;
+import com.github.sepgh.testudo.storage.db.PageBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+
+/*
+ * Pages modified under the write-ahead log are marked dirty in the page buffer, so they are kept in memory and are only
+ * written back lazily (on eviction or on checkpoint) instead of on every commit.
+ *
+ * Each checkpoint flushes the dirty pages of the buffer, syncs every chunk written since the last checkpoint and then
+ * resets the log. Checkpoints run periodically, or sooner if the log grows over the configured size.
+ */
+public class Checkpointer implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(Checkpointer.class);
+
+    private final WriteAheadLog writeAheadLog;
+    private final PageBuffer pageBuffer;
+    private final Target target;
+    private final long maxLogSize;
+    private final Set<Integer> touchedChunks = ConcurrentHashMap.newKeySet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean checkpointRequested = new AtomicBoolean(false);
+
+    public Checkpointer(WriteAheadLog writeAheadLog, PageBuffer pageBuffer, Target target, long interval, long maxLogSize) {
+        this.writeAheadLog = writeAheadLog;
+        this.pageBuffer = pageBuffer;
+        this.target = target;
+        this.maxLogSize = maxLogSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "testudo-checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::scheduledCheckpoint, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /*
+     * Logs the ranges of `page` modified since it was last logged and blocks until they are durable.
+     * Concurrent callers are grouped into a single log write by the write-ahead log.
+     * Ranges are drained and appended under the page lock, so records of a page are in the log in the order of its
+     * changes, and a caller whose changes got logged by another one still waits for that record.
+     */
+    public void commit(Page page) throws InternalOperationException {
+        lock.readLock().lock();
+        try {
+            long lsn;
+            synchronized (page) {
+                long pagePosition = (long) page.getPageNumber() * page.getPageSize();
+                List<RedoRecord> records = new ArrayList<>();
+                for (Page.DirtyRange range : page.drainUnloggedRanges()) {
+                    records.add(new RedoRecord(page.getChunk(), pagePosition + range.from(), page.getBytes(range.from(), range.to())));
+                }
+                lsn = writeAheadLog.append(records);
+            }
+            pageBuffer.markDirty(page);
+            touchedChunks.add(page.getChunk());
+            writeAheadLog.sync(lsn);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (writeAheadLog.getSize() > maxLogSize && checkpointRequested.compareAndSet(false, true)) {
+            this.scheduler.execute(this::scheduledCheckpoint);
+        }
+    }
+
+    public void checkpoint() throws InternalOperationException {
+        lock.writeLock().lock();
+        try {
+            pageBuffer.flush();
+            if (touchedChunks.isEmpty() && writeAheadLog.getSize() == 0) {
+                return;
+            }
+
+            // Pages may have been written back on eviction since last checkpoint, so all touched chunks are synced
+            Set<Integer> chunks = new HashSet<>(touchedChunks);
+            target.sync(chunks);
+            writeAheadLog.reset();
+            touchedChunks.removeAll(chunks);
+        } catch (IOException e) {
+            throw new InternalOperationException(ErrorMessage.EM_WAL_CHECKPOINT, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void scheduledCheckpoint() {
+        checkpointRequested.set(false);
+        try {
+            this.checkpoint();
+        } catch (InternalOperationException e) {
+            logger.error("Checkpoint failed", e);
+        }
+    }
+
+    /*
+     * Applies whatever is left in the log from a previous run, before any page is read into the buffer.
+     */
+    public void recover() throws InternalOperationException {
+        lock.writeLock().lock();
+        try {
+            List<RedoRecord> records = writeAheadLog.read();
+            if (records.isEmpty()) {
+                writeAheadLog.reset();
+                return;
+            }
+
+            logger.info("Recovering {} records from write-ahead log", records.size());
+            Set<Integer> chunks = new HashSet<>();
+            for (RedoRecord record : records) {
+                target.apply(record);
+                chunks.add(record.chunk());
+            }
+            target.sync(chunks);
+            writeAheadLog.reset();
+        } catch (IOException e) {
+            throw new InternalOperationException(ErrorMessage.EM_WAL_RECOVERY, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws InternalOperationException {
+        this.scheduler.shutdownNow();
+        this.checkpoint();
+        try {
+            this.writeAheadLog.close();
+        } catch (IOException e) {
+            logger.error("Failed to close write-ahead log", e);
+        }
+    }
+
+    public interface Target {
+        void apply(RedoRecord redoRecord) throws InternalOperationException;
+        void sync(Collection<Integer> chunks) throws InternalOperationException;
+    }
+}
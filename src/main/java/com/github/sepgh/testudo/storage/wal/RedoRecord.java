@@ -0,0 +1,77 @@
+package com.github.sepgh.testudo.storage.wal;
+
+import com.github.sepgh.testudo.utils.BinaryUtils;
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
+
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+
+/*
+ * A physical redo record: "write `data` at `position` of data chunk `chunk`"
+ * Records are idempotent, so replaying a record more than once is harmless.
+ *
+ * - Length (int, 4 bytes): size of the record body
+ * - Checksum (int, 4 bytes): CRC32 of the record body
+ * - Body
+ *      - Chunk (int, 4 bytes)
+ *      - Position (long, 8 bytes)
+ *      - Data (byte[])
+ */
+public record RedoRecord(int chunk, long position, byte[] data) {
+    public static final int HEADER_BYTES = 2 * Integer.BYTES;
+    public static final int BODY_META_BYTES = Integer.BYTES + Long.BYTES;
+
+    public int size() {
+        return HEADER_BYTES + BODY_META_BYTES + data.length;
+    }
+
+    public byte[] toBytes() {
+        byte[] bytes = new byte[this.size()];
+        int bodyLength = BODY_META_BYTES + data.length;
+
+        System.arraycopy(Ints.toByteArray(bodyLength), 0, bytes, 0, Integer.BYTES);
+        System.arraycopy(Ints.toByteArray(chunk), 0, bytes, HEADER_BYTES, Integer.BYTES);
+        System.arraycopy(Longs.toByteArray(position), 0, bytes, HEADER_BYTES + Integer.BYTES, Long.BYTES);
+        System.arraycopy(data, 0, bytes, HEADER_BYTES + BODY_META_BYTES, data.length);
+
+        System.arraycopy(Ints.toByteArray(checksum(bytes, HEADER_BYTES, bodyLength)), 0, bytes, Integer.BYTES, Integer.BYTES);
+        return bytes;
+    }
+
+    /*
+     * Reads the body of a record which its header is already read and verified by the caller.
+     * Returns empty if the checksum does not match, which means the record was torn while being written.
+     */
+    public static Optional<RedoRecord> fromBody(byte[] body, int checksum) {
+        if (body.length < BODY_META_BYTES || checksum(body, 0, body.length) != checksum) {
+            return Optional.empty();
+        }
+
+        byte[] data = new byte[body.length - BODY_META_BYTES];
+        System.arraycopy(body, BODY_META_BYTES, data, 0, data.length);
+        return Optional.of(
+                new RedoRecord(
+                        BinaryUtils.bytesToInteger(body, 0),
+                        BinaryUtils.bytesToLong(body, Integer.BYTES),
+                        data
+                )
+        );
+    }
+
+    private static int checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(bytes, offset, length);
+        return (int) crc32.getValue();
+    }
+
+    @Override
+    public String toString() {
+        return "RedoRecord{" +
+                "chunk=" + chunk +
+                ", position=" + position +
+                ", length=" + data.length +
+                '}';
+    }
+}
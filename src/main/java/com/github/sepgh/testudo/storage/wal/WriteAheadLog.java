@@ -0,0 +1,182 @@
+package com.github.sepgh.testudo.storage.wal;
+
+import com.github.sepgh.testudo.exception.ErrorMessage;
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.utils.BinaryUtils;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/*
+ * Sequential redo log with group commit.
+ *
+ * Committers first `append()` their records, which only queues them in memory and returns a log sequence number (LSN).
+ * Then they call `sync(lsn)`. The first thread to reach `sync()` becomes the leader and writes everything queued so far
+ * using a single gathering write followed by a single force. Other committers that arrive while the leader is writing
+ * wait for it, and if their LSN was not part of that batch, the next one of them becomes the leader of the next batch.
+ */
+public class WriteAheadLog implements AutoCloseable {
+    private final Path path;
+    private final FileChannel fileChannel;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushCondition = lock.newCondition();
+    private List<ByteBuffer> pending = new ArrayList<>();
+    private long appendedLsn = 0;
+    private long flushedLsn = 0;
+    private boolean flushing = false;
+    private IOException failure;
+    @Getter
+    private volatile long size;
+
+    public WriteAheadLog(Path path) throws IOException {
+        this.path = path;
+        this.fileChannel = FileChannel.open(
+                path,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE
+        );
+        this.size = this.fileChannel.size();
+        this.fileChannel.position(this.size);
+    }
+
+    public long append(List<RedoRecord> records) {
+        lock.lock();
+        try {
+            for (RedoRecord record : records) {
+                pending.add(ByteBuffer.wrap(record.toBytes()));
+            }
+            return ++appendedLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void sync(long lsn) throws InternalOperationException {
+        lock.lock();
+        try {
+            while (flushedLsn < lsn) {
+                if (failure != null) {
+                    throw new InternalOperationException(ErrorMessage.EM_WAL_WRITE, failure);
+                }
+
+                if (flushing) {
+                    flushCondition.awaitUninterruptibly();
+                    continue;
+                }
+
+                // This thread is the leader of the next group
+                flushing = true;
+                List<ByteBuffer> batch = pending;
+                long batchLsn = appendedLsn;
+                pending = new ArrayList<>();
+
+                lock.unlock();
+                try {
+                    this.write(batch);
+                } catch (IOException e) {
+                    failure = e;
+                } finally {
+                    lock.lock();
+                    flushing = false;
+                    if (failure == null) {
+                        flushedLsn = batchLsn;
+                    }
+                    flushCondition.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(List<ByteBuffer> batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        ByteBuffer[] buffers = batch.toArray(new ByteBuffer[0]);
+        long written = 0;
+        long total = 0;
+        for (ByteBuffer buffer : buffers) {
+            total += buffer.remaining();
+        }
+        while (written < total) {
+            written += fileChannel.write(buffers);
+        }
+        fileChannel.force(false);
+        size += total;
+    }
+
+    /*
+     * Replays all complete records of the log, in the order they were written.
+     * Reading stops at the first torn or corrupted record, since nothing after it could have been acknowledged.
+     */
+    public List<RedoRecord> read() throws IOException {
+        List<RedoRecord> records = new ArrayList<>();
+        long position = 0;
+        long fileSize = fileChannel.size();
+        ByteBuffer header = ByteBuffer.allocate(RedoRecord.HEADER_BYTES);
+
+        while (position + RedoRecord.HEADER_BYTES <= fileSize) {
+            header.clear();
+            fileChannel.read(header, position);
+            int bodyLength = BinaryUtils.bytesToInteger(header.array(), 0);
+            int checksum = BinaryUtils.bytesToInteger(header.array(), Integer.BYTES);
+
+            if (bodyLength <= 0 || position + RedoRecord.HEADER_BYTES + bodyLength > fileSize) {
+                break;
+            }
+
+            ByteBuffer body = ByteBuffer.allocate(bodyLength);
+            fileChannel.read(body, position + RedoRecord.HEADER_BYTES);
+            Optional<RedoRecord> optionalRedoRecord = RedoRecord.fromBody(body.array(), checksum);
+            if (optionalRedoRecord.isEmpty()) {
+                break;
+            }
+
+            records.add(optionalRedoRecord.get());
+            position += RedoRecord.HEADER_BYTES + bodyLength;
+        }
+
+        return records;
+    }
+
+    /*
+     * Drops the content of the log. Should only be called once every page that the records describe is durable.
+     * Caller must make sure no other thread is appending or syncing at the same time.
+     */
+    public void reset() throws IOException {
+        lock.lock();
+        try {
+            fileChannel.truncate(0);
+            fileChannel.position(0);
+            fileChannel.force(true);
+            size = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.fileChannel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "WriteAheadLog{" +
+                "path=" + path +
+                ", size=" + size +
+                '}';
+    }
+}
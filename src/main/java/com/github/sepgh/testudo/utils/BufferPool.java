@@ -0,0 +1,67 @@
+package com.github.sepgh.testudo.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+
+/*
+ * Buffers of `bufferSize` bytes for I/O that only needs a buffer until it's done, so each read or write doesn't allocate
+ * one of its own. Up to `maxIdle` released buffers are kept for reuse, the rest are left to the GC.
+ * Callers that need fewer bytes use a slice of the buffer, but release the buffer they acquired.
+ */
+public class BufferPool {
+    private final int bufferSize;
+    private final int maxIdle;
+    private final Supplier<ByteBuffer> allocator;
+    private final Queue<ByteBuffer> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    public BufferPool(int bufferSize, int maxIdle, Supplier<ByteBuffer> allocator) {
+        this.bufferSize = bufferSize;
+        this.maxIdle = maxIdle;
+        this.allocator = allocator;
+    }
+
+    // Heap buffers, which backing array is the whole buffer
+    public static BufferPool heap(int bufferSize, int maxIdle) {
+        return new BufferPool(bufferSize, maxIdle, () -> ByteBuffer.allocate(bufferSize));
+    }
+
+    // Direct buffers aligned for direct I/O, see FileUtils.allocateAligned()
+    public static BufferPool aligned(int bufferSize, int alignment, int maxIdle) {
+        return new BufferPool(bufferSize, maxIdle, () -> FileUtils.allocateAligned(bufferSize, alignment));
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    // Number of released buffers that are kept for reuse
+    public int getIdleCount() {
+        return idleCount.get();
+    }
+
+    // Returned buffer is cleared, but its content is whatever its previous user left in it
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = this.idle.poll();
+        if (buffer == null) {
+            return this.allocator.get();
+        }
+        this.idleCount.decrementAndGet();
+        return buffer.clear();
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() != this.bufferSize) {
+            throw new IllegalArgumentException("Buffer of %d bytes does not belong to a pool of %d byte buffers".formatted(buffer.capacity(), this.bufferSize));
+        }
+        if (this.idleCount.incrementAndGet() > this.maxIdle) {
+            this.idleCount.decrementAndGet();
+            return;
+        }
+        this.idle.add(buffer);
+    }
+}
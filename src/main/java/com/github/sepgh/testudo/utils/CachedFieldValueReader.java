@@ -6,24 +6,41 @@ import com.github.sepgh.testudo.scheme.Scheme;
 import com.github.sepgh.testudo.serialization.CollectionSerializationUtil;
 import com.github.sepgh.testudo.serialization.Serializer;
 import com.github.sepgh.testudo.serialization.SerializerRegistry;
+import com.github.sepgh.testudo.storage.db.DBObject;
 import lombok.Getter;
 
 import java.util.HashMap;
 import java.util.Map;
 
+/*
+ * Reads (and caches) field values of an object, either from its serialized bytes or straight from a DBObject.
+ * A reader over a DBObject reads in place, so it should only be used while the page of the object is pinned, and it
+ * can't be written to.
+ */
 public class CachedFieldValueReader {
     private final Map<Scheme.Field, Object> cache = new HashMap<>();
     private final Scheme.Collection collection;
     @Getter
     private final byte[] bytes;
+    private final DBObject dbObject;
 
     public CachedFieldValueReader(Scheme.Collection collection, byte[] bytes) {
         this.collection = collection;
         this.bytes = bytes;
+        this.dbObject = null;
+    }
+
+    public CachedFieldValueReader(Scheme.Collection collection, DBObject dbObject) {
+        this.collection = collection;
+        this.bytes = null;
+        this.dbObject = dbObject;
     }
 
     @SuppressWarnings("unchecked")
     public <T extends Comparable<T>> void write(Scheme.Field field, T value) throws SerializationException {
+        if (bytes == null) {
+            throw new IllegalStateException("Values can't be written to an object that is read in place");
+        }
         cache.put(field, value);
         Serializer<T> serializer = (Serializer<T>) SerializerRegistry.getInstance().getSerializer(field.getType());
         CollectionSerializationUtil.setValueOfField(
@@ -39,9 +56,12 @@ public class CachedFieldValueReader {
         if (cache.containsKey(field))
             return (V) cache.get(field);
 
-        V value = CollectionSerializationUtil.getValueOfFieldAsObject(
-                collection, field, bytes
-        );
+        V value;
+        if (bytes != null) {
+            value = CollectionSerializationUtil.getValueOfFieldAsObject(collection, field, bytes);
+        } else {
+            value = CollectionSerializationUtil.getValueOfFieldAsObject(collection, field, dbObject);
+        }
         cache.put(field, value);
 
         return value;
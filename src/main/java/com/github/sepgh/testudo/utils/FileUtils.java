@@ -1,30 +1,36 @@
 package com.github.sepgh.testudo.utils;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.CompletionHandler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 public class FileUtils {
+    // Remaining content of the buffer to be written at the position, see writeAll()
+    public record Write(long position, ByteBuffer content) {}
+
+    // Reads into the returned array itself, which is only copied if fewer than `size` bytes could be read
     public static CompletableFuture<byte[]> readBytes(AsynchronousFileChannel asynchronousFileChannel, long position, int size){
         CompletableFuture<byte[]> future = new CompletableFuture<>();
-        ByteBuffer buffer = ByteBuffer.allocate(size);
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[size]);
         asynchronousFileChannel.read(
                 buffer,
                 position,
                 buffer, new CompletionHandler<>() {
                     @Override
                     public void completed(Integer result, ByteBuffer attachment) {
-                        attachment.flip();
-                        byte[] data = new byte[attachment.limit()];
-                        attachment.get(data);
-                        future.complete(data);
+                        byte[] data = attachment.array();
+                        future.complete(attachment.position() == data.length ? data : Arrays.copyOf(data, attachment.position()));
                     }
 
                     @Override
                     public void failed(Throwable exc, ByteBuffer attachment) {
-                        attachment.flip();
                         future.completeExceptionally(exc);
                     }
                 }
@@ -32,6 +38,32 @@ public class FileUtils {
         return future;
     }
 
+    // Reads into the remaining space of the passed buffer, rather than allocating a new one
+    public static CompletableFuture<Integer> read(AsynchronousFileChannel asynchronousFileChannel, long position, ByteBuffer buffer){
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        asynchronousFileChannel.read(
+                buffer,
+                position,
+                null, new CompletionHandler<>() {
+                    @Override
+                    public void completed(Integer result, Object attachment) {
+                        future.complete(result);
+                    }
+
+                    @Override
+                    public void failed(Throwable exc, Object attachment) {
+                        future.completeExceptionally(exc);
+                    }
+                }
+        );
+        return future;
+    }
+
+    // Direct buffer which address is aligned to `alignment`
+    public static ByteBuffer allocateAligned(int size, int alignment) {
+        int capacity = (size + alignment - 1) / alignment * alignment;
+        return ByteBuffer.allocateDirect(capacity + alignment).alignedSlice(alignment).slice(0, size);
+    }
 
     public static CompletableFuture<Long> allocate(AsynchronousFileChannel asynchronousFileChannel, int size) throws IOException {
         CompletableFuture<Long> future = new CompletableFuture<>();
@@ -84,12 +116,14 @@ public class FileUtils {
         return future;
     }
 
+    // Content is wrapped rather than copied, so it should not be modified until the write is done
     public static CompletableFuture<Integer> write(AsynchronousFileChannel asynchronousFileChannel, long position, byte[] content){
-        CompletableFuture<Integer> future = new CompletableFuture<>();
+        return write(asynchronousFileChannel, position, ByteBuffer.wrap(content));
+    }
 
-        ByteBuffer byteBuffer = ByteBuffer.allocate(content.length);
-        byteBuffer.put(content);
-        byteBuffer.flip();
+    // Writes the remaining content of the buffer
+    public static CompletableFuture<Integer> write(AsynchronousFileChannel asynchronousFileChannel, long position, ByteBuffer byteBuffer){
+        CompletableFuture<Integer> future = new CompletableFuture<>();
 
         asynchronousFileChannel.write(byteBuffer, position, null, new CompletionHandler<>() {
             @Override
@@ -107,4 +141,59 @@ public class FileUtils {
 
     }
 
+    public static CompletableFuture<Void> writeAll(AsynchronousFileChannel asynchronousFileChannel, List<Write> writes){
+        return writeAll(asynchronousFileChannel, writes, null);
+    }
+
+    /*
+     * Writes a batch of regions of the same file. Regions are sorted by position and each run of adjacent regions is
+     * written at once: with a single gathering write on a GatheringChannel, or copied into one buffer on other channels,
+     * which can't gather. That buffer comes from `mergeBufferPool` if the run fits in it. Runs are written concurrently
+     * and the returned future completes once all are done.
+     * Regions should not overlap.
+     */
+    public static CompletableFuture<Void> writeAll(AsynchronousFileChannel asynchronousFileChannel, List<Write> writes, @Nullable BufferPool mergeBufferPool){
+        List<Write> sorted = new ArrayList<>(writes);
+        sorted.sort(Comparator.comparingLong(Write::position));
+
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        int runBeginning = 0;
+        for (int i = 1; i <= sorted.size(); i++) {
+            Write previous = sorted.get(i - 1);
+            if (i < sorted.size() && sorted.get(i).position() == previous.position() + previous.content().remaining()) {
+                continue;
+            }
+            futures.add(writeRun(asynchronousFileChannel, sorted.subList(runBeginning, i), mergeBufferPool));
+            runBeginning = i;
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    private static CompletableFuture<?> writeRun(AsynchronousFileChannel asynchronousFileChannel, List<Write> run, @Nullable BufferPool mergeBufferPool){
+        long position = run.getFirst().position();
+        if (run.size() == 1) {
+            return write(asynchronousFileChannel, position, run.getFirst().content());
+        }
+
+        if (asynchronousFileChannel instanceof GatheringChannel gatheringChannel) {
+            try {
+                return CompletableFuture.completedFuture(gatheringChannel.write(run.stream().map(Write::content).toArray(ByteBuffer[]::new), position));
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        int size = run.stream().mapToInt(write -> write.content().remaining()).sum();
+        if (mergeBufferPool != null && size <= mergeBufferPool.getBufferSize()) {
+            ByteBuffer buffer = mergeBufferPool.acquire();
+            ByteBuffer merged = buffer.slice(0, size);
+            run.forEach(write -> merged.put(write.content().duplicate()));
+            return write(asynchronousFileChannel, position, merged.flip()).whenComplete((result, throwable) -> mergeBufferPool.release(buffer));
+        }
+
+        ByteBuffer merged = ByteBuffer.allocate(size);
+        run.forEach(write -> merged.put(write.content().duplicate()));
+        return write(asynchronousFileChannel, position, merged.flip());
+    }
+
 }
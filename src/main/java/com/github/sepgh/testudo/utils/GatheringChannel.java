@@ -0,0 +1,12 @@
+package com.github.sepgh.testudo.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/*
+ * Channel that writes several buffers one after the other at a position with a single gathering write, see
+ * FileUtils.writeAll()
+ */
+public interface GatheringChannel {
+    long write(ByteBuffer[] sources, long position) throws IOException;
+}
@@ -8,9 +8,17 @@ import java.util.List;
 
 // Todo: can improve this to automatically lock when hasNext is called for first time
 //       and unlock when hasNext returns false for first time
-public abstract class LockableIterator<T> implements Iterator<T> {
+public abstract class LockableIterator<T> implements Iterator<T>, AutoCloseable {
     public abstract void lock();
     public abstract void unlock();
+
+    /*
+     * Lets go of whatever the iterator holds other than its lock (i.e. pages read ahead of a scan), for iterators that are
+     * abandoned before their end. Iterators holding nothing have nothing to do.
+     */
+    @Override
+    public void close() {
+    }
     
     public static <T> LockableIterator<T> wrapReader(Iterator<T> iterator, ReaderWriterLock readerWriterLock){
         return new LockableIterator<T>() {
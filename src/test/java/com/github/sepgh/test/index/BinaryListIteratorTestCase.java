@@ -4,7 +4,6 @@ import com.github.sepgh.test.TestParams;
 import com.github.sepgh.test.utils.FileUtils;
 import com.github.sepgh.testudo.context.EngineConfig;
 import com.github.sepgh.testudo.ds.BinaryList;
-import com.github.sepgh.testudo.exception.InternalOperationException;
 import com.github.sepgh.testudo.index.data.IndexBinaryObjectFactory;
 import com.github.sepgh.testudo.operation.query.Order;
 import com.github.sepgh.testudo.serialization.IntegerSerializer;
@@ -208,7 +207,11 @@ public class BinaryListIteratorTestCase {
         Assertions.assertEquals(3, ascendingBinaryListIterator.next());
         Assertions.assertFalse(ascendingBinaryListIterator.hasNext());
 
-        Assertions.assertThrows(InternalOperationException.class, () -> binaryList.addNew(4));
+        // Lists keep growing past the page size, they are stored as overflow chains
+        int length = binaryList.getData().length;
+        Assertions.assertTrue(binaryList.addNew(4));
+        Assertions.assertTrue(binaryList.getData().length > length);
+        Assertions.assertEquals(4, binaryList.getObjectAt(binaryList.getLastItemIndex()));
 
     }
 }
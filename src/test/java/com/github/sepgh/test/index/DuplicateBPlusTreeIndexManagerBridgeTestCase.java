@@ -27,6 +27,7 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Iterator;
 import java.util.ListIterator;
 import java.util.Optional;
 
@@ -137,6 +138,56 @@ public class DuplicateBPlusTreeIndexManagerBridgeTestCase {
 
     }
 
+    @Test
+    public void test_postingListLargerThanPage() throws Exception {
+        this.engineConfig.setDbPageSize(256);
+        this.diskPageDatabaseStorageManager = new DiskPageDatabaseStorageManager(
+                engineConfig,
+                new UnlimitedFileHandlerPool(
+                        FileHandler.SingletonFileHandlerFactory.getInstance()
+                )
+        );
+        UniqueQueryableIndex<Integer, Pointer> uniqueTreeIndexManager = getIntegerPointerUniqueTreeIndexManager();
+
+        DuplicateBPlusTreeIndexManagerBridge<Integer, Integer> duplicateIndexManager = new DuplicateBPlusTreeIndexManagerBridge<>(
+                1,
+                engineConfig,
+                uniqueTreeIndexManager,
+                new IntegerSerializer().getIndexBinaryObjectFactory(TestParams.FAKE_FIELD),
+                diskPageDatabaseStorageManager
+        );
+
+        // List outgrows a page early on, and is then extended in place
+        for (int i = 1; i <= 500; i++) {
+            duplicateIndexManager.addIndex(1, i);
+        }
+        duplicateIndexManager.addIndex(2, 1000);
+
+        // Ascending scans stream the list, descending ones read it whole
+        Iterator<Integer> iterator = duplicateIndexManager.getGreaterThanEqual(1, Order.ASC);
+        for (int i = 1; i <= 500; i++) {
+            Assertions.assertEquals(i, iterator.next());
+        }
+        Assertions.assertEquals(1000, iterator.next());
+        Assertions.assertFalse(iterator.hasNext());
+
+        iterator = duplicateIndexManager.getLessThanEqual(2, Order.DESC);
+        Assertions.assertEquals(1000, iterator.next());
+        for (int i = 500; i >= 1; i--) {
+            Assertions.assertEquals(i, iterator.next());
+        }
+        Assertions.assertFalse(iterator.hasNext());
+
+        Iterator<KeyValue<Integer, Integer>> keyValueIterator = duplicateIndexManager.getSortedKeyValueIterator(Order.ASC);
+        int count = 0;
+        while (keyValueIterator.hasNext()) {
+            KeyValue<Integer, Integer> keyValue = keyValueIterator.next();
+            Assertions.assertEquals(keyValue.value() == 1000 ? 2 : 1, keyValue.key());
+            count++;
+        }
+        Assertions.assertEquals(501, count);
+    }
+
     private UniqueQueryableIndex<Integer, Pointer> getIntegerPointerUniqueTreeIndexManager() {
         IndexStorageManager indexStorageManager = new OrganizedFileIndexStorageManager(new JsonIndexHeaderManager.SingletonFactory(), engineConfig, new UnlimitedFileHandlerPool(FileHandler.SingletonFileHandlerFactory.getInstance()));
 
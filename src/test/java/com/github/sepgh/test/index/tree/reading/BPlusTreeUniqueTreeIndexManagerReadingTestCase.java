@@ -2,15 +2,18 @@ package com.github.sepgh.test.index.tree.reading;
 
 import com.github.sepgh.test.utils.FileUtils;
 import com.github.sepgh.testudo.context.EngineConfig;
+import com.github.sepgh.testudo.ds.KeyValue;
 import com.github.sepgh.testudo.ds.Pointer;
 import com.github.sepgh.testudo.exception.InternalOperationException;
 import com.github.sepgh.testudo.index.UniqueTreeIndexManager;
 import com.github.sepgh.testudo.index.tree.node.cluster.ClusterBPlusTreeUniqueTreeIndexManager;
+import com.github.sepgh.testudo.operation.query.Order;
 import com.github.sepgh.testudo.storage.index.BTreeSizeCalculator;
 import com.github.sepgh.testudo.storage.index.OrganizedFileIndexStorageManager;
 import com.github.sepgh.testudo.storage.index.header.JsonIndexHeaderManager;
 import com.github.sepgh.testudo.storage.pool.FileHandler;
 import com.github.sepgh.testudo.storage.pool.UnlimitedFileHandlerPool;
+import com.github.sepgh.testudo.utils.LockableIterator;
 import org.junit.jupiter.api.*;
 
 import java.io.IOException;
@@ -119,4 +122,38 @@ public class BPlusTreeUniqueTreeIndexManagerReadingTestCase {
 
         indexStorageManager.close();
     }
+
+    @Test
+    @Timeout(value = 2)
+    public void iterateWithLeafReadAhead() throws IOException, ExecutionException, InterruptedException, InternalOperationException {
+        OrganizedFileIndexStorageManager indexStorageManager = getStorageManager();
+
+        ClusterBPlusTreeUniqueTreeIndexManager<Long> uniqueTreeIndexManager = new ClusterBPlusTreeUniqueTreeIndexManager<>(1, degree, indexStorageManager, DEFAULT_INDEX_BINARY_OBJECT_FACTORY.get());
+        uniqueTreeIndexManager.setLeafReadAhead(3);
+        for (long i = 1; i <= 30; i++) {
+            uniqueTreeIndexManager.addIndex(i, new Pointer(Pointer.TYPE_DATA, i * 100, 0));
+        }
+
+        // Leaves are read ahead through their sibling pointers, while keys still come in order
+        long expected = 1;
+        try (LockableIterator<KeyValue<Long, Pointer>> iterator = uniqueTreeIndexManager.getSortedIterator(Order.ASC)) {
+            while (iterator.hasNext()) {
+                Assertions.assertEquals(expected++, iterator.next().key());
+            }
+        }
+        Assertions.assertEquals(31, expected);
+
+        try (LockableIterator<KeyValue<Long, Pointer>> iterator = uniqueTreeIndexManager.getSortedIterator(Order.DESC)) {
+            while (iterator.hasNext()) {
+                Assertions.assertEquals(--expected, iterator.next().key());
+            }
+        }
+        Assertions.assertEquals(1, expected);
+
+        // Leaves read ahead of an abandoned scan are simply dropped
+        try (LockableIterator<KeyValue<Long, Pointer>> iterator = uniqueTreeIndexManager.getSortedIterator(Order.ASC)) {
+            Assertions.assertEquals(1L, iterator.next().key());
+        }
+        Assertions.assertEquals(new Pointer(Pointer.TYPE_DATA, 3000, 0), uniqueTreeIndexManager.getIndex(30L).orElseThrow());
+    }
 }
@@ -1,20 +1,27 @@
 package com.github.sepgh.test.index.tree.removing;
 
+import com.github.sepgh.testudo.context.EngineConfig;
 import com.github.sepgh.testudo.ds.Pointer;
 import com.github.sepgh.testudo.exception.InternalOperationException;
 import com.github.sepgh.testudo.index.UniqueTreeIndexManager;
 import com.github.sepgh.testudo.index.tree.node.cluster.ClusterBPlusTreeUniqueTreeIndexManager;
 import com.github.sepgh.testudo.storage.index.IndexStorageManager;
 import com.github.sepgh.testudo.storage.index.OrganizedFileIndexStorageManager;
+import com.github.sepgh.testudo.storage.index.header.IndexHeaderManager;
 import com.github.sepgh.testudo.storage.index.header.JsonIndexHeaderManager;
 import com.github.sepgh.testudo.storage.pool.FileHandler;
 import com.github.sepgh.testudo.storage.pool.UnlimitedFileHandlerPool;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
 
 import static com.github.sepgh.test.TestParams.DEFAULT_INDEX_BINARY_OBJECT_FACTORY;
+import static com.github.sepgh.testudo.storage.index.BaseFileIndexStorageManager.INDEX_FILE_NAME;
 
 public class BPlusTreeUniqueTreeIndexManagerRemovalTestCase extends BaseBPlusTreeUniqueTreeIndexManagerRemovalTestCase {
 
@@ -53,4 +60,69 @@ public class BPlusTreeUniqueTreeIndexManagerRemovalTestCase extends BaseBPlusTre
         super.testRemovingRoot(uniqueTreeIndexManager, indexStorageManager);
     }
 
+    // Nodes freed by removals are reused, so adding the keys back doesn't grow the index files
+    @Test
+    public void testRemovedNodesAreReused() throws IOException, ExecutionException, InterruptedException, InternalOperationException {
+        IndexStorageManager indexStorageManager = getIndexStorageManager();
+        UniqueTreeIndexManager<Long, Pointer> uniqueTreeIndexManager = getIndexManager(indexStorageManager);
+        Pointer samplePointer = new Pointer(Pointer.TYPE_DATA, 100, 0);
+
+        for (long i = 1; i <= 12; i++) {
+            uniqueTreeIndexManager.addIndex(i, samplePointer);
+        }
+        long size = this.getIndexFilesSize();
+
+        for (long i = 1; i <= 11; i++) {
+            Assertions.assertTrue(uniqueTreeIndexManager.removeIndex(i));
+        }
+
+        // Free nodes are persisted with the header
+        IndexHeaderManager indexHeaderManager = new JsonIndexHeaderManager(Path.of(dbPath.toString(), "header.bin"));
+        Assertions.assertTrue(indexHeaderManager.takeFreeNodeOfIndex(1, 0).isPresent());
+
+        for (long i = 1; i <= 11; i++) {
+            uniqueTreeIndexManager.addIndex(i, samplePointer);
+        }
+        Assertions.assertEquals(size, this.getIndexFilesSize());
+    }
+
+    // Purging frees the nodes of the extents the index has, even if extents are now configured to hold more nodes
+    @Test
+    public void testPurgeFreesNodesOfStoredExtents() throws IOException, ExecutionException, InterruptedException, InternalOperationException {
+        IndexStorageManager indexStorageManager = getIndexStorageManager();
+        UniqueTreeIndexManager<Long, Pointer> uniqueTreeIndexManager = getIndexManager(indexStorageManager);
+        Pointer samplePointer = new Pointer(Pointer.TYPE_DATA, 100, 0);
+
+        for (long i = 1; i <= 12; i++) {
+            uniqueTreeIndexManager.addIndex(i, samplePointer);
+        }
+        EngineConfig largerExtentsEngineConfig = EngineConfig.builder()
+                .bTreeDegree(degree)
+                .bTreeGrowthNodeAllocationCount(5)
+                .baseDBPath(dbPath.toString())
+                .build();
+        largerExtentsEngineConfig.setBTreeMaxFileSize(engineConfig.getBTreeMaxFileSize());
+        new OrganizedFileIndexStorageManager(
+                "test",
+                new JsonIndexHeaderManager.SingletonFactory(),
+                largerExtentsEngineConfig,
+                new UnlimitedFileHandlerPool(FileHandler.SingletonFileHandlerFactory.getInstance())
+        ).purgeIndex(1);
+
+        IndexHeaderManager indexHeaderManager = new JsonIndexHeaderManager(Path.of(dbPath.toString(), "header.bin"));
+        for (int chunk : indexHeaderManager.getChunksOfIndex(1)) {
+            int freeNodes = 0;
+            while (indexHeaderManager.takeFreeNodeOfIndex(1, chunk).isPresent()) {
+                freeNodes++;
+            }
+            Assertions.assertEquals(indexHeaderManager.getExtentCountOfIndex(1, chunk) * 2, freeNodes);
+        }
+    }
+
+    private long getIndexFilesSize() throws IOException {
+        try (Stream<Path> files = Files.list(dbPath)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(INDEX_FILE_NAME + ".test.")).mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+
 }
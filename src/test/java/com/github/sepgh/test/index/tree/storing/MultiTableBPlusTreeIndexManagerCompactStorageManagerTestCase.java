@@ -2,6 +2,7 @@ package com.github.sepgh.test.index.tree.storing;
 
 import com.github.sepgh.test.utils.FileUtils;
 import com.github.sepgh.testudo.context.EngineConfig;
+import com.github.sepgh.testudo.ds.KVSize;
 import com.github.sepgh.testudo.ds.Pointer;
 import com.github.sepgh.testudo.exception.InternalOperationException;
 import com.github.sepgh.testudo.index.UniqueTreeIndexManager;
@@ -11,6 +12,7 @@ import com.github.sepgh.testudo.index.tree.node.AbstractTreeNode;
 import com.github.sepgh.testudo.index.tree.node.cluster.ClusterBPlusTreeUniqueTreeIndexManager;
 import com.github.sepgh.testudo.storage.index.BTreeSizeCalculator;
 import com.github.sepgh.testudo.storage.index.CompactFileIndexStorageManager;
+import com.github.sepgh.testudo.storage.index.IndexStorageManagerDecorator;
 import com.github.sepgh.testudo.storage.index.header.JsonIndexHeaderManager;
 import com.github.sepgh.testudo.storage.pool.FileHandler;
 import com.github.sepgh.testudo.storage.pool.UnlimitedFileHandlerPool;
@@ -25,7 +27,9 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.github.sepgh.test.TestParams.DEFAULT_INDEX_BINARY_OBJECT_FACTORY;
 import static com.github.sepgh.testudo.storage.index.CompactFileIndexStorageManager.INDEX_FILE_NAME;
@@ -165,4 +169,73 @@ public class MultiTableBPlusTreeIndexManagerCompactStorageManagerTestCase {
 
     }
 
+    // Nodes made by splits are allocated first, so every insertion writes all the nodes it changed at once
+    @Test
+    public void testSplitWritesNodesTogether() throws IOException, ExecutionException, InterruptedException, InternalOperationException {
+        List<Long> testIdentifiers = Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L, 12L);
+        Pointer samplePointer = new Pointer(Pointer.TYPE_DATA, 100, 0);
+        CompactFileIndexStorageManager compactFileIndexStorageManager = getSingleFileIndexStorageManager();
+        AtomicInteger writes = new AtomicInteger();
+        IndexStorageManagerDecorator countingIndexStorageManager = new IndexStorageManagerDecorator(compactFileIndexStorageManager) {
+            @Override
+            public CompletableFuture<NodeData> writeNewNode(int indexId, byte[] data, boolean isRoot, KVSize size) throws InternalOperationException {
+                writes.incrementAndGet();
+                return super.writeNewNode(indexId, data, isRoot, size);
+            }
+
+            @Override
+            public CompletableFuture<Void> updateNode(int indexId, byte[] data, Pointer pointer, boolean root) throws InternalOperationException {
+                writes.incrementAndGet();
+                return super.updateNode(indexId, data, pointer, root);
+            }
+
+            @Override
+            public CompletableFuture<Void> updateNodes(int indexId, List<NodeData> nodes, Pointer root) throws InternalOperationException {
+                writes.incrementAndGet();
+                return super.updateNodes(indexId, nodes, root);
+            }
+        };
+        UniqueTreeIndexManager<Long, Pointer> uniqueTreeIndexManager = new ClusterBPlusTreeUniqueTreeIndexManager<>(1, degree, countingIndexStorageManager, DEFAULT_INDEX_BINARY_OBJECT_FACTORY.get());
+
+        // The first insertion writes the empty root before storing in it
+        uniqueTreeIndexManager.addIndex(testIdentifiers.getFirst(), samplePointer);
+        for (long testIdentifier : testIdentifiers.subList(1, testIdentifiers.size())) {
+            writes.set(0);
+            uniqueTreeIndexManager.addIndex(testIdentifier, samplePointer);
+            Assertions.assertEquals(1, writes.get());
+        }
+
+        StoredTreeStructureVerifier.testOrderedTreeStructure(compactFileIndexStorageManager, 1, 1, degree);
+    }
+
+    // Removed nodes are reused before the file grows, even when they are not at its end
+    @Test
+    public void testRemovedNodesAreReused() throws IOException, ExecutionException, InterruptedException, InternalOperationException {
+        Pointer samplePointer = new Pointer(Pointer.TYPE_DATA, 100, 0);
+        CompactFileIndexStorageManager compactFileIndexStorageManager = getSingleFileIndexStorageManager();
+        UniqueTreeIndexManager<Long, Pointer> uniqueTreeIndexManager1 = new ClusterBPlusTreeUniqueTreeIndexManager<>(1, degree, compactFileIndexStorageManager, DEFAULT_INDEX_BINARY_OBJECT_FACTORY.get());
+        UniqueTreeIndexManager<Long, Pointer> uniqueTreeIndexManager2 = new ClusterBPlusTreeUniqueTreeIndexManager<>(2, degree, compactFileIndexStorageManager, DEFAULT_INDEX_BINARY_OBJECT_FACTORY.get());
+        Path indexPath = Path.of(dbPath.toString(), String.format("%s.bin", INDEX_FILE_NAME));
+
+        for (long i = 1; i <= 12; i++) {
+            uniqueTreeIndexManager1.addIndex(i, samplePointer);
+        }
+        for (long i = 1; i <= 12; i++) {
+            uniqueTreeIndexManager2.addIndex(i, samplePointer);
+        }
+        long size = Files.size(indexPath);
+
+        for (long i = 1; i <= 11; i++) {
+            Assertions.assertTrue(uniqueTreeIndexManager1.removeIndex(i));
+        }
+        for (long i = 1; i <= 11; i++) {
+            uniqueTreeIndexManager1.addIndex(i, samplePointer);
+        }
+        Assertions.assertEquals(size, Files.size(indexPath));
+        for (long i = 1; i <= 12; i++) {
+            Assertions.assertTrue(uniqueTreeIndexManager1.getIndex(i).isPresent());
+            Assertions.assertTrue(uniqueTreeIndexManager2.getIndex(i).isPresent());
+        }
+    }
+
 }
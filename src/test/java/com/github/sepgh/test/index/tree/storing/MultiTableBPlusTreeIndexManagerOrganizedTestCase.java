@@ -11,8 +11,10 @@ import com.github.sepgh.testudo.index.tree.node.AbstractTreeNode;
 import com.github.sepgh.testudo.index.tree.node.cluster.ClusterBPlusTreeUniqueTreeIndexManager;
 import com.github.sepgh.testudo.storage.index.BTreeSizeCalculator;
 import com.github.sepgh.testudo.storage.index.OrganizedFileIndexStorageManager;
+import com.github.sepgh.testudo.storage.index.header.IndexHeaderManager;
 import com.github.sepgh.testudo.storage.index.header.JsonIndexHeaderManager;
 import com.github.sepgh.testudo.storage.pool.FileHandler;
+import com.github.sepgh.testudo.storage.pool.FileHandlerPool;
 import com.github.sepgh.testudo.storage.pool.UnlimitedFileHandlerPool;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
@@ -164,4 +166,62 @@ public class MultiTableBPlusTreeIndexManagerOrganizedTestCase {
 
     }
 
+    /*
+     * Both indexes grow by extents of 2 nodes while identifiers are added to them in turns, so their extents end up
+     * interleaved in the same chunk and neither of them is moved when the other one grows.
+     */
+    @Test
+    public void testInterleavedExtents() throws IOException, ExecutionException, InterruptedException, InternalOperationException {
+        engineConfig = EngineConfig.builder()
+                .baseDBPath(dbPath.toString())
+                .bTreeDegree(degree)
+                .bTreeGrowthNodeAllocationCount(2)
+                .build();
+
+        List<Long> testIdentifiers = Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L, 12L);
+        Pointer samplePointer = new Pointer(Pointer.TYPE_DATA, 100, 0);
+        OrganizedFileIndexStorageManager organizedFileIndexStorageManager = getCompactFileIndexStorageManager();
+        UniqueTreeIndexManager<Long, Pointer> uniqueTreeIndexManager1 = new ClusterBPlusTreeUniqueTreeIndexManager<>(1, degree, organizedFileIndexStorageManager, DEFAULT_INDEX_BINARY_OBJECT_FACTORY.get());
+        UniqueTreeIndexManager<Long, Pointer> uniqueTreeIndexManager2 = new ClusterBPlusTreeUniqueTreeIndexManager<>(2, degree, organizedFileIndexStorageManager, DEFAULT_INDEX_BINARY_OBJECT_FACTORY.get());
+
+        for (long testIdentifier : testIdentifiers) {
+            uniqueTreeIndexManager1.addIndex(testIdentifier, samplePointer);
+            uniqueTreeIndexManager2.addIndex(testIdentifier, samplePointer);
+        }
+
+        IndexHeaderManager indexHeaderManager = organizedFileIndexStorageManager.getIndexHeaderManager();
+        Assertions.assertTrue(indexHeaderManager.getExtentCountOfIndex(1, 0) > 1);
+        Assertions.assertTrue(indexHeaderManager.getExtentCountOfIndex(2, 0) > 1);
+        Assertions.assertTrue(
+                indexHeaderManager.getExtentOfIndex(1, 0, 1).orElseThrow().getOffset() > indexHeaderManager.getExtentOfIndex(2, 0, 0).orElseThrow().getOffset()
+        );
+
+        StoredTreeStructureVerifier.testOrderedTreeStructure(organizedFileIndexStorageManager, 1, 1, degree);
+        StoredTreeStructureVerifier.testOrderedTreeStructure(organizedFileIndexStorageManager, 2, 1, degree);
+    }
+
+    @Test
+    public void testDurabilityOfIndexFiles() throws InternalOperationException {
+        Pointer samplePointer = new Pointer(Pointer.TYPE_DATA, 100, 0);
+        Path indexPath = Path.of(dbPath.toString(), String.format("%s.%s.%d", INDEX_FILE_NAME, "test", 0));
+        FileHandlerPool fileHandlerPool = new UnlimitedFileHandlerPool(FileHandler.SingletonFileHandlerFactory.getInstance());
+
+        // Index files are forced before writes of the tree return
+        engineConfig.setDurability(EngineConfig.Durability.COMMIT);
+        OrganizedFileIndexStorageManager organizedFileIndexStorageManager = new OrganizedFileIndexStorageManager("test", new JsonIndexHeaderManager.SingletonFactory(), engineConfig, fileHandlerPool);
+        UniqueTreeIndexManager<Long, Pointer> uniqueTreeIndexManager = new ClusterBPlusTreeUniqueTreeIndexManager<>(1, degree, organizedFileIndexStorageManager, DEFAULT_INDEX_BINARY_OBJECT_FACTORY.get());
+        for (long identifier = 1; identifier <= 12; identifier++) {
+            uniqueTreeIndexManager.addIndex(identifier, samplePointer);
+        }
+        Assertions.assertFalse(fileHandlerPool.isDirty(indexPath));
+
+        // Otherwise they are only marked dirty, and are forced later
+        engineConfig.setDurability(EngineConfig.Durability.PERIODIC);
+        uniqueTreeIndexManager.addIndex(13L, samplePointer);
+        Assertions.assertTrue(fileHandlerPool.isDirty(indexPath));
+        fileHandlerPool.forceDirty();
+        Assertions.assertFalse(fileHandlerPool.isDirty(indexPath));
+        organizedFileIndexStorageManager.close();
+    }
+
 }
@@ -0,0 +1,101 @@
+package com.github.sepgh.test.operation;
+
+import com.github.sepgh.test.utils.FileUtils;
+import com.github.sepgh.testudo.context.EngineConfig;
+import com.github.sepgh.testudo.ds.Pointer;
+import com.github.sepgh.testudo.exception.DeserializationException;
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.exception.SerializationException;
+import com.github.sepgh.testudo.index.UniqueTreeIndexManager;
+import com.github.sepgh.testudo.operation.*;
+import com.github.sepgh.testudo.scheme.ModelToCollectionConverter;
+import com.github.sepgh.testudo.scheme.Scheme;
+import com.github.sepgh.testudo.storage.db.DatabaseStorageManagerSingletonFactory;
+import com.github.sepgh.testudo.storage.db.DiskPageDatabaseStorageManager;
+import com.github.sepgh.testudo.storage.index.DefaultIndexStorageManagerSingletonFactory;
+import com.github.sepgh.testudo.storage.index.IndexStorageManagerSingletonFactory;
+import com.github.sepgh.testudo.storage.index.header.JsonIndexHeaderManager;
+import com.github.sepgh.testudo.storage.pool.FileHandlerPoolSingletonFactory;
+import com.github.sepgh.testudo.utils.ReaderWriterLock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+public class ClusterIndexObjectRelocatorTestCase {
+
+    private EngineConfig engineConfig;
+    private Path dbPath;
+    private FileHandlerPoolSingletonFactory fileHandlerPoolSingletonFactory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        this.dbPath = Files.createTempDirectory(this.getClass().getSimpleName());
+        this.engineConfig = EngineConfig.builder()
+                .clusterKeyType(EngineConfig.ClusterKeyType.LONG)
+                .baseDBPath(this.dbPath.toString())
+                .build();
+        this.fileHandlerPoolSingletonFactory = new FileHandlerPoolSingletonFactory.DefaultFileHandlerPoolSingletonFactory(engineConfig);
+    }
+
+    @AfterEach
+    public void destroy() throws IOException {
+        FileUtils.deleteDirectory(dbPath.toString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_relocate() throws InternalOperationException, SerializationException, DeserializationException {
+        DatabaseStorageManagerSingletonFactory databaseStorageManagerSingletonFactory = new DatabaseStorageManagerSingletonFactory.DiskPageDatabaseStorageManagerSingletonFactory(engineConfig, fileHandlerPoolSingletonFactory);
+        DiskPageDatabaseStorageManager storageManager = (DiskPageDatabaseStorageManager) databaseStorageManagerSingletonFactory.getInstance();
+        IndexStorageManagerSingletonFactory indexStorageManagerSingletonFactory = new DefaultIndexStorageManagerSingletonFactory(this.engineConfig, new JsonIndexHeaderManager.SingletonFactory(), fileHandlerPoolSingletonFactory, databaseStorageManagerSingletonFactory);
+
+        Scheme scheme = Scheme.builder()
+                .dbName("test")
+                .version(1)
+                .build();
+        Scheme.Collection collection = new ModelToCollectionConverter(DefaultCollectionInsertOperationTestCase.TestModel.class).toCollection();
+        scheme.getCollections().add(collection);
+        CollectionIndexProviderSingletonFactory collectionIndexProviderSingletonFactory = new DefaultCollectionIndexProviderSingletonFactory(scheme, engineConfig, indexStorageManagerSingletonFactory, storageManager);
+
+        ReaderWriterLock readerWriterLock = new ReaderWriterLock();
+        CollectionInsertOperation<Long> collectionInsertOperation = new DefaultCollectionInsertOperation<>(scheme, collection, readerWriterLock, collectionIndexProviderSingletonFactory.getInstance(collection), storageManager);
+        List<DefaultCollectionInsertOperationTestCase.TestModel> testModels = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            testModels.add(collectionInsertOperation.execute(DefaultCollectionInsertOperationTestCase.TestModel.builder().id(i).age(10L * i).country("DE").name("Name " + i).build()));
+        }
+
+        UniqueTreeIndexManager<Long, Pointer> clusterIndexManager = (UniqueTreeIndexManager<Long, Pointer>) collectionIndexProviderSingletonFactory.getInstance(collection).getClusterIndexManager();
+        Pointer pointer = clusterIndexManager.getIndex(2L).orElseThrow();
+
+        ClusterIndexObjectRelocator relocator = new ClusterIndexObjectRelocator(scheme, collectionIndexProviderSingletonFactory, storageManager);
+        Assertions.assertTrue(relocator.isKnown(scheme.getId(), collection.getId(), pointer));
+        Assertions.assertFalse(relocator.isKnown(scheme.getId() + 1, collection.getId(), pointer));
+        Assertions.assertFalse(relocator.isKnown(scheme.getId(), collection.getId() + 1, pointer));
+
+        // The cluster key of the object is found from its primary key, and the cluster index is pointed to the new location
+        Assertions.assertTrue(relocator.relocate(scheme.getId(), collection.getId(), pointer, storageManager::relocate));
+        Pointer newPointer = clusterIndexManager.getIndex(2L).orElseThrow();
+        Assertions.assertNotEquals(pointer, newPointer);
+        Assertions.assertTrue(relocator.isKnown(scheme.getId(), collection.getId(), newPointer));
+
+        // Nothing points to the old location anymore
+        Assertions.assertFalse(relocator.isKnown(scheme.getId(), collection.getId(), pointer));
+        Assertions.assertFalse(relocator.relocate(scheme.getId(), collection.getId(), pointer, storageManager::relocate));
+
+        CollectionSelectOperation<Long> collectionSelectOperation = new DefaultCollectionSelectOperation<>(collection, readerWriterLock, collectionIndexProviderSingletonFactory.getInstance(collection), storageManager);
+        Iterator<DefaultCollectionInsertOperationTestCase.TestModel> iterator = collectionSelectOperation.execute(DefaultCollectionInsertOperationTestCase.TestModel.class);
+        for (DefaultCollectionInsertOperationTestCase.TestModel testModel : testModels) {
+            Assertions.assertTrue(iterator.hasNext());
+            Assertions.assertEquals(testModel, iterator.next());
+        }
+        Assertions.assertFalse(iterator.hasNext());
+    }
+}
@@ -301,4 +301,62 @@ public class DefaultCollectionInsertOperationTestCase {
 
     }
 
+    @Test
+    public void test_executeAll() throws SerializationException, InternalOperationException, DeserializationException {
+        DatabaseStorageManagerSingletonFactory databaseStorageManagerSingletonFactory = getDatabaseStorageManagerFactory();
+        DatabaseStorageManager storageManager = databaseStorageManagerSingletonFactory.getInstance();
+        IndexStorageManagerSingletonFactory indexStorageManagerSingletonFactory = new DefaultIndexStorageManagerSingletonFactory(this.engineConfig, new JsonIndexHeaderManager.SingletonFactory(), fileHandlerPoolSingletonFactory, databaseStorageManagerSingletonFactory);
+
+        Scheme scheme = Scheme.builder()
+                .dbName("test")
+                .version(1)
+                .build();
+        Scheme.Collection collection = new ModelToCollectionConverter(TestModel.class).toCollection();
+        scheme.getCollections().add(collection);
+
+        CollectionIndexProviderSingletonFactory collectionIndexProviderSingletonFactory = new DefaultCollectionIndexProviderSingletonFactory(scheme, engineConfig, indexStorageManagerSingletonFactory, storageManager);
+        ReaderWriterLock readerWriterLock = new ReaderWriterLock();
+        CollectionInsertOperation<Long> collectionInsertOperation = new DefaultCollectionInsertOperation<>(scheme, collection, readerWriterLock, collectionIndexProviderSingletonFactory.getInstance(collection), storageManager);
+
+        List<TestModel> testModels = List.of(
+                TestModel.builder().age(10L).country("DE").name("John").build(),
+                TestModel.builder().age(20L).country("FR").name("Rose").build(),
+                TestModel.builder().age(30L).country("USA").name("Jack").build()
+        );
+        List<TestModel> inserted = collectionInsertOperation.executeAll(testModels);
+        Assertions.assertEquals(3, inserted.size());
+        Assertions.assertEquals(1, inserted.getFirst().getId());
+        Assertions.assertEquals(3, inserted.getLast().getId());
+
+        CollectionSelectOperation<Long> collectionSelectOperation = new DefaultCollectionSelectOperation<>(collection, readerWriterLock, collectionIndexProviderSingletonFactory.getInstance(collection), storageManager);
+        Assertions.assertEquals(inserted, collectionSelectOperation.asList(TestModel.class));
+        List<TestModel> older = collectionSelectOperation.query(
+                new Query().where(new SimpleCondition<>("age", Operation.GT, 10L))
+        ).asList(TestModel.class);
+        Assertions.assertEquals(inserted.subList(1, 3), older);
+
+        // Batch with a duplicate keeps the objects before it, but not the duplicate or the objects after it
+        CollectionInsertOperation<Long> uniqueInsertOperation = getUniqueInsertOperation(storageManager, indexStorageManagerSingletonFactory);
+        Assertions.assertThrowsExactly(IndexExistsException.class, () -> {
+            uniqueInsertOperation.executeAll(List.of(new UniqueModel(1), new UniqueModel(2), new UniqueModel(2), new UniqueModel(3)));
+        });
+        Assertions.assertThrowsExactly(IndexExistsException.class, () -> {
+            uniqueInsertOperation.execute(new UniqueModel(2));
+        });
+        uniqueInsertOperation.execute(new UniqueModel(3));
+    }
+
+    private CollectionInsertOperation<Long> getUniqueInsertOperation(DatabaseStorageManager storageManager, IndexStorageManagerSingletonFactory indexStorageManagerSingletonFactory) {
+        Scheme scheme = Scheme.builder()
+                .dbName("test")
+                .version(1)
+                .build();
+        Scheme.Collection collection = new ModelToCollectionConverter(UniqueModel.class).toCollection();
+        collection.setId(2);
+        scheme.getCollections().add(collection);
+
+        CollectionIndexProviderSingletonFactory collectionIndexProviderSingletonFactory = new DefaultCollectionIndexProviderSingletonFactory(scheme, engineConfig, indexStorageManagerSingletonFactory, storageManager);
+        return new DefaultCollectionInsertOperation<>(scheme, collection, new ReaderWriterLock(), collectionIndexProviderSingletonFactory.getInstance(collection), storageManager);
+    }
+
 }
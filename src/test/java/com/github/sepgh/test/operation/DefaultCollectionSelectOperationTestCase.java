@@ -19,10 +19,13 @@ import com.github.sepgh.testudo.scheme.annotation.Index;
 import com.github.sepgh.testudo.serialization.ModelSerializer;
 import com.github.sepgh.testudo.storage.db.DatabaseStorageManager;
 import com.github.sepgh.testudo.storage.db.DatabaseStorageManagerSingletonFactory;
+import com.github.sepgh.testudo.storage.db.DiskPageDatabaseStorageManager;
+import com.github.sepgh.testudo.storage.db.ReadAhead;
 import com.github.sepgh.testudo.storage.index.DefaultIndexStorageManagerSingletonFactory;
 import com.github.sepgh.testudo.storage.index.IndexStorageManagerSingletonFactory;
 import com.github.sepgh.testudo.storage.index.header.JsonIndexHeaderManager;
 import com.github.sepgh.testudo.storage.pool.FileHandlerPoolSingletonFactory;
+import com.github.sepgh.testudo.utils.LockableIterator;
 import com.github.sepgh.testudo.utils.ReaderWriterLock;
 import lombok.*;
 import org.junit.jupiter.api.AfterEach;
@@ -37,6 +40,7 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DefaultCollectionSelectOperationTestCase {
 
@@ -276,4 +280,56 @@ public class DefaultCollectionSelectOperationTestCase {
 
     }
 
+    @Test
+    public void readAheadIsClosedWithIterator() throws SerializationException, InternalOperationException, DeserializationException {
+        AtomicInteger opened = new AtomicInteger();
+        AtomicInteger closed = new AtomicInteger();
+        DatabaseStorageManagerSingletonFactory databaseStorageManagerSingletonFactory = new DatabaseStorageManagerSingletonFactory(engineConfig) {
+            @Override
+            protected DatabaseStorageManager create() {
+                return new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance()) {
+                    @Override
+                    public ReadAhead readAhead() {
+                        opened.incrementAndGet();
+                        return new ReadAhead() {
+                            @Override
+                            public void accessed(Pointer pointer) {
+                            }
+
+                            @Override
+                            public void close() {
+                                closed.incrementAndGet();
+                            }
+                        };
+                    }
+                };
+            }
+        };
+        DatabaseStorageManager storageManager = databaseStorageManagerSingletonFactory.getInstance();
+        IndexStorageManagerSingletonFactory indexStorageManagerSingletonFactory = new DefaultIndexStorageManagerSingletonFactory(this.engineConfig, new JsonIndexHeaderManager.SingletonFactory(), fileHandlerPoolSingletonFactory, databaseStorageManagerSingletonFactory);
+
+        Scheme.Collection collection = new ModelToCollectionConverter(TestModel.class).toCollection();
+        CollectionIndexProviderSingletonFactory collectionIndexProviderSingletonFactory = new DefaultCollectionIndexProviderSingletonFactory(scheme, engineConfig, indexStorageManagerSingletonFactory, storageManager);
+
+        CollectionInsertOperation<Long> collectionInsertOperation = new DefaultCollectionInsertOperation<>(scheme, collection, new ReaderWriterLock(), collectionIndexProviderSingletonFactory.getInstance(collection), storageManager);
+        collectionInsertOperation.execute(TestModel.builder().id(1).age(30L).country("DE").name("John").build());
+        collectionInsertOperation.execute(TestModel.builder().id(2).age(40L).country("FR").name("Rose").build());
+
+        CollectionSelectOperation<Long> collectionSelectOperation = new DefaultCollectionSelectOperation<>(collection, new ReaderWriterLock(), collectionIndexProviderSingletonFactory.getInstance(collection), storageManager);
+
+        // Abandoned scan lets go of its read-ahead once closed, and only once
+        LockableIterator<TestModel> iterator = collectionSelectOperation.execute(TestModel.class);
+        iterator.next();
+        Assertions.assertEquals(0, closed.get());
+        iterator.close();
+        iterator.close();
+        Assertions.assertEquals(1, closed.get());
+
+        // Scan that runs to its end, and existence checks, let go of it on their own
+        Assertions.assertEquals(2, collectionSelectOperation.asList(TestModel.class).size());
+        Assertions.assertTrue(collectionSelectOperation.exists());
+        Assertions.assertEquals(3, opened.get());
+        Assertions.assertEquals(3, closed.get());
+    }
+
 }
@@ -0,0 +1,118 @@
+package com.github.sepgh.test.storage;
+
+import com.github.sepgh.test.utils.FileUtils;
+import com.github.sepgh.testudo.storage.index.header.IndexHeaderManager;
+import com.github.sepgh.testudo.storage.index.header.JsonIndexHeaderManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class JsonIndexHeaderManagerTestCase {
+    private Path dbPath;
+    private Path headerPath;
+    private Path extentsPath;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dbPath = Files.createTempDirectory("TEST_JsonIndexHeaderManagerTestCase");
+        headerPath = dbPath.resolve("header.bin");
+        extentsPath = dbPath.resolve("header.bin.extents");
+    }
+
+    @AfterEach
+    public void destroy() throws IOException {
+        FileUtils.deleteDirectory(dbPath.toString());
+    }
+
+    @Test
+    public void test_extentsAreAppended() throws IOException {
+        JsonIndexHeaderManager indexHeaderManager = new JsonIndexHeaderManager(headerPath);
+        indexHeaderManager.addExtentOfIndex(1, 100, 10, new IndexHeaderManager.Location(0, 0));
+        byte[] header = Files.readAllBytes(headerPath);
+
+        // Extents after the first one of the index only append to the log, records have 10 bits of free nodes
+        indexHeaderManager.addExtentOfIndex(1, 100, 10, new IndexHeaderManager.Location(0, 300));
+        indexHeaderManager.addExtentOfIndex(1, 100, 10, new IndexHeaderManager.Location(1, 0));
+        Assertions.assertArrayEquals(header, Files.readAllBytes(headerPath));
+        Assertions.assertEquals(3 * 18, Files.size(extentsPath));
+
+        // A record cut short by a crash is dropped
+        Files.write(extentsPath, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+
+        JsonIndexHeaderManager reopened = new JsonIndexHeaderManager(headerPath);
+        Assertions.assertEquals(Optional.of(100), reopened.getExtentSizeOfIndex(1));
+        Assertions.assertEquals(2, reopened.getExtentCountOfIndex(1, 0));
+        Assertions.assertEquals(Optional.of(new IndexHeaderManager.Location(0, 300)), reopened.getExtentOfIndex(1, 0, 1));
+        Assertions.assertEquals(Optional.of(new IndexHeaderManager.Location(1, 0)), reopened.getExtentOfIndex(1, 1, 0));
+        Assertions.assertEquals(List.of(0, 1), reopened.getChunksOfIndex(1));
+        Assertions.assertEquals(3 * 18, Files.size(extentsPath));
+    }
+
+    @Test
+    public void test_freeNodesAreUpdatedInPlace() throws IOException {
+        JsonIndexHeaderManager indexHeaderManager = new JsonIndexHeaderManager(headerPath);
+        indexHeaderManager.addExtentOfIndex(1, 100, 10, new IndexHeaderManager.Location(0, 0));
+        indexHeaderManager.addExtentOfIndex(1, 100, 10, new IndexHeaderManager.Location(0, 300));
+        byte[] header = Files.readAllBytes(headerPath);
+
+        for (int i = 0; i < 12; i++) {
+            Assertions.assertEquals(Optional.of(i), indexHeaderManager.takeFreeNodeOfIndex(1, 0));
+        }
+        indexHeaderManager.freeNodesOfIndex(1, 0, 3, 4);
+        indexHeaderManager.freeNodesOfIndex(1, 0, 9, 11);
+        Assertions.assertThrows(IllegalStateException.class, () -> indexHeaderManager.freeNodesOfIndex(1, 0, 19, 21));
+
+        // Changes are kept until flushed, and never rewrite the header or grow the log
+        Assertions.assertTrue(new JsonIndexHeaderManager(headerPath).takeFreeNodeOfIndex(1, 0).orElseThrow() == 0);
+        indexHeaderManager.flush(true);
+        Assertions.assertArrayEquals(header, Files.readAllBytes(headerPath));
+        Assertions.assertEquals(2 * 18, Files.size(extentsPath));
+
+        JsonIndexHeaderManager reopened = new JsonIndexHeaderManager(headerPath);
+        List<Integer> freeNodes = new ArrayList<>();
+        Optional<Integer> freeNode;
+        while ((freeNode = reopened.takeFreeNodeOfIndex(1, 0)).isPresent()) {
+            freeNodes.add(freeNode.get());
+        }
+        Assertions.assertEquals(List.of(3, 9, 10, 12, 13, 14, 15, 16, 17, 18, 19), freeNodes);
+    }
+
+    @Test
+    public void test_headerWithoutVersion() throws IOException {
+        // Headers from before extents are upgraded if they have no index regions
+        Files.writeString(headerPath, """
+                {
+                  "roots": {"1": {"chunk": 0, "offset": 30}},
+                  "chunkIndexOffset": {"0": []},
+                  "nullBitmaps": {}
+                }
+                """);
+        JsonIndexHeaderManager indexHeaderManager = new JsonIndexHeaderManager(headerPath);
+        Assertions.assertEquals(Optional.of(new IndexHeaderManager.Location(0, 30)), indexHeaderManager.getRootOfIndex(1));
+
+        // Otherwise they fail to load instead of being read as extents
+        Path legacyHeaderPath = dbPath.resolve("legacy.bin");
+        Files.writeString(legacyHeaderPath, """
+                {
+                  "roots": {"1": {"chunk": 0, "offset": 30}},
+                  "chunkIndexOffset": {"0": [{"indexId": 1, "offset": 0}, {"indexId": 2, "offset": 120}]},
+                  "nullBitmaps": {}
+                }
+                """);
+        IOException exception = Assertions.assertThrows(IOException.class, () -> new JsonIndexHeaderManager(legacyHeaderPath));
+        Assertions.assertTrue(exception.getMessage().contains("before extents"));
+
+        Path newerHeaderPath = dbPath.resolve("newer.bin");
+        Files.writeString(newerHeaderPath, "{\"version\": 100}");
+        Assertions.assertThrows(IOException.class, () -> new JsonIndexHeaderManager(newerHeaderPath));
+    }
+}
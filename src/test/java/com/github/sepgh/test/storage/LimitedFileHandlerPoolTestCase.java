@@ -0,0 +1,99 @@
+package com.github.sepgh.test.storage;
+
+import com.github.sepgh.test.utils.FileUtils;
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.storage.pool.FileHandler;
+import com.github.sepgh.testudo.storage.pool.LimitedFileHandlerPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class LimitedFileHandlerPoolTestCase {
+    private Path dbPath;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dbPath = Files.createTempDirectory("TEST_LimitedFileHandlerPoolTestCase");
+    }
+
+    @AfterEach
+    public void destroy() throws IOException {
+        FileUtils.deleteDirectory(dbPath.toString());
+    }
+
+    @Test
+    public void test_idleHandlersStayOpen() throws InternalOperationException {
+        LimitedFileHandlerPool pool = new LimitedFileHandlerPool(FileHandler.SingletonFileHandlerFactory.getInstance(), 2);
+        Path file1 = dbPath.resolve("file.1");
+        Path file2 = dbPath.resolve("file.2");
+        Path file3 = dbPath.resolve("file.3");
+
+        // Released handlers are reused rather than reopened
+        AsynchronousFileChannel channel1 = pool.getFileChannel(file1, 1, TimeUnit.SECONDS);
+        pool.releaseFileChannel(file1, 1, TimeUnit.SECONDS);
+        Assertions.assertSame(channel1, pool.getFileChannel(file1, 1, TimeUnit.SECONDS));
+        pool.releaseFileChannel(file1, 1, TimeUnit.SECONDS);
+        Assertions.assertEquals(1, pool.getHits());
+        Assertions.assertEquals(1, pool.getMisses());
+
+        pool.getFileChannel(file2, 1, TimeUnit.SECONDS);
+        pool.releaseFileChannel(file2, 1, TimeUnit.SECONDS);
+        pool.getFileChannel(file1, 1, TimeUnit.SECONDS);
+        pool.releaseFileChannel(file1, 1, TimeUnit.SECONDS);
+
+        // Pool is full, so the least recently used idle handler gets closed for the new file
+        pool.getFileChannel(file3, 1, TimeUnit.SECONDS);
+        Assertions.assertNull(pool.getFileHandler(file2.toString()));
+        Assertions.assertNotNull(pool.getFileHandler(file1.toString()));
+        Assertions.assertTrue(channel1.isOpen());
+
+        // No idle handler left once both open files are in use
+        pool.getFileChannel(file1, 1, TimeUnit.SECONDS);
+        Assertions.assertThrows(IllegalStateException.class, () -> pool.getFileChannel(file2, 100, TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(3, pool.getHits());
+        Assertions.assertEquals(4, pool.getMisses());
+
+        pool.releaseFileChannel(file1, 1, TimeUnit.SECONDS);
+        pool.releaseFileChannel(file3, 1, TimeUnit.SECONDS);
+        pool.closeAll();
+        Assertions.assertFalse(channel1.isOpen());
+    }
+
+    @Test
+    public void test_closeAllWaitsForRelease() throws InternalOperationException, InterruptedException, ExecutionException, TimeoutException {
+        LimitedFileHandlerPool pool = new LimitedFileHandlerPool(FileHandler.SingletonFileHandlerFactory.getInstance(), 2);
+        Path file1 = dbPath.resolve("file.1");
+        Path file2 = dbPath.resolve("file.2");
+
+        // Channel in use is released while the pool is being closed, which doesn't hold the pool
+        AsynchronousFileChannel channel1 = pool.getFileChannel(file1, 1, TimeUnit.SECONDS);
+        CompletableFuture<Void> closed = CompletableFuture.runAsync(() -> {
+            try {
+                pool.closeAll();
+            } catch (InternalOperationException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(100);
+        Assertions.assertFalse(closed.isDone());
+        pool.releaseFileChannel(file1, 1, TimeUnit.SECONDS);
+        closed.get(5, TimeUnit.SECONDS);
+        Assertions.assertFalse(channel1.isOpen());
+        Assertions.assertNull(pool.getFileHandler(file1.toString()));
+
+        // Timed close gives up waiting on channels that are never released
+        AsynchronousFileChannel channel2 = pool.getFileChannel(file2, 1, TimeUnit.SECONDS);
+        pool.closeAll(100, TimeUnit.MILLISECONDS);
+        Assertions.assertFalse(channel2.isOpen());
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.sepgh.test.storage;
+
+import com.github.sepgh.test.utils.FileUtils;
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.storage.pool.FileHandler;
+import com.github.sepgh.testudo.storage.pool.SynchronousFileChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class SynchronousFileChannelTestCase {
+    private Path dbPath;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dbPath = Files.createTempDirectory("TEST_SynchronousFileChannelTestCase");
+    }
+
+    @AfterEach
+    public void destroy() throws IOException {
+        FileUtils.deleteDirectory(dbPath.toString());
+    }
+
+    @Test
+    public void test_concurrentPositionalIO() throws IOException, ExecutionException, InterruptedException {
+        Path path = dbPath.resolve("file");
+        int blocks = 200;
+        int blockSize = 64;
+
+        try (SynchronousFileChannel channel = new SynchronousFileChannel(path, Set.of(StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE))) {
+            // Every write lands at its own position, whatever the order threads run in
+            List<Future<Integer>> futures = new ArrayList<>();
+            try (ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < blocks; i++) {
+                    byte[] block = new byte[blockSize];
+                    Arrays.fill(block, (byte) i);
+                    int position = i * blockSize;
+                    futures.add(executorService.submit(() -> channel.write(ByteBuffer.wrap(block), position).get()));
+                }
+            }
+            for (Future<Integer> future : futures) {
+                Assertions.assertEquals(blockSize, future.get());
+            }
+            Assertions.assertEquals((long) blocks * blockSize, channel.size());
+
+            List<Future<byte[]>> reads = new ArrayList<>();
+            try (ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < blocks; i++) {
+                    int position = i * blockSize;
+                    reads.add(executorService.submit(() -> com.github.sepgh.testudo.utils.FileUtils.readBytes(channel, position, blockSize).get()));
+                }
+            }
+            for (int i = 0; i < blocks; i++) {
+                byte[] block = reads.get(i).get();
+                Assertions.assertEquals(blockSize, block.length);
+                Assertions.assertEquals((byte) i, block[0]);
+                Assertions.assertEquals((byte) i, block[blockSize - 1]);
+            }
+        }
+    }
+
+    @Test
+    public void test_interruptedReadReopensChannel() throws IOException, ExecutionException, InterruptedException, InternalOperationException {
+        Path path = dbPath.resolve("file");
+        Files.write(path, new byte[]{1, 2, 3, 4});
+
+        // An interrupted read fails, but the channel is reopened for everyone else
+        FileHandler fileHandler = FileHandler.synchronous(path.toString(), false);
+        AsynchronousFileChannel channel = fileHandler.getFileChannel();
+        Assertions.assertInstanceOf(SynchronousFileChannel.class, channel);
+        Thread.currentThread().interrupt();
+        Assertions.assertThrows(ExecutionException.class, () -> com.github.sepgh.testudo.utils.FileUtils.readBytes(channel, 0, 4).get());
+        Assertions.assertTrue(Thread.interrupted());
+        Assertions.assertArrayEquals(new byte[]{1, 2, 3, 4}, com.github.sepgh.testudo.utils.FileUtils.readBytes(channel, 0, 4).get());
+        Assertions.assertTrue(channel.isOpen());
+        fileHandler.close();
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.sepgh.test.storage.db;
+
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.storage.db.ClockPageBuffer;
+import com.github.sepgh.testudo.storage.db.Page;
+import com.github.sepgh.testudo.storage.db.PageBuffer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ClockPageBufferTestCase {
+
+    private static Page newPage(PageBuffer.PageTitle title) {
+        return new Page(title.pageNumber(), 100, title.chunk(), new byte[100]);
+    }
+
+    @Test
+    public void test_dirtyPagesAreWrittenOnEviction() throws InternalOperationException {
+        List<PageBuffer.PageTitle> written = Collections.synchronizedList(new ArrayList<>());
+        ClockPageBuffer pageBuffer = new ClockPageBuffer(4, ClockPageBufferTestCase::newPage, page -> written.add(PageBuffer.PageTitle.of(page)), TimeUnit.HOURS.toMillis(1));
+
+        for (int i = 0; i < 10; i++) {
+            Page page = pageBuffer.acquire(new PageBuffer.PageTitle(0, i));
+            pageBuffer.markDirty(page);
+            pageBuffer.release(page);
+        }
+
+        // Six pages had to leave the four frames, and they were written on the way out
+        Assertions.assertEquals(6, written.size());
+        Assertions.assertEquals(6, new HashSet<>(written).size());
+
+        // Flush writes what's left, and a page is not written again until it's marked dirty again
+        Assertions.assertEquals(4, pageBuffer.flush().size());
+        Assertions.assertTrue(pageBuffer.flush().isEmpty());
+        Assertions.assertEquals(10, new HashSet<>(written).size());
+        Assertions.assertEquals(10, written.size());
+        pageBuffer.close();
+    }
+
+    @Test
+    public void test_pinnedPagesAreNotEvicted() throws InternalOperationException {
+        AtomicInteger loads = new AtomicInteger();
+        List<Page> dropped = new ArrayList<>();
+        ClockPageBuffer pageBuffer = new ClockPageBuffer(4, title -> {
+            loads.incrementAndGet();
+            return newPage(title);
+        }, page -> {}, 0, dropped::add);
+
+        List<Page> pinned = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            pinned.add(pageBuffer.acquire(new PageBuffer.PageTitle(0, i)));
+        }
+
+        // Every frame is pinned, so the page goes to an overflow frame that is dropped on its last release
+        Page overflow = pageBuffer.acquire(new PageBuffer.PageTitle(0, 4));
+        Assertions.assertTrue(dropped.isEmpty());
+        pageBuffer.release(overflow);
+        Assertions.assertEquals(List.of(overflow), dropped);
+
+        // Pinned pages are still there
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertSame(pinned.get(i), pageBuffer.acquire(new PageBuffer.PageTitle(0, i)));
+        }
+        Assertions.assertEquals(5, loads.get());
+        pageBuffer.close();
+    }
+
+    @Test
+    public void test_concurrentAcquireAndRelease() throws InternalOperationException, ExecutionException, InterruptedException {
+        Map<PageBuffer.PageTitle, AtomicInteger> loads = new ConcurrentHashMap<>();
+        Set<PageBuffer.PageTitle> written = ConcurrentHashMap.newKeySet();
+        ClockPageBuffer pageBuffer = new ClockPageBuffer(8, title -> {
+            loads.computeIfAbsent(title, t -> new AtomicInteger()).incrementAndGet();
+            return newPage(title);
+        }, page -> written.add(PageBuffer.PageTitle.of(page)), TimeUnit.HOURS.toMillis(1));
+
+        // Many more pages than frames, so frames are evicted and loaded again while others are pinning them
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executorService = Executors.newFixedThreadPool(10)) {
+            for (int t = 0; t < 10; t++) {
+                int seed = t;
+                futures.add(executorService.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 2000; i++) {
+                        PageBuffer.PageTitle title = new PageBuffer.PageTitle(0, random.nextInt(40));
+                        Page page = pageBuffer.acquire(title);
+                        Assertions.assertEquals(title, PageBuffer.PageTitle.of(page));
+                        if (i % 3 == 0) {
+                            pageBuffer.markDirty(page);
+                        }
+                        pageBuffer.release(page);
+                    }
+                    return null;
+                }));
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        pageBuffer.flush();
+        Assertions.assertEquals(40, loads.size());
+        Assertions.assertEquals(loads.keySet(), written);
+        pageBuffer.close();
+    }
+}
@@ -0,0 +1,115 @@
+package com.github.sepgh.test.storage.db;
+
+import com.github.sepgh.test.utils.FileUtils;
+import com.github.sepgh.testudo.context.EngineConfig;
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.storage.db.CompressedPageStore;
+import com.github.sepgh.testudo.storage.db.DeflatePageCodec;
+import com.github.sepgh.testudo.storage.db.PageBuffer;
+import com.github.sepgh.testudo.storage.pool.FileHandlerPool;
+import com.github.sepgh.testudo.storage.pool.FileHandlerPoolSingletonFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+public class CompressedPageStoreTestCase {
+    private static final int PAGE_SIZE = 4096;
+    private Path dbPath;
+    private FileHandlerPool fileHandlerPool;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        this.dbPath = Files.createTempDirectory("TEST_CompressedPageStoreTestCase");
+        EngineConfig engineConfig = EngineConfig.builder()
+                .baseDBPath(this.dbPath.toString())
+                .build();
+        this.fileHandlerPool = new FileHandlerPoolSingletonFactory.DefaultFileHandlerPoolSingletonFactory(engineConfig).getInstance();
+    }
+
+    @AfterEach
+    public void destroy() throws IOException, InternalOperationException {
+        this.fileHandlerPool.closeAll();
+        FileUtils.deleteDirectory(dbPath.toString());
+    }
+
+    private CompressedPageStore getCompressedPageStore() {
+        return new CompressedPageStore(this.dbPath, PAGE_SIZE, new DeflatePageCodec(), chunk -> this.dbPath.resolve("testudo_%d.db.bin".formatted(chunk)), this.fileHandlerPool);
+    }
+
+    // Random bytes hardly compress, so each version of the page takes the same number of slots
+    private byte[] page(int seed) {
+        byte[] random = new byte[1024];
+        new Random(seed).nextBytes(random);
+        return Arrays.copyOf(random, PAGE_SIZE);
+    }
+
+    private long getSlotLength(long length) {
+        return (length + CompressedPageStore.SLOT_ALIGNMENT - 1) / CompressedPageStore.SLOT_ALIGNMENT * CompressedPageStore.SLOT_ALIGNMENT;
+    }
+
+    @Test
+    public void test_pagesAreNotWrittenInPlace() throws InternalOperationException, IOException {
+        CompressedPageStore compressedPageStore = getCompressedPageStore();
+        PageBuffer.PageTitle pageTitle = new PageBuffer.PageTitle(0, 0);
+        compressedPageStore.allocate(0);
+        compressedPageStore.write(pageTitle, page(1));
+        long size = Files.size(dbPath.resolve("testudo_0.db.bin"));
+
+        // New version goes to another slot, since the previous one is not free until the chunk is synced
+        compressedPageStore.write(pageTitle, page(2));
+        Assertions.assertEquals(getSlotLength(size) + size, Files.size(dbPath.resolve("testudo_0.db.bin")));
+        Assertions.assertArrayEquals(page(2), compressedPageStore.read(pageTitle));
+
+        // Once synced, the first slot is reused
+        compressedPageStore.sync(0);
+        compressedPageStore.write(pageTitle, page(3));
+        Assertions.assertEquals(getSlotLength(size) + size, Files.size(dbPath.resolve("testudo_0.db.bin")));
+        Assertions.assertArrayEquals(page(3), compressedPageStore.read(pageTitle));
+        compressedPageStore.close();
+    }
+
+    @Test
+    public void test_filesDontGrowForEver() throws InternalOperationException, IOException {
+        CompressedPageStore compressedPageStore = getCompressedPageStore();
+        PageBuffer.PageTitle pageTitle = new PageBuffer.PageTitle(0, 0);
+        compressedPageStore.allocate(0);
+        compressedPageStore.write(pageTitle, page(0));
+        long size = Files.size(dbPath.resolve("testudo_0.db.bin"));
+
+        // Chunk is synced by the store itself once it has more unsynced slots than pages
+        for (int i = 1; i < 20; i++) {
+            compressedPageStore.write(pageTitle, page(i));
+        }
+        Assertions.assertTrue(Files.size(dbPath.resolve("testudo_0.db.bin")) <= 3 * getSlotLength(size) + size);
+        Assertions.assertArrayEquals(page(19), compressedPageStore.read(pageTitle));
+        compressedPageStore.close();
+    }
+
+    @Test
+    public void test_freeSlotsAreFoundOnOpen() throws InternalOperationException, IOException {
+        CompressedPageStore compressedPageStore = getCompressedPageStore();
+        PageBuffer.PageTitle pageTitle1 = new PageBuffer.PageTitle(0, 0);
+        PageBuffer.PageTitle pageTitle2 = new PageBuffer.PageTitle(0, 1);
+        compressedPageStore.write(pageTitle1, page(1));
+        compressedPageStore.write(pageTitle2, page(2));
+        compressedPageStore.write(pageTitle1, page(3));  // Leaves a gap at the beginning of the file
+        compressedPageStore.close();
+        long size = Files.size(dbPath.resolve("testudo_0.db.bin"));
+
+        compressedPageStore = getCompressedPageStore();
+        Assertions.assertEquals(2, compressedPageStore.getPageCount(0));
+        Assertions.assertArrayEquals(page(3), compressedPageStore.read(pageTitle1));
+        Assertions.assertArrayEquals(page(2), compressedPageStore.read(pageTitle2));
+        compressedPageStore.write(pageTitle2, page(4));
+        Assertions.assertEquals(size, Files.size(dbPath.resolve("testudo_0.db.bin")));
+        Assertions.assertArrayEquals(page(4), compressedPageStore.read(pageTitle2));
+        compressedPageStore.close();
+    }
+}
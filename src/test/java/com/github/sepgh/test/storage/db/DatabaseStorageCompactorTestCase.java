@@ -0,0 +1,194 @@
+package com.github.sepgh.test.storage.db;
+
+import com.github.sepgh.test.utils.FileUtils;
+import com.github.sepgh.testudo.context.EngineConfig;
+import com.github.sepgh.testudo.ds.Pointer;
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.functional.CheckedFunction;
+import com.github.sepgh.testudo.storage.db.*;
+import com.github.sepgh.testudo.storage.pool.FileHandlerPoolSingletonFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+public class DatabaseStorageCompactorTestCase {
+
+    private EngineConfig engineConfig;
+    private Path dbPath;
+    private FileHandlerPoolSingletonFactory fileHandlerPoolSingletonFactory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        this.dbPath = Files.createTempDirectory("TEST_DatabaseStorageCompactorTestCase");
+        this.engineConfig = EngineConfig.builder()
+                .baseDBPath(this.dbPath.toString())
+                .build();
+        this.fileHandlerPoolSingletonFactory = new FileHandlerPoolSingletonFactory.DefaultFileHandlerPoolSingletonFactory(engineConfig);
+    }
+
+    @AfterEach
+    public void destroy() throws IOException {
+        FileUtils.deleteDirectory(dbPath.toString());
+    }
+
+    @Test
+    public void test_compactionRecyclesSparsePages() throws InternalOperationException, IOException {
+        this.engineConfig.setDbPageSize(1000);
+
+        DiskPageDatabaseStorageManager storageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        Map<Pointer, Integer> pointers = new HashMap<>();  // Plays the role of the cluster index
+        for (int i = 0; i < 40; i++) {
+            byte[] data = new byte[100];
+            Arrays.fill(data, (byte) i);
+            pointers.put(storageManager.store(1, 1, 1, data), i);
+        }
+
+        // Keeping one object of every page, other than the last ones
+        List<Pointer> sorted = pointers.keySet().stream().sorted(Comparator.comparingLong(Pointer::getPosition)).toList();
+        for (Pointer pointer : sorted.subList(0, 32)) {
+            if (pointer.getPosition() % 1000 != Page.META_BYTES) {
+                storageManager.remove(pointer);
+                pointers.remove(pointer);
+            }
+        }
+
+        // Object of page 1 is not known to the relocator, so that page is skipped
+        Pointer unknown = sorted.get(8);
+        Assertions.assertEquals(1, unknown.getPosition() / 1000);
+
+        DatabaseStorageCompactor compactor = new DatabaseStorageCompactor(storageManager, new ObjectRelocator() {
+            @Override
+            public boolean isKnown(int schemeId, int collectionId, Pointer pointer) {
+                return !pointer.equals(unknown) && pointers.containsKey(pointer);
+            }
+
+            @Override
+            public boolean relocate(int schemeId, int collectionId, Pointer pointer, CheckedFunction<Pointer, Pointer, InternalOperationException> mover) throws InternalOperationException {
+                Pointer newPointer = mover.apply(pointer);
+                pointers.put(newPointer, pointers.remove(pointer));
+                return true;
+            }
+        }, 0.5, 0);
+        compactor.compact();
+
+        for (Map.Entry<Pointer, Integer> entry : pointers.entrySet()) {
+            Optional<DBObject> optionalDBObject = storageManager.select(entry.getKey());
+            Assertions.assertTrue(optionalDBObject.isPresent());
+            Assertions.assertTrue(optionalDBObject.get().isAlive());
+            Assertions.assertEquals(entry.getValue().byteValue(), optionalDBObject.get().getData()[0]);
+        }
+        Assertions.assertTrue(pointers.containsKey(unknown));
+
+        // Pages 0, 2 and 3 were recycled, their objects were moved to the last pages
+        Set<Long> pages = new HashSet<>();
+        pointers.keySet().forEach(pointer -> pages.add(pointer.getPosition() / 1000));
+        Assertions.assertFalse(pages.contains(0L));
+        Assertions.assertTrue(pages.contains(1L));
+        Assertions.assertFalse(pages.contains(2L));
+        Assertions.assertFalse(pages.contains(3L));
+
+        // New objects fill the holes of page 1 and the recycled pages before the file grows
+        long fileSize = Files.size(storageManager.getDBFileName(0));
+        Set<Long> newPages = new HashSet<>();
+        for (int i = 0; i < 23; i++) {
+            newPages.add(storageManager.store(1, 1, 1, new byte[100]).getPosition() / 1000);
+        }
+        Assertions.assertTrue(newPages.containsAll(List.of(0L, 1L, 2L)));
+        Assertions.assertEquals(fileSize, Files.size(storageManager.getDBFileName(0)));
+        storageManager.close();
+    }
+
+    @Test
+    public void test_holesAreTracedAgainWhenRelocationFails() throws InternalOperationException, IOException {
+        this.engineConfig.setDbPageSize(1000);
+
+        DiskPageDatabaseStorageManager storageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        List<Pointer> pointers = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            pointers.add(storageManager.store(1, 1, 1, new byte[100]));
+        }
+        // Two objects of the first page are kept
+        List<Pointer> firstPage = pointers.stream().filter(pointer -> pointer.getPosition() / 1000 == 0).toList();
+        for (Pointer pointer : firstPage.subList(2, firstPage.size())) {
+            storageManager.remove(pointer);
+        }
+
+        // First object is moved, relocation of the second one fails
+        Pointer failing = firstPage.get(1);
+        DatabaseStorageCompactor compactor = new DatabaseStorageCompactor(storageManager, new ObjectRelocator() {
+            @Override
+            public boolean isKnown(int schemeId, int collectionId, Pointer pointer) {
+                return true;
+            }
+
+            @Override
+            public boolean relocate(int schemeId, int collectionId, Pointer pointer, CheckedFunction<Pointer, Pointer, InternalOperationException> mover) throws InternalOperationException {
+                if (pointer.equals(failing)) {
+                    return false;
+                }
+                mover.apply(pointer);
+                return true;
+            }
+        }, 0.5, 0);
+        compactor.compact();
+        Assertions.assertTrue(storageManager.select(failing).orElseThrow().isAlive());
+        Assertions.assertFalse(storageManager.select(firstPage.getFirst()).orElseThrow().isAlive());
+
+        // Removed objects and the location of the moved one are reused, rather than leaked
+        long fileSize = Files.size(storageManager.getDBFileName(0));
+        for (int i = 0; i < firstPage.size() - 1; i++) {
+            Assertions.assertEquals(0, storageManager.store(1, 1, 1, new byte[100]).getPosition() / 1000);
+        }
+        Assertions.assertEquals(fileSize, Files.size(storageManager.getDBFileName(0)));
+        storageManager.close();
+    }
+
+    @Test
+    public void test_recycledPagesSurviveRestart() throws InternalOperationException, IOException {
+        this.engineConfig.setDbPageSize(1000);
+
+        DiskPageDatabaseStorageManager storageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        List<Pointer> pointers = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            pointers.add(storageManager.store(1, 1, 1, new byte[100]));
+        }
+        // First three pages are emptied
+        for (Pointer pointer : pointers) {
+            if (pointer.getPosition() / 1000 < 3) {
+                storageManager.remove(pointer);
+            }
+        }
+
+        DatabaseStorageCompactor compactor = new DatabaseStorageCompactor(storageManager, new ObjectRelocator() {
+            @Override
+            public boolean isKnown(int schemeId, int collectionId, Pointer pointer) {
+                return true;
+            }
+
+            @Override
+            public boolean relocate(int schemeId, int collectionId, Pointer pointer, CheckedFunction<Pointer, Pointer, InternalOperationException> mover) throws InternalOperationException {
+                mover.apply(pointer);
+                return true;
+            }
+        }, 0.5, 0);
+        compactor.compact();
+        storageManager.close();
+
+        // Recycled pages are filled before the file grows, after a restart too
+        DiskPageDatabaseStorageManager reopenedStorageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        long fileSize = Files.size(reopenedStorageManager.getDBFileName(0));
+        Set<Long> newPages = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            newPages.add(reopenedStorageManager.store(1, 1, 1, new byte[100]).getPosition() / 1000);
+        }
+        Assertions.assertTrue(newPages.containsAll(List.of(0L, 1L, 2L)));
+        Assertions.assertEquals(fileSize, Files.size(reopenedStorageManager.getDBFileName(0)));
+        reopenedStorageManager.close();
+    }
+}
@@ -7,19 +7,28 @@ import com.github.sepgh.testudo.ds.Pointer;
 import com.github.sepgh.testudo.exception.InternalOperationException;
 import com.github.sepgh.testudo.exception.InvalidDBObjectWrapper;
 import com.github.sepgh.testudo.storage.db.*;
+import com.github.sepgh.testudo.storage.pool.FileHandlerPool;
 import com.github.sepgh.testudo.storage.pool.FileHandlerPoolSingletonFactory;
+import com.github.sepgh.testudo.storage.pool.LimitedFileHandlerPool;
+import com.github.sepgh.testudo.storage.pool.SynchronousFileChannel;
+import com.github.sepgh.testudo.utils.BufferPool;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.stream.Stream;
 
 public class DiskPageDatabaseStorageManagerTestCase {
 
@@ -59,7 +68,7 @@ public class DiskPageDatabaseStorageManagerTestCase {
 
         // Making sure page wrapper is no longer held in referenced pages
         PageBuffer pageBuffer = ((DiskPageDatabaseStorageManager) storageManager).getPageBuffer();
-        Field referencedWrappers = PageBuffer.class.getDeclaredField("referencedWrappers");
+        Field referencedWrappers = LRUPageBuffer.class.getDeclaredField("referencedWrappers");
         referencedWrappers.setAccessible(true);
         Map<PageBuffer.PageTitle, PageBuffer.PageWrapper> referencedPageWrappers = (Map<PageBuffer.PageTitle, PageBuffer.PageWrapper>) referencedWrappers.get(pageBuffer);
         Assertions.assertTrue(referencedPageWrappers.isEmpty());
@@ -230,6 +239,33 @@ public class DiskPageDatabaseStorageManagerTestCase {
     }
 
 
+    @Test
+    public void test_selectWithFunctionReadsInPlace() throws InternalOperationException {
+        this.engineConfig.setDbPageFrameArenaSize(2);
+        this.engineConfig.setDbPageBufferSize(2);
+        DatabaseStorageManager storageManager = getDatabaseStorageManagerFactory().getInstance();
+
+        byte[] data = ByteBuffer.allocate(Integer.BYTES + Long.BYTES + 1).putInt(42).putLong(-7L).put((byte) 3).array();
+        Pointer pointer = storageManager.store(1, 1, 1, data);
+
+        Optional<Long> optionalLong = storageManager.select(pointer, dbObject -> {
+            Assertions.assertEquals(42, dbObject.getInt(0));
+            Assertions.assertEquals(3, dbObject.getByte(Integer.BYTES + Long.BYTES));
+
+            ByteBuffer view = dbObject.getDataView();
+            Assertions.assertTrue(view.isReadOnly());
+            Assertions.assertEquals(data.length, view.remaining());
+            Assertions.assertEquals(42, view.getInt(0));
+            Assertions.assertThrows(java.nio.ReadOnlyBufferException.class, () -> view.put(0, (byte) 1));
+            return dbObject.getLong(Integer.BYTES);
+        });
+        Assertions.assertEquals(-7L, optionalLong.orElseThrow());
+
+        storageManager.remove(pointer);
+        Assertions.assertEquals(Optional.of(false), storageManager.select(pointer, DBObject::isAlive));
+        storageManager.close();
+    }
+
     @Test
     public void test_multiThreadedInsertAndSelect() throws InternalOperationException, InterruptedException {
         DatabaseStorageManagerSingletonFactory databaseStorageManagerSingletonFactory = getDatabaseStorageManagerFactory();
@@ -274,4 +310,687 @@ public class DiskPageDatabaseStorageManagerTestCase {
         executorService.shutdownNow();
     }
 
+
+    @Test
+    public void test_onlyDirtyRangesAreWritten() throws InternalOperationException, IOException {
+        DiskPageDatabaseStorageManager storageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        Pointer pointer = storageManager.store(-1, 17, 1, "Test".getBytes(StandardCharsets.UTF_8));
+
+        // Page content that is not modified should not be written again, so a marker outside the object survives
+        Path dbFile = storageManager.getDBFileName(0);
+        byte[] marker = "Marker".getBytes(StandardCharsets.UTF_8);
+        int markerPosition = 1000;
+        try (FileChannel fileChannel = FileChannel.open(dbFile, StandardOpenOption.WRITE)) {
+            fileChannel.write(ByteBuffer.wrap(marker), markerPosition);
+        }
+
+        storageManager.update(pointer, dbObject -> dbObject.setVersion(2));
+        storageManager.remove(pointer);
+
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(dbFile));
+        Assertions.assertEquals(ByteBuffer.wrap(marker), content.slice(markerPosition, marker.length));
+        Assertions.assertFalse(DBObject.isAlive(content, (int) pointer.getPosition()));
+        Assertions.assertEquals(2, DBObject.getVersion(content, (int) pointer.getPosition()));
+    }
+
+    @Test
+    public void test_memoryMappedPages() throws InternalOperationException {
+        this.engineConfig.setPageStorageStrategy(EngineConfig.PageStorageStrategy.MEMORY_MAPPED);
+        DatabaseStorageManager storageManager = getDatabaseStorageManagerFactory().getInstance();
+        Assertions.assertInstanceOf(MappedPageDatabaseStorageManager.class, storageManager);
+
+        Pointer pointer1 = storageManager.store(-1, 17, 1, "Test".getBytes(StandardCharsets.UTF_8));
+        Pointer pointer2 = storageManager.store(-1, 17, 1, "Nest".getBytes(StandardCharsets.UTF_8));
+        storageManager.update(pointer1, "Best".getBytes(StandardCharsets.UTF_8));
+        storageManager.remove(pointer2);
+
+        Optional<DBObject> optionalDBObject = storageManager.select(pointer1);
+        Assertions.assertTrue(optionalDBObject.isPresent());
+        Assertions.assertEquals("Best", new String(optionalDBObject.get().getData(), StandardCharsets.UTF_8));
+        storageManager.close();
+
+        // Changes made through mapped pages are visible to file channel reads
+        this.engineConfig.setPageStorageStrategy(EngineConfig.PageStorageStrategy.FILE_CHANNEL);
+        DiskPageDatabaseStorageManager fileChannelStorageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        optionalDBObject = fileChannelStorageManager.select(pointer1);
+        Assertions.assertTrue(optionalDBObject.isPresent());
+        Assertions.assertTrue(optionalDBObject.get().isAlive());
+        Assertions.assertEquals("Best", new String(optionalDBObject.get().getData(), StandardCharsets.UTF_8));
+
+        optionalDBObject = fileChannelStorageManager.select(pointer2);
+        Assertions.assertTrue(optionalDBObject.isPresent());
+        Assertions.assertFalse(optionalDBObject.get().isAlive());
+        fileChannelStorageManager.close();
+
+        // Mapped pages could reach the file before their log records, so the combination is refused
+        this.engineConfig.setPageCommitStrategy(EngineConfig.PageCommitStrategy.WRITE_AHEAD_LOG);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new MappedPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance()));
+    }
+
+    @Test
+    public void test_pageFrameArena() throws InternalOperationException, InterruptedException {
+        this.engineConfig.setDbPageSize(200);
+        this.engineConfig.setDbPageFrameArenaSize(4);
+
+        DiskPageDatabaseStorageManager storageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        PageFrameArena pageFrameArena = storageManager.getPageFrameArena();
+        Assertions.assertNotNull(pageFrameArena);
+
+        List<Pointer> pointers = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            pointers.add(storageManager.store(-1, 1, 1, ("Value " + i).getBytes(StandardCharsets.UTF_8)));
+        }
+
+        // Selected objects should not change when the frame of their page is reused by other pages
+        Optional<DBObject> first = storageManager.select(pointers.getFirst());
+        Assertions.assertTrue(first.isPresent());
+        for (int i = 0; i < pointers.size(); i++) {
+            Optional<DBObject> dbObject = storageManager.select(pointers.get(i));
+            Assertions.assertTrue(dbObject.isPresent());
+            Assertions.assertTrue(dbObject.get().isAlive());
+            Assertions.assertEquals("Value " + i, new String(dbObject.get().getData(), StandardCharsets.UTF_8));
+        }
+        Assertions.assertEquals("Value 0", new String(first.get().getData(), StandardCharsets.UTF_8));
+
+        // Every frame is back to the arena once no page is referenced and selected objects are unreachable
+        first = null;
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (pageFrameArena.getFreeFrameCount() < 4 && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(4, pageFrameArena.getFreeFrameCount());
+        storageManager.close();
+    }
+
+    @Test
+    public void test_diskRemovedObjectsTracerSurvivesRestart() throws InternalOperationException {
+        this.engineConfig.setRemovedObjectTrackingStrategy(EngineConfig.RemovedObjectTrackingStrategy.DISK);
+
+        DatabaseStorageManager storageManager = getDatabaseStorageManagerFactory().getInstance();
+        Pointer pointer1 = storageManager.store(-1, 1, 1, new byte[100]);
+        Pointer pointer2 = storageManager.store(-1, 1, 1, new byte[100]);
+        Pointer pointer3 = storageManager.store(-1, 1, 1, new byte[50]);
+        storageManager.remove(pointer2);
+        storageManager.remove(pointer3);
+        Assertions.assertTrue(Files.exists(Path.of(dbPath.toString(), "testudo_0.fsm.bin")));
+        storageManager.close();
+
+        DiskPageDatabaseStorageManager reopenedStorageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance(), new DiskRemovedObjectsTracer(dbPath));
+        Assertions.assertEquals(2, reopenedStorageManager.getRemovedObjectsTracer().getRemovedObjectLocations().size());
+
+        // Best fitting removed location is reused, and is no longer tracked after that
+        Assertions.assertEquals(pointer3, reopenedStorageManager.store(-1, 1, 1, new byte[40]));
+        Assertions.assertEquals(pointer2, reopenedStorageManager.store(-1, 1, 1, new byte[100]));
+        Assertions.assertTrue(reopenedStorageManager.getRemovedObjectsTracer().getRemovedObjectLocations().isEmpty());
+        Assertions.assertTrue(reopenedStorageManager.select(pointer1).get().isAlive());
+        reopenedStorageManager.close();
+
+        reopenedStorageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance(), new DiskRemovedObjectsTracer(dbPath));
+        Assertions.assertTrue(reopenedStorageManager.getRemovedObjectsTracer().getRemovedObjectLocations().isEmpty());
+        reopenedStorageManager.close();
+    }
+
+    @Test
+    public void test_slottedPages() throws InternalOperationException {
+        this.engineConfig.setDbPageSize(200);
+        this.engineConfig.setPageLayout(EngineConfig.PageLayout.SLOTTED);
+
+        // Three objects of 40 bytes (and their slots) fill the page
+        DatabaseStorageManager storageManager = getDatabaseStorageManagerFactory().getInstance();
+        Assertions.assertInstanceOf(SlottedPageDatabaseStorageManager.class, storageManager);
+        byte[] data1 = new byte[40];
+        Arrays.fill(data1, (byte) 1);
+        byte[] data3 = new byte[40];
+        Arrays.fill(data3, (byte) 3);
+        Pointer pointer1 = storageManager.store(-1, 1, 1, data1);
+        Pointer pointer2 = storageManager.store(-1, 1, 1, new byte[40]);
+        Pointer pointer3 = storageManager.store(-1, 1, 1, data3);
+        Assertions.assertEquals(0, pointer1.getPosition());
+        Assertions.assertEquals(1, pointer2.getPosition());
+        Assertions.assertEquals(2, pointer3.getPosition());
+
+        // Slot of the removed object is reused, and the page is compacted to make room for the new object
+        storageManager.remove(pointer2);
+        Assertions.assertTrue(storageManager.select(pointer2).isEmpty());
+        byte[] data2 = new byte[40];
+        Arrays.fill(data2, (byte) 2);
+        Assertions.assertEquals(pointer2, storageManager.store(-1, 1, 1, data2));
+        Assertions.assertArrayEquals(data1, storageManager.select(pointer1).get().getData());
+        Assertions.assertArrayEquals(data3, storageManager.select(pointer3).get().getData());
+
+        // An object only grows within its page, and keeps its pointer
+        Assertions.assertThrows(InvalidDBObjectWrapper.class, () -> storageManager.update(pointer1, new byte[60]));
+        storageManager.update(pointer3, Arrays.copyOf(data3, 20));
+        byte[] newData1 = new byte[55];
+        Arrays.fill(newData1, (byte) 4);
+        storageManager.update(pointer1, newData1);
+        Assertions.assertArrayEquals(newData1, storageManager.select(pointer1).get().getData());
+        Assertions.assertArrayEquals(data2, storageManager.select(pointer2).get().getData());
+        Assertions.assertArrayEquals(Arrays.copyOf(data3, 20), storageManager.select(pointer3).get().getData());
+        Assertions.assertEquals(200, storageManager.store(-1, 1, 1, new byte[10]).getPosition());
+        storageManager.close();
+
+        SlottedPageDatabaseStorageManager reopenedStorageManager = new SlottedPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        Assertions.assertArrayEquals(newData1, reopenedStorageManager.select(pointer1).get().getData());
+        Assertions.assertArrayEquals(data2, reopenedStorageManager.select(pointer2).get().getData());
+        Assertions.assertEquals(1, reopenedStorageManager.select(pointer2).get().getCollectionId());
+        reopenedStorageManager.close();
+    }
+
+    @Test
+    public void test_slottedPagesWithFreeSpaceSurviveRestart() throws InternalOperationException {
+        this.engineConfig.setDbPageSize(200);
+        this.engineConfig.setPageLayout(EngineConfig.PageLayout.SLOTTED);
+
+        // First page is filled by three objects, the fourth one goes to the second page
+        SlottedPageDatabaseStorageManager storageManager = new SlottedPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        storageManager.store(-1, 1, 1, new byte[40]);
+        Pointer pointer2 = storageManager.store(-1, 1, 1, new byte[40]);
+        storageManager.store(-1, 1, 1, new byte[40]);
+        Assertions.assertEquals(200, storageManager.store(-1, 1, 1, new byte[40]).getPosition());
+        storageManager.remove(pointer2);
+        storageManager.close();
+
+        // Space of the removed object is still found in the first page
+        SlottedPageDatabaseStorageManager reopenedStorageManager = new SlottedPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        Assertions.assertEquals(pointer2, reopenedStorageManager.store(-1, 1, 1, new byte[40]));
+        Assertions.assertEquals(201, reopenedStorageManager.store(-1, 1, 1, new byte[40]).getPosition());
+        reopenedStorageManager.close();
+    }
+
+    @Test
+    public void test_storeAllAndRemoveAll() throws InternalOperationException {
+        this.engineConfig.setDbPageSize(100);
+
+        // Three objects of 13 bytes (30 bytes wrapped) fill a page
+        DiskPageDatabaseStorageManager storageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        List<byte[]> dataList = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            byte[] data = new byte[13];
+            Arrays.fill(data, (byte) (i + 1));
+            dataList.add(data);
+        }
+        List<Pointer> pointers = storageManager.storeAll(-1, 1, 1, dataList);
+        Assertions.assertEquals(
+                List.of(Page.META_BYTES, Page.META_BYTES + 30, Page.META_BYTES + 60, 100 + Page.META_BYTES, 100 + Page.META_BYTES + 30),
+                pointers.stream().map(pointer -> (int) pointer.getPosition()).toList()
+        );
+
+        // Removed locations are reused by single stores
+        storageManager.removeAll(List.of(pointers.get(3), pointers.get(0), pointers.get(2)));
+        Assertions.assertFalse(storageManager.select(pointers.get(0)).get().isAlive());
+        Assertions.assertFalse(storageManager.select(pointers.get(3)).get().isAlive());
+        Assertions.assertTrue(storageManager.select(pointers.get(1)).get().isAlive());
+        Assertions.assertTrue(pointers.subList(0, 4).contains(storageManager.store(-1, 1, 1, new byte[13])));
+        storageManager.close();
+
+        DiskPageDatabaseStorageManager reopenedStorageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        Assertions.assertArrayEquals(dataList.get(1), reopenedStorageManager.select(pointers.get(1)).get().getData());
+        Assertions.assertArrayEquals(dataList.get(4), reopenedStorageManager.select(pointers.get(4)).get().getData());
+        Assertions.assertFalse(reopenedStorageManager.select(pointers.get(2)).get().isAlive());
+        reopenedStorageManager.close();
+    }
+
+    @Test
+    public void test_overflowChains() throws InternalOperationException, IOException {
+        this.engineConfig.setDbPageSize(100);
+
+        // 78 bytes of data fit an empty page, larger objects are split into a head and fragments
+        DiskPageDatabaseStorageManager storageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        Assertions.assertEquals(78, OverflowChain.getMaxDataSize(100));
+        byte[] data = new byte[300];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        Pointer small = storageManager.store(-1, 1, 1, new byte[10]);
+        Pointer pointer = storageManager.store(-1, 2, 3, data);
+
+        DBObject dbObject = storageManager.select(pointer).get();
+        Assertions.assertArrayEquals(data, dbObject.getData());
+        Assertions.assertEquals(2, dbObject.getCollectionId());
+        Assertions.assertEquals(3, dbObject.getVersion());
+        Assertions.assertFalse(dbObject.isOverflow());
+        Assertions.assertEquals(300, storageManager.select(pointer, DBObject::getDataSize).get());
+        try (InputStream inputStream = storageManager.openDataStream(pointer).get()) {
+            Assertions.assertArrayEquals(data, inputStream.readAllBytes());
+        }
+
+        // Updates are written over the chain in place
+        byte[] updated = Arrays.copyOf(data, 300);
+        Arrays.fill(updated, 200, 300, (byte) 7);
+        storageManager.update(pointer, updated);
+        Assertions.assertArrayEquals(updated, storageManager.select(pointer).get().getData());
+        storageManager.update(pointer, object -> object.modifyData(Arrays.copyOf(data, 150)));
+        Assertions.assertArrayEquals(Arrays.copyOf(data, 150), storageManager.select(pointer).get().getData());
+        Assertions.assertThrows(InvalidDBObjectWrapper.class, () -> storageManager.update(pointer, new byte[301]));
+        storageManager.close();
+
+        DiskPageDatabaseStorageManager reopenedStorageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        Assertions.assertArrayEquals(Arrays.copyOf(data, 150), reopenedStorageManager.select(pointer).get().getData());
+
+        // Fragments are removed along with the head, and their locations are reused
+        reopenedStorageManager.remove(pointer);
+        Assertions.assertFalse(reopenedStorageManager.select(pointer).get().isAlive());
+        Set<Long> pages = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            pages.add(reopenedStorageManager.store(-1, 1, 1, new byte[40]).getPosition() / 100);
+        }
+        Assertions.assertTrue(pages.stream().allMatch(page -> page < 6));
+        Assertions.assertTrue(reopenedStorageManager.select(small).get().isAlive());
+        reopenedStorageManager.close();
+    }
+
+    @Test
+    public void test_extendOverflowChains() throws InternalOperationException, IOException {
+        this.engineConfig.setDbPageSize(100);
+
+        DiskPageDatabaseStorageManager storageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        byte[] data = new byte[300];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        Pointer pointer = storageManager.store(-1, 2, 3, data);
+        storageManager.getPageBuffer().flush();
+        long size = Files.size(storageManager.getDBFileName(0));
+
+        // Chain grows by fragments appended after its last one, rather than being stored again
+        byte[] extended = Arrays.copyOf(data, 400);
+        extended[0] = 1;
+        Arrays.fill(extended, 290, 400, (byte) 9);
+        Assertions.assertEquals(pointer, storageManager.extend(-1, 2, 3, pointer, extended, 4, 290));
+        Assertions.assertArrayEquals(extended, storageManager.select(pointer).get().getData());
+        storageManager.getPageBuffer().flush();
+        Assertions.assertTrue(Files.size(storageManager.getDBFileName(0)) <= size + 2 * 100);
+
+        // Fragments in the middle of the chain are written from where data changed
+        Arrays.fill(extended, 100, 400, (byte) 5);
+        Assertions.assertEquals(pointer, storageManager.extend(-1, 2, 3, pointer, extended, 4, 100));
+        Assertions.assertArrayEquals(extended, storageManager.select(pointer).get().getData());
+        try (InputStream inputStream = storageManager.openDataStream(pointer).get()) {
+            Assertions.assertArrayEquals(extended, inputStream.readAllBytes());
+        }
+
+        // Objects that outgrow their page are moved, and become chains
+        Pointer small = storageManager.store(-1, 1, 1, new byte[10]);
+        Assertions.assertEquals(small, storageManager.extend(-1, 1, 1, small, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10}, 0, 0));
+        Pointer moved = storageManager.extend(-1, 1, 1, small, data, 0, 0);
+        Assertions.assertNotEquals(small, moved);
+        Assertions.assertFalse(storageManager.select(small).get().isAlive());
+        Assertions.assertArrayEquals(data, storageManager.select(moved).get().getData());
+        storageManager.close();
+
+        DiskPageDatabaseStorageManager reopenedStorageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        Assertions.assertArrayEquals(extended, reopenedStorageManager.select(pointer).get().getData());
+        reopenedStorageManager.close();
+    }
+
+    @Test
+    public void test_directIO() throws InternalOperationException, IOException {
+        this.engineConfig.setDbPageSize(2 * EngineConfig.DIRECT_IO_ALIGNMENT);
+        this.engineConfig.setDbDirectIO(true);
+        this.engineConfig.setFileHandlerStrategy(EngineConfig.FileHandlerStrategy.LIMITED);
+
+        // Objects are written a whole aligned block at a time
+        DiskPageDatabaseStorageManager storageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        byte[] data = new byte[3000];
+        Arrays.fill(data, (byte) 1);
+        Pointer pointer1 = storageManager.store(-1, 1, 1, data);
+        Pointer pointer2 = storageManager.store(-1, 1, 1, data);
+        Pointer pointer3 = storageManager.store(-1, 1, 1, data);
+        Assertions.assertEquals(1, pointer3.getPosition() / engineConfig.getDbPageSize());
+        storageManager.update(pointer2, new byte[3000]);
+        storageManager.remove(pointer1);
+        storageManager.close();
+        Assertions.assertEquals(2L * engineConfig.getDbPageSize(), Files.size(storageManager.getDBFileName(0)));
+
+        // Unaligned content went through pooled aligned buffers, which are kept for the next I/O
+        DirectFilePageIO pageIO = Assertions.assertInstanceOf(DirectFilePageIO.class, storageManager.getPageIO());
+        BufferPool alignedBufferPool = pageIO.getAlignedBufferPool();
+        Assertions.assertTrue(alignedBufferPool.getIdleCount() > 0);
+        ByteBuffer alignedBuffer = alignedBufferPool.acquire();
+        Assertions.assertTrue(alignedBuffer.isDirect());
+        Assertions.assertEquals(0, alignedBuffer.alignmentOffset(0, EngineConfig.DIRECT_IO_ALIGNMENT));
+        Assertions.assertEquals(engineConfig.getDbPageSize(), alignedBuffer.capacity());
+        alignedBufferPool.release(alignedBuffer);
+
+        // Data files are opened by the configured pool, so they count against its limit
+        LimitedFileHandlerPool fileHandlerPool = (LimitedFileHandlerPool) fileHandlerPoolSingletonFactory.getInstance();
+        Assertions.assertNotNull(fileHandlerPool.getFileHandler(storageManager.getDBFileName(0).toString()));
+
+        // Frames of the arena are aligned, so pages are read into them directly
+        this.engineConfig.setDbPageFrameArenaSize(2);
+        DiskPageDatabaseStorageManager reopenedStorageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        Assertions.assertFalse(reopenedStorageManager.select(pointer1).get().isAlive());
+        Assertions.assertArrayEquals(new byte[3000], reopenedStorageManager.select(pointer2).get().getData());
+        Assertions.assertArrayEquals(data, reopenedStorageManager.select(pointer3).get().getData());
+        reopenedStorageManager.close();
+    }
+
+    @Test
+    public void test_durabilityLevels() throws InternalOperationException, InterruptedException {
+        this.engineConfig.setDbPageSize(100);
+
+        // Commits force the file before they return
+        this.engineConfig.setDurability(EngineConfig.Durability.COMMIT);
+        DiskPageDatabaseStorageManager storageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        Pointer pointer = storageManager.store(-1, 1, 1, new byte[10]);
+        Path path = storageManager.getDBFileName(0);
+        FileHandlerPool fileHandlerPool = storageManager.getFileHandlerPool();
+        fileHandlerPool.getFileChannel(path, 1, TimeUnit.SECONDS);
+        Assertions.assertFalse(fileHandlerPool.isDirty(path));
+        storageManager.close();
+
+        // Dirty files are forced in background
+        this.engineConfig.setDurability(EngineConfig.Durability.PERIODIC);
+        this.engineConfig.setDurabilityForceInterval(200);
+        DiskPageDatabaseStorageManager periodicStorageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPool);
+        periodicStorageManager.update(pointer, new byte[10]);
+        Assertions.assertTrue(fileHandlerPool.isDirty(path));
+        for (int i = 0; i < 40 && fileHandlerPool.isDirty(path); i++) {
+            Thread.sleep(50);
+        }
+        Assertions.assertFalse(fileHandlerPool.isDirty(path));
+        fileHandlerPool.releaseFileChannel(path, 1, TimeUnit.SECONDS);
+        periodicStorageManager.close();
+    }
+
+    @Test
+    public void test_synchronousFileIO() throws InternalOperationException, IOException, ExecutionException, InterruptedException {
+        this.engineConfig.setDbPageSize(200);
+        this.engineConfig.setDbReadAheadPages(2);
+        this.engineConfig.setFileIOStrategy(EngineConfig.FileIOStrategy.SYNCHRONOUS);
+
+        DiskPageDatabaseStorageManager storageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        Path path = storageManager.getDBFileName(0);
+        Assertions.assertInstanceOf(SynchronousFileChannel.class, storageManager.getFileHandlerPool().getFileChannel(path, 1, TimeUnit.SECONDS));
+        storageManager.getFileHandlerPool().releaseFileChannel(path, 1, TimeUnit.SECONDS);
+
+        List<Future<KeyValue<String, Pointer>>> futures = new ArrayList<>();
+        try (ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 50; i++) {
+                String value = "Value " + i;
+                futures.add(executorService.submit(() -> new KeyValue<>(value, storageManager.store(-1, 1, 1, value.getBytes(StandardCharsets.UTF_8)))));
+            }
+        }
+        for (Future<KeyValue<String, Pointer>> future : futures) {
+            KeyValue<String, Pointer> keyValue = future.get();
+            Assertions.assertEquals(keyValue.key(), new String(storageManager.select(keyValue.value()).get().getData(), StandardCharsets.UTF_8));
+        }
+        storageManager.close();
+    }
+
+    @Test
+    public void test_superblockRecordsLastPage() throws InternalOperationException {
+        this.engineConfig.setDbPageSize(100);
+
+        DiskPageDatabaseStorageManager storageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        storageManager.store(-1, 1, 1, new byte[60]);
+        Pointer pointer = storageManager.store(-1, 1, 1, new byte[60]);
+        Assertions.assertEquals(100 + Page.META_BYTES, pointer.getPosition());
+
+        // Superblock is not clean while the storage manager is open
+        Superblock superblock = new Superblock(dbPath);
+        Assertions.assertFalse(superblock.read().get().clean());
+        storageManager.close();
+
+        Superblock.State state = superblock.read().get();
+        Assertions.assertTrue(state.clean());
+        Assertions.assertEquals(1, state.chunkCount());
+        Assertions.assertEquals(new PageBuffer.PageTitle(0, 1), state.tailPageTitle());
+        Assertions.assertEquals(new PageBuffer.PageTitle(0, 1), state.lastPageTitle());
+
+        // Objects keep being appended to the recorded last page after restart
+        storageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        Pointer nextPointer = storageManager.store(-1, 1, 1, new byte[1]);
+        Assertions.assertEquals(pointer.getPosition() + DBObject.getWrappedSize(60), nextPointer.getPosition());
+        storageManager.store(-1, 1, 1, new byte[60]);
+
+        // Without a clean shutdown, files are probed again
+        DiskPageDatabaseStorageManager recoveredStorageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        Assertions.assertEquals(200 + Page.META_BYTES + DBObject.getWrappedSize(60), recoveredStorageManager.store(-1, 1, 1, new byte[1]).getPosition());
+        recoveredStorageManager.close();
+        storageManager.close();
+    }
+
+    @Test
+    public void test_compressedPages() throws InternalOperationException, IOException {
+        this.engineConfig.setDbPageSize(4096);
+        this.engineConfig.setDbPageBufferSize(2);
+        this.engineConfig.setPageCompression(EngineConfig.PageCompression.DEFLATE);
+
+        // Zero padded values, like the ones of char fields
+        List<Pointer> pointers = new ArrayList<>();
+        DatabaseStorageManager storageManager = getDatabaseStorageManagerFactory().getInstance();
+        for (int i = 0; i < 40; i++) {
+            byte[] data = new byte[512];
+            data[0] = (byte) i;
+            pointers.add(storageManager.store(-1, 1, 1, data));
+        }
+        storageManager.update(pointers.get(3), "Test".getBytes(StandardCharsets.UTF_8));
+        storageManager.remove(pointers.get(5));
+        storageManager.close();
+
+        long pageCount = Files.size(Path.of(dbPath.toString(), "testudo_0.pot.bin")) / (Long.BYTES + 2 * Integer.BYTES);
+        Assertions.assertTrue(pageCount >= 5);
+        Assertions.assertTrue(Files.size(Path.of(dbPath.toString(), "testudo_0.db.bin")) * 4 < pageCount * 4096);
+
+        DiskPageDatabaseStorageManager reopenedStorageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        Assertions.assertEquals("Test", new String(reopenedStorageManager.select(pointers.get(3)).get().getData(), StandardCharsets.UTF_8));
+        Assertions.assertFalse(reopenedStorageManager.select(pointers.get(5)).get().isAlive());
+        for (int i = 6; i < 40; i++) {
+            DBObject dbObject = reopenedStorageManager.select(pointers.get(i)).get();
+            Assertions.assertTrue(dbObject.isAlive());
+            Assertions.assertEquals((byte) i, dbObject.getData()[0]);
+        }
+        reopenedStorageManager.close();
+    }
+
+    // Delegates to another buffer and keeps track of the pages that are pinned through it
+    private static class PinTrackingPageBuffer implements PageBuffer {
+        private final PageBuffer pageBuffer;
+        private final Map<PageBuffer.PageTitle, Integer> pinned = new ConcurrentHashMap<>();
+
+        private PinTrackingPageBuffer(PageBuffer pageBuffer) {
+            this.pageBuffer = pageBuffer;
+        }
+
+        @Override
+        public Page acquire(PageTitle title) throws InternalOperationException {
+            Page page = this.pageBuffer.acquire(title);
+            this.pinned.merge(title, 1, Integer::sum);
+            return page;
+        }
+
+        @Override
+        public void release(PageTitle title) {
+            this.pinned.computeIfPresent(title, (k, count) -> count == 1 ? null : count - 1);
+            this.pageBuffer.release(title);
+        }
+
+        @Override
+        public void releaseAll() {
+            this.pinned.clear();
+            this.pageBuffer.releaseAll();
+        }
+
+        @Override
+        public void markDirty(Page page) {
+            this.pageBuffer.markDirty(page);
+        }
+
+        @Override
+        public Collection<PageTitle> flush() throws InternalOperationException {
+            return this.pageBuffer.flush();
+        }
+
+        @Override
+        public void close() throws InternalOperationException {
+            this.pageBuffer.close();
+        }
+
+        private Set<PageTitle> awaitPinned(Set<PageTitle> expected) throws InterruptedException {
+            for (int i = 0; i < 100 && !new HashSet<>(this.pinned.keySet()).equals(expected); i++) {
+                Thread.sleep(10);
+            }
+            return new HashSet<>(this.pinned.keySet());
+        }
+    }
+
+    @Test
+    public void test_readAheadOfSequentialScan() throws InternalOperationException, InterruptedException {
+        this.engineConfig.setDbPageSize(100);
+
+        DiskPageDatabaseStorageManager storageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        List<Pointer> pointers = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            pointers.add(storageManager.store(-1, 1, 1, new byte[60]));  // A page each
+        }
+
+        PinTrackingPageBuffer pageBuffer = new PinTrackingPageBuffer(storageManager.getPageBuffer());
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        ReadAhead readAhead = new PageReadAhead(pageBuffer, executorService, 100, 3, chunk -> 6);
+        readAhead.accessed(pointers.get(0));
+        Assertions.assertTrue(pageBuffer.pinned.isEmpty());
+
+        // Moving to the next page pins the following pages, but never pages that are not allocated
+        readAhead.accessed(pointers.get(1));
+        Set<PageBuffer.PageTitle> expected = Set.of(new PageBuffer.PageTitle(0, 2), new PageBuffer.PageTitle(0, 3), new PageBuffer.PageTitle(0, 4));
+        Assertions.assertEquals(expected, pageBuffer.awaitPinned(expected));
+
+        readAhead.accessed(pointers.get(3));
+        expected = Set.of(new PageBuffer.PageTitle(0, 3), new PageBuffer.PageTitle(0, 4), new PageBuffer.PageTitle(0, 5));
+        Assertions.assertEquals(expected, pageBuffer.awaitPinned(expected));
+
+        readAhead.close();
+        Assertions.assertEquals(Set.of(), pageBuffer.awaitPinned(Set.of()));
+        executorService.shutdown();
+        storageManager.close();
+    }
+
+    @Test
+    public void test_writeBackDirtyPages() throws InternalOperationException {
+        this.engineConfig.setPageCommitStrategy(EngineConfig.PageCommitStrategy.WRITE_BACK);
+        this.engineConfig.setDbPageFlushInterval(TimeUnit.HOURS.toMillis(1));
+
+        DiskPageDatabaseStorageManager storageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        Pointer pointer1 = storageManager.store(-1, 17, 1, "Test".getBytes(StandardCharsets.UTF_8));
+        Pointer pointer2 = storageManager.store(-1, 17, 1, "Nest".getBytes(StandardCharsets.UTF_8));
+        storageManager.update(pointer1, "Best".getBytes(StandardCharsets.UTF_8));
+        storageManager.remove(pointer2);
+
+        // Modifications are visible before they are written back
+        Optional<DBObject> optionalDBObject = storageManager.select(pointer1);
+        Assertions.assertTrue(optionalDBObject.isPresent());
+        Assertions.assertEquals("Best", new String(optionalDBObject.get().getData(), StandardCharsets.UTF_8));
+
+        storageManager.close();
+
+        DiskPageDatabaseStorageManager reopenedStorageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        optionalDBObject = reopenedStorageManager.select(pointer1);
+        Assertions.assertTrue(optionalDBObject.isPresent());
+        Assertions.assertTrue(optionalDBObject.get().isAlive());
+        Assertions.assertEquals("Best", new String(optionalDBObject.get().getData(), StandardCharsets.UTF_8));
+
+        optionalDBObject = reopenedStorageManager.select(pointer2);
+        Assertions.assertTrue(optionalDBObject.isPresent());
+        Assertions.assertFalse(optionalDBObject.get().isAlive());
+        reopenedStorageManager.close();
+    }
+
+    @Test
+    public void test_writeAheadLogRecovery() throws InternalOperationException, IOException {
+        this.engineConfig.setPageCommitStrategy(EngineConfig.PageCommitStrategy.WRITE_AHEAD_LOG);
+        this.engineConfig.setWalCheckpointInterval(TimeUnit.HOURS.toMillis(1));
+
+        DiskPageDatabaseStorageManager storageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        Pointer pointer1 = storageManager.store(-1, 17, 1, "Test".getBytes(StandardCharsets.UTF_8));
+        Pointer pointer2 = storageManager.store(-1, 17, 1, "Nest".getBytes(StandardCharsets.UTF_8));
+        storageManager.remove(pointer2);
+
+        // Nothing is checkpointed yet, so a copy of the files taken now is what a crash would leave behind.
+        // The storage manager is then closed (which checkpoints) and the copy is put back in place of its files.
+        Assertions.assertTrue(Files.exists(Path.of(dbPath.toString(), "testudo.wal.bin")));
+        Path crashPath = Files.createTempDirectory("TEST_DatabaseStorageManagerTestCaseCrash");
+        try (Stream<Path> files = Files.list(dbPath)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, crashPath.resolve(file.getFileName()));
+            }
+        }
+        storageManager.close();
+        fileHandlerPoolSingletonFactory.getInstance().closeAll();
+        FileUtils.deleteDirectory(dbPath.toString());
+        Files.move(crashPath, dbPath);
+
+        DiskPageDatabaseStorageManager recoveredStorageManager = new DiskPageDatabaseStorageManager(
+                engineConfig,
+                new FileHandlerPoolSingletonFactory.DefaultFileHandlerPoolSingletonFactory(engineConfig).getInstance()
+        );
+
+        Optional<DBObject> optionalDBObject = recoveredStorageManager.select(pointer1);
+        Assertions.assertTrue(optionalDBObject.isPresent());
+        Assertions.assertTrue(optionalDBObject.get().isAlive());
+        Assertions.assertEquals("Test", new String(optionalDBObject.get().getData(), StandardCharsets.UTF_8));
+
+        optionalDBObject = recoveredStorageManager.select(pointer2);
+        Assertions.assertTrue(optionalDBObject.isPresent());
+        Assertions.assertFalse(optionalDBObject.get().isAlive());
+
+        Pointer pointer3 = recoveredStorageManager.store(-1, 17, 1, "Best".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertTrue(pointer3.getPosition() >= pointer2.getPosition() + DBObject.getWrappedSize(4));
+
+        recoveredStorageManager.close();
+        Assertions.assertEquals(0, Path.of(dbPath.toString(), "testudo.wal.bin").toFile().length());
+    }
+
+    @Test
+    public void test_writeAheadLogRecoveryOfReusedLocation() throws InternalOperationException, IOException {
+        this.engineConfig.setPageCommitStrategy(EngineConfig.PageCommitStrategy.WRITE_AHEAD_LOG);
+        this.engineConfig.setWalCheckpointInterval(TimeUnit.HOURS.toMillis(1));
+
+        DiskPageDatabaseStorageManager storageManager = new DiskPageDatabaseStorageManager(engineConfig, fileHandlerPoolSingletonFactory.getInstance());
+        byte[] large = new byte[200];
+        Arrays.fill(large, (byte) 7);
+        Pointer pointer1 = storageManager.store(-1, 17, 1, large);
+        Pointer pointer2 = storageManager.store(-1, 17, 1, "Test".getBytes(StandardCharsets.UTF_8));
+        storageManager.remove(pointer1);
+
+        // Rest of the removed location is turned into a dead object, which has to be logged along with the new object
+        Pointer pointer3 = storageManager.store(-1, 17, 1, "Nest".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertEquals(pointer1, pointer3);
+
+        Path crashPath = Files.createTempDirectory("TEST_DatabaseStorageManagerTestCaseCrash");
+        try (Stream<Path> files = Files.list(dbPath)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, crashPath.resolve(file.getFileName()));
+            }
+        }
+        storageManager.close();
+        fileHandlerPoolSingletonFactory.getInstance().closeAll();
+        FileUtils.deleteDirectory(dbPath.toString());
+        Files.move(crashPath, dbPath);
+
+        DiskPageDatabaseStorageManager recoveredStorageManager = new DiskPageDatabaseStorageManager(
+                engineConfig,
+                new FileHandlerPoolSingletonFactory.DefaultFileHandlerPoolSingletonFactory(engineConfig).getInstance()
+        );
+
+        Optional<DiskPageDatabaseStorageManager.PageUsage> pageUsage = recoveredStorageManager.getPageUsage(new PageBuffer.PageTitle(0, 0));
+        Assertions.assertTrue(pageUsage.isPresent());
+        Assertions.assertTrue(pageUsage.get().contiguous());
+        Assertions.assertEquals(
+                List.of(pointer3, pointer2),
+                pageUsage.get().liveObjects().stream().map(DiskPageDatabaseStorageManager.LiveObject::pointer).toList()
+        );
+
+        Optional<DBObject> optionalDBObject = recoveredStorageManager.select(pointer2);
+        Assertions.assertTrue(optionalDBObject.isPresent());
+        Assertions.assertEquals("Test", new String(optionalDBObject.get().getData(), StandardCharsets.UTF_8));
+        optionalDBObject = recoveredStorageManager.select(pointer3);
+        Assertions.assertTrue(optionalDBObject.isPresent());
+        Assertions.assertEquals("Nest", new String(optionalDBObject.get().getData(), StandardCharsets.UTF_8));
+
+        recoveredStorageManager.close();
+    }
+
 }
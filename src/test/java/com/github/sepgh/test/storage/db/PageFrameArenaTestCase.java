@@ -0,0 +1,92 @@
+package com.github.sepgh.test.storage.db;
+
+import com.github.sepgh.testudo.context.EngineConfig;
+import com.github.sepgh.testudo.storage.db.PageFrameArena;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class PageFrameArenaTestCase {
+
+    @Test
+    public void test_framesAreAlignedAndSeparate() {
+        PageFrameArena pageFrameArena = new PageFrameArena(EngineConfig.DIRECT_IO_ALIGNMENT, 4);
+        Assertions.assertEquals(4, pageFrameArena.getFreeFrameCount());
+
+        List<ByteBuffer> frames = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ByteBuffer frame = pageFrameArena.allocate();
+            Assertions.assertTrue(frame.isDirect());
+            Assertions.assertTrue(pageFrameArena.isFrame(frame));
+            Assertions.assertEquals(EngineConfig.DIRECT_IO_ALIGNMENT, frame.capacity());
+            Assertions.assertEquals(0, frame.alignmentOffset(0, EngineConfig.DIRECT_IO_ALIGNMENT));
+            while (frame.hasRemaining()) {
+                frame.put((byte) i);
+            }
+            frames.add(frame);
+        }
+        Assertions.assertEquals(0, pageFrameArena.getFreeFrameCount());
+
+        // Writing a frame up to its end leaves the other frames untouched
+        for (int i = 0; i < 4; i++) {
+            ByteBuffer frame = frames.get(i);
+            Assertions.assertEquals(i, frame.get(0));
+            Assertions.assertEquals(i, frame.get(frame.capacity() - 1));
+        }
+    }
+
+    @Test
+    public void test_framesAreRecycled() {
+        PageFrameArena pageFrameArena = new PageFrameArena(200, 2);
+        ByteBuffer frame1 = pageFrameArena.allocate();
+        ByteBuffer frame2 = pageFrameArena.allocate();
+
+        // Once the arena runs out of frames, heap buffers are handed out and they are not taken back
+        ByteBuffer heapBuffer = pageFrameArena.allocate();
+        Assertions.assertFalse(heapBuffer.isDirect());
+        Assertions.assertFalse(pageFrameArena.isFrame(heapBuffer));
+        Assertions.assertEquals(200, heapBuffer.capacity());
+        pageFrameArena.recycle(heapBuffer);
+        Assertions.assertEquals(0, pageFrameArena.getFreeFrameCount());
+
+        // Recycled frames are handed out again, cleared
+        frame1.position(50).limit(100);
+        pageFrameArena.recycle(frame1);
+        Assertions.assertEquals(1, pageFrameArena.getFreeFrameCount());
+        ByteBuffer reused = pageFrameArena.allocate();
+        Assertions.assertSame(frame1, reused);
+        Assertions.assertEquals(0, reused.position());
+        Assertions.assertEquals(200, reused.limit());
+
+        pageFrameArena.recycle(reused);
+        pageFrameArena.recycle(frame2);
+        Assertions.assertEquals(2, pageFrameArena.getFreeFrameCount());
+    }
+
+    @Test
+    public void test_retainedFramesAreRecycledOnceUnreachable() throws InterruptedException {
+        PageFrameArena pageFrameArena = new PageFrameArena(200, 1);
+        ByteBuffer frame = pageFrameArena.allocate();
+        Object view = new Object();
+        Assertions.assertTrue(pageFrameArena.retain(frame, view));
+        Assertions.assertFalse(pageFrameArena.retain(ByteBuffer.allocate(200), view));
+
+        // The page leaves the buffer, but the view still holds the frame
+        pageFrameArena.recycle(frame);
+        Assertions.assertEquals(0, pageFrameArena.getFreeFrameCount());
+        Assertions.assertFalse(pageFrameArena.allocate().isDirect());
+
+        view = null;
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (pageFrameArena.getFreeFrameCount() == 0 && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(1, pageFrameArena.getFreeFrameCount());
+        Assertions.assertSame(frame, pageFrameArena.allocate());
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.sepgh.test.storage.db;
+
+import com.github.sepgh.testudo.exception.InvalidDBObjectWrapper;
+import com.github.sepgh.testudo.storage.db.DBObject;
+import com.github.sepgh.testudo.storage.db.Page;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class PageTestCase {
+
+    @Test
+    public void test_dirtyRangesAreAligned() throws InvalidDBObjectWrapper {
+        Page page = new Page(1, 10000, 0, new byte[10000]);
+        DBObject dbObject = page.getEmptyDBObjectWrapper(4).get();
+        dbObject.modifyData("Test".getBytes(StandardCharsets.UTF_8));
+        page.markDirty(5000, 5010);
+        page.markDirty(5005, 5020);
+
+        // Cursor, size and data of the object, and the overlapping ranges
+        int objectBegin = dbObject.getBegin();
+        List<Page.DirtyRange> dirtyRanges = page.drainDirtyRanges(0);
+        Assertions.assertEquals(
+                List.of(
+                        new Page.DirtyRange(0, Page.META_BYTES),
+                        new Page.DirtyRange(objectBegin + DBObject.META_SIZE_OFFSET, dbObject.getEnd()),
+                        new Page.DirtyRange(5000, 5020)
+                ),
+                dirtyRanges
+        );
+        Assertions.assertFalse(page.isDirty());
+
+        // Page begins at file position 10000, so alignment boundaries within the page are at 12288 and 16384 of the file
+        page.markDirty(0, Page.META_BYTES);
+        page.markDirty(6500, 6510);
+        dirtyRanges = page.drainDirtyRanges(4096);
+        Assertions.assertEquals(2, dirtyRanges.size());
+        Assertions.assertEquals(new Page.DirtyRange(0, 12288 - 10000), dirtyRanges.get(0));
+        Assertions.assertEquals(new Page.DirtyRange(16384 - 10000, 10000), dirtyRanges.get(1));
+
+        // Ranges that become adjacent after alignment are merged
+        page.markDirty(0, Page.META_BYTES);
+        page.markDirty(3000, 3010);
+        dirtyRanges = page.drainDirtyRanges(4096);
+        Assertions.assertEquals(List.of(new Page.DirtyRange(0, 16384 - 10000)), dirtyRanges);
+    }
+
+    @Test
+    public void test_drainedRangesAreForgotten() {
+        Page page = new Page(0, 1000, 0, new byte[1000]);
+        Assertions.assertFalse(page.isDirty());
+
+        page.markDirty(100, 200);
+        Assertions.assertTrue(page.isDirty());
+        Assertions.assertEquals(List.of(new Page.DirtyRange(100, 200)), page.drainDirtyRanges(0));
+        Assertions.assertFalse(page.isDirty());
+        Assertions.assertTrue(page.drainDirtyRanges(0).isEmpty());
+    }
+}
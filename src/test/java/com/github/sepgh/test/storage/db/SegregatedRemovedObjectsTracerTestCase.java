@@ -0,0 +1,63 @@
+package com.github.sepgh.test.storage.db;
+
+import com.github.sepgh.testudo.ds.Pointer;
+import com.github.sepgh.testudo.storage.db.RemovedObjectsTracer;
+import com.github.sepgh.testudo.storage.db.SegregatedRemovedObjectsTracer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+
+public class SegregatedRemovedObjectsTracerTestCase {
+
+    @Test
+    public void test_segregatedRemovedObjectsTracer() throws InterruptedException, ExecutionException {
+        SegregatedRemovedObjectsTracer removedObjectsTracer = new SegregatedRemovedObjectsTracer(100);
+        removedObjectsTracer.add(new RemovedObjectsTracer.RemovedObjectLocation(new Pointer(Pointer.TYPE_DATA, 0, 0), 50));
+        removedObjectsTracer.add(new RemovedObjectsTracer.RemovedObjectLocation(new Pointer(Pointer.TYPE_DATA, 100, 0), 300));
+        removedObjectsTracer.add(new RemovedObjectsTracer.RemovedObjectLocation(new Pointer(Pointer.TYPE_DATA, 500, 0), 120));
+
+        // Best fit, without a split since what remains is not longer than 100
+        Assertions.assertEquals(500, removedObjectsTracer.getRemovedObjectLocation(60).get().pointer().getPosition());
+        Assertions.assertEquals(2, removedObjectsTracer.getRemovedObjectLocations().size());
+
+        // Split, and the rest is reused
+        Assertions.assertEquals(100, removedObjectsTracer.getRemovedObjectLocation(150).get().pointer().getPosition());
+        Optional<RemovedObjectsTracer.RemovedObjectLocation> rest = removedObjectsTracer.getRemovedObjectLocation(150);
+        Assertions.assertTrue(rest.isPresent());
+        Assertions.assertEquals(250, rest.get().pointer().getPosition());
+        Assertions.assertEquals(150, rest.get().length());
+
+        Assertions.assertTrue(removedObjectsTracer.getRemovedObjectLocation(51).isEmpty());
+        Assertions.assertEquals(0, removedObjectsTracer.getRemovedObjectLocation(50).get().pointer().getPosition());
+        Assertions.assertTrue(removedObjectsTracer.getRemovedObjectLocations().isEmpty());
+
+        // Every location added concurrently is taken exactly once
+        int threads = 8;
+        int perThread = 2000;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        Set<Long> taken = ConcurrentHashMap.newKeySet();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executorService.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    long position = (long) thread * perThread + i;
+                    removedObjectsTracer.add(new RemovedObjectsTracer.RemovedObjectLocation(new Pointer(Pointer.TYPE_DATA, position, 0), 10 + i % 3));
+                    removedObjectsTracer.getRemovedObjectLocation(10 + i % 2).ifPresent(location -> Assertions.assertTrue(taken.add(location.pointer().getPosition())));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executorService.shutdown();
+
+        removedObjectsTracer.getRemovedObjectLocations().forEach(location -> Assertions.assertTrue(taken.add(location.pointer().getPosition())));
+        Assertions.assertEquals(threads * perThread, taken.size());
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.sepgh.test.storage.db;
+
+import com.github.sepgh.testudo.exception.InternalOperationException;
+import com.github.sepgh.testudo.functional.CheckedFunction;
+import com.github.sepgh.testudo.storage.db.Page;
+import com.github.sepgh.testudo.storage.db.PageBuffer;
+import com.github.sepgh.testudo.storage.db.TwoQPageBuffer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class TwoQPageBufferTestCase {
+
+    @Test
+    public void test_twoQPageBufferScanResistance() throws InternalOperationException {
+        AtomicInteger loads = new AtomicInteger();
+        PageBuffer pageBuffer = new TwoQPageBuffer(8, title -> {
+            loads.incrementAndGet();
+            return new Page(title.pageNumber(), 100, title.chunk(), new byte[100]);
+        });
+        CheckedFunction<Integer, Void, InternalOperationException> touch = pageNumber -> {
+            pageBuffer.release(pageBuffer.acquire(new PageBuffer.PageTitle(0, pageNumber)));
+            return null;
+        };
+
+        // Pages 0 to 3 are loaded, pushed out of IN by other pages, and loaded again, so they are reused and go to MAIN
+        for (int i = 0; i < 4; i++) {
+            touch.apply(i);
+        }
+        for (int i = 100; i < 108; i++) {
+            touch.apply(i);
+        }
+        for (int i = 0; i < 4; i++) {
+            touch.apply(i);
+        }
+        Assertions.assertEquals(16, loads.get());
+
+        // A scan over many more pages than the buffer holds, done twice
+        for (int round = 0; round < 2; round++) {
+            for (int i = 200; i < 240; i++) {
+                touch.apply(i);
+                pageBuffer.useOnce(new PageBuffer.PageTitle(0, i));
+            }
+        }
+        Assertions.assertEquals(96, loads.get());
+
+        for (int i = 0; i < 4; i++) {
+            touch.apply(i);
+        }
+        Assertions.assertEquals(96, loads.get());
+        pageBuffer.close();
+    }
+
+    @Test
+    public void test_twoQPageBufferWritesBackOutsideLock() throws InternalOperationException {
+        AtomicReference<TwoQPageBuffer> pageBufferReference = new AtomicReference<>();
+        List<Integer> written = new ArrayList<>();
+        TwoQPageBuffer pageBuffer = new TwoQPageBuffer(2, title -> new Page(title.pageNumber(), 100, title.chunk(), new byte[100]), page -> {
+            Assertions.assertFalse(Thread.holdsLock(pageBufferReference.get()));
+            written.add(page.getPageNumber());
+        }, 0);
+        pageBufferReference.set(pageBuffer);
+
+        for (int i = 0; i < 2; i++) {
+            Page page = pageBuffer.acquire(new PageBuffer.PageTitle(0, i));
+            pageBuffer.markDirty(page);
+            pageBuffer.release(page);
+        }
+
+        // Loading a third page evicts the first one, which is written back before it's dropped
+        pageBuffer.release(pageBuffer.acquire(new PageBuffer.PageTitle(0, 2)));
+        Assertions.assertEquals(List.of(0), written);
+        pageBuffer.release(pageBuffer.acquire(new PageBuffer.PageTitle(0, 0)));
+        Assertions.assertEquals(List.of(0, 1), written);
+        pageBuffer.close();
+    }
+}
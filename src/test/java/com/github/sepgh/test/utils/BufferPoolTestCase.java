@@ -0,0 +1,65 @@
+package com.github.sepgh.test.utils;
+
+import com.github.sepgh.testudo.context.EngineConfig;
+import com.github.sepgh.testudo.utils.BufferPool;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BufferPoolTestCase {
+
+    @Test
+    public void test_releasedBuffersAreReused() {
+        AtomicInteger allocations = new AtomicInteger();
+        BufferPool bufferPool = new BufferPool(16, 2, () -> {
+            allocations.incrementAndGet();
+            return ByteBuffer.allocate(16);
+        });
+
+        // Released buffer comes back cleared, with whatever its previous user left in it
+        ByteBuffer buffer = bufferPool.acquire();
+        buffer.put((byte) 1).limit(4);
+        bufferPool.release(buffer);
+        Assertions.assertEquals(1, bufferPool.getIdleCount());
+        ByteBuffer reused = bufferPool.acquire();
+        Assertions.assertSame(buffer, reused);
+        Assertions.assertEquals(0, reused.position());
+        Assertions.assertEquals(16, reused.limit());
+        Assertions.assertEquals(1, reused.get(0));
+        Assertions.assertEquals(0, bufferPool.getIdleCount());
+        Assertions.assertEquals(1, allocations.get());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> bufferPool.release(ByteBuffer.allocate(8)));
+    }
+
+    @Test
+    public void test_idleBuffersAreCapped() {
+        BufferPool bufferPool = BufferPool.heap(16, 2);
+        ByteBuffer buffer1 = bufferPool.acquire();
+        ByteBuffer buffer2 = bufferPool.acquire();
+        ByteBuffer buffer3 = bufferPool.acquire();
+
+        // Only `maxIdle` buffers are kept, the third one is left to the GC
+        bufferPool.release(buffer1);
+        bufferPool.release(buffer2);
+        bufferPool.release(buffer3);
+        Assertions.assertEquals(2, bufferPool.getIdleCount());
+        Assertions.assertSame(buffer1, bufferPool.acquire());
+        Assertions.assertSame(buffer2, bufferPool.acquire());
+        Assertions.assertNotSame(buffer3, bufferPool.acquire());
+        Assertions.assertEquals(0, bufferPool.getIdleCount());
+    }
+
+    @Test
+    public void test_alignedBuffers() {
+        BufferPool bufferPool = BufferPool.aligned(2 * EngineConfig.DIRECT_IO_ALIGNMENT, EngineConfig.DIRECT_IO_ALIGNMENT, 1);
+        ByteBuffer buffer = bufferPool.acquire();
+        Assertions.assertTrue(buffer.isDirect());
+        Assertions.assertEquals(2 * EngineConfig.DIRECT_IO_ALIGNMENT, buffer.capacity());
+        Assertions.assertEquals(0, buffer.alignmentOffset(0, EngineConfig.DIRECT_IO_ALIGNMENT));
+        bufferPool.release(buffer);
+        Assertions.assertSame(buffer, bufferPool.acquire());
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.sepgh.test.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+
+public class FileUtilsReadBytesTestCase {
+    private Path dbPath;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dbPath = Files.createTempDirectory("TEST_FileUtilsReadBytesTestCase");
+    }
+
+    @AfterEach
+    public void destroy() throws IOException {
+        FileUtils.deleteDirectory(dbPath.toString());
+    }
+
+    @Test
+    public void test_readBytes() throws IOException, ExecutionException, InterruptedException {
+        Path file = dbPath.resolve("file");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+
+        try (AsynchronousFileChannel channel = AsynchronousFileChannel.open(file, StandardOpenOption.READ)) {
+            // Whole read returns the read array as is
+            Assertions.assertArrayEquals(new byte[]{3, 4, 5}, com.github.sepgh.testudo.utils.FileUtils.readBytes(channel, 2, 3).get());
+
+            // Read that reaches the end of the file only returns the bytes that were read
+            Assertions.assertArrayEquals(new byte[]{7, 8, 9, 10}, com.github.sepgh.testudo.utils.FileUtils.readBytes(channel, 6, 100).get());
+            Assertions.assertArrayEquals(new byte[0], com.github.sepgh.testudo.utils.FileUtils.readBytes(channel, 20, 4).get());
+        }
+    }
+}
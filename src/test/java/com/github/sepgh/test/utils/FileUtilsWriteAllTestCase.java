@@ -0,0 +1,83 @@
+package com.github.sepgh.test.utils;
+
+import com.github.sepgh.testudo.storage.pool.SynchronousFileChannel;
+import com.github.sepgh.testudo.utils.BufferPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+public class FileUtilsWriteAllTestCase {
+    private Path dbPath;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dbPath = Files.createTempDirectory("TEST_FileUtilsWriteAllTestCase");
+    }
+
+    @AfterEach
+    public void destroy() throws IOException {
+        FileUtils.deleteDirectory(dbPath.toString());
+    }
+
+    // Out of order regions, where the first two are adjacent and the third one is separate
+    private List<com.github.sepgh.testudo.utils.FileUtils.Write> writes() {
+        return List.of(
+                new com.github.sepgh.testudo.utils.FileUtils.Write(4, ByteBuffer.wrap(new byte[]{5, 6, 7})),
+                new com.github.sepgh.testudo.utils.FileUtils.Write(10, ByteBuffer.wrap(new byte[]{9, 9})),
+                new com.github.sepgh.testudo.utils.FileUtils.Write(0, ByteBuffer.wrap(new byte[]{1, 2, 3, 4}))
+        );
+    }
+
+    @Test
+    public void test_writeAll() throws IOException, ExecutionException, InterruptedException {
+        Set<StandardOpenOption> openOptions = Set.of(StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        byte[] expected = new byte[]{1, 2, 3, 4, 5, 6, 7, 0, 0, 0, 9, 9};
+
+        Path synchronousFile = dbPath.resolve("synchronous");
+        try (AsynchronousFileChannel channel = new SynchronousFileChannel(synchronousFile, openOptions)) {
+            com.github.sepgh.testudo.utils.FileUtils.writeAll(channel, writes()).get();
+        }
+        Assertions.assertArrayEquals(expected, Files.readAllBytes(synchronousFile));
+
+        // Channels that can't gather get the adjacent regions merged into one write
+        Path asynchronousFile = dbPath.resolve("asynchronous");
+        try (AsynchronousFileChannel channel = AsynchronousFileChannel.open(asynchronousFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            com.github.sepgh.testudo.utils.FileUtils.writeAll(channel, writes()).get();
+        }
+        Assertions.assertArrayEquals(expected, Files.readAllBytes(asynchronousFile));
+    }
+
+    @Test
+    public void test_writeAllWithMergeBufferPool() throws IOException, ExecutionException, InterruptedException {
+        byte[] expected = new byte[]{1, 2, 3, 4, 5, 6, 7, 0, 0, 0, 9, 9};
+        BufferPool mergeBufferPool = BufferPool.heap(64, 1);
+
+        Path asynchronousFile = dbPath.resolve("asynchronous");
+        try (AsynchronousFileChannel channel = AsynchronousFileChannel.open(asynchronousFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            com.github.sepgh.testudo.utils.FileUtils.writeAll(channel, writes(), mergeBufferPool).get();
+        }
+        Assertions.assertArrayEquals(expected, Files.readAllBytes(asynchronousFile));
+        // The merged run was copied into a pooled buffer, which is back in the pool
+        Assertions.assertEquals(1, mergeBufferPool.getIdleCount());
+
+        // Runs larger than the pooled buffers still get merged, into a buffer of their own
+        BufferPool smallMergeBufferPool = BufferPool.heap(4, 1);
+        Path otherFile = dbPath.resolve("other");
+        try (AsynchronousFileChannel channel = AsynchronousFileChannel.open(otherFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            com.github.sepgh.testudo.utils.FileUtils.writeAll(channel, writes(), smallMergeBufferPool).get();
+        }
+        Assertions.assertArrayEquals(expected, Files.readAllBytes(otherFile));
+        Assertions.assertEquals(0, smallMergeBufferPool.getIdleCount());
+    }
+}